@@ -29,21 +29,36 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.CharBuffer;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
 
 /**
- * A container for a word list.
+ * A container for a word list. The words can be split into a read only precompiled tree, which is usually memory
+ * mapped, and the tree of the words added later, for example the user words.
  * @author Volker Berlin
  */
 final class Dictionary extends DictionaryBase {
+	/**
+	 * The read only part of a Dictionary.
+	 */
+	private final static class PrecompiledWords extends DictionaryBase {
+		PrecompiledWords(final CharBuffer tree) {
+			super(tree);
+		}
+	}
+
+	private char[] data;
+	private final PrecompiledWords precompiled;
+
 	/**
 	 * Create an empty Dictionary.
 	 */
 	public Dictionary() {
-		tree = new char[10000];
-		tree[size++] = LAST_CHAR;
+		setData(new char[10000]);
+		data[size++] = LAST_CHAR;
+		precompiled = null;
 	}
 
 	/**
@@ -52,7 +67,38 @@ final class Dictionary extends DictionaryBase {
 	 * @see DictionaryFactory
 	 */
 	public Dictionary(final char[] tree) {
-		super(tree);
+		this(tree, null);
+	}
+
+	/**
+	 * Create an Dictionary from a serialize Dictionary and a precompiled tree. This is used from the
+	 * DictionaryFactory.
+	 * @param tree the words which are not precompiled, the added words are added to it
+	 * @param precompiledTree the precompiled words, can be null
+	 * @see DictionaryFactory#mapPrecompiled(java.net.URL)
+	 */
+	public Dictionary(final char[] tree, final CharBuffer precompiledTree) {
+		setData(tree);
+		size = tree.length;
+		precompiled = precompiledTree == null ? null : new PrecompiledWords(precompiledTree);
+	}
+
+	private void setData(final char[] data) {
+		this.data = data;
+		tree = CharBuffer.wrap(data);
+	}
+
+	@Override
+	public boolean exist(final String word) {
+		return super.exist(word) || precompiled != null && precompiled.exist(word);
+	}
+
+	@Override
+	void searchSuggestions(final Suggestions list, final String word) {
+		super.searchSuggestions(list, word);
+		if (precompiled != null) {
+			precompiled.searchSuggestions(list, word);
+		}
 	}
 
 	/**
@@ -65,7 +111,7 @@ final class Dictionary extends DictionaryBase {
 			final char c = word.charAt(i);
 			searchCharOrAdd(c);
 			if (i == word.length() - 1) {
-				tree[idx + 1] |= 0x8000;
+				data[idx + 1] |= 0x8000;
 				return;
 			}
 			final int nextIdx = readIndex();
@@ -83,10 +129,10 @@ final class Dictionary extends DictionaryBase {
 	 * @param newSize the requied size
 	 */
 	private final void checkSize(final int newSize) {
-		if (newSize > tree.length) {
-			final char[] puffer = new char[Math.max(newSize, 2 * tree.length)];
-			System.arraycopy(tree, 0, puffer, 0, size);
-			tree = puffer;
+		if (newSize > data.length) {
+			final char[] puffer = new char[Math.max(newSize, 2 * data.length)];
+			System.arraycopy(data, 0, puffer, 0, size);
+			setData(puffer);
 		}
 	}
 
@@ -98,16 +144,16 @@ final class Dictionary extends DictionaryBase {
 	 */
 	private final int createNewNode() {
 		checkSize(size + 1);
-		tree[idx + 1] |= (char) (size >> 16);
-		tree[idx + 2] |= (char) (size);
+		data[idx + 1] |= (char) (size >> 16);
+		data[idx + 2] |= (char) (size);
 		idx = size;
-		tree[idx] = LAST_CHAR;
+		data[idx] = LAST_CHAR;
 		size += 1;
 		return idx;
 	}
 
 	/**
-	 * Get the size of chars that this dictionary need in memory.
+	 * Get the size of chars that this dictionary need in memory. The precompiled words are not counted.
 	 */
 	public int getDataSize() {
 		return size;
@@ -115,22 +161,22 @@ final class Dictionary extends DictionaryBase {
 
 	private void insertChar(final char c) {
 		checkSize(size + 3);
-		System.arraycopy(tree, idx, tree, idx + 3, size - idx);
-		tree[idx] = c;
-		tree[idx + 1] = 0;
-		tree[idx + 2] = 0;
+		System.arraycopy(data, idx, data, idx + 3, size - idx);
+		data[idx] = c;
+		data[idx + 1] = 0;
+		data[idx + 2] = 0;
 		size += 3;
 		for (int i = 0; i < size;) {
-			if (tree[i] == LAST_CHAR) {
+			if (data[i] == LAST_CHAR) {
 				i++;
 			}
 			else {
-				int index = (tree[i + 1] << 16) + tree[i + 2];
+				int index = (data[i + 1] << 16) + data[i + 2];
 				final int indexValue = index & 0x7fffffff;
 				if (indexValue > idx) {
 					index += 3;
-					tree[i + 1] = (char) (index >> 16);
-					tree[i + 2] = (char) (index);
+					data[i + 1] = (char) (index >> 16);
+					data[i + 2] = (char) (index);
 				}
 				i += 3;
 			}
@@ -149,7 +195,7 @@ final class Dictionary extends DictionaryBase {
 		while (zip.available() > 0) {
 			final char c = (char) (zip.read() + (zip.read() << 8));
 			checkSize(size + 1);
-			tree[size++] = c;
+			data[size++] = c;
 		}
 		zip.close();
 		// Shrinken
@@ -176,8 +222,8 @@ final class Dictionary extends DictionaryBase {
 		deflater.setLevel(Deflater.BEST_COMPRESSION);
 		final DeflaterOutputStream zip = new DeflaterOutputStream(stream, deflater);
 		for (int i = 0; i < size; i++) {
-			zip.write(tree[i]);
-			zip.write(tree[i] >> 8);
+			zip.write(data[i]);
+			zip.write(data[i] >> 8);
 		}
 		zip.flush();
 		zip.close();
@@ -201,13 +247,13 @@ final class Dictionary extends DictionaryBase {
 		if (c == LAST_CHAR) {
 			throw new RuntimeException("Invalid Character");
 		}
-		while (idx < size && tree[idx] < c) {
+		while (idx < size && data[idx] < c) {
 			idx += 3;
 		}
 		if (idx >= size) {
 			throw new RuntimeException("Internal Error");
 		}
-		if (tree[idx] == c) {
+		if (data[idx] == c) {
 			return;
 		}
 		insertChar(c);
@@ -220,7 +266,7 @@ final class Dictionary extends DictionaryBase {
 	 */
 	public char[] toArray() {
 		final char[] puffer = new char[size];
-		System.arraycopy(tree, 0, puffer, 0, size);
+		System.arraycopy(data, 0, puffer, 0, size);
 		return puffer;
 	}
 
@@ -232,7 +278,7 @@ final class Dictionary extends DictionaryBase {
 	 */
 	void trimToSize() {
 		final char[] temp = new char[size];
-		System.arraycopy(tree, 0, temp, 0, size);
-		tree = temp;
+		System.arraycopy(data, 0, temp, 0, size);
+		setData(temp);
 	}
 }
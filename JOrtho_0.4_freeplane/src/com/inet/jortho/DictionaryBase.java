@@ -22,18 +22,21 @@
  */
 package com.inet.jortho;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
+ * The search in the tree of a dictionary. The tree is read through a CharBuffer, which can be a wrapped array or a
+ * memory mapped precompiled dictionary.
  * @author Volker Berlin
  */
 abstract class DictionaryBase {
 	protected static final char LAST_CHAR = 0xFFFF;
 	protected int idx;
 	protected int size;
-	protected char[] tree;
+	protected CharBuffer tree;
 
 	/**
 	 * Empty Constructor.
@@ -42,9 +45,9 @@ abstract class DictionaryBase {
 		/* empty */
 	}
 
-	DictionaryBase(final char[] tree) {
+	DictionaryBase(final CharBuffer tree) {
 		this.tree = tree;
-		size = tree.length;
+		size = tree.limit();
 	}
 
 	/**
@@ -75,10 +78,10 @@ abstract class DictionaryBase {
 		idx = 0;
 		for (int i = 0; i < word.length(); i++) {
 			final char c = word.charAt(i);
-			while (idx < size && tree[idx] < c) {
+			while (idx < size && tree.get(idx) < c) {
 				idx += 3;
 			}
-			if ((idx >= size || tree[idx] != c)) {
+			if ((idx >= size || tree.get(idx) != c)) {
 				return false;
 			}
 			if (i == word.length() - 1 && isWordMatch()) {
@@ -96,14 +99,14 @@ abstract class DictionaryBase {
 	 * Check if on the current item position a word ends.
 	 */
 	private boolean isWordMatch() {
-		return (tree[idx + 1] & 0x8000) > 0;
+		return (tree.get(idx + 1) & 0x8000) > 0;
 	}
 
 	/**
 	 * Read the offset in the tree of the next character. 
 	 */
 	final int readIndex() {
-		return ((tree[idx + 1] & 0x7fff) << 16) + tree[idx + 2];
+		return ((tree.get(idx + 1) & 0x7fff) << 16) + tree.get(idx + 2);
 	}
 
 	/**
@@ -113,10 +116,10 @@ abstract class DictionaryBase {
 	 * @return true if found
 	 */
 	private boolean searchChar(final char c) {
-		while (idx < size && tree[idx] < c) {
+		while (idx < size && tree.get(idx) < c) {
 			idx += 3;
 		}
-		if ((idx >= size || tree[idx] != c)) {
+		if ((idx >= size || tree.get(idx) != c)) {
 			return false;
 		}
 		return true;
@@ -133,13 +136,22 @@ abstract class DictionaryBase {
 			return new ArrayList<Suggestion>();
 		}
 		final Suggestions suggesions = new Suggestions(Math.min(20, 4 + word.length()));
-		idx = 0;
-		searchSuggestions(suggesions, word, 0, 0, 0);
+		searchSuggestions(suggesions, word);
 		final List<Suggestion> list = suggesions.getlist();
 		Collections.sort(list);
 		return list;
 	}
 
+	/**
+	 * Add the suggestions for the word to the list.
+	 * @param list container for the found words
+	 * @param word the wrong spelled word.
+	 */
+	void searchSuggestions(final Suggestions list, final String word) {
+		idx = 0;
+		searchSuggestions(list, word, 0, 0, 0);
+	}
+
 	/**
 	 * Es wird nach verschiedenen Regeln nach aehnlichen Woertern gesucht.
 	 * Je nach Regel gibt es einen anderen diff. Jekleiner der diff desto aehnlicher.
@@ -207,8 +219,8 @@ abstract class DictionaryBase {
 		// Missing letters, we need to add one character
 		{
 			int tempIdx = idx = lastIdx;
-			while (idx < size && tree[idx] < LAST_CHAR) {
-				final char newChar = tree[idx];
+			while (idx < size && tree.get(idx) < LAST_CHAR) {
+				final char newChar = tree.get(idx);
 				idx = readIndex();
 				if (idx > 0 && newChar != currentChar) {
 					final StringBuilder buffer = new StringBuilder(chars);
@@ -222,15 +234,15 @@ abstract class DictionaryBase {
 		if (charPosition < chars.length()) {
 			currentChar = chars.charAt(charPosition);
 			int tempIdx = idx = lastIdx;
-			while (idx < size && tree[idx] < LAST_CHAR) {
+			while (idx < size && tree.get(idx) < LAST_CHAR) {
 				if (isWordMatch()) {
 					final StringBuilder buffer = new StringBuilder();
 					buffer.append(chars, 0, charPosition);
-					buffer.append(tree[idx]);
+					buffer.append(tree.get(idx));
 					list.add(new Suggestion(buffer, diff + 5 + (chars.length() - buffer.length()) * 5));
 				}
 				if (charPosition + 1 < chars.length()) {
-					final char newChar = tree[idx];
+					final char newChar = tree.get(idx);
 					idx = readIndex();
 					if (idx > 0 && newChar != currentChar) {
 						final StringBuilder buffer = new StringBuilder(chars);
@@ -246,9 +258,9 @@ abstract class DictionaryBase {
 	private void searchSuggestionsLonger(final Suggestions list, final CharSequence chars, final int originalLength,
 	                                     final int lastIdx, final int diff) {
 		idx = lastIdx;
-		while (idx < size && tree[idx] < LAST_CHAR) {
+		while (idx < size && tree.get(idx) < LAST_CHAR) {
 			if (isWordMatch()) {
-				list.add(new Suggestion(chars.toString() + tree[idx], diff));
+				list.add(new Suggestion(chars.toString() + tree.get(idx), diff));
 			}
 			idx += 3;
 		}
@@ -0,0 +1,78 @@
+/*
+ *  JOrtho
+ *
+ *  Copyright (C) 2005-2008 by i-net software
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License as 
+ *  published by the Free Software Foundation; either version 2 of the
+ *  License, or (at your option) any later version. 
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software
+ *  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307
+ *  USA.
+ *  
+ *  Created on 18.10.2026
+ */
+package com.inet.jortho;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+
+/**
+ * Offline tool to precompile the trees of compressed word lists. The precompiled tree is saved next to the word list
+ * and memory mapped by the SpellChecker instead of building the tree from the word list.
+ * <p>
+ * Usage: <code>java com.inet.jortho.DictionaryCompiler &lt;word list or directory&gt;...</code><br>
+ * For a directory all <code>dictionary_*.ortho</code> files in it are compiled.
+ */
+public class DictionaryCompiler {
+	private DictionaryCompiler() {
+		/* empty */
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: DictionaryCompiler <word list or directory>...");
+			System.exit(1);
+		}
+		for (int i = 0; i < args.length; i++) {
+			final File file = new File(args[i]);
+			if (file.isDirectory()) {
+				final File[] wordLists = file.listFiles(new FilenameFilter() {
+					public boolean accept(final File dir, final String name) {
+						return name.startsWith("dictionary_") && name.endsWith(".ortho");
+					}
+				});
+				for (int j = 0; j < wordLists.length; j++) {
+					compile(wordLists[j]);
+				}
+			}
+			else {
+				compile(file);
+			}
+		}
+	}
+
+	/**
+	 * Precompile the tree of a compressed word list.
+	 * @param wordList the compressed word list
+	 * @return the file of the precompiled tree
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static File compile(final File wordList) throws IOException {
+		final DictionaryFactory factory = new DictionaryFactory();
+		factory.loadWordList(wordList.toURI().toURL());
+		final File precompiled = new File(wordList.getPath() + DictionaryFactory.PRECOMPILED_EXTENSION);
+		factory.savePrecompiled(precompiled);
+		System.out.println(wordList + " -> " + precompiled + " (" + precompiled.length() + " bytes)");
+		return precompiled;
+	}
+}
@@ -24,22 +24,52 @@ package com.inet.jortho;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.io.Reader;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.zip.InflaterInputStream;
 
 /** 
  * With the DictionaryFactory you can create / load a Dictionary. A Dictionary is list of word with a API for searching. 
  * The list is saved internal as a tree.
+ * <p>
+ * The tree of a word list can be saved precompiled next to the word list. A precompiled tree is memory mapped
+ * instead of building the tree from the word list, it is shared by all dictionaries of the same word list.
  * @see Dictionary
+ * @see DictionaryCompiler
  * @author Volker Berlin
  */
 class DictionaryFactory {
+	/**
+	 * The extension appended to the file name of the word list for the precompiled tree.
+	 */
+	static final String PRECOMPILED_EXTENSION = ".bin";
+	/**
+	 * A precompiled tree starts with this magic and the count of chars, followed by the chars of the tree. All
+	 * values are little endian.
+	 */
+	private static final byte[] PRECOMPILED_MAGIC = { 'J', 'O', 'r', 't', 'h', 'o', '0', '1' };
+	private static final int PRECOMPILED_HEADER_LENGTH = PRECOMPILED_MAGIC.length + 4;
+	/**
+	 * The mapped precompiled trees by file and modification time.
+	 */
+	private static final Map<String, CharBuffer> mappedTrees = new HashMap<String, CharBuffer>();
+
 	/**
 	 * A node in the search tree. Every Node can include a list of NodeEnties
 	 */
@@ -172,13 +202,113 @@ class DictionaryFactory {
 	 * @return a Dictionary object.
 	 */
 	public Dictionary create() {
+		return create(null);
+	}
+
+	/**
+	 * Create from the data in this factory and a precompiled tree a Dictionary object.
+	 * @param precompiledTree the precompiled tree, can be null
+	 * @return a Dictionary object.
+	 * @see #mapPrecompiled(URL)
+	 */
+	public Dictionary create(final CharBuffer precompiledTree) {
+		createTree();
+		return new Dictionary(tree, precompiledTree);
+	}
+
+	private void createTree() {
 		tree = new char[10000];
+		size = 0;
 		root.save(this);
 		//shrink the array
 		final char[] temp = new char[size];
 		System.arraycopy(tree, 0, temp, 0, size);
 		tree = temp;
-		return new Dictionary(tree);
+	}
+
+	/**
+	 * Save the tree of the words in this factory precompiled, so that it can be memory mapped.
+	 * @param file the file to write
+	 * @throws IOException if an I/O error occurs.
+	 * @see #mapPrecompiled(URL)
+	 */
+	public void savePrecompiled(final File file) throws IOException {
+		createTree();
+		final ByteBuffer buffer = ByteBuffer.allocate(PRECOMPILED_HEADER_LENGTH + 2 * size);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(PRECOMPILED_MAGIC);
+		buffer.putInt(size);
+		buffer.asCharBuffer().put(tree, 0, size);
+		final FileOutputStream output = new FileOutputStream(file);
+		try {
+			output.write(buffer.array());
+		}
+		finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Map the precompiled tree of a word list. The precompiled tree is used only if it is a file next to the word
+	 * list, which is not older than the word list.
+	 * @param wordList the URL of the compressed word list
+	 * @return the tree or null if there is no precompiled tree
+	 * @throws IOException if the precompiled tree can not be read
+	 */
+	static CharBuffer mapPrecompiled(final URL wordList) throws IOException {
+		if (!"file".equals(wordList.getProtocol())) {
+			return null;
+		}
+		final File source;
+		try {
+			source = new File(wordList.toURI());
+		}
+		catch (final URISyntaxException e) {
+			return null;
+		}
+		final File precompiled = new File(source.getPath() + PRECOMPILED_EXTENSION);
+		if (!precompiled.isFile() || precompiled.lastModified() < source.lastModified()) {
+			return null;
+		}
+		final String key = precompiled.getCanonicalPath() + '@' + precompiled.lastModified();
+		synchronized (mappedTrees) {
+			CharBuffer tree = mappedTrees.get(key);
+			if (tree == null) {
+				tree = map(precompiled);
+				mappedTrees.put(key, tree);
+			}
+			return tree.duplicate();
+		}
+	}
+
+	private static CharBuffer map(final File precompiled) throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(precompiled, "r");
+		try {
+			final MappedByteBuffer bytes = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+			bytes.order(ByteOrder.LITTLE_ENDIAN);
+			if (bytes.capacity() < PRECOMPILED_HEADER_LENGTH) {
+				throw new IOException("Invalid precompiled dictionary: " + precompiled);
+			}
+			for (int i = 0; i < PRECOMPILED_MAGIC.length; i++) {
+				if (bytes.get(i) != PRECOMPILED_MAGIC[i]) {
+					throw new IOException("Invalid precompiled dictionary: " + precompiled);
+				}
+			}
+			final int treeSize = bytes.getInt(PRECOMPILED_MAGIC.length);
+			if (treeSize < 1 || PRECOMPILED_HEADER_LENGTH + 2L * treeSize > bytes.capacity()) {
+				throw new IOException("Invalid precompiled dictionary: " + precompiled);
+			}
+			bytes.position(PRECOMPILED_HEADER_LENGTH);
+			// slice does not keep the byte order
+			final ByteBuffer treeBytes = bytes.slice().order(ByteOrder.LITTLE_ENDIAN);
+			final CharBuffer tree = treeBytes.asCharBuffer();
+			tree.limit(treeSize);
+			return tree.asReadOnlyBuffer();
+		}
+		finally {
+			// the mapping stays valid
+			file.close();
+		}
 	}
 
 	/**
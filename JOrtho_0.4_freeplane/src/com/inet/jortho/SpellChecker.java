@@ -35,6 +35,7 @@ import java.io.InputStream;
 import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Locale;
@@ -212,8 +213,13 @@ public class SpellChecker {
 				public void run() {
 					try {
 						final DictionaryFactory factory = new DictionaryFactory();
+						CharBuffer precompiledTree = null;
 						try {
-							factory.loadWordList(new URL(baseURL, "dictionary_" + locale + extension));
+							final URL wordList = new URL(baseURL, "dictionary_" + locale + extension);
+							precompiledTree = DictionaryFactory.mapPrecompiled(wordList);
+							if (precompiledTree == null) {
+								factory.loadWordList(wordList);
+							}
 							final UserDictionaryProvider provider = userDictionaryProvider;
 							if (provider != null) {
 								final String userWords = provider.getUserWords(locale);
@@ -225,7 +231,7 @@ public class SpellChecker {
 						catch (final Exception ex) {
 							JOptionPane.showMessageDialog(null, ex.toString(), "Error", JOptionPane.ERROR_MESSAGE);
 						}
-						currentDictionary = factory.create();
+						currentDictionary = factory.create(precompiledTree);
 						try {
 	                        EventQueue.invokeAndWait(new Runnable() {
 	                        	public void run() {
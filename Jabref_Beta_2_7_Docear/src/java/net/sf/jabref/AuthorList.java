@@ -240,19 +240,22 @@ public class AuthorList {
 	/**
 	 * Retrieve an AuthorList for the given string of authors or editors.
 	 * 
-	 * This function tries to cache AuthorLists by string passed in.
+	 * This function tries to cache AuthorLists by string passed in. It may be
+	 * called by several threads, e.g. by the duplicate search.
 	 * 
 	 * @param authors
 	 *            The string of authors or editors in bibtex format to parse.
 	 * @return An AuthorList object representing the given authors.
 	 */
 	public static AuthorList getAuthorList(String authors) {
-		AuthorList authorList = authorCache.get(authors);
-		if (authorList == null) {
-			authorList = new AuthorList(authors);
-			authorCache.put(authors, authorList);
+		synchronized (authorCache) {
+			AuthorList authorList = authorCache.get(authors);
+			if (authorList == null) {
+				authorList = new AuthorList(authors);
+				authorCache.put(authors, authorList);
+			}
+			return authorList;
 		}
-		return authorList;
 	}
 
 	/**
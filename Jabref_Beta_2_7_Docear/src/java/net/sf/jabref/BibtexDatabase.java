@@ -40,12 +40,13 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyVetoException;
 import java.beans.VetoableChangeListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -53,6 +54,8 @@ import java.util.Vector;
 
 import javax.swing.JOptionPane;
 
+import net.sf.jabref.gui.FileListTableModel;
+
 public class BibtexDatabase {
     
 	Map<String, BibtexEntry> _entries = new Hashtable<String, BibtexEntry>();
@@ -73,6 +76,27 @@ public class BibtexDatabase {
 	 */
 	private HashMap<String, Integer> allKeys = new HashMap<String, Integer>();
 
+	/*
+	 * Secondary indices to find entries by their bibtex key, the names of
+	 * their linked files and their url without iterating over all entries.
+	 * They are updated by the listener below whenever one of these fields
+	 * changes.
+	 */
+	private final HashMap<String, List<BibtexEntry>> entriesByKey = new HashMap<String, List<BibtexEntry>>();
+
+	private final HashMap<String, List<BibtexEntry>> entriesByFileName = new HashMap<String, List<BibtexEntry>>();
+
+	private final HashMap<String, List<BibtexEntry>> entriesByUrl = new HashMap<String, List<BibtexEntry>>();
+
+	/*
+	 * Blocks of possible duplicates as per DuplicateCheck.getCandidateKeys().
+	 * The keys of each entry are remembered because they depend on several
+	 * fields and have to be removed after one of them changed.
+	 */
+	private final HashMap<String, List<BibtexEntry>> entriesByDuplicateKey = new HashMap<String, List<BibtexEntry>>();
+
+	private final IdentityHashMap<BibtexEntry, List<String>> duplicateKeys = new IdentityHashMap<BibtexEntry, List<String>>();
+
     /*
 	 * Entries are stored in a HashMap with the ID as key. What happens if
 	 * someone changes a BibtexEntry's ID after it has been added to this
@@ -116,6 +140,8 @@ public class BibtexDatabase {
                     _entries.put((String) pce.getNewValue(),
                         (BibtexEntry) pce.getSource());
                 } else {
+                    updateIndices((BibtexEntry)pce.getSource(), pce.getPropertyName(),
+                        (String)pce.getOldValue(), (String)pce.getNewValue());
                     fireDatabaseChanged (new DatabaseChangeEvent(BibtexDatabase.this, DatabaseChangeEvent.CHANGED_ENTRY, (BibtexEntry)pce.getSource()));
                     //Util.pr(pce.getSource().toString()+"\n"+pce.getPropertyName()
                     //    +"\n"+pce.getNewValue());
@@ -173,46 +199,60 @@ public class BibtexDatabase {
      */
     public synchronized BibtexEntry getEntryByKey(String key)
     {
-      BibtexEntry back = null ;
-
-      int keyHash = key.hashCode() ; // key hash for better performance
-
-      Set<String> keySet = _entries.keySet();
-      if (keySet != null)
-      {
-          Iterator<String> it = keySet.iterator();
-          while(it.hasNext())
-          {
-            String entrieID = it.next() ;
-            BibtexEntry entry = getEntryById(entrieID) ;
-            if ((entry != null) && (entry.getCiteKey() != null))
-            {
-              String citeKey = entry.getCiteKey() ;
-              if (citeKey != null)
-              {
-                if (keyHash == citeKey.hashCode() )
-                {
-                  back = entry ;
-                }
-              }
-            }
-          }
-      }
-      return back ;
+        List<BibtexEntry> entries = entriesByKey.get(key);
+        if (entries == null)
+            return null;
+        return entries.get(0);
     }
 
     public synchronized BibtexEntry[] getEntriesByKey(String key) {
         
-    	ArrayList<BibtexEntry> entries = new ArrayList<BibtexEntry>();
-        
-        for (BibtexEntry entry : _entries.values()){
-            if (key.equals(entry.getCiteKey()))
-                entries.add(entry);
-        }
+        List<BibtexEntry> entries = entriesByKey.get(key);
+        if (entries == null)
+            return new BibtexEntry[0];
         
         return entries.toArray(new BibtexEntry[entries.size()]);
     }
 
+    /**
+     * Returns the entries linking a file with the given name. The name is
+     * compared ignoring case, so callers have to check the links of the
+     * returned entries if they need an exact match.
+     *
+     * @param fileName The name of the file, or a path ending with it.
+     */
+    public synchronized List<BibtexEntry> getEntriesByFileName(String fileName) {
+        return getIndexedEntries(entriesByFileName, getFileNameKey(fileName));
+    }
+
+    /**
+     * Returns the entries whose url equals the given url, ignoring the
+     * protocol. Callers have to compare the protocols if they need to.
+     */
+    public synchronized List<BibtexEntry> getEntriesByUrl(String url) {
+        return getIndexedEntries(entriesByUrl, getUrlKey(url));
+    }
+
+    /**
+     * Returns the entries sharing a key returned by
+     * DuplicateCheck.getCandidateKeys() with the given entry, which need not
+     * be contained in this database. Each entry is returned once.
+     */
+    public synchronized List<BibtexEntry> getDuplicateCandidates(BibtexEntry entry) {
+        List<String> keys = DuplicateCheck.getCandidateKeys(entry);
+        if (keys.size() == 1)
+            return getIndexedEntries(entriesByDuplicateKey, keys.get(0));
+        IdentityHashMap<BibtexEntry, BibtexEntry> candidates = new IdentityHashMap<BibtexEntry, BibtexEntry>();
+        for (String key : keys) {
+            List<BibtexEntry> entries = entriesByDuplicateKey.get(key);
+            if (entries != null) {
+                for (BibtexEntry candidate : entries)
+                    candidates.put(candidate, candidate);
+            }
+        }
+        return new ArrayList<BibtexEntry>(candidates.keySet());
+    }
+
     /**
      * Inserts the entry, given that its ID is not already in use.
      * use Util.createId(...) to make up a unique ID for an entry.
@@ -230,6 +270,7 @@ public class BibtexDatabase {
         entry.addPropertyChangeListener(listener);
 
         _entries.put(id, entry);
+        indexEntry(entry);
 
         fireDatabaseChanged(new DatabaseChangeEvent(this, DatabaseChangeEvent.ADDED_ENTRY, entry));
 
@@ -248,6 +289,7 @@ public class BibtexDatabase {
         if (oldValue == null)
             return null;
         
+        unindexEntry(oldValue);
         removeKeyFromSet(oldValue.getCiteKey());
         oldValue.removePropertyChangeListener(listener);
         fireDatabaseChanged(new DatabaseChangeEvent(this, DatabaseChangeEvent.REMOVED_ENTRY, oldValue));
@@ -586,6 +628,116 @@ public class BibtexDatabase {
 
 
 
+    //========================================================
+    // maintain the secondary indices of entries by key, file name and url
+    //========================================================
+    private void indexEntry(BibtexEntry entry) {
+        addToIndex(entriesByKey, entry.getCiteKey(), entry);
+        for (String link : FileListTableModel.getLinks(entry.getField(GUIGlobals.FILE_FIELD)))
+            addToIndex(entriesByFileName, getFileNameKey(link), entry);
+        addToIndex(entriesByUrl, getUrlKey(entry.getField("url")), entry);
+        indexDuplicateKeys(entry);
+    }
+
+    private void unindexEntry(BibtexEntry entry) {
+        removeFromIndex(entriesByKey, entry.getCiteKey(), entry);
+        for (String link : FileListTableModel.getLinks(entry.getField(GUIGlobals.FILE_FIELD)))
+            removeFromIndex(entriesByFileName, getFileNameKey(link), entry);
+        removeFromIndex(entriesByUrl, getUrlKey(entry.getField("url")), entry);
+        unindexDuplicateKeys(entry);
+    }
+
+    private void indexDuplicateKeys(BibtexEntry entry) {
+        List<String> keys = DuplicateCheck.getCandidateKeys(entry);
+        duplicateKeys.put(entry, keys);
+        for (String key : keys)
+            addToIndex(entriesByDuplicateKey, key, entry);
+    }
+
+    private void unindexDuplicateKeys(BibtexEntry entry) {
+        List<String> keys = duplicateKeys.remove(entry);
+        if (keys == null)
+            return;
+        for (String key : keys)
+            removeFromIndex(entriesByDuplicateKey, key, entry);
+    }
+
+    private synchronized void updateIndices(BibtexEntry entry, String field, String oldValue, String newValue) {
+        if (_entries.get(entry.getId()) != entry)
+            return;
+        if (BibtexFields.KEY_FIELD.equals(field)) {
+            removeFromIndex(entriesByKey, oldValue, entry);
+            addToIndex(entriesByKey, newValue, entry);
+        }
+        else if (GUIGlobals.FILE_FIELD.equals(field)) {
+            for (String link : FileListTableModel.getLinks(oldValue))
+                removeFromIndex(entriesByFileName, getFileNameKey(link), entry);
+            for (String link : FileListTableModel.getLinks(newValue))
+                addToIndex(entriesByFileName, getFileNameKey(link), entry);
+        }
+        else if ("url".equals(field)) {
+            removeFromIndex(entriesByUrl, getUrlKey(oldValue), entry);
+            addToIndex(entriesByUrl, getUrlKey(newValue), entry);
+        }
+        if (GUIGlobals.TYPE_HEADER.equals(field)
+                || Arrays.asList(DuplicateCheck.CANDIDATE_FIELDS).contains(field)) {
+            unindexDuplicateKeys(entry);
+            indexDuplicateKeys(entry);
+        }
+    }
+
+    private static void addToIndex(HashMap<String, List<BibtexEntry>> index, String key, BibtexEntry entry) {
+        if ((key == null) || key.equals(""))
+            return;
+        List<BibtexEntry> entries = index.get(key);
+        if (entries == null) {
+            entries = new ArrayList<BibtexEntry>(1);
+            index.put(key, entries);
+        }
+        // an entry may link the same file twice
+        if (!entries.contains(entry))
+            entries.add(entry);
+    }
+
+    private static void removeFromIndex(HashMap<String, List<BibtexEntry>> index, String key, BibtexEntry entry) {
+        if ((key == null) || key.equals(""))
+            return;
+        List<BibtexEntry> entries = index.get(key);
+        if (entries == null)
+            return;
+        entries.remove(entry);
+        if (entries.isEmpty())
+            index.remove(key);
+    }
+
+    private static List<BibtexEntry> getIndexedEntries(HashMap<String, List<BibtexEntry>> index, String key) {
+        List<BibtexEntry> entries = (key == null) ? null : index.get(key);
+        if (entries == null)
+            return new ArrayList<BibtexEntry>();
+        return new ArrayList<BibtexEntry>(entries);
+    }
+
+    /**
+     * Returns the lower case name of the linked file, regardless of the
+     * operating system the link was created on.
+     */
+    private static String getFileNameKey(String link) {
+        if (link == null)
+            return null;
+        int separator = Math.max(link.lastIndexOf('/'), link.lastIndexOf('\\'));
+        return link.substring(separator + 1).trim().toLowerCase();
+    }
+
+    private static String getUrlKey(String url) {
+        if (url == null)
+            return null;
+        url = url.trim();
+        int schemeEnd = url.indexOf("://");
+        if ((schemeEnd > 0) && (url.lastIndexOf('/', schemeEnd - 1) < 0))
+            return url.substring(schemeEnd + 3);
+        return url;
+    }
+
     public void fireDatabaseChanged(DatabaseChangeEvent e) {
     	for (DatabaseChangeListener listener : changeListeners){
     		listener.databaseChanged(e);
@@ -1,13 +1,28 @@
 package net.sf.jabref;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * This class contains utility method for duplicate checking of entries.
  */
 public class DuplicateCheck {
 
+    /**
+     * The fields whose changes may change the result of getCandidateKeys().
+     */
+    public static final String[] CANDIDATE_FIELDS = {"title", "author", "editor", "year", "doi",
+            "journal", "booktitle", "volume", "pages"};
+
+    /**
+     * Title words of at most this length are left out of the title word keys.
+     */
+    private static final int MAX_SHORT_WORD_LENGTH = 3;
+
 
     /**
      * Checks if the two entries represent the same publication.
@@ -117,7 +132,120 @@ public class DuplicateCheck {
     }
 
     /**
-     * Goes through all entries in the given database, and if at least one of
+     * Returns the keys of the blocks of possible duplicates the given entry
+     * belongs to. Entries of the same type are compared if they share the
+     * normalized title, two consecutive longer words of the title, the first
+     * author or editor and the year, the DOI, or the journal or booktitle
+     * together with the volume and the pages. So a typo in a title of at
+     * least three longer words, or a title differing completely but with the
+     * same venue and pages, does not keep a pair apart. Entries without
+     * title, author, editor and DOI are compared with each other.
+     * <p>
+     * This is a heuristic: isDuplicate() compares fields exactly and may
+     * also accept a pair which agrees on none of these keys, e.g. if the
+     * entries only share journal, year and volume. Such pairs are not found.
+     *
+     * @param entry The entry to compute the keys for.
+     * @return The keys, which are compared case sensitively.
+     */
+    public static List<String> getCandidateKeys(BibtexEntry entry) {
+        List<String> keys = new ArrayList<String>(8);
+        String prefix = entry.getType().getName().toLowerCase() + ":";
+        String title = entry.getField("title");
+        if (title != null) {
+            StringBuilder normalized = new StringBuilder(title.length());
+            List<String> words = new ArrayList<String>();
+            StringBuilder word = new StringBuilder();
+            for (int i = 0; i <= title.length(); i++) {
+                char c = (i < title.length()) ? title.charAt(i) : ' ';
+                if (Character.isLetterOrDigit(c)) {
+                    normalized.append(Character.toLowerCase(c));
+                    word.append(Character.toLowerCase(c));
+                }
+                else if (word.length() > 0) {
+                    if (word.length() > MAX_SHORT_WORD_LENGTH)
+                        words.add(word.toString());
+                    word.setLength(0);
+                }
+            }
+            if (normalized.length() > 0)
+                keys.add(prefix + "title:" + normalized);
+            for (int i = 0; i < words.size() - 1; i++)
+                keys.add(prefix + "titlewords:" + words.get(i) + " " + words.get(i + 1));
+        }
+        String year = entry.getField("year");
+        year = (year == null) ? "" : year.trim().toLowerCase();
+        for (String field : new String[] {"author", "editor"}) {
+            String names = entry.getField(field);
+            if (names == null)
+                continue;
+            // the same normalization as in compareSingleField()
+            String[] aus = AuthorList.fixAuthor_lastNameFirst(names.toLowerCase()).split(" and ");
+            if (aus.length > 0)
+                keys.add(prefix + field + ":" + aus[0].split(",")[0].trim() + ":" + aus.length + ":" + year);
+        }
+        String doi = entry.getField("doi");
+        if ((doi != null) && (doi.trim().length() > 0))
+            keys.add(prefix + "doi:" + doi.trim().toLowerCase());
+        if (keys.isEmpty())
+            keys.add(prefix + "nokey");
+        String pages = entry.getField("pages");
+        if ((pages != null) && (pages.trim().length() > 0)) {
+            String volume = entry.getField("volume");
+            volume = (volume == null) ? "" : volume.trim().toLowerCase();
+            for (String field : new String[] {"journal", "booktitle"}) {
+                String venue = entry.getField(field);
+                if ((venue != null) && (venue.trim().length() > 0))
+                    keys.add(prefix + field + ":" + venue.trim().toLowerCase() + ":" + volume + ":"
+                            + pages.trim().toLowerCase());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the pairs of entries sharing at least one key returned by
+     * getCandidateKeys(). Each pair is contained once and pairs are ordered
+     * by the positions of their entries in the given array, as if all pairs
+     * were enumerated by two nested loops.
+     *
+     * @param entries The entries to compare.
+     * @return The pairs of possible duplicates.
+     */
+    public static List<BibtexEntry[]> getCandidatePairs(BibtexEntry[] entries) {
+        HashMap<String, List<Integer>> blocks = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < entries.length; i++) {
+            for (String key : getCandidateKeys(entries[i])) {
+                List<Integer> block = blocks.get(key);
+                if (block == null) {
+                    block = new ArrayList<Integer>(2);
+                    blocks.put(key, block);
+                }
+                block.add(i);
+            }
+        }
+        HashSet<Long> pairs = new HashSet<Long>();
+        for (List<Integer> block : blocks.values()) {
+            for (int i = 0; i < block.size() - 1; i++) {
+                for (int j = i + 1; j < block.size(); j++)
+                    pairs.add(((long) block.get(i)) * entries.length + block.get(j));
+            }
+        }
+        long[] sortedPairs = new long[pairs.size()];
+        int n = 0;
+        for (Long pair : pairs)
+            sortedPairs[n++] = pair;
+        Arrays.sort(sortedPairs);
+        List<BibtexEntry[]> result = new ArrayList<BibtexEntry[]>(sortedPairs.length);
+        for (long pair : sortedPairs)
+            result.add(new BibtexEntry[] {entries[(int) (pair / entries.length)],
+                    entries[(int) (pair % entries.length)]});
+        return result;
+    }
+
+    /**
+     * Goes through the entries in the given database sharing a key returned
+     * by getCandidateKeys() with the given entry, and if at least one of
      * them is a duplicate of the given entry, as per
      * Util.isDuplicate(BibtexEntry, BibtexEntry), the duplicate is returned.
      * The search is terminated when the first duplicate is found.
@@ -127,7 +255,7 @@ public class DuplicateCheck {
      * @return The first duplicate entry found. null if no duplicates are found.
      */
     public static BibtexEntry containsDuplicate(BibtexDatabase database, BibtexEntry entry) {
-        for (BibtexEntry other : database.getEntries()) {
+        for (BibtexEntry other : database.getDuplicateCandidates(entry)) {
             if (isDuplicate(entry, other))
                 return other; // Duplicate found.
         }
@@ -35,7 +35,14 @@ package net.sf.jabref;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.SwingUtilities;
 
@@ -159,24 +166,61 @@ public void run() {
 
 class SearcherThread extends Thread {
 
-  private boolean finished = false;
+  // number of candidate pairs checked by one task
+  private static final int CHUNK_SIZE = 500;
 
-  public void run() {
-    for (int i = 0; (i < bes.length - 1) && !finished ; i++) {
-      for (int j = i + 1; (j < bes.length) && !finished ; j++) {
-        boolean eq = DuplicateCheck.isDuplicate(bes[i], bes[j]
-        );
+  private volatile boolean finished = false;
 
+  public void run() {
+    // only compare entries sharing a title, first author and year or doi
+    final List<BibtexEntry[]> candidates = DuplicateCheck.getCandidatePairs(bes);
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+          public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "DuplicateSearch");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+          }
+        });
+    try {
+      List<Future<List<BibtexEntry[]>>> chunks = new ArrayList<Future<List<BibtexEntry[]>>>();
+      for (int start = 0; start < candidates.size(); start += CHUNK_SIZE) {
+        final int from = start;
+        final int to = Math.min(start + CHUNK_SIZE, candidates.size());
+        chunks.add(executor.submit(new Callable<List<BibtexEntry[]>>() {
+          public List<BibtexEntry[]> call() {
+            List<BibtexEntry[]> found = new ArrayList<BibtexEntry[]>();
+            for (int i = from; (i < to) && !finished; i++) {
+              BibtexEntry[] pair = candidates.get(i);
+              if (DuplicateCheck.isDuplicate(pair[0], pair[1]))
+                found.add(pair);
+            }
+            return found;
+          }
+        }));
+      }
+      // the chunks are checked in parallel, but reported in order
+      for (Future<List<BibtexEntry[]>> chunk : chunks) {
+        if (finished)
+          break;
+        List<BibtexEntry[]> found = chunk.get();
         // If (suspected) duplicates, add them to the duplicates vector.
-        if (eq)
+        if (!found.isEmpty())
         {
           synchronized (duplicates)
           {
-            duplicates.add( new BibtexEntry[] {bes[i], bes[j]} ) ;
+            duplicates.addAll(found);
             duplicates.notifyAll(); // send wake up all
           }
         }
       }
+    } catch (InterruptedException e) {
+      // stop searching
+    } catch (ExecutionException e) {
+      e.printStackTrace();
+    } finally {
+      executor.shutdownNow();
     }
     finished = true;
 
@@ -18,6 +18,9 @@ public class FileUpdateMonitor extends Thread {
   int no = 0;
   HashMap<String, Entry> entries = new HashMap<String, Entry>();
   boolean running;
+  int pollingInterval = WAIT;
+  final Object pollingLock = new Object();
+  boolean checkRequested = false;
 
   public FileUpdateMonitor() {
     setPriority(MIN_PRIORITY);
@@ -44,9 +47,13 @@ public class FileUpdateMonitor extends Thread {
       }
 
       // Sleep for a while before starting a new polling round.
-      try {
-        sleep(WAIT);
-      } catch (InterruptedException ex) {
+      synchronized (pollingLock) {
+        try {
+          if (!checkRequested)
+            pollingLock.wait(pollingInterval);
+        } catch (InterruptedException ex) {
+        }
+        checkRequested = false;
       }
     }
   }
@@ -56,6 +63,29 @@ public class FileUpdateMonitor extends Thread {
    */
   public void stopMonitoring() {
     running = false;
+    checkNow();
+  }
+
+  /**
+   * Change the time between two polling rounds. Applications notified about file changes
+   * by other means can poll less often and call checkNow() when a file has changed.
+   * @param interval the time in milliseconds.
+   */
+  public void setPollingInterval(int interval) {
+    synchronized (pollingLock) {
+      pollingInterval = interval;
+      pollingLock.notifyAll();
+    }
+  }
+
+  /**
+   * Start a new polling round without waiting for the polling interval to pass.
+   */
+  public void checkNow() {
+    synchronized (pollingLock) {
+      checkRequested = true;
+      pollingLock.notifyAll();
+    }
   }
 
   /**
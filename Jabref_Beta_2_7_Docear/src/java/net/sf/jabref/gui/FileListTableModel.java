@@ -100,9 +100,29 @@ public class FileListTableModel extends AbstractTableModel {
     }
 
     private FileListEntry setContent(String value, boolean firstOnly, boolean deduceUnknownTypes) {
+        ArrayList<ArrayList<String>> entries = splitContent(value, firstOnly);
+        if (firstOnly && (entries.size() > 0))
+            return decodeEntry(entries.get(0), deduceUnknownTypes);
+        ArrayList<FileListEntry> newList = new ArrayList<FileListEntry>();
+        for (ArrayList<String> thisEntry : entries)
+            newList.add(decodeEntry(thisEntry, deduceUnknownTypes));
+          
+        synchronized (list) {
+            list.clear();
+            list.addAll(newList);
+        }
+        fireTableChanged(new TableModelEvent(this));
+        return null;
+    }
+
+    /**
+     * Splits the flat string representation of the file list into the fields
+     * (description, link and file type) of each file.
+     */
+    private static ArrayList<ArrayList<String>> splitContent(String value, boolean firstOnly) {
         if (value == null)
             value = "";
-        ArrayList<FileListEntry> newList = new ArrayList<FileListEntry>();
+        ArrayList<ArrayList<String>> entries = new ArrayList<ArrayList<String>>();
         StringBuilder sb = new StringBuilder();
         ArrayList<String> thisEntry = new ArrayList<String>();
         boolean inXmlChar = false;
@@ -132,31 +152,31 @@ public class FileListTableModel extends AbstractTableModel {
             else if (!escaped && (c == ';') && !inXmlChar) {
                 thisEntry.add(sb.toString());
                 sb = new StringBuilder();
+                entries.add(thisEntry);
                 if (firstOnly)
-                    return decodeEntry(thisEntry, deduceUnknownTypes);
-                else {
-                    newList.add(decodeEntry(thisEntry, deduceUnknownTypes));
-                    thisEntry.clear();
-                }
+                    return entries;
+                thisEntry = new ArrayList<String>();
             }
             else sb.append(c);
             escaped = false;
         }
         if (sb.length() > 0)
             thisEntry.add(sb.toString());
-        if (thisEntry.size() > 0) {
-            if (firstOnly)
-                return decodeEntry(thisEntry, deduceUnknownTypes);
-            else
-                newList.add(decodeEntry(thisEntry, deduceUnknownTypes));
-        }
-          
-        synchronized (list) {
-            list.clear();
-            list.addAll(newList);
-        }
-        fireTableChanged(new TableModelEvent(this));
-        return null;
+        if (thisEntry.size() > 0)
+            entries.add(thisEntry);
+        return entries;
+    }
+
+    /**
+     * Returns the links of all files in the given file field content, without
+     * looking up their file types.
+     * @param content The file field content, as fed to this class' setContent() method.
+     */
+    public static ArrayList<String> getLinks(String content) {
+        ArrayList<String> links = new ArrayList<String>();
+        for (ArrayList<String> entry : splitContent(content, false))
+            links.add(getElementIfAvailable(entry, 1));
+        return links;
     }
 
     /**
@@ -201,7 +221,7 @@ public class FileListTableModel extends AbstractTableModel {
     }
 
 
-    private String getElementIfAvailable(ArrayList<String> contents, int index) {
+    private static String getElementIfAvailable(ArrayList<String> contents, int index) {
         if (index < contents.size())
             return contents.get(index);
         else return "";
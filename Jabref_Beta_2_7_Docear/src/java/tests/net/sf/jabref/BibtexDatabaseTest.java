@@ -6,11 +6,26 @@ import java.io.IOException;
 
 import junit.framework.TestCase;
 import net.sf.jabref.BibtexDatabase;
+import net.sf.jabref.BibtexEntry;
+import net.sf.jabref.BibtexEntryType;
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
+import net.sf.jabref.KeyCollisionException;
 import net.sf.jabref.imports.BibtexParser;
 import net.sf.jabref.imports.ParserResult;
 
 public class BibtexDatabaseTest extends TestCase {
 
+	/**
+	 * Initialize Preferences.
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		if (Globals.prefs == null) {
+			Globals.prefs = JabRefPreferences.getInstance();
+		}
+	}
+
 	/**
 	 * Some basic test cases for resolving strings.
 	 * 
@@ -33,4 +48,40 @@ public class BibtexDatabaseTest extends TestCase {
 	}
 	
 	
+	/**
+	 * Lookups by key, file name and url have to follow changes of the entries.
+	 */
+	public void testIndexedLookups() throws KeyCollisionException {
+		BibtexDatabase db = new BibtexDatabase();
+		BibtexEntry e = new BibtexEntry("1", BibtexEntryType.ARTICLE);
+		e.setField("bibtexkey", "Smith2003");
+		e.setField("file", ":papers/Smith\\:2003.pdf:PDF;:/home/user/other.pdf:PDF");
+		e.setField("url", "http://example.org/smith");
+		db.insertEntry(e);
+
+		assertSame(e, db.getEntryByKey("Smith2003"));
+		assertNull(db.getEntryByKey("Smith2004"));
+		assertEquals(1, db.getEntriesByFileName("smith:2003.PDF").size());
+		assertEquals(1, db.getEntriesByFileName("C:\\papers\\other.pdf").size());
+		assertEquals(1, db.getEntriesByUrl("https://example.org/smith").size());
+
+		e.setField("bibtexkey", "Smith2004");
+		e.clearField("url");
+		e.setField("file", ":new.pdf:PDF");
+		assertNull(db.getEntryByKey("Smith2003"));
+		assertSame(e, db.getEntryByKey("Smith2004"));
+		assertEquals(0, db.getEntriesByFileName("other.pdf").size());
+		assertEquals(1, db.getEntriesByFileName("new.pdf").size());
+		assertEquals(0, db.getEntriesByUrl("http://example.org/smith").size());
+
+		BibtexEntry duplicate = new BibtexEntry("2", BibtexEntryType.ARTICLE);
+		duplicate.setField("bibtexkey", "Smith2004");
+		db.insertEntry(duplicate);
+		assertEquals(2, db.getEntriesByKey("Smith2004").length);
+
+		db.removeEntry(e.getId());
+		assertSame(duplicate, db.getEntryByKey("Smith2004"));
+		assertEquals(0, db.getEntriesByFileName("new.pdf").size());
+	}
+	
 }
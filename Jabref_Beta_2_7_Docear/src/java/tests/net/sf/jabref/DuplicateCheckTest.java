@@ -1,9 +1,14 @@
 package tests.net.sf.jabref;
 
+import java.util.List;
+
 import junit.framework.TestCase;
+import net.sf.jabref.BibtexDatabase;
 import net.sf.jabref.BibtexEntry;
 import net.sf.jabref.BibtexEntryType;
 import net.sf.jabref.DuplicateCheck;
+import net.sf.jabref.Globals;
+import net.sf.jabref.JabRefPreferences;
 import net.sf.jabref.Util;
 
 /**
@@ -15,6 +20,13 @@ import net.sf.jabref.Util;
  */
 public class DuplicateCheckTest extends TestCase {
 
+    protected void setUp() throws Exception {
+        super.setUp();
+        if (Globals.prefs == null) {
+            Globals.prefs = JabRefPreferences.getInstance();
+        }
+    }
+
     public void testDuplicateDetection() {
 
         BibtexEntry one = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
@@ -53,4 +65,101 @@ public class DuplicateCheckTest extends TestCase {
         assertFalse(DuplicateCheck.isDuplicate(one, two));
     }
 
+    public void testCandidatePairs() throws Exception {
+        BibtexEntry one = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        one.setField("author", "Billy Bob");
+        one.setField("title", "A title");
+        one.setField("year", "2005");
+        BibtexEntry sameTitle = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        sameTitle.setField("title", "A Title.");
+        BibtexEntry sameAuthor = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        sameAuthor.setField("author", "Billy Bob");
+        sameAuthor.setField("year", "2005");
+        BibtexEntry otherYear = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        otherYear.setField("author", "Billy Bob");
+        otherYear.setField("year", "2006");
+        BibtexEntry book = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.BOOK);
+        book.setField("title", "A title");
+
+        List<BibtexEntry[]> pairs = DuplicateCheck.getCandidatePairs(
+                new BibtexEntry[] {one, sameTitle, sameAuthor, otherYear, book});
+        assertEquals(2, pairs.size());
+        assertSame(one, pairs.get(0)[0]);
+        assertSame(sameTitle, pairs.get(0)[1]);
+        assertSame(one, pairs.get(1)[0]);
+        assertSame(sameAuthor, pairs.get(1)[1]);
+
+        BibtexDatabase database = new BibtexDatabase();
+        database.insertEntry(sameAuthor);
+        database.insertEntry(book);
+        BibtexEntry imported = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        imported.setField("author", "Billy Bob");
+        imported.setField("year", "2005");
+        assertSame(sameAuthor, DuplicateCheck.containsDuplicate(database, imported));
+        sameAuthor.setField("year", "2006");
+        assertNull(DuplicateCheck.containsDuplicate(database, imported));
+        imported.setField("year", "2006");
+        assertSame(sameAuthor, DuplicateCheck.containsDuplicate(database, imported));
+    }
+
+    public void testEntriesWithoutKeyFieldsAreCompared() throws Exception {
+        BibtexEntry one = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        one.setField("journal", "A");
+        one.setField("year", "2005");
+        BibtexEntry two = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        two.setField("journal", "A");
+        two.setField("year", "2005");
+        BibtexEntry titled = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        titled.setField("title", "A title");
+        assertTrue(DuplicateCheck.isDuplicate(one, two));
+
+        List<BibtexEntry[]> pairs = DuplicateCheck.getCandidatePairs(new BibtexEntry[] {one, titled, two});
+        assertEquals(1, pairs.size());
+        assertSame(one, pairs.get(0)[0]);
+        assertSame(two, pairs.get(0)[1]);
+
+        BibtexDatabase database = new BibtexDatabase();
+        database.insertEntry(one);
+        database.insertEntry(titled);
+        assertSame(one, DuplicateCheck.containsDuplicate(database, two));
+        one.setField("title", "Another title");
+        assertNull(DuplicateCheck.containsDuplicate(database, two));
+    }
+
+    public void testTitleTypoWithMissingYearIsFound() throws Exception {
+        BibtexEntry one = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        one.setField("author", "Billy Bob");
+        one.setField("title", "Blocking methods for duplicate detection");
+        one.setField("journal", "A");
+        one.setField("year", "2005");
+        one.setField("volume", "21");
+        one.setField("pages", "1--10");
+        one.setField("number", "3");
+        BibtexEntry typo = new BibtexEntry(Util.createNeutralId(), BibtexEntryType.ARTICLE);
+        typo.setField("author", "Billy Bob");
+        typo.setField("title", "Blocking methods for duplicate detecton");
+        typo.setField("journal", "A");
+        typo.setField("volume", "21");
+        typo.setField("pages", "1--10");
+        typo.setField("number", "3");
+        assertTrue(DuplicateCheck.isDuplicate(one, typo));
+
+        List<BibtexEntry[]> pairs = DuplicateCheck.getCandidatePairs(new BibtexEntry[] {one, typo});
+        assertEquals(1, pairs.size());
+
+        BibtexDatabase database = new BibtexDatabase();
+        database.insertEntry(one);
+        assertSame(one, DuplicateCheck.containsDuplicate(database, typo));
+        one.setField("title", "Another title");
+        assertSame("found by journal, volume and pages", one, DuplicateCheck.containsDuplicate(database, typo));
+        one.setField("pages", "11--20");
+        assertNull(DuplicateCheck.containsDuplicate(database, typo));
+
+        one.setField("pages", "1--10");
+        one.setField("title", "Blocking methods for duplicate detection");
+        one.setField("journal", "B");
+        assertEquals("compared because of the title words", 1,
+                DuplicateCheck.getCandidatePairs(new BibtexEntry[] {one, typo}).size());
+    }
+
 }
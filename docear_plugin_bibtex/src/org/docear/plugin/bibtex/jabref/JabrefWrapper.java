@@ -6,6 +6,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import javax.swing.JFrame;
@@ -51,6 +52,9 @@ import org.freeplane.core.util.Compat;
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.features.mode.Controller;
 import org.freeplane.features.ui.IMapViewChangeListener;
+import org.freeplane.plugin.workspace.WorkspaceController;
+import org.freeplane.plugin.workspace.io.FileChange;
+import org.freeplane.plugin.workspace.io.IFileChangeListener;
 
 public class JabrefWrapper extends JabRef implements IMapViewChangeListener {
 
@@ -90,6 +94,14 @@ public class JabrefWrapper extends JabRef implements IMapViewChangeListener {
 	private static final MapViewListener mapViewListener = new MapViewListener();
 	
 	private Map<File, JabRefBaseHandle> baseHandles = new HashMap<File, JabRefBaseHandle>();
+	
+	// the bibtex files are watched, jabref only polls them in case a change was missed
+	private static final int BIBTEX_FILE_POLLING_INTERVAL = 60000;
+	private final IFileChangeListener bibtexFileListener = new IFileChangeListener() {
+		public void filesChanged(List<FileChange> changes) {
+			Globals.fileUpdateMonitor.checkNow();
+		}
+	};
 
 	private OneTouchCollapseResizer resizer;
 
@@ -101,6 +113,9 @@ public class JabrefWrapper extends JabRef implements IMapViewChangeListener {
 		this.jrf.getPreferences().put("avoidOverwritingKey", "true");
 		this.jrf.addJabRefEventListener(new JabrefChangeEventListener());
 		this.jrf.setBorder(new LineBorder(Color.LIGHT_GRAY, 1));
+		if(Globals.fileUpdateMonitor != null) {
+			Globals.fileUpdateMonitor.setPollingInterval(BIBTEX_FILE_POLLING_INTERVAL);
+		}
 	}
 
 	public JabRefFrame getJabrefFrame() {
@@ -241,6 +256,7 @@ public class JabrefWrapper extends JabRef implements IMapViewChangeListener {
 			synchronized (baseHandles) {	
 				baseHandles.remove(baseHandle.getFile().getAbsoluteFile());
 			}
+			WorkspaceController.getFileSystemWatcher().removeListener(baseHandle.getFile(), bibtexFileListener);
 			closeDatabase(baseHandle.getFile());
 		}		
 	}
@@ -375,6 +391,7 @@ public class JabrefWrapper extends JabRef implements IMapViewChangeListener {
 					panel.markNonUndoableBaseChanged();
 
 					handle = new JabRefBaseHandle(panel, pr);
+					WorkspaceController.getFileSystemWatcher().addListener(handle.getFile(), false, bibtexFileListener);
 					
 					// After adding the database, go through our list and see if
 					// any post open actions needs to be done. For instance,
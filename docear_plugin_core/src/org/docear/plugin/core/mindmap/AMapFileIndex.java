@@ -0,0 +1,247 @@
+package org.docear.plugin.core.mindmap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.docear.plugin.core.logging.DocearLogger;
+
+/**
+ * Persistent index of the content of many mind map files, which are read without creating a MapModel.
+ * <p>
+ * Maps are indexed again when their files were modified since they have been indexed, so keeping the index up to
+ * date only reads the changed maps. Maps which can not be read are not indexed but remembered, they are read again
+ * by the next {@link #synchronize(Collection)}. The content of an indexed map is not changed after it has been
+ * added, so that it can be written without holding the lock of the index.
+ *
+ * @param <T> the indexed content of a map
+ */
+public abstract class AMapFileIndex<T> {
+	private static final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			final Thread thread = new Thread(r, "map index writer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private static class IndexedMap<T> {
+		private final File file;
+		private final long lastModified;
+		private final T content;
+
+		private IndexedMap(File file, long lastModified, T content) {
+			this.file = file;
+			this.lastModified = lastModified;
+			this.content = content;
+		}
+	}
+
+	private final File indexFile;
+	private final int formatVersion;
+	private final HashMap<File, IndexedMap<T>> maps = new HashMap<File, IndexedMap<T>>();
+	private final HashSet<File> unreadableMaps = new HashSet<File>();
+	private boolean modified = false;
+	private boolean saveScheduled = false;
+
+	protected AMapFileIndex(File indexFile, int formatVersion) {
+		this.indexFile = indexFile;
+		this.formatVersion = formatVersion;
+	}
+
+	/** reads the content of a map file. */
+	protected abstract T readMap(File mapFile) throws Exception;
+
+	/** reads the content of a map as written by {@link #writeContent(DataOutputStream, Object)}. */
+	protected abstract T readContent(File mapFile, DataInputStream in) throws IOException;
+
+	protected abstract void writeContent(DataOutputStream out, T content) throws IOException;
+
+	/** called with the lock of the index held when the content of a map was added. */
+	protected abstract void contentAdded(File mapFile, T content);
+
+	/** called with the lock of the index held when the content of a map was removed. */
+	protected abstract void contentRemoved(File mapFile, T content);
+
+	public synchronized void load() {
+		clear();
+		if (indexFile == null || !indexFile.exists()) {
+			return;
+		}
+		try {
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			try {
+				if (in.readInt() != formatVersion) {
+					return;
+				}
+				for (int mapCount = in.readInt(); mapCount > 0; mapCount--) {
+					final File file = new File(in.readUTF());
+					final long lastModified = in.readLong();
+					add(new IndexedMap<T>(file, lastModified, readContent(file, in)));
+				}
+				modified = false;
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			DocearLogger.warn("could not read index " + indexFile + ": " + e.getMessage());
+			clear();
+		}
+	}
+
+	private void clear() {
+		for (IndexedMap<T> map : new ArrayList<IndexedMap<T>>(maps.values())) {
+			remove(map.file);
+		}
+		unreadableMaps.clear();
+	}
+
+	/**
+	 * writes the index if it was changed since it has been loaded or saved.
+	 */
+	public void save() {
+		final ArrayList<IndexedMap<T>> snapshot;
+		synchronized (this) {
+			saveScheduled = false;
+			if (!modified || indexFile == null) {
+				return;
+			}
+			snapshot = new ArrayList<IndexedMap<T>>(maps.values());
+			modified = false;
+		}
+		final File tempFile = new File(indexFile.getPath() + ".tmp");
+		try {
+			indexFile.getParentFile().mkdirs();
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				out.writeInt(formatVersion);
+				out.writeInt(snapshot.size());
+				for (IndexedMap<T> map : snapshot) {
+					out.writeUTF(map.file.getPath());
+					out.writeLong(map.lastModified);
+					writeContent(out, map.content);
+				}
+			}
+			finally {
+				out.close();
+			}
+			if (indexFile.exists() && !indexFile.delete() || !tempFile.renameTo(indexFile)) {
+				throw new IOException("can not replace " + indexFile);
+			}
+		}
+		catch (IOException e) {
+			DocearLogger.warn("could not write index " + indexFile + ": " + e.getMessage());
+			tempFile.delete();
+			synchronized (this) {
+				modified = true;
+			}
+		}
+	}
+
+	/**
+	 * indexes the map file again and saves the index on a background thread. Changes made before a pending save
+	 * is written are saved together.
+	 */
+	public void updateInBackground(final File mapFile) {
+		backgroundExecutor.execute(new Runnable() {
+			public void run() {
+				update(mapFile);
+				saveInBackground();
+			}
+		});
+	}
+
+	public synchronized void saveInBackground() {
+		if (saveScheduled) {
+			return;
+		}
+		saveScheduled = true;
+		backgroundExecutor.execute(new Runnable() {
+			public void run() {
+				save();
+			}
+		});
+	}
+
+	/**
+	 * removes all maps not contained in <code>mapFiles</code> and indexes the maps modified since they have been
+	 * indexed or which could not be read before.
+	 */
+	public synchronized void synchronize(Collection<File> mapFiles) {
+		final HashSet<File> files = new HashSet<File>(mapFiles);
+		for (IndexedMap<T> map : new ArrayList<IndexedMap<T>>(maps.values())) {
+			if (!files.contains(map.file)) {
+				remove(map.file);
+			}
+		}
+		unreadableMaps.retainAll(files);
+		for (File file : files) {
+			final IndexedMap<T> map = maps.get(file);
+			if (map == null || map.lastModified != file.lastModified()) {
+				update(file);
+			}
+		}
+	}
+
+	/**
+	 * indexes the given map file again. A map which can not be read is removed from the index and remembered
+	 * as unreadable.
+	 */
+	public synchronized void update(File mapFile) {
+		remove(mapFile);
+		unreadableMaps.remove(mapFile);
+		if (!mapFile.exists()) {
+			return;
+		}
+		final long lastModified = mapFile.lastModified();
+		try {
+			add(new IndexedMap<T>(mapFile, lastModified, readMap(mapFile)));
+		}
+		catch (Exception e) {
+			DocearLogger.warn("could not index " + mapFile + ": " + e.getMessage());
+			unreadableMaps.add(mapFile);
+		}
+	}
+
+	public synchronized void remove(File mapFile) {
+		final IndexedMap<T> map = maps.remove(mapFile);
+		if (map == null) {
+			return;
+		}
+		contentRemoved(map.file, map.content);
+		modified = true;
+	}
+
+	private void add(IndexedMap<T> map) {
+		maps.put(map.file, map);
+		contentAdded(map.file, map.content);
+		modified = true;
+	}
+
+	public synchronized int getMapCount() {
+		return maps.size();
+	}
+
+	/**
+	 * @return the maps which could not be read by the last update
+	 */
+	public synchronized Set<File> getUnreadableMaps() {
+		return Collections.unmodifiableSet(new HashSet<File>(unreadableMaps));
+	}
+}
@@ -118,6 +118,28 @@ public class MindmapUpdateController {
 		return changes;
 	}
 	
+	/**
+	 * updates the maps of the project with the given URIs and, if <code>addOpenedMindmaps</code> is set, all opened
+	 * maps of the project.
+	 */
+	@SuppressWarnings("serial")
+	public boolean updateMindmapsInProject(final AWorkspaceProject project, Collection<URI> mapUris, boolean addOpenedMindmaps) {
+		if(!DocearWorkspaceProject.isCompatible(project)) {
+			return false;
+		}
+		List<MapItem> maps = new ArrayList<MapItem>();
+		if (addOpenedMindmaps) {
+			maps.addAll(getAllOpenedMaps(new ArrayList<AWorkspaceProject>(){{ add(project); }}));
+		}
+		for (URI uri : mapUris) {
+			MapItem item = new MapItem(uri);
+			if (!addOpenedMindmaps || !item.isMapOpen()) {
+				maps.add(item);
+			}
+		}
+		return updateMindmaps(maps, project);
+	}
+	
 	public boolean updateOpenMindmaps(Collection<AWorkspaceProject> projects) {
 		List<MapItem> maps = getAllOpenedMaps(projects);
 
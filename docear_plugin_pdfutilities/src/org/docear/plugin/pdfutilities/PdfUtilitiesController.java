@@ -98,6 +98,7 @@ import org.docear.plugin.pdfutilities.listener.MonitorungNodeUpdater;
 import org.docear.plugin.pdfutilities.listener.PdfNodeChangeListener;
 import org.docear.plugin.pdfutilities.listener.WorkspaceNodeOpenDocumentListener;
 import org.docear.plugin.pdfutilities.map.AnnotationController;
+import org.docear.plugin.pdfutilities.map.FileLinkIndexController;
 import org.docear.plugin.pdfutilities.map.MapConverter;
 import org.docear.plugin.pdfutilities.pdf.PdfAnnotationImporter;
 import org.docear.plugin.pdfutilities.pdf.PdfReaderFileFilter;
@@ -1310,7 +1311,10 @@ public class PdfUtilitiesController extends ALanguageController {
 
 		modeController.getMapController().addNodeChangeListener(new PdfNodeChangeListener());		
 		DocearAutoMonitoringListener autoMonitoringListener = new DocearAutoMonitoringListener();
+		modeController.getMapController().addNodeChangeListener(autoMonitoringListener);
+		modeController.getMapController().addMapChangeListener(autoMonitoringListener);
 		DocearController.getController().getLifeCycleObserver().addMapLifeCycleListener(autoMonitoringListener);
+		DocearController.getController().getLifeCycleObserver().addMapLifeCycleListener(FileLinkIndexController.getController());
 		Controller.getCurrentController().getViewController().getJFrame().addWindowFocusListener(autoMonitoringListener);
 	}
 
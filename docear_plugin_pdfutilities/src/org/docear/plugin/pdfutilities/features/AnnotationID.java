@@ -1,12 +1,18 @@
 package org.docear.plugin.pdfutilities.features;
 
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.util.Locale;
+import java.util.WeakHashMap;
 
 public class AnnotationID {
+	// all ids of a document share the same key instance, so documents can be compared by identity. The keys are
+	// held weakly, an entry is dropped when no id of its document is left.
+	private static final WeakHashMap<String, WeakReference<String>> documentKeys = new WeakHashMap<String, WeakReference<String>>();
 	
 	private String id;
 	private final URI uri;
+	private final String documentKey;
 	private final long objectID;
 	private boolean isCreated;
 	private int internalObjectNumber;
@@ -17,6 +23,27 @@ public class AnnotationID {
 		}
 		this.uri = absoluteUri.normalize();
 		this.objectID = objectID;
+		this.documentKey = internDocumentKey(this.uri);
+	}
+
+	private static String internDocumentKey(URI uri) {
+		String path = uri.getPath();
+		String key = (path == null ? uri.toString() : path).toLowerCase(Locale.ENGLISH);
+		synchronized (documentKeys) {
+			WeakReference<String> reference = documentKeys.get(key);
+			String internedKey = reference == null ? null : reference.get();
+			if(internedKey != null) {
+				return internedKey;
+			}
+			documentKeys.put(key, new WeakReference<String>(key));
+			return key;
+		}
+	}
+
+	static int getDocumentKeyCount() {
+		synchronized (documentKeys) {
+			return documentKeys.size();
+		}
 	}
 
 	public String getId() {
@@ -35,6 +62,17 @@ public class AnnotationID {
 		return this.objectID;
 	}
 	
+	/**
+	 * @return the lower case path of the document, the same instance for all ids of a document
+	 */
+	public String getDocumentKey() {
+		return documentKey;
+	}
+	
+	public int getObjectNumber() {
+		return internalObjectNumber;
+	}
+	
 	public boolean isNewCreated() {
 		return isCreated;
 	}
@@ -57,7 +95,7 @@ public class AnnotationID {
 			}
 			//compare the document association
 			if(firstStepCleared) {
-				return this.getUri().getPath().toLowerCase(Locale.ENGLISH).equals(((AnnotationID) object).getUri().getPath().toLowerCase(Locale.ENGLISH));
+				return this.documentKey == other.documentKey;
 			}
 			return false;
 		}
@@ -66,8 +104,12 @@ public class AnnotationID {
 		}
 	}
 	
+	/**
+	 * ids with different object ids can be equal, so only the document can be hashed. Use an
+	 * {@link AnnotationIndex} to look up many annotations of the same document.
+	 */
 	public int hashCode() {		
-		return this.getUri().toString().hashCode();//this.getId().hashCode();
+		return documentKey.hashCode();
 	}
 	
 	public String toString() {
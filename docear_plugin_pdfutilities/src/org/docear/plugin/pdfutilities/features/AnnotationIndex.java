@@ -0,0 +1,214 @@
+package org.docear.plugin.pdfutilities.features;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map from annotation ids to values with constant time lookups.
+ * <p>
+ * {@link AnnotationID#equals(Object)} matches ids of the same document either by their object id or, if one of
+ * them was created by the last import, by their object number. Therefore ids can only be hashed by their document
+ * and a HashMap degenerates to a linear search over all annotations of a document. This index looks up the
+ * document first and then the object id and the object number.
+ * <p>
+ * Keys must not be changed while they are contained in the index, except that they may be marked as not new.
+ */
+public class AnnotationIndex<V> extends AbstractMap<AnnotationID, V> {
+	private static class DocumentIndex {
+		private final HashMap<Long, AnnotationID> byObjectID = new HashMap<Long, AnnotationID>();
+		private final HashMap<Integer, List<AnnotationID>> byObjectNumber = new HashMap<Integer, List<AnnotationID>>();
+		private final HashMap<Integer, List<AnnotationID>> createdByObjectNumber = new HashMap<Integer, List<AnnotationID>>();
+
+		private boolean isEmpty() {
+			return byObjectNumber.isEmpty();
+		}
+	}
+
+	// the stored keys are the canonical instances, so identity is sufficient
+	private final IdentityHashMap<AnnotationID, V> values = new IdentityHashMap<AnnotationID, V>();
+	private final HashMap<String, DocumentIndex> documents = new HashMap<String, DocumentIndex>();
+	private final Set<Map.Entry<AnnotationID, V>> entrySet = new EntrySet();
+
+	public AnnotationIndex() {
+	}
+
+	public AnnotationIndex(Map<AnnotationID, ? extends V> map) {
+		putAll(map);
+	}
+
+	/**
+	 * @return the contained key equal to <code>id</code> or null
+	 */
+	public AnnotationID findKey(AnnotationID id) {
+		final DocumentIndex document = documents.get(id.getDocumentKey());
+		if (document == null) {
+			return null;
+		}
+		if (id.getObjectID() > -1) {
+			final AnnotationID key = document.byObjectID.get(id.getObjectID());
+			if (key != null) {
+				return key;
+			}
+		}
+		final List<AnnotationID> keys;
+		if (id.isNewCreated()) {
+			keys = document.byObjectNumber.get(id.getObjectNumber());
+		}
+		else {
+			keys = document.createdByObjectNumber.get(id.getObjectNumber());
+		}
+		if (keys != null) {
+			// keys may have been marked as not new since they were indexed
+			for (AnnotationID key : keys) {
+				if (key.equals(id)) {
+					return key;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof AnnotationID && findKey((AnnotationID) key) != null;
+	}
+
+	@Override
+	public V get(Object key) {
+		if (!(key instanceof AnnotationID)) {
+			return null;
+		}
+		final AnnotationID storedKey = findKey((AnnotationID) key);
+		return storedKey == null ? null : values.get(storedKey);
+	}
+
+	@Override
+	public V put(AnnotationID key, V value) {
+		final AnnotationID storedKey = findKey(key);
+		if (storedKey != null) {
+			return values.put(storedKey, value);
+		}
+		DocumentIndex document = documents.get(key.getDocumentKey());
+		if (document == null) {
+			document = new DocumentIndex();
+			documents.put(key.getDocumentKey(), document);
+		}
+		if (key.getObjectID() > -1) {
+			document.byObjectID.put(key.getObjectID(), key);
+		}
+		add(document.byObjectNumber, key);
+		if (key.isNewCreated()) {
+			add(document.createdByObjectNumber, key);
+		}
+		values.put(key, value);
+		return null;
+	}
+
+	@Override
+	public V remove(Object key) {
+		if (!(key instanceof AnnotationID)) {
+			return null;
+		}
+		final AnnotationID storedKey = findKey((AnnotationID) key);
+		if (storedKey == null) {
+			return null;
+		}
+		final V value = values.remove(storedKey);
+		unindex(storedKey);
+		return value;
+	}
+
+	@Override
+	public void clear() {
+		values.clear();
+		documents.clear();
+	}
+
+	@Override
+	public int size() {
+		return values.size();
+	}
+
+	@Override
+	public Set<Map.Entry<AnnotationID, V>> entrySet() {
+		return entrySet;
+	}
+
+	private void unindex(AnnotationID key) {
+		final DocumentIndex document = documents.get(key.getDocumentKey());
+		if (document.byObjectID.get(key.getObjectID()) == key) {
+			document.byObjectID.remove(key.getObjectID());
+		}
+		remove(document.byObjectNumber, key);
+		remove(document.createdByObjectNumber, key);
+		if (document.isEmpty()) {
+			documents.remove(key.getDocumentKey());
+		}
+	}
+
+	private static void add(HashMap<Integer, List<AnnotationID>> index, AnnotationID key) {
+		List<AnnotationID> keys = index.get(key.getObjectNumber());
+		if (keys == null) {
+			keys = new ArrayList<AnnotationID>(1);
+			index.put(key.getObjectNumber(), keys);
+		}
+		keys.add(key);
+	}
+
+	private static void remove(HashMap<Integer, List<AnnotationID>> index, AnnotationID key) {
+		final List<AnnotationID> keys = index.get(key.getObjectNumber());
+		if (keys == null) {
+			return;
+		}
+		for (Iterator<AnnotationID> it = keys.iterator(); it.hasNext();) {
+			if (it.next() == key) {
+				it.remove();
+			}
+		}
+		if (keys.isEmpty()) {
+			index.remove(key.getObjectNumber());
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<AnnotationID, V>> {
+		@Override
+		public Iterator<Map.Entry<AnnotationID, V>> iterator() {
+			final Iterator<Map.Entry<AnnotationID, V>> iterator = values.entrySet().iterator();
+			return new Iterator<Map.Entry<AnnotationID, V>>() {
+				private AnnotationID current;
+
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				public Map.Entry<AnnotationID, V> next() {
+					final Map.Entry<AnnotationID, V> entry = iterator.next();
+					current = entry.getKey();
+					return entry;
+				}
+
+				public void remove() {
+					iterator.remove();
+					unindex(current);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return values.size();
+		}
+
+		@Override
+		public void clear() {
+			AnnotationIndex.this.clear();
+		}
+	}
+}
@@ -13,6 +13,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
@@ -38,6 +44,7 @@ import org.docear.plugin.pdfutilities.features.DocearNodeMonitoringExtension.Doc
 import org.docear.plugin.pdfutilities.features.IAnnotation.AnnotationType;
 import org.docear.plugin.pdfutilities.map.AnnotationController;
 import org.docear.plugin.pdfutilities.map.MapConverter;
+import org.docear.plugin.pdfutilities.pdf.AnnotationCache;
 import org.docear.plugin.pdfutilities.pdf.DocumentReadOnlyException;
 import org.docear.plugin.pdfutilities.pdf.PdfAnnotationImporter;
 import org.docear.plugin.pdfutilities.pdf.PdfFileFilter;
@@ -70,18 +77,19 @@ public class MonitoringWorker extends SwingWorker<Map<AnnotationID, Collection<I
 	List<URI> monitorFiles = new ArrayList<URI>();
 	List<URI> otherFilesLinkedInMindMap = new ArrayList<URI>();
 	List<MapModel> monitoredMindmaps = new ArrayList<MapModel>();
-	Map<AnnotationID, List<NodeModel>> nodeIndex = new HashMap<AnnotationID, List<NodeModel>>();
-	Map<AnnotationID, AnnotationModel> importedFiles = new HashMap<AnnotationID, AnnotationModel>();
-	Map<AnnotationID, AnnotationModel> importedOtherFiles = new HashMap<AnnotationID, AnnotationModel>();
+	Map<AnnotationID, List<NodeModel>> nodeIndex = new AnnotationIndex<List<NodeModel>>();
+	Map<AnnotationID, AnnotationModel> importedFiles = new AnnotationIndex<AnnotationModel>();
+	Map<AnnotationID, AnnotationModel> importedOtherFiles = new AnnotationIndex<AnnotationModel>();
 	List<NodeModel> orphanedNodes = new ArrayList<NodeModel>();
 	List<AnnotationModel> newAnnotations = new ArrayList<AnnotationModel>();
 	Map<String, List<NodeModel>> equalChildIndex = new HashMap<String, List<NodeModel>>();
-	Map<AnnotationID, Collection<IAnnotation>> conflicts = new HashMap<AnnotationID, Collection<IAnnotation>>();
+	Map<AnnotationID, Collection<IAnnotation>> conflicts = new AnnotationIndex<Collection<IAnnotation>>();
 	private boolean isfolded;
 	private boolean canceledDuringPasting;
 	private NodeModel currentTarget;
 	private long time;
 	boolean highlightAddon;
+	private static final int MAX_IMPORT_THREADS = 4;
 
 	public MonitoringWorker(List<NodeModel> targets) {
 		this.targets = targets;
@@ -612,37 +620,145 @@ public class MonitoringWorker extends SwingWorker<Map<AnnotationID, Collection<I
 	private boolean loadMonitoredFiles(NodeModel target) throws InterruptedException, InvocationTargetException {
 		fireStatusUpdate(SwingWorkerDialog.SET_PROGRESS_BAR_DETERMINATE, null, null);
 		fireStatusUpdate(SwingWorkerDialog.PROGRESS_BAR_TEXT, null, TextUtils.getText("AbstractMonitoringAction.23")); //$NON-NLS-1$
-		ReadOnlyExceptionWarningHandler warningHandler = new ReadOnlyExceptionWarningHandler();
+		final AnnotationCache cache = AnnotationCache.getInstance();
+		final String importSettings = PdfAnnotationImporter.getImportSettings();
+		final List<URI> changedPdfs = new ArrayList<URI>();
 		for (URI uri : monitorFiles) {
+			if (canceled()) return false;
+			File file = URIUtils.getAbsoluteFile(uri);
+			if (PdfFileFilter.accept(uri)) {
+				AnnotationModel pdf = cache.get(file, importSettings);
+				if (pdf == null) {
+					changedPdfs.add(uri);
+				}
+				else {
+					addAnnotationsToImportedFiles(pdf, target);
+				}
+			}
+			else {
+				AnnotationModel annotation = new AnnotationModel(0, AnnotationType.FILE);
+				annotation.setSource(uri);
+				annotation.setTitle(file.getName());
+				AnnotationID id = annotation.getAnnotationID();
+				if (!importedFiles.containsKey(id)) {
+					importedFiles.put(id, annotation);
+				}
+			}
+		}
+		final int unchangedFiles = monitorFiles.size() - changedPdfs.size();
+		fireProgressUpdate(100 * unchangedFiles / Math.max(1, monitorFiles.size()));
+		final List<URI> readOnlyPdfs = new ArrayList<URI>();
+		if (!importChangedPdfs(changedPdfs, readOnlyPdfs, target, cache, importSettings, unchangedFiles)) return false;
+		if (!importReadOnlyPdfs(readOnlyPdfs, target, cache, importSettings)) return false;
+		cache.save();
+		return true;
+	}
+
+	/**
+	 * imports the pdf files in parallel. Files which are read only are not imported but collected in
+	 * <code>readOnlyPdfs</code>, because importing them needs the user's decision. This includes files which could
+	 * be opened but not saved after removing line breaks from their annotations.
+	 */
+	private boolean importChangedPdfs(List<URI> pdfs, List<URI> readOnlyPdfs, NodeModel target, AnnotationCache cache, String importSettings, int done)
+			throws InterruptedException, InvocationTargetException {
+		if (pdfs.isEmpty()) {
+			return true;
+		}
+		// the highlights addon is a single instance which can not be used by more than one thread
+		final int threads = highlightAddon ? 1 : Math.max(1, Math.min(MAX_IMPORT_THREADS, Runtime.getRuntime().availableProcessors()));
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CompletionService<PdfImport> completionService = new ExecutorCompletionService<PdfImport>(executor);
+		try {
+			for (final URI uri : pdfs) {
+				completionService.submit(new Callable<PdfImport>() {
+					public PdfImport call() throws Exception {
+						return importPdf(uri);
+					}
+				});
+			}
+			for (int i = 0; i < pdfs.size(); i++) {
+				if (canceled()) return false;
+				final PdfImport result = completionService.take().get();
+				fireStatusUpdate(SwingWorkerDialog.NEW_FILE, null, result.file.getName());
+				fireProgressUpdate(100 * (done + i + 1) / monitorFiles.size());
+				if (result.readOnly || result.unsavedLinebreaks) {
+					readOnlyPdfs.add(result.uri);
+				}
+				else if (result.pdf != null) {
+					cache.put(result.file, importSettings, result.pdf);
+					addAnnotationsToImportedFiles(result.pdf, target);
+				}
+			}
+			return true;
+		}
+		catch (ExecutionException e) {
+			LogUtils.warn(e.getCause());
+			return false;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static class PdfImport {
+		private final URI uri;
+		private final File file;
+		private AnnotationModel pdf;
+		private boolean readOnly;
+		private boolean unsavedLinebreaks;
+
+		private PdfImport(URI uri) {
+			this.uri = uri;
+			this.file = URIUtils.getAbsoluteFile(uri);
+		}
+	}
+
+	private static PdfImport importPdf(URI uri) {
+		final PdfImport result = new PdfImport(uri);
+		try {
+			final PdfAnnotationImporter importer = new PdfAnnotationImporter();
+			importer.setAskForReadOnlyLinebreaks(false);
+			result.pdf = importer.importPdf(uri);
+			result.unsavedLinebreaks = importer.hasUnsavedLinebreaks();
+		}
+		catch (DocumentReadOnlyException e) {
+			result.readOnly = true;
+		}
+		catch (IOException e) {
+			LogUtils.info("IOexception during update file: " + uri); //$NON-NLS-1$
+		}
+		catch (COSRuntimeException e) {
+			LogUtils.info("COSRuntimeException during update file: " + uri); //$NON-NLS-1$
+		}
+		return result;
+	}
+
+	/**
+	 * imports the pdf files one by one with a single importer, so that the user is asked once for all files
+	 * whether line breaks are to be removed if they can not be saved.
+	 */
+	private boolean importReadOnlyPdfs(List<URI> pdfs, NodeModel target, AnnotationCache cache, String importSettings) throws InterruptedException, InvocationTargetException {
+		ReadOnlyExceptionWarningHandler warningHandler = new ReadOnlyExceptionWarningHandler();
+		PdfAnnotationImporter importer = new PdfAnnotationImporter();
+		for (URI uri : pdfs) {
 			warningHandler.prepare();
 			if (canceled()) return false;
 			try {
-				fireProgressUpdate(100 * monitorFiles.indexOf(uri) / monitorFiles.size());
 				File file = URIUtils.getAbsoluteFile(uri);
 				fireStatusUpdate(SwingWorkerDialog.NEW_FILE, null, file.getName());
-				if (PdfFileFilter.accept(uri)) {
-					AnnotationModel pdf;
-					while(warningHandler.retry()) {
-						try {
-							pdf = new PdfAnnotationImporter().importPdf(uri);
-							addAnnotationsToImportedFiles(pdf, target);
-							warningHandler.consume();
-						} catch (DocumentReadOnlyException e) {
-							if(warningHandler.skip()) {
-								break;
-							}
-							warningHandler.showDialog(file);
-						} 
-					}
-				}
-				else {
-					AnnotationModel annotation = new AnnotationModel(0, AnnotationType.FILE);
-					annotation.setSource(uri);
-					annotation.setTitle(file.getName());
-					AnnotationID id = annotation.getAnnotationID();
-					if (!importedFiles.containsKey(id)) {
-						importedFiles.put(id, annotation);
-					}
+				AnnotationModel pdf;
+				while(warningHandler.retry()) {
+					try {
+						pdf = importer.importPdf(uri);
+						cache.put(file, importSettings, pdf);
+						addAnnotationsToImportedFiles(pdf, target);
+						warningHandler.consume();
+					} catch (DocumentReadOnlyException e) {
+						if(warningHandler.skip()) {
+							break;
+						}
+						warningHandler.showDialog(file);
+					} 
 				}
 			}
 			catch (IOException e) {
@@ -2,141 +2,155 @@ package org.docear.plugin.pdfutilities.listener;
 
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowFocusListener;
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 
 import javax.swing.SwingUtilities;
 
-import name.pachler.nio.file.WatchKey;
-
 import org.docear.plugin.core.features.DocearInternallyLoadedMap;
 import org.docear.plugin.pdfutilities.actions.UpdateMonitoringFolderAction;
 import org.docear.plugin.pdfutilities.map.MapConverter;
+import org.docear.plugin.pdfutilities.pdf.PdfFileFilter;
 import org.docear.plugin.pdfutilities.util.MonitoringUtils;
 import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.attribute.NodeAttributeTableModel;
+import org.freeplane.features.map.IMapChangeListener;
 import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
 import org.freeplane.features.map.NodeModel;
+import org.freeplane.plugin.workspace.WorkspaceController;
+import org.freeplane.plugin.workspace.io.FileChange;
+import org.freeplane.plugin.workspace.io.IFileChangeListener;
+
+/**
+ * Updates the auto monitoring nodes of the opened maps once when Docear gets the focus, and afterwards whenever pdf
+ * files in their monitored directories are created, changed or deleted. Only the nodes of the changed directories are
+ * updated, unchanged pdf files are not read again thanks to the annotation cache. The watched directories follow
+ * the monitoring attributes of the nodes and the inserted and deleted nodes.
+ */
+public class DocearAutoMonitoringListener implements IMapLifeCycleListener, INodeChangeListener, IMapChangeListener, WindowFocusListener{
 
-public class DocearAutoMonitoringListener implements IMapLifeCycleListener,  WindowFocusListener{
-	
 	private List<NodeModel> autoMonitorNodes = new ArrayList<NodeModel>();
 	private boolean startup = true;
-		
-	Comparator<WatchKey> watchKeyComparator = new Comparator<WatchKey>() {
-
-		public int compare(WatchKey key1, WatchKey key2) {
-			int hash1 = key1.hashCode(); 
-			int hash2 = key2.hashCode();
-			if(hash1 > hash2) {
-				return 1;
-			}
-			else if(hash1 < hash2) {
-				return -1;
+
+	// the watched directory of each auto monitoring node of the monitored maps
+	private final Map<MapModel, Map<NodeModel, MonitoredDirectory>> monitoredDirectories = new HashMap<MapModel, Map<NodeModel, MonitoredDirectory>>();
+	// nodes with changed monitored directories, updated together on the event dispatch thread
+	private final Set<NodeModel> changedNodes = new LinkedHashSet<NodeModel>();
+
+	private class MonitoredDirectory implements IFileChangeListener {
+		private final NodeModel node;
+		private final File directory;
+		private final boolean recursive;
+
+		private MonitoredDirectory(NodeModel node, File directory, boolean recursive) {
+			this.node = node;
+			this.directory = directory;
+			this.recursive = recursive;
+		}
+
+		public void filesChanged(List<FileChange> changes) {
+			for (FileChange change : changes) {
+				if(PdfFileFilter.accept(change.getFile().getPath()) || change.getFile().isDirectory()) {
+					onDirectoryChanged(node);
+					return;
+				}
 			}
-			return 0;
-		}
-	};
-	//TODO: enable automatic file monitoring
-	//private WatchService watcher = FileSystems.getDefault().newWatchService();
-	private Map<MapModel, List<WatchKey>> mapKeysMap = new HashMap<MapModel, List<WatchKey>>();
-	private Map<WatchKey, MapModel> keyMapMap = new TreeMap<WatchKey, MapModel>(watchKeyComparator);
-	private Map<WatchKey, String> watchables = new TreeMap<WatchKey, String>(watchKeyComparator);
-	
-	
-	public DocearAutoMonitoringListener() {
-		//TODO: enable automatic file monitoring
-//		new Thread() {
-//			public void run() {
-//				try {
-//					WatchKey key = null;
-//					while((key = watcher.take()) != null) {
-//						Path watchPath = null;
-//						if(key instanceof PathWatchKey) {
-//							watchPath = (Path) ((PathWatchKey) key).watchable();
-//						}
-//						for(WatchEvent<?> event : key.pollEvents()) {
-//							Object obj = event.context();
-//							File file = new File(watchPath.toString(), obj.toString());
-//							if(StandardWatchEventKind.ENTRY_CREATE.equals(event.kind())) {
-//								onCreateFile(file, key);
-//							}
-//							else if(StandardWatchEventKind.ENTRY_DELETE.equals(event.kind())) {
-//								onDeleteFile(file, key);								
-//							}
-//							else if(StandardWatchEventKind.ENTRY_MODIFY.equals(event.kind())) {
-//								onModifyFile(file, key);
-//							}
-//							else {
-//								LogUtils.info("DirectoryWatcher: unknown event kind"+ event.kind());
-//							}
-//						}
-//						key.reset();
-//					}
-//				} catch (InterruptedException e) {
-//				}
-//				finally {
-//					LogUtils.info("closing directory watcher...");
-//					try {
-//						watcher.close();
-//					} catch (IOException e) {
-//					}
-//				}				
-//			}
-//		}.start();
-	}
-	
-	
+		}
+	}
+
 	public void onCreate(final MapModel map) {
-		if(map == null || map.getFile() == null || DocearInternallyLoadedMap.isInternallyLoaded(map)) { 
+		if(map == null || map.getFile() == null || DocearInternallyLoadedMap.isInternallyLoaded(map)) {
 			return;
 		}
+		synchronized (monitoredDirectories) {
+			monitoredDirectories.put(map, new HashMap<NodeModel, MonitoredDirectory>());
+		}
 		List<? extends NodeModel> monitoringNodes = (List<? extends NodeModel>) getAutoMonitorNodes(map.getRootNode());
 		if(monitoringNodes == null || monitoringNodes.size() <= 0) {
 			return;
 		}
 		autoMonitorNodes.addAll(monitoringNodes);
-		
-		//TODO: enable automatic file monitoring
-		//registerMonitoredDirectories(map, monitoringNodes);
-		
+
+		for (NodeModel node : monitoringNodes) {
+			updateMonitoredDirectory(node);
+		}
+
 		if(!startup){
 			SwingUtilities.invokeLater(new Thread() {
 				public void run() {
-					
+
 					LogUtils.info("Monitoring started"); //$NON-NLS-1$
 					startMonitoring();
-			
+
 				} //run()
 			}); // Thread
 		}
 	}
 
 	public void onRemove(MapModel map) {
-		List<WatchKey> keys = mapKeysMap.get(map);
-		if(keys != null) {
-			for (WatchKey watchKey : keys) {
-				cleanUpWatchKey(watchKey);
-			}
+		Map<NodeModel, MonitoredDirectory> directories;
+		synchronized (monitoredDirectories) {
+			directories = monitoredDirectories.remove(map);
+		}
+		if(directories == null) {
+			return;
+		}
+		for (MonitoredDirectory monitoredDirectory : directories.values()) {
+			unwatch(monitoredDirectory);
+		}
+	}
+
+	public void nodeChanged(NodeChangeEvent event) {
+		// attribute changes are mostly reported as unknown property
+		if(NodeModel.UNKNOWN_PROPERTY.equals(event.getProperty()) || NodeAttributeTableModel.class.equals(event.getProperty())) {
+			updateMonitoredDirectory(event.getNode());
+		}
+	}
+
+	public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
+		if(isMonitored(child.getMap())) {
+			updateMonitoredDirectories(child);
+		}
+	}
+
+	public void onNodeDeleted(NodeModel parent, NodeModel child, int index) {
+		if(isMonitored(child.getMap())) {
+			removeMonitoredDirectories(child);
 		}
-		
+	}
+
+	public void onNodeMoved(NodeModel oldParent, int oldIndex, NodeModel newParent, NodeModel child, int newIndex) {
+	}
+
+	public void onPreNodeMoved(NodeModel oldParent, int oldIndex, NodeModel newParent, NodeModel child, int newIndex) {
+	}
+
+	public void onPreNodeDelete(NodeModel oldParent, NodeModel selectedNode, int index) {
+	}
+
+	public void mapChanged(MapChangeEvent event) {
 	}
 
 	public void windowGainedFocus(WindowEvent e) {
 		if(startup && !MapConverter.currentlyConverting){
 			startup = false;
-			startMonitoring();			
+			startMonitoring();
 		}
 	}
 
 	public void windowLostFocus(WindowEvent e) {
-	
+
 	}
-	
+
 	private List<? extends NodeModel> getAutoMonitorNodes(NodeModel node) {
 		List<NodeModel> result = new ArrayList<NodeModel>();
 		if(MonitoringUtils.isAutoMonitorNode(node)){
@@ -149,25 +163,126 @@ public class DocearAutoMonitoringListener implements IMapLifeCycleListener,  Win
 	}
 
 	public void onSavedAs(MapModel map) {
-		
+
 	}
 
 	public void onSaved(MapModel map) {
-		
+
 	}
 
 	private synchronized void startMonitoring() {
 		if(autoMonitorNodes.size() > 0){
 			UpdateMonitoringFolderAction.updateNodesAgainstMonitoringDir(autoMonitorNodes, !startup);
 			autoMonitorNodes.clear();
-		}		
+		}
+	}
+
+	private boolean isMonitored(MapModel map) {
+		synchronized (monitoredDirectories) {
+			return monitoredDirectories.containsKey(map);
+		}
+	}
+
+	private void updateMonitoredDirectories(NodeModel node) {
+		updateMonitoredDirectory(node);
+		for (NodeModel child : node.getChildren()) {
+			updateMonitoredDirectories(child);
+		}
 	}
-	
-	private void cleanUpWatchKey(WatchKey watchKey) {
-		watchKey.cancel();
-		watchables.remove(watchKey);
-		keyMapMap.remove(watchKey);
+
+	private void removeMonitoredDirectories(NodeModel node) {
+		final MonitoredDirectory monitoredDirectory;
+		synchronized (monitoredDirectories) {
+			final Map<NodeModel, MonitoredDirectory> directories = monitoredDirectories.get(node.getMap());
+			monitoredDirectory = directories == null ? null : directories.remove(node);
+		}
+		if(monitoredDirectory != null) {
+			unwatch(monitoredDirectory);
+		}
+		for (NodeModel child : node.getChildren()) {
+			removeMonitoredDirectories(child);
+		}
 	}
-	
 
+	/**
+	 * watches the monitored directory of the node if it is an auto monitoring node, and stops watching the former
+	 * directory if the node is no longer monitored or monitors another directory.
+	 */
+	private void updateMonitoredDirectory(NodeModel node) {
+		if(!isMonitored(node.getMap())) {
+			return;
+		}
+		File directory = null;
+		boolean recursive = false;
+		if(MonitoringUtils.isAutoMonitorNode(node)) {
+			directory = MonitoringUtils.getPdfDirFromMonitoringNode(node);
+			recursive = MonitoringUtils.isMonitorSubDirectories(node);
+			if(directory != null && !directory.isDirectory()) {
+				directory = null;
+			}
+		}
+		MonitoredDirectory formerDirectory;
+		MonitoredDirectory monitoredDirectory = null;
+		synchronized (monitoredDirectories) {
+			final Map<NodeModel, MonitoredDirectory> directories = monitoredDirectories.get(node.getMap());
+			if(directories == null) {
+				// the map is not monitored
+				return;
+			}
+			formerDirectory = directories.get(node);
+			if(formerDirectory != null && formerDirectory.directory.equals(directory) && formerDirectory.recursive == recursive) {
+				return;
+			}
+			directories.remove(node);
+			if(directory != null) {
+				monitoredDirectory = new MonitoredDirectory(node, directory, recursive);
+				directories.put(node, monitoredDirectory);
+			}
+		}
+		if(formerDirectory != null) {
+			unwatch(formerDirectory);
+		}
+		if(monitoredDirectory != null) {
+			WorkspaceController.getFileSystemWatcher().addListener(directory, recursive, monitoredDirectory);
+		}
+	}
+
+	private void unwatch(MonitoredDirectory monitoredDirectory) {
+		WorkspaceController.getFileSystemWatcher().removeListener(monitoredDirectory.directory, monitoredDirectory);
+		synchronized (changedNodes) {
+			changedNodes.remove(monitoredDirectory.node);
+		}
+	}
+
+	private void onDirectoryChanged(NodeModel node) {
+		synchronized (changedNodes) {
+			if(!changedNodes.add(node) || changedNodes.size() > 1) {
+				// the update is already scheduled
+				return;
+			}
+		}
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				updateChangedNodes();
+			}
+		});
+	}
+
+	private void updateChangedNodes() {
+		List<NodeModel> nodes = new ArrayList<NodeModel>();
+		synchronized (changedNodes) {
+			for (NodeModel node : changedNodes) {
+				if(MonitoringUtils.isAutoMonitorNode(node)) {
+					nodes.add(node);
+				}
+			}
+			changedNodes.clear();
+		}
+		if(startup || MapConverter.currentlyConverting || nodes.isEmpty()) {
+			// the nodes are updated when monitoring starts
+			return;
+		}
+		LogUtils.info("updating monitoring nodes with changed directories: " + nodes.size()); //$NON-NLS-1$
+		UpdateMonitoringFolderAction.updateNodesAgainstMonitoringDir(nodes, false);
+	}
 }
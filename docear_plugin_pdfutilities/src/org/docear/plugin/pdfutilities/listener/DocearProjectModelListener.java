@@ -1,6 +1,7 @@
 package org.docear.plugin.pdfutilities.listener;
 
 import java.io.File;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -9,15 +10,19 @@ import java.util.Map;
 import org.apache.commons.io.FileUtils;
 import org.docear.plugin.core.logging.DocearLogger;
 import org.docear.plugin.core.mindmap.MindmapUpdateController;
+import org.docear.plugin.core.ui.SwingWorkerDialog;
 import org.docear.plugin.pdfutilities.map.AnnotationController;
+import org.docear.plugin.pdfutilities.map.FileLinkIndexController;
 import org.docear.plugin.pdfutilities.map.MindmapFileLinkUpdater;
 import org.freeplane.core.util.TextUtils;
+import org.freeplane.features.mode.Controller;
 import org.freeplane.plugin.workspace.model.WorkspaceModelEvent;
 import org.freeplane.plugin.workspace.model.WorkspaceModelEvent.WorkspaceModelEventType;
 import org.freeplane.plugin.workspace.model.project.AWorkspaceProject;
 import org.freeplane.plugin.workspace.model.project.IProjectModelListener;
 import org.freeplane.plugin.workspace.nodes.DefaultFileNode;
 import org.freeplane.plugin.workspace.nodes.LinkTypeFileNode;
+import org.jdesktop.swingworker.SwingWorker;
 
 public class DocearProjectModelListener implements IProjectModelListener {
 	
@@ -37,12 +42,57 @@ public class DocearProjectModelListener implements IProjectModelListener {
 		updateMaps(project, fileMap, renamed); 
 	}
 
-	public static void updateMaps(AWorkspaceProject project, Map<File, File> fileMap, boolean renamed) {
-		ArrayList<AWorkspaceProject> projects = new ArrayList<AWorkspaceProject>();
-		projects.add(project);
+	/**
+	 * updates the links to the files in <code>fileMap</code>. Only the maps linking to any of them according to the
+	 * file link index and the opened maps, which may contain links not saved yet, are updated. The index is looked up
+	 * in the background, a progress dialog is shown if the index of the project has to be built first.
+	 */
+	public static void updateMaps(final AWorkspaceProject project, final Map<File, File> fileMap, final boolean renamed) {
+		final FileLinkIndexController indexController = FileLinkIndexController.getController();
+		final boolean showDialog = !indexController.isIndexLoaded(project);
+		final SwingWorker<Map<File, Collection<String>>, Void> lookup = new SwingWorker<Map<File, Collection<String>>, Void>() {
+			protected Map<File, Collection<String>> doInBackground() throws Exception {
+				if (showDialog) {
+					firePropertyChange(SwingWorkerDialog.SET_PROGRESS_BAR_INDETERMINATE, null, null);
+					firePropertyChange(SwingWorkerDialog.PROGRESS_BAR_TEXT, null, TextUtils.getText("building_file_link_index"));
+				}
+				return indexController.getLinkingNodes(project, fileMap.keySet());
+			}
+
+			protected void done() {
+				if (showDialog) {
+					firePropertyChange(SwingWorkerDialog.CLOSE, null, null);
+				}
+				if (isCancelled()) {
+					return;
+				}
+				try {
+					updateMaps(project, fileMap, renamed, get());
+				}
+				catch (Exception e) {
+					DocearLogger.warn(e);
+				}
+			}
+		};
+		if (showDialog) {
+			SwingWorkerDialog workerDialog = new SwingWorkerDialog(Controller.getCurrentController().getViewController().getJFrame());
+			workerDialog.setHeadlineText(TextUtils.getText("updating_mindmaps_headline"));
+			workerDialog.setSubHeadlineText(TextUtils.getText("updating_links"));
+			workerDialog.showDialog(lookup);
+		}
+		else {
+			lookup.execute();
+		}
+	}
+
+	private static void updateMaps(AWorkspaceProject project, Map<File, File> fileMap, boolean renamed, Map<File, Collection<String>> linkingNodes) {
+		ArrayList<URI> mapUris = new ArrayList<URI>();
+		for(File mapFile : linkingNodes.keySet()) {
+			mapUris.add(mapFile.toURI());
+		}
 		MindmapUpdateController mindmapUpdateController = new MindmapUpdateController(false);
-		mindmapUpdateController.addMindmapUpdater(new MindmapFileLinkUpdater(TextUtils.getText("updating_links"), renamed, fileMap));
-		mindmapUpdateController.updateAllMindmapsInProject(projects);
+		mindmapUpdateController.addMindmapUpdater(new MindmapFileLinkUpdater(TextUtils.getText("updating_links"), renamed, fileMap, linkingNodes));
+		mindmapUpdateController.updateMindmapsInProject(project, mapUris, true);
 	}
 
 	public void treeNodesChanged(WorkspaceModelEvent event) {
@@ -18,6 +18,7 @@ import org.docear.plugin.core.DocearController;
 import org.docear.plugin.core.util.HtmlUtils;
 import org.docear.plugin.pdfutilities.features.AnnotationConverter;
 import org.docear.plugin.pdfutilities.features.AnnotationID;
+import org.docear.plugin.pdfutilities.features.AnnotationIndex;
 import org.docear.plugin.pdfutilities.features.AnnotationModel;
 import org.docear.plugin.pdfutilities.features.AnnotationNodeModel;
 import org.docear.plugin.pdfutilities.features.AnnotationXmlBuilder;
@@ -90,7 +91,7 @@ public class AnnotationController implements IExtension{
 	}
 	
 	public static Map<AnnotationID, Collection<IAnnotation>> getConflictedAnnotations(Collection<AnnotationModel> importedAnnotations, Map<AnnotationID, Collection<AnnotationNodeModel>> oldAnnotations) {
-		Map<AnnotationID, Collection<IAnnotation>> result = new HashMap<AnnotationID, Collection<IAnnotation>>();
+		Map<AnnotationID, Collection<IAnnotation>> result = new AnnotationIndex<Collection<IAnnotation>>();
 		for(AnnotationModel annotation : importedAnnotations){
 			addConflictedAnnotations(getConflictedAnnotations(annotation, oldAnnotations), result);		
 		}
@@ -98,7 +99,7 @@ public class AnnotationController implements IExtension{
 	}
 
 	public static Map<AnnotationID, Collection<IAnnotation>> getConflictedAnnotations(AnnotationModel importedAnnotation, Map<AnnotationID, Collection<AnnotationNodeModel>> oldAnnotations) {
-		Map<AnnotationID, Collection<IAnnotation>> result = new HashMap<AnnotationID, Collection<IAnnotation>>();
+		Map<AnnotationID, Collection<IAnnotation>> result = new AnnotationIndex<Collection<IAnnotation>>();
 		if(oldAnnotations.containsKey(importedAnnotation.getAnnotationID())){
 			for(AnnotationNodeModel oldAnnotation : oldAnnotations.get(importedAnnotation.getAnnotationID())){
 				String oldAnnotationWithoutHTML = HtmlUtils.extractText(oldAnnotation.getTitle());
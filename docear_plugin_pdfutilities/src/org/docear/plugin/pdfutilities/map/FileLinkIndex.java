@@ -0,0 +1,217 @@
+package org.docear.plugin.pdfutilities.map;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.docear.plugin.core.mindmap.AMapFileIndex;
+import org.freeplane.core.util.FileUtils;
+import org.freeplane.n3.nanoxml.IXMLBuilder;
+import org.freeplane.n3.nanoxml.IXMLParser;
+import org.freeplane.n3.nanoxml.StdXMLReader;
+import org.freeplane.n3.nanoxml.XMLParserFactory;
+import org.freeplane.plugin.workspace.URIUtils;
+
+/**
+ * Index of the files linked by the nodes of many mind maps, from the absolute linked file to the maps and the IDs
+ * of their nodes linking to it. Nodes without ID are indexed with an empty ID.
+ */
+public class FileLinkIndex extends AMapFileIndex<Map<File, List<String>>> {
+	private static final int FORMAT_VERSION = 1;
+
+	private final HashMap<File, Map<File, List<String>>> links = new HashMap<File, Map<File, List<String>>>();
+	private final HashMap<File, HashSet<File>> linkingMaps = new HashMap<File, HashSet<File>>();
+
+	public FileLinkIndex(File indexFile) {
+		super(indexFile, FORMAT_VERSION);
+	}
+
+	@Override
+	protected Map<File, List<String>> readMap(File mapFile) throws Exception {
+		final HashMap<File, List<String>> mapLinks = new HashMap<File, List<String>>();
+		new LinkReader(mapFile, mapLinks).read();
+		return mapLinks;
+	}
+
+	@Override
+	protected Map<File, List<String>> readContent(File mapFile, DataInputStream in) throws IOException {
+		final HashMap<File, List<String>> mapLinks = new HashMap<File, List<String>>();
+		for (int linkCount = in.readInt(); linkCount > 0; linkCount--) {
+			final File linkedFile = new File(in.readUTF());
+			for (int nodes = in.readInt(); nodes > 0; nodes--) {
+				addLink(mapLinks, linkedFile, in.readUTF());
+			}
+		}
+		return mapLinks;
+	}
+
+	@Override
+	protected void writeContent(DataOutputStream out, Map<File, List<String>> mapLinks) throws IOException {
+		out.writeInt(mapLinks.size());
+		for (Entry<File, List<String>> link : mapLinks.entrySet()) {
+			out.writeUTF(link.getKey().getPath());
+			out.writeInt(link.getValue().size());
+			for (String nodeId : link.getValue()) {
+				out.writeUTF(nodeId);
+			}
+		}
+	}
+
+	@Override
+	protected void contentAdded(File mapFile, Map<File, List<String>> mapLinks) {
+		links.put(mapFile, mapLinks);
+		for (File linkedFile : mapLinks.keySet()) {
+			HashSet<File> mapFiles = linkingMaps.get(linkedFile);
+			if (mapFiles == null) {
+				mapFiles = new HashSet<File>();
+				linkingMaps.put(linkedFile, mapFiles);
+			}
+			mapFiles.add(mapFile);
+		}
+	}
+
+	@Override
+	protected void contentRemoved(File mapFile, Map<File, List<String>> mapLinks) {
+		links.remove(mapFile);
+		for (File linkedFile : mapLinks.keySet()) {
+			final HashSet<File> mapFiles = linkingMaps.get(linkedFile);
+			if (mapFiles != null) {
+				mapFiles.remove(mapFile);
+				if (mapFiles.isEmpty()) {
+					linkingMaps.remove(linkedFile);
+				}
+			}
+		}
+	}
+
+	/**
+	 * returns the IDs of the nodes linking to any of the <code>linkedFiles</code> by the files of their maps. The
+	 * maps which could not be read are contained with <code>null</code> instead of IDs, all of their nodes may link
+	 * to the files.
+	 */
+	public synchronized Map<File, Collection<String>> getLinkingNodes(Collection<File> linkedFiles) {
+		final HashMap<File, Collection<String>> nodes = new HashMap<File, Collection<String>>();
+		for (File linkedFile : linkedFiles) {
+			final HashSet<File> mapFiles = linkingMaps.get(linkedFile);
+			if (mapFiles == null) {
+				continue;
+			}
+			for (File mapFile : mapFiles) {
+				Collection<String> nodeIds = nodes.get(mapFile);
+				if (nodeIds == null) {
+					nodeIds = new HashSet<String>();
+					nodes.put(mapFile, nodeIds);
+				}
+				nodeIds.addAll(links.get(mapFile).get(linkedFile));
+			}
+		}
+		for (File mapFile : getUnreadableMaps()) {
+			nodes.put(mapFile, null);
+		}
+		return nodes;
+	}
+
+	private static void addLink(Map<File, List<String>> mapLinks, File linkedFile, String nodeId) {
+		List<String> nodeIds = mapLinks.get(linkedFile);
+		if (nodeIds == null) {
+			nodeIds = new ArrayList<String>(1);
+			mapLinks.put(linkedFile, nodeIds);
+		}
+		nodeIds.add(nodeId);
+	}
+
+	/**
+	 * resolves the link of a node like {@link URIUtils#getAbsoluteURI(org.freeplane.features.map.NodeModel)} does.
+	 */
+	private static File getLinkedFile(File mapFile, String link) {
+		final URI uri = URIUtils.createURI(link);
+		if (uri == null) {
+			return null;
+		}
+		if (uri.isAbsolute()) {
+			return URIUtils.getFile(URIUtils.getAbsoluteURI(uri));
+		}
+		return URIUtils.getFile(URIUtils.resolveURI(mapFile.toURI(), uri));
+	}
+
+	/**
+	 * Streams the nodes of a map file and adds their file links to the links of the map.
+	 */
+	private static class LinkReader implements IXMLBuilder {
+		private final File mapFile;
+		private final Map<File, List<String>> mapLinks;
+		private String id;
+		private String link;
+
+		private LinkReader(File mapFile, Map<File, List<String>> mapLinks) {
+			this.mapFile = mapFile;
+			this.mapLinks = mapLinks;
+		}
+
+		private void read() throws Exception {
+			final Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(mapFile), FileUtils.defaultCharset()));
+			try {
+				final IXMLParser parser = XMLParserFactory.createDefaultXMLParser();
+				parser.setBuilder(this);
+				parser.setReader(new StdXMLReader(reader));
+				parser.parse();
+			}
+			finally {
+				reader.close();
+			}
+		}
+
+		public void startBuilding(String systemID, int lineNr) throws Exception {
+		}
+
+		public void newProcessingInstruction(String target, Reader reader) throws Exception {
+		}
+
+		public void startElement(String name, String nsPrefix, String nsURI, String systemID, int lineNr) throws Exception {
+			id = null;
+			link = null;
+		}
+
+		public void addAttribute(String key, String nsPrefix, String nsURI, String value, String type) throws Exception {
+			if ("ID".equals(key)) {
+				id = value;
+			}
+			else if ("LINK".equals(key)) {
+				link = value;
+			}
+		}
+
+		public void elementAttributesProcessed(String name, String nsPrefix, String nsURI) throws Exception {
+			if (link == null || !"node".equals(name)) {
+				return;
+			}
+			final File linkedFile = getLinkedFile(mapFile, link);
+			if (linkedFile != null) {
+				addLink(mapLinks, linkedFile, id == null ? "" : id);
+			}
+		}
+
+		public void addPCData(Reader reader, String systemID, int lineNr) throws Exception {
+		}
+
+		public void endElement(String name, String nsPrefix, String nsURI) throws Exception {
+		}
+
+		public Object getResult() throws Exception {
+			return null;
+		}
+	}
+}
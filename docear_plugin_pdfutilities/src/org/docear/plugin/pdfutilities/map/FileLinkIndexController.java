@@ -0,0 +1,90 @@
+package org.docear.plugin.pdfutilities.map;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.plugin.workspace.URIUtils;
+import org.freeplane.plugin.workspace.WorkspaceController;
+import org.freeplane.plugin.workspace.model.project.AWorkspaceProject;
+
+/**
+ * Keeps a {@link FileLinkIndex} for each project and indexes the maps again when they are saved.
+ */
+public class FileLinkIndexController implements IMapLifeCycleListener {
+
+	private static final String INDEX_FILE_NAME = "filelinks.index";
+
+	private final static FileLinkIndexController thisController = new FileLinkIndexController();
+
+	private final HashMap<String, FileLinkIndex> indices = new HashMap<String, FileLinkIndex>();
+
+	public static FileLinkIndexController getController() {
+		return thisController;
+	}
+
+	/**
+	 * returns the IDs of the nodes linking to any of the <code>linkedFiles</code> by the files of their maps. Only
+	 * the maps of the project changed since they have been indexed are read, none of them is opened. Maps which
+	 * could not be read are contained with <code>null</code>, all of their nodes have to be checked.
+	 * <p>
+	 * Reads the maps, so it should not be called on the event dispatch thread.
+	 */
+	public Map<File, Collection<String>> getLinkingNodes(AWorkspaceProject project, Collection<File> linkedFiles) {
+		final FileLinkIndex index = getIndex(project);
+		final List<File> mapFiles = new ArrayList<File>();
+		for (URI uri : project.getModel().getAllNodesFiltered(".mm")) {
+			final File file = URIUtils.getAbsoluteFile(uri);
+			if (file != null) {
+				mapFiles.add(file);
+			}
+		}
+		index.synchronize(mapFiles);
+		index.save();
+		return index.getLinkingNodes(linkedFiles);
+	}
+
+	/**
+	 * @return false if the index of the project has not been loaded yet, so that {@link #getLinkingNodes(AWorkspaceProject, Collection)}
+	 * may have to read all maps of the project
+	 */
+	public synchronized boolean isIndexLoaded(AWorkspaceProject project) {
+		return indices.containsKey(project.getProjectID());
+	}
+
+	public synchronized FileLinkIndex getIndex(AWorkspaceProject project) {
+		FileLinkIndex index = indices.get(project.getProjectID());
+		if (index == null) {
+			index = new FileLinkIndex(new File(URIUtils.getAbsoluteFile(project.getProjectDataPath()), INDEX_FILE_NAME));
+			index.load();
+			indices.put(project.getProjectID(), index);
+		}
+		return index;
+	}
+
+	public void onCreate(MapModel map) {
+	}
+
+	public void onRemove(MapModel map) {
+	}
+
+	public void onSavedAs(MapModel map) {
+		onSaved(map);
+	}
+
+	public void onSaved(MapModel map) {
+		final File file = map.getFile();
+		final AWorkspaceProject project = WorkspaceController.getMapProject(map);
+		if (file == null || project == null || !isIndexLoaded(project)) {
+			// the map is indexed when the index is loaded
+			return;
+		}
+		getIndex(project).updateInBackground(file);
+	}
+}
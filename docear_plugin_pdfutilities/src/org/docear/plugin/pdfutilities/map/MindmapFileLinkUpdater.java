@@ -2,6 +2,8 @@ package org.docear.plugin.pdfutilities.map;
 
 import java.io.File;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,37 +19,79 @@ public class MindmapFileLinkUpdater extends AMindmapUpdater {
 	
 	Map<File, File> fileMap = new HashMap<File, File>();
 	private boolean renamed = false;
+	// IDs of the nodes linking to the old files by the map files, see FileLinkIndex
+	private final Map<File, Collection<String>> linkingNodes;
 
 	public MindmapFileLinkUpdater(String title, boolean renamed, Map<File, File> fileMap) {
+		this(title, renamed, fileMap, null);
+	}
+
+	public MindmapFileLinkUpdater(String title, boolean renamed, Map<File, File> fileMap, Map<File, Collection<String>> linkingNodes) {
 		super(title);
 		this.renamed  = renamed;
 		this.fileMap = fileMap;
+		this.linkingNodes = linkingNodes;
 	}
 
 	@Override
 	public boolean updateMindmap(MapModel map) {
-		if(map == null) return false;		
-		return updateLinks(map.getRootNode());
+		if(map == null) return false;
+		Collection<NodeModel> nodes = getLinkingNodes(map);
+		if(nodes == null) {
+			return updateLinks(map.getRootNode());
+		}
+		boolean changed = false;
+		for(NodeModel node : nodes) {
+			changed = updateLink(node) | changed;
+		}
+		return changed;
+	}
+
+	/**
+	 * returns the indexed nodes linking to the old files or <code>null</code> if all nodes have to be checked,
+	 * because the map was changed since it has been saved or some of the nodes are not loaded.
+	 */
+	private Collection<NodeModel> getLinkingNodes(MapModel map) {
+		if(linkingNodes == null || map.getFile() == null || !map.isSaved()) {
+			return null;
+		}
+		Collection<String> nodeIds = linkingNodes.get(map.getFile());
+		if(nodeIds == null) {
+			return null;
+		}
+		Collection<NodeModel> nodes = new ArrayList<NodeModel>(nodeIds.size());
+		for(String nodeId : nodeIds) {
+			NodeModel node = map.getNodeForID(nodeId);
+			if(node == null) {
+				return null;
+			}
+			nodes.add(node);
+		}
+		return nodes;
 	}
 
 	private boolean updateLinks(NodeModel node) {
 		if(node == null) return false;
+		boolean changed = updateLink(node);
+		for(NodeModel child : node.getChildren()){
+			changed = updateLinks(child) | changed;
+		}
+		return changed;
+	}
+
+	private boolean updateLink(NodeModel node) {
 		URI uri = URIUtils.getAbsoluteURI(node);
 		File link = URIUtils.getFile(uri);
-		if(link != null){
-			if(fileMap.containsKey(link)){
-				((MLinkController) LinkController.getController()).setLinkTypeDependantLink(node, fileMap.get(link));
-				if(renamed && node.getText().equals(link.getName())){
-					node.setText(fileMap.get(link).getName());
-				}
-				AnnotationModel annotation = AnnotationController.getModel(node, false);
-				if(annotation != null && annotation.getAnnotationID() != null && fileMap.containsKey(URIUtils.getFile(annotation.getAnnotationID().getUri()))){
-					annotation.setSource(fileMap.get(URIUtils.getFile(annotation.getAnnotationID().getUri())).toURI());
-				}
-			}
+		if(link == null || !fileMap.containsKey(link)){
+			return false;
 		}
-		for(NodeModel child : node.getChildren()){
-			updateLinks(child);
+		((MLinkController) LinkController.getController()).setLinkTypeDependantLink(node, fileMap.get(link));
+		if(renamed && node.getText().equals(link.getName())){
+			node.setText(fileMap.get(link).getName());
+		}
+		AnnotationModel annotation = AnnotationController.getModel(node, false);
+		if(annotation != null && annotation.getAnnotationID() != null && fileMap.containsKey(URIUtils.getFile(annotation.getAnnotationID().getUri()))){
+			annotation.setSource(fileMap.get(URIUtils.getFile(annotation.getAnnotationID().getUri())).toURI());
 		}
 		return true;
 	}
@@ -0,0 +1,258 @@
+package org.docear.plugin.pdfutilities.pdf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.docear.plugin.pdfutilities.features.AnnotationModel;
+import org.docear.plugin.pdfutilities.features.IAnnotation.AnnotationType;
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.core.util.LogUtils;
+
+/**
+ * Remembers the annotations imported from pdf files, so that unchanged files need not be parsed again.
+ * <p>
+ * Entries are valid as long as path, size and modification time of the file and the import settings are
+ * unchanged. The cache stores snapshots, every {@link #get(File, String)} returns new annotation models which
+ * can be modified by the caller. IDs which were new to the file when it was imported are not new any more once
+ * the importer saved them, so cached annotations never have new IDs. The cache is written to the freeplane user directory by {@link #save()}.
+ */
+public class AnnotationCache {
+	private static final int FORMAT_VERSION = 1;
+	private static final String CACHE_FILE_NAME = "pdf_annotations.cache";
+	private static AnnotationCache instance;
+
+	private static class CachedAnnotation {
+		private long objectID;
+		private AnnotationType type;
+		private Integer page;
+		private String destinationUri;
+		private String title;
+		private int oldObjectNumber;
+		private String source;
+		private final List<CachedAnnotation> children = new ArrayList<CachedAnnotation>();
+	}
+
+	private static class Entry {
+		private long length;
+		private long lastModified;
+		private String settings;
+		private CachedAnnotation annotation;
+	}
+
+	private final File cacheFile;
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private boolean modified = false;
+
+	public static synchronized AnnotationCache getInstance() {
+		if (instance == null) {
+			instance = new AnnotationCache(new File(ResourceController.getResourceController().getFreeplaneUserDirectory(), CACHE_FILE_NAME));
+			instance.load();
+		}
+		return instance;
+	}
+
+	public AnnotationCache(File cacheFile) {
+		this.cacheFile = cacheFile;
+	}
+
+	/**
+	 * @return the annotations imported from <code>file</code> with the given import settings or null if the file
+	 * was changed since.
+	 */
+	public synchronized AnnotationModel get(File file, String settings) {
+		final Entry entry = entries.get(file.getPath());
+		if (entry == null || entry.length != file.length() || entry.lastModified != file.lastModified()
+				|| !entry.settings.equals(settings)) {
+			return null;
+		}
+		return createModel(entry.annotation);
+	}
+
+	/**
+	 * stores a snapshot of <code>annotation</code>. Must be called after the import because importing may modify
+	 * the file.
+	 */
+	public synchronized void put(File file, String settings, AnnotationModel annotation) {
+		final Entry entry = new Entry();
+		entry.length = file.length();
+		entry.lastModified = file.lastModified();
+		entry.settings = settings;
+		entry.annotation = createSnapshot(annotation);
+		entries.put(file.getPath(), entry);
+		modified = true;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private static CachedAnnotation createSnapshot(AnnotationModel annotation) {
+		final CachedAnnotation snapshot = new CachedAnnotation();
+		snapshot.objectID = annotation.getObjectID();
+		snapshot.type = annotation.getAnnotationType();
+		snapshot.page = annotation.getPage();
+		snapshot.destinationUri = annotation.getDestinationUri() == null ? null : annotation.getDestinationUri().toString();
+		snapshot.title = annotation.getTitle();
+		snapshot.oldObjectNumber = annotation.getOldObjectNumber();
+		snapshot.source = annotation.getSource() == null ? null : annotation.getSource().toString();
+		for (AnnotationModel child : annotation.getChildren()) {
+			snapshot.children.add(createSnapshot(child));
+		}
+		return snapshot;
+	}
+
+	private static AnnotationModel createModel(CachedAnnotation snapshot) {
+		final AnnotationModel annotation = new AnnotationModel(snapshot.objectID, snapshot.type);
+		annotation.setPage(snapshot.page);
+		if (snapshot.destinationUri != null) {
+			annotation.setDestinationUri(URI.create(snapshot.destinationUri));
+		}
+		annotation.setTitle(snapshot.title);
+		annotation.setOldObjectNumber(snapshot.oldObjectNumber);
+		if (snapshot.source != null) {
+			annotation.setSource(URI.create(snapshot.source));
+		}
+		for (CachedAnnotation child : snapshot.children) {
+			annotation.getChildren().add(createModel(child));
+		}
+		return annotation;
+	}
+
+	public synchronized void load() {
+		entries.clear();
+		modified = false;
+		if (!cacheFile.exists()) {
+			return;
+		}
+		try {
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+			try {
+				if (in.readInt() != FORMAT_VERSION) {
+					return;
+				}
+				for (int count = in.readInt(); count > 0; count--) {
+					final String path = readString(in);
+					final Entry entry = new Entry();
+					entry.length = in.readLong();
+					entry.lastModified = in.readLong();
+					entry.settings = readString(in);
+					entry.annotation = readAnnotation(in);
+					entries.put(path, entry);
+				}
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (Exception e) {
+			LogUtils.warn("could not read pdf annotation cache " + cacheFile + ": " + e.getMessage());
+			entries.clear();
+		}
+	}
+
+	/**
+	 * writes the cache if it was changed. Entries of deleted files are dropped.
+	 */
+	public synchronized void save() {
+		for (Iterator<String> it = entries.keySet().iterator(); it.hasNext();) {
+			if (!new File(it.next()).exists()) {
+				it.remove();
+				modified = true;
+			}
+		}
+		if (!modified) {
+			return;
+		}
+		final File tempFile = new File(cacheFile.getPath() + ".tmp");
+		try {
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+					final Entry entry = mapEntry.getValue();
+					writeString(out, mapEntry.getKey());
+					out.writeLong(entry.length);
+					out.writeLong(entry.lastModified);
+					writeString(out, entry.settings);
+					writeAnnotation(out, entry.annotation);
+				}
+			}
+			finally {
+				out.close();
+			}
+			if (cacheFile.exists() && !cacheFile.delete() || !tempFile.renameTo(cacheFile)) {
+				throw new IOException("can not replace " + cacheFile);
+			}
+			modified = false;
+		}
+		catch (IOException e) {
+			LogUtils.warn("could not write pdf annotation cache " + cacheFile + ": " + e.getMessage());
+			tempFile.delete();
+		}
+	}
+
+	private static void writeAnnotation(DataOutputStream out, CachedAnnotation annotation) throws IOException {
+		out.writeLong(annotation.objectID);
+		writeString(out, annotation.type == null ? null : annotation.type.name());
+		out.writeInt(annotation.page == null ? -1 : annotation.page);
+		writeString(out, annotation.destinationUri);
+		writeString(out, annotation.title);
+		out.writeInt(annotation.oldObjectNumber);
+		writeString(out, annotation.source);
+		out.writeInt(annotation.children.size());
+		for (CachedAnnotation child : annotation.children) {
+			writeAnnotation(out, child);
+		}
+	}
+
+	private static CachedAnnotation readAnnotation(DataInputStream in) throws IOException {
+		final CachedAnnotation annotation = new CachedAnnotation();
+		annotation.objectID = in.readLong();
+		final String type = readString(in);
+		annotation.type = type == null ? null : AnnotationType.valueOf(type);
+		final int page = in.readInt();
+		annotation.page = page < 0 ? null : page;
+		annotation.destinationUri = readString(in);
+		annotation.title = readString(in);
+		annotation.oldObjectNumber = in.readInt();
+		annotation.source = readString(in);
+		for (int count = in.readInt(); count > 0; count--) {
+			annotation.children.add(readAnnotation(in));
+		}
+		return annotation;
+	}
+
+	// writeUTF is limited to 64k, highlighted texts may be longer
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		final byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+}
@@ -5,6 +5,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -13,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import org.docear.addons.highlights.IHighlightsImporter;
 import org.docear.pdf.annotation.AnnotationExtractor;
@@ -59,11 +61,47 @@ public class PdfAnnotationImporter implements IAnnotationImporter {
 	private boolean importAll = false;
 	private boolean setPDObject = false;
 	private int removeLinebreaksDialogResult = JOptionPane.OK_OPTION;
+	private boolean askForReadOnlyLinebreaks = true;
+	private boolean unsavedLinebreaks;
 	private boolean modifiedDocument;
 	
 	public PdfAnnotationImporter(){
 	}
 	
+	/**
+	 * Importers running in parallel must not ask the user what to do with removed line breaks which can not be
+	 * saved to a read only document. If <code>ask</code> is false, the line breaks are kept and the import is
+	 * marked by {@link #hasUnsavedLinebreaks()}, so that the caller can import the document again and ask.
+	 */
+	public void setAskForReadOnlyLinebreaks(boolean ask) {
+		this.askForReadOnlyLinebreaks = ask;
+	}
+	
+	/**
+	 * @return true if the last imported document was read only and the user was not asked about removing its
+	 * line breaks.
+	 */
+	public boolean hasUnsavedLinebreaks() {
+		return unsavedLinebreaks;
+	}
+	
+	/**
+	 * @return the values of all properties changing the result of {@link #importPdf(URI)}.
+	 */
+	public static String getImportSettings() {
+		final String[] keys = { PdfUtilitiesController.IMPORT_COMMENTS_KEY, PdfUtilitiesController.IMPORT_HIGHLIGHTED_TEXTS_KEY,
+				PdfUtilitiesController.IMPORT_POP_UP_HIGHLIGHTED_KEY, PdfUtilitiesController.IMPORT_ONLY_POP_UP_KEY,
+				PdfUtilitiesController.IMPORT_BOOKMARKS_KEY, PdfUtilitiesController.REMOVE_LINEBREAKS_KEY,
+				PdfUtilitiesController.KEEP_DOUBLE_LINEBREAKS_KEY, PdfUtilitiesController.ADD_SPACES_KEY,
+				PdfUtilitiesController.REMOVE_DASHES_KEY };
+		final StringBuilder settings = new StringBuilder();
+		for (String key : keys) {
+			settings.append(key).append('=').append(DocearController.getPropertiesController().getBooleanProperty(key)).append(';');
+		}
+		settings.append("highlights_addon=").append(DocearAddonController.getController().hasPlugin(IHighlightsImporter.class));
+		return settings.toString();
+	}
+
 	public Map<URI, List<AnnotationModel>> importAnnotations(List<URI> files) throws IOException, DocumentReadOnlyException {
 		Map<URI, List<AnnotationModel>> annotationMap = new HashMap<URI, List<AnnotationModel>>();
 		
@@ -77,6 +115,7 @@ public class PdfAnnotationImporter implements IAnnotationImporter {
 	public List<AnnotationModel> importAnnotations(URI uri) throws IOException, DocumentReadOnlyException {
 		List<AnnotationModel> annotations = new ArrayList<AnnotationModel>();		
 		this.currentFile = uri;
+		this.unsavedLinebreaks = false;
 		PDDocument document = getPDDocument(uri);
 		if(document == null){				
 			return annotations;
@@ -320,7 +359,7 @@ public class PdfAnnotationImporter implements IAnnotationImporter {
 	}
 	
 	public void removeLinebreaks(IAnnotation annotation, Object annotationObject, PDDocument document) {
-		if(this.removeLinebreaksDialogResult == JOptionPane.CANCEL_OPTION) return;
+		if(this.removeLinebreaksDialogResult == JOptionPane.CANCEL_OPTION || this.unsavedLinebreaks) return;
 		
 		String oldText = annotation.getTitle();
 		String text = removeLinebreaks(annotation.getTitle(), false);
@@ -352,10 +391,20 @@ public class PdfAnnotationImporter implements IAnnotationImporter {
 			document.save();
 		}catch (IOException e) {
 			if(e.getMessage().equals("destination is read only")){ //$NON-NLS-1$
-				Object[] options = { TextUtils.getText("DocearRenameAnnotationListener.1"), TextUtils.getText("DocearRenameAnnotationListener.8"),TextUtils.getText("DocearRenameAnnotationListener.3") }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 				int result = this.removeLinebreaksDialogResult;
+				if(result == JOptionPane.OK_OPTION && !askForReadOnlyLinebreaks){
+					this.unsavedLinebreaks = true;
+					if(annotationObject != null && annotationObject instanceof PDOutlineItem){
+						((PDOutlineItem)annotationObject).setTitle(oldText);
+					}
+					if(annotationObject != null && annotationObject instanceof PDAnnotation){
+						((PDAnnotation)annotationObject).setContents(oldText);
+					}
+					annotation.setTitle(oldText);
+					return;
+				}
 				if(result == JOptionPane.OK_OPTION){
-					result = JOptionPane.showOptionDialog(Controller.getCurrentController().getMapViewManager().getSelectedComponent(), TextUtils.getText("DocearRenameAnnotationListener.6")+document.getName()+TextUtils.getText("DocearRenameAnnotationListener.7"), TextUtils.getText("DocearRenameAnnotationListener.5"), JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]); //$NON-NLS-1$ //$NON-NLS-2$
+					result = showReadOnlyLinebreaksDialog(document);
 				}				
 				if( result == JOptionPane.OK_OPTION){
 					if(annotationObject != null && annotationObject instanceof PDOutlineItem){
@@ -399,6 +448,30 @@ public class PdfAnnotationImporter implements IAnnotationImporter {
 		}
 	}
 	
+	private int showReadOnlyLinebreaksDialog(final PDDocument document) {
+		final int[] result = { JOptionPane.CANCEL_OPTION };
+		final Runnable dialog = new Runnable() {
+			public void run() {
+				Object[] options = { TextUtils.getText("DocearRenameAnnotationListener.1"), TextUtils.getText("DocearRenameAnnotationListener.8"),TextUtils.getText("DocearRenameAnnotationListener.3") }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				result[0] = JOptionPane.showOptionDialog(Controller.getCurrentController().getMapViewManager().getSelectedComponent(), TextUtils.getText("DocearRenameAnnotationListener.6")+document.getName()+TextUtils.getText("DocearRenameAnnotationListener.7"), TextUtils.getText("DocearRenameAnnotationListener.5"), JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		};
+		if(SwingUtilities.isEventDispatchThread()) {
+			dialog.run();
+			return result[0];
+		}
+		try {
+			SwingUtilities.invokeAndWait(dialog);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (InvocationTargetException e) {
+			LogUtils.severe(e.getCause());
+		}
+		return result[0];
+	}
+	
 	public static String removeLinebreaks(String text, boolean forced) {
 		boolean removeLinebreaks = DocearController.getPropertiesController().getBooleanProperty(PdfUtilitiesController.REMOVE_LINEBREAKS_KEY);
 		if(removeLinebreaks || forced) {
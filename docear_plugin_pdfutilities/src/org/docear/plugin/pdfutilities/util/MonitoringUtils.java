@@ -7,7 +7,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
@@ -24,6 +23,7 @@ import org.docear.plugin.core.workspace.AVirtualDirectory;
 import org.docear.plugin.core.workspace.model.DocearWorkspaceProject;
 import org.docear.plugin.pdfutilities.PdfUtilitiesController;
 import org.docear.plugin.pdfutilities.features.AnnotationID;
+import org.docear.plugin.pdfutilities.features.AnnotationIndex;
 import org.docear.plugin.pdfutilities.features.AnnotationModel;
 import org.docear.plugin.pdfutilities.features.AnnotationNodeModel;
 import org.docear.plugin.pdfutilities.features.DocearNodeMonitoringExtension.DocearExtensionKey;
@@ -246,51 +246,37 @@ public abstract class MonitoringUtils {
 		}
 	}
 	public static Map<AnnotationID, Collection<AnnotationNodeModel>> getOldAnnotationsFromMaps(Collection<URI> mindmaps){
-		Map<AnnotationID, Collection<AnnotationNodeModel>> result = new HashMap<AnnotationID, Collection<AnnotationNodeModel>>();
+		Map<AnnotationID, Collection<AnnotationNodeModel>> result = new AnnotationIndex<Collection<AnnotationNodeModel>>();
 		for(MapModel map : MapUtils.getMapsFromUris(mindmaps)){
-			
-			Map<AnnotationID, Collection<AnnotationNodeModel>> temp = getOldAnnotationsFrom(map.getRootNode());
-			for(AnnotationID id : temp.keySet()){
-				if(!result.containsKey(id)){
-					result.put(id, new ArrayList<AnnotationNodeModel>());				
-				}
-				result.get(id).addAll(temp.get(id));
-			}
+			collectOldAnnotations(map.getRootNode(), result);
 		} 
 		return result;
 	}
 	
 	public static Map<AnnotationID, Collection<AnnotationNodeModel>> getOldAnnotationsFromCurrentMap(){
-		return getOldAnnotationsFrom(((MMapController) Controller.getCurrentModeController().getMapController()).getRootNode());
+		Map<AnnotationID, Collection<AnnotationNodeModel>> result = new AnnotationIndex<Collection<AnnotationNodeModel>>();
+		collectOldAnnotations(((MMapController) Controller.getCurrentModeController().getMapController()).getRootNode(), result);
+		return result;
 	}
 	
-	private static Map<AnnotationID, Collection<AnnotationNodeModel>> getOldAnnotationsFrom(NodeModel parent){
-		Map<AnnotationID, Collection<AnnotationNodeModel>> result = new HashMap<AnnotationID, Collection<AnnotationNodeModel>>();
-		try {
-			Thread.sleep(1L);
-			if(Thread.currentThread().isInterrupted()) return result;				
-		} catch (InterruptedException e) {			
-		}
+	private static void collectOldAnnotations(NodeModel parent, Map<AnnotationID, Collection<AnnotationNodeModel>> result){
+		if(Thread.currentThread().isInterrupted()) return;
 		if(isPdfLinkedNode(parent)){
 			URI uri = URIUtils.getAbsoluteURI(NodeUtilities.getURI(parent));
 			AnnotationNodeModel oldAnnotation = AnnotationController.getAnnotationNodeModel(parent);
 			if(uri != null && oldAnnotation != null){				
-				result.put(oldAnnotation.getAnnotationID(), new ArrayList<AnnotationNodeModel>());				
-				result.get(oldAnnotation.getAnnotationID()).add(oldAnnotation);
+				Collection<AnnotationNodeModel> annotations = result.get(oldAnnotation.getAnnotationID());
+				if(annotations == null){
+					annotations = new ArrayList<AnnotationNodeModel>();
+					result.put(oldAnnotation.getAnnotationID(), annotations);
+				}
+				annotations.add(oldAnnotation);
 			}		 
 		}
 		
 		for(NodeModel child : parent.getChildren()){
-			Map<AnnotationID, Collection<AnnotationNodeModel>> children = getOldAnnotationsFrom(child);
-			for(AnnotationID id : children.keySet()){
-				if(!result.containsKey(id)){
-					result.put(id, new ArrayList<AnnotationNodeModel>());				
-				}
-				result.get(id).addAll(children.get(id));
-			}
+			collectOldAnnotations(child, result);
 		}
-		
-		return result;
 	}
 	
 	public static NodeModel insertChildNodesFromPdf(URI pdfFile, List<AnnotationModel> annotations, boolean isLeft, NodeModel target){
@@ -472,6 +458,10 @@ public abstract class MonitoringUtils {
 		dirtyMap |= NodeUtilities.setAttributeIfNotExists(node, PdfUtilitiesController.MON_SUBDIRS, 2);
 		dirtyMap |= NodeUtilities.setAttributeIfNotExists(node, PdfUtilitiesController.MON_EXTRA_INCOMING, 2);
 		dirtyMap |= NodeUtilities.setAttributeIfNotExists(node, PdfUtilitiesController.MON_FLATTEN_DIRS, 2);
+		if(dirtyMap && node.areViewsEmpty()) {
+			// announce the monitoring attributes of nodes without views, too
+			Controller.getCurrentModeController().getMapController().nodeRefresh(node, NodeAttributeTableModel.class, null, null);
+		}
 		
 		return dirtyMap;
 	}
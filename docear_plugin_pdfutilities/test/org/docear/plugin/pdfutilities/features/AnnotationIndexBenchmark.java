@@ -0,0 +1,49 @@
+package org.docear.plugin.pdfutilities.features;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Compares inserting and looking up the annotations of a single pdf in a HashMap and in an
+ * {@link AnnotationIndex}. Run as a java application, JIT warm-up rounds are not reported. */
+public class AnnotationIndexBenchmark {
+	public static void main(String[] args) {
+		for (int annotations : new int[] { 2000, 10000 }) {
+			final List<AnnotationID> ids = createIds(annotations);
+			for (int round = 0; round < 4; round++) {
+				final long hashMap = measure(new HashMap<AnnotationID, Integer>(), ids);
+				final long index = measure(new AnnotationIndex<Integer>(), ids);
+				if (round >= 2)
+					System.out.format("n=%5d: HashMap %5d ms, AnnotationIndex %5d ms\n", annotations, hashMap, index);
+			}
+		}
+	}
+
+	private static List<AnnotationID> createIds(int count) {
+		final URI pdf = URI.create("file:/home/user/literature/paper.pdf");
+		final ArrayList<AnnotationID> ids = new ArrayList<AnnotationID>(count);
+		for (int i = 0; i < count; i++) {
+			final AnnotationID id = new AnnotationID(pdf, i);
+			id.setObjectNumber(i);
+			ids.add(id);
+		}
+		return ids;
+	}
+
+	private static long measure(Map<AnnotationID, Integer> map, List<AnnotationID> ids) {
+		final long start = System.nanoTime();
+		for (int i = 0; i < ids.size(); i++) {
+			map.put(ids.get(i), i);
+		}
+		int found = 0;
+		for (AnnotationID id : ids) {
+			if (map.get(id) != null)
+				found++;
+		}
+		if (found != ids.size())
+			throw new IllegalStateException();
+		return (System.nanoTime() - start) / 1000000;
+	}
+}
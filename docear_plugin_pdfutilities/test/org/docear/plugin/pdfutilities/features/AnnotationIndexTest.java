@@ -0,0 +1,147 @@
+package org.docear.plugin.pdfutilities.features;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AnnotationIndexTest {
+	private static final URI PAPER = URI.create("file:/home/user/Paper.pdf");
+	private static final URI OTHER_PAPER = URI.create("file:/home/user/other.pdf");
+
+	private static AnnotationID createId(URI uri, long objectID, int objectNumber, boolean created) {
+		final AnnotationID id = new AnnotationID(uri, objectID);
+		id.setObjectNumber(objectNumber);
+		id.setIsNewID(created);
+		return id;
+	}
+
+	@Test
+	public void testLookupByObjectID() {
+		final AnnotationIndex<String> index = new AnnotationIndex<String>();
+		index.put(createId(PAPER, 1, 10, false), "a");
+		index.put(createId(PAPER, 2, 11, false), "b");
+		index.put(createId(OTHER_PAPER, 1, 10, false), "c");
+		assertEquals(3, index.size());
+		assertEquals("a", index.get(createId(PAPER, 1, 99, false)));
+		assertEquals("b", index.get(createId(PAPER, 2, 11, false)));
+		assertEquals("c", index.get(createId(OTHER_PAPER, 1, 10, false)));
+		assertNull(index.get(createId(PAPER, 3, 10, false)));
+	}
+
+	@Test
+	public void testDocumentsAreComparedIgnoringCase() {
+		final AnnotationIndex<String> index = new AnnotationIndex<String>();
+		index.put(createId(PAPER, 1, 10, false), "a");
+		assertEquals("a", index.get(createId(URI.create("file:/home/user/paper.PDF"), 1, 10, false)));
+	}
+
+	@Test
+	public void testCreatedIdsAreFoundByObjectNumber() {
+		final AnnotationIndex<String> index = new AnnotationIndex<String>();
+		index.put(createId(PAPER, 1, 10, false), "old");
+		assertEquals("old", index.get(createId(PAPER, 7, 10, true)));
+		assertNull(index.get(createId(PAPER, 7, 10, false)));
+		final AnnotationID created = createId(PAPER, 8, 20, true);
+		index.put(created, "created");
+		assertEquals("created", index.get(createId(PAPER, 9, 20, false)));
+		created.setIsNewID(false);
+		assertEquals(2, index.size());
+		assertEquals("created", index.get(createId(PAPER, 8, 20, false)));
+	}
+
+	@Test
+	public void testPutReplacesEqualKey() {
+		final AnnotationIndex<String> index = new AnnotationIndex<String>();
+		final AnnotationID id = createId(PAPER, 1, 10, false);
+		index.put(id, "a");
+		assertEquals("a", index.put(createId(PAPER, 5, 10, true), "b"));
+		assertEquals(1, index.size());
+		assertSame(id, index.findKey(createId(PAPER, 1, 10, false)));
+		assertEquals("b", index.get(id));
+	}
+
+	@Test
+	public void testRemove() {
+		final AnnotationIndex<String> index = new AnnotationIndex<String>();
+		index.put(createId(PAPER, 1, 10, false), "a");
+		index.put(createId(PAPER, 2, 11, true), "b");
+		assertEquals("b", index.remove(createId(PAPER, 2, 11, false)));
+		assertFalse(index.containsKey(createId(PAPER, 2, 11, false)));
+		assertEquals("a", index.remove(createId(PAPER, 1, 10, false)));
+		assertTrue(index.isEmpty());
+		assertNull(index.remove(createId(PAPER, 1, 10, false)));
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		final AnnotationIndex<String> index = new AnnotationIndex<String>();
+		index.put(createId(PAPER, 1, 10, false), "a");
+		index.put(createId(PAPER, 2, 11, false), "b");
+		for (Iterator<Map.Entry<AnnotationID, String>> it = index.entrySet().iterator(); it.hasNext();) {
+			if (it.next().getValue().equals("a")) {
+				it.remove();
+			}
+		}
+		assertEquals(1, index.size());
+		assertNull(index.get(createId(PAPER, 1, 10, false)));
+		assertEquals("b", index.get(createId(PAPER, 2, 11, false)));
+	}
+
+	// equality of created ids is not transitive, so the HashMap is only a reference for ids which were not created
+	@Test
+	public void testBehavesLikeHashMap() {
+		final Random random = new Random(1);
+		final AnnotationIndex<Integer> index = new AnnotationIndex<Integer>();
+		final HashMap<AnnotationID, Integer> map = new HashMap<AnnotationID, Integer>();
+		for (int i = 0; i < 5000; i++) {
+			final AnnotationID id = createId(random.nextBoolean() ? PAPER : OTHER_PAPER, random.nextInt(200),
+			    random.nextInt(200), false);
+			switch (random.nextInt(3)) {
+				case 0:
+					assertEquals(map.put(id, i), index.put(id, i));
+					break;
+				case 1:
+					assertEquals(map.remove(id), index.remove(id));
+					break;
+				default:
+					assertEquals(map.get(id), index.get(id));
+			}
+			assertEquals(map.size(), index.size());
+		}
+	}
+
+	@Test
+	public void testIdsOfADocumentShareTheirKey() {
+		final AnnotationID first = createId(PAPER, 1, 10, false);
+		final AnnotationID second = createId(URI.create("file:/home/user/paper.pdf"), 2, 11, false);
+		assertSame(first.getDocumentKey(), second.getDocumentKey());
+	}
+
+	@Test
+	public void testDocumentKeysAreReleased() throws InterruptedException {
+		final int documentKeys = AnnotationID.getDocumentKeyCount();
+		List<AnnotationID> ids = new ArrayList<AnnotationID>();
+		for (int i = 0; i < 1000; i++) {
+			ids.add(createId(URI.create("file:/tmp/released" + i + ".pdf"), 1, 1, false));
+		}
+		assertTrue(AnnotationID.getDocumentKeyCount() >= documentKeys + 1000);
+		ids = null;
+		for (int i = 0; i < 50 && AnnotationID.getDocumentKeyCount() > documentKeys; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertTrue(AnnotationID.getDocumentKeyCount() <= documentKeys);
+	}
+}
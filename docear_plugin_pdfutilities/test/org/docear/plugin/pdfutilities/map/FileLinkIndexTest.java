@@ -0,0 +1,184 @@
+package org.docear.plugin.pdfutilities.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.freeplane.features.url.UrlManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class FileLinkIndexTest {
+	/** links are resolved by the LinkController and the UrlManager, which need the default resources */
+	private static class TestResourceController extends ResourceController {
+		private final Properties properties = new Properties();
+
+		private TestResourceController() throws IOException {
+			final InputStream defaults = getClass().getResourceAsStream(FREEPLANE_PROPERTIES);
+			try {
+				properties.load(defaults);
+			}
+			finally {
+				defaults.close();
+			}
+		}
+
+		@Override
+		public String getFreeplaneUserDirectory() {
+			return null;
+		}
+
+		@Override
+		public Properties getProperties() {
+			return properties;
+		}
+
+		@Override
+		public String getProperty(final String key) {
+			return properties.getProperty(key);
+		}
+
+		@Override
+		public void saveProperties() {
+		}
+
+		@Override
+		public void setDefaultProperty(final String key, final String value) {
+			properties.setProperty(key, value);
+		}
+
+		@Override
+		public void setProperty(final String property, final String value) {
+			properties.setProperty(property, value);
+		}
+	}
+
+	private File directory;
+	private File paper;
+
+	@BeforeClass
+	public static void createController() throws IOException {
+		final Controller controller = new Controller(new TestResourceController());
+		Controller.setCurrentController(controller);
+		controller.selectModeForBuild(new ModeController(controller));
+		UrlManager.install(new UrlManager());
+	}
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("filelinkindex", "").getCanonicalFile();
+		directory.delete();
+		directory.mkdirs();
+		paper = new File(directory, "paper.pdf");
+	}
+
+	@After
+	public void deleteDirectory() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private File createMap(String name, String content) throws IOException {
+		final File file = new File(directory, name);
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write("<map version=\"freeplane 1.2.0\">\n" + content + "\n</map>\n");
+		}
+		finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private File createMap(String name) throws IOException {
+		return createMap(name, "<node TEXT=\"root\" ID=\"ID_1\">"
+		        + "<node TEXT=\"relative\" ID=\"ID_2\" LINK=\"paper.pdf\"/>"
+		        + "<node TEXT=\"absolute\" ID=\"ID_3\" LINK=\"" + paper.toURI() + "\"/>"
+		        + "<node TEXT=\"other\" ID=\"ID_4\" LINK=\"other.pdf\"/>"
+		        + "<node TEXT=\"web\" ID=\"ID_5\" LINK=\"http://www.docear.org\"/>"
+		        + "</node>");
+	}
+
+	private static Collection<String> ids(String... ids) {
+		return new HashSet<String>(Arrays.asList(ids));
+	}
+
+	@Test
+	public void testLinkingNodesAreFound() throws IOException {
+		final File map = createMap("a.mm");
+		final FileLinkIndex index = new FileLinkIndex(null);
+		index.synchronize(Arrays.asList(map));
+		final Map<File, Collection<String>> nodes = index.getLinkingNodes(Arrays.asList(paper));
+		assertEquals(Collections.singleton(map), nodes.keySet());
+		assertEquals(ids("ID_2", "ID_3"), nodes.get(map));
+		assertEquals(ids("ID_2", "ID_3", "ID_4"), index.getLinkingNodes(Arrays.asList(paper, new File(directory, "other.pdf"))).get(map));
+		assertEquals(0, index.getLinkingNodes(Arrays.asList(new File(directory, "missing.pdf"))).size());
+	}
+
+	@Test
+	public void testSavedIndexIsLoaded() throws IOException {
+		final File map = createMap("a.mm");
+		final File indexFile = new File(directory, "filelinks.index");
+		final FileLinkIndex index = new FileLinkIndex(indexFile);
+		index.synchronize(Arrays.asList(map));
+		index.save();
+		assertTrue(indexFile.exists());
+		final FileLinkIndex loadedIndex = new FileLinkIndex(indexFile);
+		loadedIndex.load();
+		assertEquals(1, loadedIndex.getMapCount());
+		assertEquals(index.getLinkingNodes(Arrays.asList(paper)), loadedIndex.getLinkingNodes(Arrays.asList(paper)));
+	}
+
+	@Test
+	public void testUnreadableMapIsAlwaysLinking() throws IOException {
+		final File map = createMap("a.mm");
+		final File broken = createMap("broken.mm", "<node TEXT=\"root\" ID=\"ID_1\" LINK=\"paper.pdf\">");
+		final FileLinkIndex index = new FileLinkIndex(null);
+		index.synchronize(Arrays.asList(map, broken));
+		assertEquals(1, index.getMapCount());
+		assertEquals(Collections.singleton(broken), index.getUnreadableMaps());
+		final Map<File, Collection<String>> nodes = index.getLinkingNodes(Arrays.asList(new File(directory, "missing.pdf")));
+		assertEquals("all nodes of an unreadable map are checked", Collections.singleton(broken), nodes.keySet());
+		assertEquals(null, nodes.get(broken));
+
+		createMap("broken.mm", "<node TEXT=\"root\" ID=\"ID_1\" LINK=\"paper.pdf\"/>");
+		index.synchronize(Arrays.asList(map, broken));
+		assertEquals(2, index.getMapCount());
+		assertEquals(0, index.getUnreadableMaps().size());
+		assertEquals(0, index.getLinkingNodes(Arrays.asList(new File(directory, "missing.pdf"))).size());
+		assertEquals(ids("ID_1"), index.getLinkingNodes(Arrays.asList(paper)).get(broken));
+	}
+
+	@Test
+	public void testRemovedMapsAreNotFound() throws IOException {
+		final File a = createMap("a.mm");
+		final File b = createMap("b.mm");
+		final FileLinkIndex index = new FileLinkIndex(null);
+		index.synchronize(Arrays.asList(a, b));
+		assertEquals(2, index.getLinkingNodes(Arrays.asList(paper)).size());
+		index.synchronize(Arrays.asList(b));
+		assertEquals(1, index.getMapCount());
+		assertEquals(Collections.singleton(b), index.getLinkingNodes(Arrays.asList(paper)).keySet());
+		index.remove(b);
+		assertEquals(0, index.getLinkingNodes(Arrays.asList(paper)).size());
+	}
+}
@@ -0,0 +1,166 @@
+package org.docear.plugin.pdfutilities.pdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+
+import org.docear.plugin.pdfutilities.features.AnnotationModel;
+import org.docear.plugin.pdfutilities.features.IAnnotation.AnnotationType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AnnotationCacheTest {
+	private static final String SETTINGS = "import_comments=true;";
+
+	private File directory;
+	private File pdf;
+	private File cacheFile;
+
+	@Before
+	public void createFiles() throws IOException {
+		directory = File.createTempFile("annotationcache", "");
+		directory.delete();
+		directory.mkdirs();
+		pdf = new File(directory, "paper.pdf");
+		writeFile(pdf, "%PDF-1.4");
+		cacheFile = new File(directory, "pdf_annotations.cache");
+	}
+
+	@After
+	public void deleteFiles() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private static void writeFile(File file, String content) throws IOException {
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	private AnnotationModel createPdfModel() {
+		final AnnotationModel root = new AnnotationModel(0, AnnotationType.PDF_FILE);
+		root.setSource(pdf.toURI());
+		root.setTitle(pdf.getName());
+		final AnnotationModel bookmark = new AnnotationModel(12, AnnotationType.BOOKMARK);
+		bookmark.setSource(pdf.toURI());
+		bookmark.setTitle("Introduction");
+		bookmark.setPage(3);
+		bookmark.setOldObjectNumber(7);
+		final AnnotationModel link = new AnnotationModel(13, AnnotationType.BOOKMARK_WITH_URI);
+		link.setSource(pdf.toURI());
+		link.setTitle("Homepage");
+		link.setDestinationUri(URI.create("http://www.docear.org"));
+		bookmark.getChildren().add(link);
+		root.getChildren().add(bookmark);
+		return root;
+	}
+
+	private static void assertSameAnnotations(AnnotationModel expected, AnnotationModel actual) {
+		assertEquals(expected.getObjectID(), actual.getObjectID());
+		assertEquals(expected.getAnnotationType(), actual.getAnnotationType());
+		assertEquals(expected.getTitle(), actual.getTitle());
+		assertEquals(expected.getPage(), actual.getPage());
+		assertEquals(expected.getDestinationUri(), actual.getDestinationUri());
+		assertEquals(expected.getSource(), actual.getSource());
+		assertEquals(expected.getOldObjectNumber(), actual.getOldObjectNumber());
+		assertEquals(expected.getChildren().size(), actual.getChildren().size());
+		for (int i = 0; i < expected.getChildren().size(); i++) {
+			assertSameAnnotations(expected.getChildren().get(i), actual.getChildren().get(i));
+		}
+	}
+
+	@Test
+	public void testUnchangedFileIsFound() {
+		final AnnotationCache cache = new AnnotationCache(cacheFile);
+		final AnnotationModel model = createPdfModel();
+		cache.put(pdf, SETTINGS, model);
+		assertSameAnnotations(model, cache.get(pdf, SETTINGS));
+	}
+
+	@Test
+	public void testEveryLookupReturnsNewModels() {
+		final AnnotationCache cache = new AnnotationCache(cacheFile);
+		cache.put(pdf, SETTINGS, createPdfModel());
+		final AnnotationModel first = cache.get(pdf, SETTINGS);
+		first.setNew(true);
+		first.getChildren().get(0).setTitle("changed");
+		final AnnotationModel second = cache.get(pdf, SETTINGS);
+		assertNotSame(first, second);
+		assertFalse(second.isNew());
+		assertEquals("Introduction", second.getChildren().get(0).getTitle());
+	}
+
+	@Test
+	public void testChangedFileIsNotFound() throws IOException {
+		final AnnotationCache cache = new AnnotationCache(cacheFile);
+		cache.put(pdf, SETTINGS, createPdfModel());
+		writeFile(pdf, "%PDF-1.4 changed");
+		assertNull(cache.get(pdf, SETTINGS));
+	}
+
+	@Test
+	public void testModifiedFileIsNotFound() {
+		final AnnotationCache cache = new AnnotationCache(cacheFile);
+		cache.put(pdf, SETTINGS, createPdfModel());
+		pdf.setLastModified(pdf.lastModified() - 10000);
+		assertNull(cache.get(pdf, SETTINGS));
+	}
+
+	@Test
+	public void testOtherImportSettingsAreNotFound() {
+		final AnnotationCache cache = new AnnotationCache(cacheFile);
+		cache.put(pdf, SETTINGS, createPdfModel());
+		assertNull(cache.get(pdf, "import_comments=false;"));
+	}
+
+	@Test
+	public void testSavedCacheIsLoaded() {
+		final AnnotationCache cache = new AnnotationCache(cacheFile);
+		final AnnotationModel model = createPdfModel();
+		// longer than writeUTF allows
+		final char[] longTitle = new char[70000];
+		Arrays.fill(longTitle, 'ä');
+		model.getChildren().get(0).setTitle(new String(longTitle));
+		cache.put(pdf, SETTINGS, model);
+		cache.save();
+		final AnnotationCache loadedCache = new AnnotationCache(cacheFile);
+		loadedCache.load();
+		assertEquals(1, loadedCache.size());
+		assertSameAnnotations(model, loadedCache.get(pdf, SETTINGS));
+	}
+
+	@Test
+	public void testDeletedFilesAreDroppedOnSave() {
+		final AnnotationCache cache = new AnnotationCache(cacheFile);
+		cache.put(pdf, SETTINGS, createPdfModel());
+		pdf.delete();
+		cache.save();
+		assertEquals(0, cache.size());
+		final AnnotationCache loadedCache = new AnnotationCache(cacheFile);
+		loadedCache.load();
+		assertEquals(0, loadedCache.size());
+	}
+
+	@Test
+	public void testCorruptedCacheIsEmpty() throws IOException {
+		writeFile(cacheFile, "corrupted");
+		final AnnotationCache cache = new AnnotationCache(cacheFile);
+		cache.load();
+		assertEquals(0, cache.size());
+	}
+}
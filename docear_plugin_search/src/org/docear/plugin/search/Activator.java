@@ -3,8 +3,9 @@ package org.docear.plugin.search;
 import java.util.Collection;
 
 import org.docear.plugin.core.DocearService;
+import org.docear.plugin.core.IDocearControllerExtension;
+import org.freeplane.features.mode.Controller;
 import org.freeplane.features.mode.ModeController;
-import org.freeplane.main.osgi.IControllerExtensionProvider;
 import org.osgi.framework.BundleContext;
 
 public class Activator extends DocearService {
@@ -16,9 +17,12 @@ public class Activator extends DocearService {
 	public void startService(BundleContext context, ModeController modeController) {
 		// instantiate first controller (entry controller)
 		controller = DocearSearchController.getController();
+		Controller.getCurrentController().addAction(new SearchMapsAction());
+		Controller.getCurrentController().getResourceController().setDefaultProperty(SearchMapsAction.KEY + ".icon", "/images/Find16.gif");
+		modeController.getUserInputListenerFactory().getRibbonBuilder().updateRibbon(Activator.class.getResource("/xml/ribbons.xml"));
 	}
 
-	protected Collection<IControllerExtensionProvider> getControllerExtensions() {
+	protected Collection<IDocearControllerExtension> getControllerExtensions() {
 		return null;
 	}
 
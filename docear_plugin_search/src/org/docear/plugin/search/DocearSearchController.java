@@ -1,19 +1,98 @@
 package org.docear.plugin.search;
 
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
 import org.docear.plugin.core.ALanguageController;
+import org.docear.plugin.core.DocearController;
+import org.freeplane.features.link.LinkController;
+import org.freeplane.features.map.IMapLifeCycleListener;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.plugin.workspace.URIUtils;
+import org.freeplane.plugin.workspace.WorkspaceController;
+import org.freeplane.plugin.workspace.model.project.AWorkspaceProject;
 
 public class DocearSearchController extends ALanguageController {
-	
+
+	private static final String INDEX_FILE_NAME = "search.index";
+
 	private final static DocearSearchController thisController = new DocearSearchController();
-	
-	
+
+	private final HashMap<String, FullTextIndex> indices = new HashMap<String, FullTextIndex>();
+
 	public DocearSearchController() {
 		super();
-		// initialize whatever is necessary
+		DocearController.getController().getLifeCycleObserver().addMapLifeCycleListener(new IndexUpdater());
 	}
-	
-	
+
+
 	public static DocearSearchController getController() {
 		return thisController;
 	}
+
+	/**
+	 * Searches all maps of the project. Only the maps changed since the last search are read,
+	 * none of them is opened. Should not be called on the event dispatch thread.
+	 */
+	public List<SearchResult> search(AWorkspaceProject project, String query, int maxResults) {
+		final FullTextIndex index = getIndex(project);
+		final List<File> mapFiles = new ArrayList<File>();
+		for (URI uri : project.getModel().getAllNodesFiltered(".mm")) {
+			final File file = URIUtils.getFile(uri);
+			if (file != null) {
+				mapFiles.add(file);
+			}
+		}
+		index.synchronize(mapFiles);
+		index.saveInBackground();
+		return index.search(query, maxResults);
+	}
+
+	/**
+	 * opens the map of the result and selects the found node.
+	 */
+	public void open(SearchResult result) {
+		LinkController.getController().loadURI(result.getURI());
+	}
+
+	public synchronized FullTextIndex getIndex(AWorkspaceProject project) {
+		FullTextIndex index = indices.get(project.getProjectID());
+		if (index == null) {
+			index = new FullTextIndex(new File(URIUtils.getAbsoluteFile(project.getProjectDataPath()), INDEX_FILE_NAME));
+			index.load();
+			indices.put(project.getProjectID(), index);
+		}
+		return index;
+	}
+
+	private class IndexUpdater implements IMapLifeCycleListener {
+		public void onCreate(MapModel map) {
+		}
+
+		public void onRemove(MapModel map) {
+		}
+
+		public void onSavedAs(MapModel map) {
+			onSaved(map);
+		}
+
+		public void onSaved(MapModel map) {
+			final File file = map.getFile();
+			final AWorkspaceProject project = WorkspaceController.getMapProject(map);
+			if (file == null || project == null) {
+				return;
+			}
+			final FullTextIndex index;
+			synchronized (DocearSearchController.this) {
+				index = indices.get(project.getProjectID());
+			}
+			// maps saved before the index was loaded are read again by the next search
+			if (index != null) {
+				index.updateInBackground(file);
+			}
+		}
+	}
 }
@@ -0,0 +1,211 @@
+package org.docear.plugin.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.docear.plugin.core.mindmap.AMapFileIndex;
+import org.docear.plugin.search.MapTextReader.Field;
+
+/**
+ * Inverted index of the node texts, notes, attributes, hyperlinks and annotation titles of many mind maps.
+ * <p>
+ * Only the per node term weights are written to disk, the inverted lists are rebuilt when the index is loaded.
+ */
+public class FullTextIndex extends AMapFileIndex<List<FullTextIndex.IndexedNode>> {
+	private static final int FORMAT_VERSION = 1;
+	private static final int MAX_TITLE_LENGTH = 100;
+	private static final int MAX_TERM_LENGTH = 64;
+
+	static class IndexedNode {
+		private final File mapFile;
+		private final String id;
+		private String title;
+		private final HashMap<String, Integer> termWeights = new HashMap<String, Integer>();
+
+		private IndexedNode(File mapFile, String id) {
+			this.mapFile = mapFile;
+			this.id = id;
+		}
+	}
+
+	private final HashMap<String, HashSet<IndexedNode>> postings = new HashMap<String, HashSet<IndexedNode>>();
+	private int nodeCount = 0;
+
+	public FullTextIndex(File indexFile) {
+		super(indexFile, FORMAT_VERSION);
+	}
+
+	@Override
+	protected List<IndexedNode> readMap(final File mapFile) throws Exception {
+		final LinkedHashMap<String, IndexedNode> nodes = new LinkedHashMap<String, IndexedNode>();
+		new MapTextReader(new MapTextReader.ITextHandler() {
+			public void text(String nodeId, Field field, String text) {
+				IndexedNode node = nodes.get(nodeId);
+				if (node == null) {
+					node = new IndexedNode(mapFile, nodeId);
+					nodes.put(nodeId, node);
+				}
+				if (node.title == null && field == Field.TEXT) {
+					node.title = createTitle(text);
+				}
+				for (String term : tokenize(text)) {
+					final Integer weight = node.termWeights.get(term);
+					node.termWeights.put(term, field.getWeight() + (weight == null ? 0 : weight));
+				}
+			}
+		}).read(mapFile);
+		for (IndexedNode node : nodes.values()) {
+			if (node.title == null) {
+				node.title = "";
+			}
+		}
+		return new ArrayList<IndexedNode>(nodes.values());
+	}
+
+	@Override
+	protected List<IndexedNode> readContent(File mapFile, DataInputStream in) throws IOException {
+		final int nodeCount = in.readInt();
+		final ArrayList<IndexedNode> nodes = new ArrayList<IndexedNode>(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			final IndexedNode node = new IndexedNode(mapFile, in.readUTF());
+			node.title = in.readUTF();
+			for (int terms = in.readInt(); terms > 0; terms--) {
+				node.termWeights.put(in.readUTF(), in.readInt());
+			}
+			nodes.add(node);
+		}
+		return nodes;
+	}
+
+	@Override
+	protected void writeContent(DataOutputStream out, List<IndexedNode> nodes) throws IOException {
+		out.writeInt(nodes.size());
+		for (IndexedNode node : nodes) {
+			out.writeUTF(node.id);
+			out.writeUTF(node.title);
+			out.writeInt(node.termWeights.size());
+			for (Entry<String, Integer> term : node.termWeights.entrySet()) {
+				out.writeUTF(term.getKey());
+				out.writeInt(term.getValue());
+			}
+		}
+	}
+
+	@Override
+	protected void contentAdded(File mapFile, List<IndexedNode> nodes) {
+		for (IndexedNode node : nodes) {
+			for (String term : node.termWeights.keySet()) {
+				HashSet<IndexedNode> indexedNodes = postings.get(term);
+				if (indexedNodes == null) {
+					indexedNodes = new HashSet<IndexedNode>();
+					postings.put(term, indexedNodes);
+				}
+				indexedNodes.add(node);
+			}
+		}
+		nodeCount += nodes.size();
+	}
+
+	@Override
+	protected void contentRemoved(File mapFile, List<IndexedNode> nodes) {
+		for (IndexedNode node : nodes) {
+			for (String term : node.termWeights.keySet()) {
+				final HashSet<IndexedNode> indexedNodes = postings.get(term);
+				if (indexedNodes != null) {
+					indexedNodes.remove(node);
+					if (indexedNodes.isEmpty()) {
+						postings.remove(term);
+					}
+				}
+			}
+		}
+		nodeCount -= nodes.size();
+	}
+
+	public synchronized int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Ranks the nodes containing any of the query terms by the sum of their term weights multiplied by the
+	 * inverse document frequency of the terms. Nodes containing only some of the terms are ranked lower.
+	 */
+	public synchronized List<SearchResult> search(String query, int maxResults) {
+		final List<String> terms = tokenize(query);
+		if (terms.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final HashMap<IndexedNode, double[]> scores = new HashMap<IndexedNode, double[]>();
+		for (String term : new HashSet<String>(terms)) {
+			final HashSet<IndexedNode> nodes = postings.get(term);
+			if (nodes == null) {
+				continue;
+			}
+			final double idf = Math.log(1.0 + (double) nodeCount / nodes.size());
+			for (IndexedNode node : nodes) {
+				double[] score = scores.get(node);
+				if (score == null) {
+					// score and number of matched terms
+					score = new double[2];
+					scores.put(node, score);
+				}
+				score[0] += node.termWeights.get(term) * idf;
+				score[1]++;
+			}
+		}
+		final int distinctTerms = new HashSet<String>(terms).size();
+		final ArrayList<SearchResult> results = new ArrayList<SearchResult>(scores.size());
+		for (Map.Entry<IndexedNode, double[]> entry : scores.entrySet()) {
+			final IndexedNode node = entry.getKey();
+			final double[] score = entry.getValue();
+			results.add(new SearchResult(node.mapFile, node.id, node.title, score[0] * score[1] / distinctTerms));
+		}
+		Collections.sort(results);
+		if (results.size() > maxResults) {
+			return new ArrayList<SearchResult>(results.subList(0, maxResults));
+		}
+		return results;
+	}
+
+	private static String createTitle(String text) {
+		final String title = text.trim().replaceAll("\\s+", " ");
+		if (title.length() > MAX_TITLE_LENGTH) {
+			return title.substring(0, MAX_TITLE_LENGTH) + "...";
+		}
+		return title;
+	}
+
+	/**
+	 * splits the text into lower case words of letters and digits. Longer words are most likely not words at all.
+	 */
+	public static List<String> tokenize(String text) {
+		final ArrayList<String> terms = new ArrayList<String>();
+		if (text == null) {
+			return terms;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			final boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (isWordChar && start < 0) {
+				start = i;
+			}
+			else if (!isWordChar && start >= 0) {
+				if (i - start <= MAX_TERM_LENGTH) {
+					terms.add(text.substring(start, i).toLowerCase());
+				}
+				start = -1;
+			}
+		}
+		return terms;
+	}
+}
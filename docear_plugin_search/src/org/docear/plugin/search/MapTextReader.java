@@ -0,0 +1,199 @@
+package org.docear.plugin.search;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+
+import org.freeplane.core.util.FileUtils;
+import org.freeplane.n3.nanoxml.IXMLBuilder;
+import org.freeplane.n3.nanoxml.IXMLParser;
+import org.freeplane.n3.nanoxml.StdXMLReader;
+import org.freeplane.n3.nanoxml.XMLParserFactory;
+
+/**
+ * Streams the nodes of a mind map file and reports their searchable text without creating a MapModel.
+ */
+public class MapTextReader implements IXMLBuilder {
+	public static enum Field {
+		TEXT(3), ANNOTATION(3), ATTRIBUTE(2), DETAILS(1), NOTE(1), LINK(1);
+
+		private final int weight;
+
+		private Field(int weight) {
+			this.weight = weight;
+		}
+
+		public int getWeight() {
+			return weight;
+		}
+	}
+
+	public interface ITextHandler {
+		void text(String nodeId, Field field, String text);
+	}
+
+	private final ITextHandler handler;
+	private final ArrayList<String> nodeIds = new ArrayList<String>();
+	private String id;
+	private String text;
+	private String link;
+	private String attributeName;
+	private String attributeValue;
+	private String richContentType;
+	// character data of richcontent and pdf_title elements including all nested html elements
+	private Field collectedField;
+	private int collectedDepth;
+	// depth of the html head element whose style sheets are not searchable
+	private int headDepth = -1;
+	private final StringBuilder collectedText = new StringBuilder();
+
+	public MapTextReader(ITextHandler handler) {
+		this.handler = handler;
+	}
+
+	public void read(File mapFile) throws Exception {
+		final Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(mapFile), FileUtils.defaultCharset()));
+		try {
+			final IXMLParser parser = XMLParserFactory.createDefaultXMLParser();
+			parser.setBuilder(this);
+			parser.setReader(new StdXMLReader(reader));
+			parser.parse();
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	public void startBuilding(String systemID, int lineNr) throws Exception {
+		nodeIds.clear();
+		collectedField = null;
+	}
+
+	public void newProcessingInstruction(String target, Reader reader) throws Exception {
+	}
+
+	public void startElement(String name, String nsPrefix, String nsURI, String systemID, int lineNr) throws Exception {
+		if (collectedField != null) {
+			collectedDepth++;
+			if ("head".equals(name) && headDepth < 0) {
+				headDepth = collectedDepth;
+			}
+			collectedText.append(' ');
+			return;
+		}
+		id = null;
+		text = null;
+		link = null;
+		attributeName = null;
+		attributeValue = null;
+		richContentType = null;
+	}
+
+	public void addAttribute(String key, String nsPrefix, String nsURI, String value, String type) throws Exception {
+		if (collectedField != null) {
+			return;
+		}
+		if ("ID".equals(key)) {
+			id = value;
+		}
+		else if ("TEXT".equals(key)) {
+			text = value;
+		}
+		else if ("LINK".equals(key)) {
+			link = value;
+		}
+		else if ("NAME".equals(key)) {
+			attributeName = value;
+		}
+		else if ("VALUE".equals(key)) {
+			attributeValue = value;
+		}
+		else if ("TYPE".equals(key)) {
+			richContentType = value;
+		}
+	}
+
+	public void elementAttributesProcessed(String name, String nsPrefix, String nsURI) throws Exception {
+		if (collectedField != null) {
+			return;
+		}
+		if ("node".equals(name)) {
+			nodeIds.add(id);
+			report(Field.TEXT, text);
+			report(Field.LINK, link);
+		}
+		else if ("attribute".equals(name)) {
+			report(Field.ATTRIBUTE, attributeName);
+			report(Field.ATTRIBUTE, attributeValue);
+		}
+		else if ("richcontent".equals(name)) {
+			if ("NOTE".equals(richContentType)) {
+				collect(Field.NOTE);
+			}
+			else if ("DETAILS".equals(richContentType)) {
+				collect(Field.DETAILS);
+			}
+			else {
+				collect(Field.TEXT);
+			}
+		}
+		else if ("pdf_title".equals(name)) {
+			collect(Field.ANNOTATION);
+		}
+	}
+
+	public void addPCData(Reader reader, String systemID, int lineNr) throws Exception {
+		if (collectedField == null || headDepth >= 0) {
+			return;
+		}
+		final char[] buffer = new char[1024];
+		int count;
+		while ((count = reader.read(buffer)) != -1) {
+			collectedText.append(buffer, 0, count);
+		}
+	}
+
+	public void endElement(String name, String nsPrefix, String nsURI) throws Exception {
+		if (collectedField != null) {
+			if (collectedDepth > 0) {
+				if (collectedDepth == headDepth) {
+					headDepth = -1;
+				}
+				collectedDepth--;
+				collectedText.append(' ');
+				return;
+			}
+			report(collectedField, collectedText.toString());
+			collectedField = null;
+			return;
+		}
+		if ("node".equals(name) && !nodeIds.isEmpty()) {
+			nodeIds.remove(nodeIds.size() - 1);
+		}
+	}
+
+	public Object getResult() throws Exception {
+		return null;
+	}
+
+	private void collect(Field field) {
+		collectedField = field;
+		collectedDepth = 0;
+		headDepth = -1;
+		collectedText.setLength(0);
+	}
+
+	private void report(Field field, String value) {
+		if (value == null || value.length() == 0 || nodeIds.isEmpty()) {
+			return;
+		}
+		final String nodeId = nodeIds.get(nodeIds.size() - 1);
+		// nodes without an ID can not be found again
+		if (nodeId != null) {
+			handler.text(nodeId, field, value);
+		}
+	}
+}
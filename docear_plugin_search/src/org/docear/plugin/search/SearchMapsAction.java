@@ -0,0 +1,99 @@
+package org.docear.plugin.search;
+
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+import org.docear.plugin.core.logging.DocearLogger;
+import org.freeplane.core.ui.AFreeplaneAction;
+import org.freeplane.core.ui.components.UITools;
+import org.freeplane.core.util.TextUtils;
+import org.freeplane.plugin.workspace.WorkspaceController;
+import org.freeplane.plugin.workspace.model.project.AWorkspaceProject;
+import org.jdesktop.swingworker.SwingWorker;
+
+/**
+ * Searches the texts of all maps of the project of the current map and opens the selected result.
+ */
+public class SearchMapsAction extends AFreeplaneAction {
+	public static final String KEY = "SearchMapsAction";
+
+	private static final long serialVersionUID = 1L;
+	private static final int MAX_RESULTS = 100;
+
+	public SearchMapsAction() {
+		super(KEY);
+	}
+
+	public void actionPerformed(ActionEvent e) {
+		final AWorkspaceProject project = WorkspaceController.getMapProject();
+		if (project == null) {
+			UITools.informationMessage(TextUtils.getText("docear.search.no_project"));
+			return;
+		}
+		final String query = JOptionPane.showInputDialog(UITools.getFrame(), TextUtils.getText("docear.search.query"),
+				TextUtils.getText(KEY + ".text"), JOptionPane.QUESTION_MESSAGE);
+		if (query == null || FullTextIndex.tokenize(query).isEmpty()) {
+			return;
+		}
+		new SwingWorker<List<SearchResult>, Void>() {
+			protected List<SearchResult> doInBackground() throws Exception {
+				return DocearSearchController.getController().search(project, query, MAX_RESULTS);
+			}
+
+			protected void done() {
+				try {
+					showResults(query, get());
+				}
+				catch (Exception e) {
+					DocearLogger.warn(e);
+				}
+			}
+		}.execute();
+	}
+
+	// JList is generic since Java 7, but this plugin is built for Java 5
+	@SuppressWarnings("unchecked")
+	private void showResults(String query, List<SearchResult> results) {
+		if (results.isEmpty()) {
+			UITools.informationMessage(TextUtils.format("docear.search.no_results", query));
+			return;
+		}
+		final JList list = new JList(results.toArray());
+		list.setSelectedIndex(0);
+		list.setVisibleRowCount(15);
+		list.setCellRenderer(new DefaultListCellRenderer() {
+			private static final long serialVersionUID = 1L;
+
+			public Component getListCellRendererComponent(JList list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+				final SearchResult result = (SearchResult) value;
+				return super.getListCellRendererComponent(list, result.getTitle() + " (" + result.getMapFile().getName() + ")", index, isSelected, cellHasFocus);
+			}
+		});
+		final JOptionPane pane = new JOptionPane(new JScrollPane(list), JOptionPane.PLAIN_MESSAGE, JOptionPane.OK_CANCEL_OPTION);
+		list.addMouseListener(new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2 && list.getSelectedValue() != null) {
+					pane.setValue(JOptionPane.OK_OPTION);
+				}
+			}
+		});
+		pane.createDialog(UITools.getFrame(), TextUtils.format("docear.search.results", query)).setVisible(true);
+		if (Integer.valueOf(JOptionPane.OK_OPTION).equals(pane.getValue()) && list.getSelectedValue() != null) {
+			final SearchResult result = (SearchResult) list.getSelectedValue();
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					DocearSearchController.getController().open(result);
+				}
+			});
+		}
+	}
+}
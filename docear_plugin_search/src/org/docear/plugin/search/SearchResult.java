@@ -0,0 +1,56 @@
+package org.docear.plugin.search;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+public class SearchResult implements Comparable<SearchResult> {
+	private final File mapFile;
+	private final String nodeId;
+	private final String title;
+	private final double score;
+
+	public SearchResult(File mapFile, String nodeId, String title, double score) {
+		this.mapFile = mapFile;
+		this.nodeId = nodeId;
+		this.title = title;
+		this.score = score;
+	}
+
+	public File getMapFile() {
+		return mapFile;
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	/**
+	 * @return the map URI with the node ID as fragment, which selects the node when the map is opened
+	 */
+	public URI getURI() {
+		final URI mapUri = mapFile.toURI();
+		try {
+			return new URI(mapUri.getScheme(), mapUri.getSchemeSpecificPart(), nodeId);
+		}
+		catch (URISyntaxException e) {
+			return mapUri;
+		}
+	}
+
+	public int compareTo(SearchResult other) {
+		return Double.compare(other.score, score);
+	}
+
+	public String toString() {
+		return title + " (" + mapFile.getName() + "#" + nodeId + ", " + score + ")";
+	}
+}
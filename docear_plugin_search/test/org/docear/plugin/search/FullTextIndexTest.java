@@ -0,0 +1,116 @@
+package org.docear.plugin.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FullTextIndexTest {
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("fulltextindex", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@After
+	public void deleteDirectory() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	private File createMap(String name, String content) throws IOException {
+		final File file = new File(directory, name);
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write("<map version=\"freeplane 1.2.0\">\n" + content + "\n</map>\n");
+		}
+		finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private File createMap(String name) throws IOException {
+		return createMap(name, "<node TEXT=\"root\" ID=\"ID_1\">"
+		        + "<node TEXT=\"Search engines\" ID=\"ID_2\"/>"
+		        + "<node TEXT=\"Mind maps\" ID=\"ID_3\">"
+		        + "<richcontent TYPE=\"NOTE\"><html><body><p>search in mind maps</p></body></html></richcontent>"
+		        + "</node>"
+		        + "</node>");
+	}
+
+	@Test
+	public void testSearchRanksNodesContainingAllTerms() throws IOException {
+		final File map = createMap("a.mm");
+		final FullTextIndex index = new FullTextIndex(null);
+		index.synchronize(Arrays.asList(map));
+		assertEquals(3, index.getNodeCount());
+		final List<SearchResult> results = index.search("search maps", 10);
+		assertEquals(2, results.size());
+		assertEquals("ID_3", results.get(0).getNodeId());
+		assertEquals("Mind maps", results.get(0).getTitle());
+		assertEquals(map, results.get(0).getMapFile());
+		assertEquals("ID_2", results.get(1).getNodeId());
+		assertEquals(Collections.emptyList(), index.search("missing", 10));
+	}
+
+	@Test
+	public void testSavedIndexIsLoaded() throws IOException {
+		final File map = createMap("a.mm");
+		final File indexFile = new File(directory, "search.index");
+		final FullTextIndex index = new FullTextIndex(indexFile);
+		index.synchronize(Arrays.asList(map));
+		index.save();
+		assertTrue(indexFile.exists());
+		final FullTextIndex loadedIndex = new FullTextIndex(indexFile);
+		loadedIndex.load();
+		assertEquals(1, loadedIndex.getMapCount());
+		assertEquals(3, loadedIndex.getNodeCount());
+		assertEquals(index.search("search maps", 10).toString(), loadedIndex.search("search maps", 10).toString());
+	}
+
+	@Test
+	public void testUnreadableMapIsNotIndexedAndReadAgain() throws IOException {
+		final File map = createMap("broken.mm", "<node TEXT=\"search\" ID=\"ID_1\">");
+		final FullTextIndex index = new FullTextIndex(null);
+		index.synchronize(Arrays.asList(map));
+		assertEquals(0, index.getMapCount());
+		assertEquals(Collections.singleton(map), index.getUnreadableMaps());
+		createMap("broken.mm", "<node TEXT=\"search\" ID=\"ID_1\"/>");
+		index.synchronize(Arrays.asList(map));
+		assertEquals(1, index.getMapCount());
+		assertEquals(0, index.getUnreadableMaps().size());
+		assertEquals(1, index.search("search", 10).size());
+	}
+
+	@Test
+	public void testRemovedMapsAreNotFound() throws IOException {
+		final File a = createMap("a.mm");
+		final File b = createMap("b.mm");
+		final FullTextIndex index = new FullTextIndex(null);
+		index.synchronize(Arrays.asList(a, b));
+		assertEquals(4, index.search("search", 10).size());
+		index.synchronize(Arrays.asList(b));
+		assertEquals(1, index.getMapCount());
+		assertEquals(2, index.search("search", 10).size());
+		index.remove(b);
+		assertEquals(0, index.getNodeCount());
+		assertEquals(0, index.search("search", 10).size());
+	}
+}
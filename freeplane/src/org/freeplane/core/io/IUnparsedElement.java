@@ -0,0 +1,9 @@
+package org.freeplane.core.io;
+
+/**
+ * Marks elements created by an {@link IElementDOMHandler} whose content should not be parsed. The attribute
+ * handlers are not applied to them, the DOM passed to {@link IElementDOMHandler#endElement} contains all attributes
+ * and the unparsed element content as its content.
+ */
+public interface IUnparsedElement {
+}
@@ -0,0 +1,35 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.freeplane.core.io.WriteManager;
+
+/**
+ * Writes a tree like {@link TreeXmlWriter} in a binary format, which is read by
+ * {@link TreeXmlReader#loadBinary(Object, java.io.InputStream)} and results in the same handler calls as the xml.
+ * It is smaller and faster to read than xml, comments are not written. See {@link BinaryXMLWriter} for the format.
+ */
+public class BinaryTreeWriter extends TreeXmlWriter {
+	private final BinaryXMLWriter binaryWriter;
+
+	/** @param compressed if the records are deflated */
+	public BinaryTreeWriter(final WriteManager writeManager, final OutputStream output, final boolean compressed)
+	        throws IOException {
+		this(writeManager, new BinaryXMLWriter(output, compressed));
+	}
+
+	private BinaryTreeWriter(final WriteManager writeManager, final BinaryXMLWriter binaryWriter) {
+		super(writeManager, binaryWriter);
+		this.binaryWriter = binaryWriter;
+	}
+
+	@Override
+	public void addComment(final String comment) {
+	}
+
+	/** writes the end of the tree, the output is flushed but not closed */
+	public void finish() throws IOException {
+		binaryWriter.finish();
+	}
+}
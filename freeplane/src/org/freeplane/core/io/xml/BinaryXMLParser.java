@@ -0,0 +1,505 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.freeplane.n3.nanoxml.XMLParseException;
+
+/**
+ * Reads the records written by {@link BinaryXMLWriter} as the events of {@link XMLPullParser} for the same xml.
+ * <p>
+ * Raw content is parsed by an {@link XMLPullParser} unless it is requested as element content. Element content is
+ * returned as xml text encoded like {@link XMLWriter} encodes it.
+ */
+class BinaryXMLParser implements PullParser {
+	private static final String SYSTEM_ID = "file:.";
+	private static final String FRAGMENT_START = "<fragment>";
+	private static final String FRAGMENT_END = "</fragment>";
+
+	static boolean isBinary(final byte[] start, final int length) {
+		if (length < BinaryXMLWriter.MAGIC.length) {
+			return false;
+		}
+		for (int i = 0; i < BinaryXMLWriter.MAGIC.length; i++) {
+			if (start[i] != BinaryXMLWriter.MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private final InputStream input;
+	private final Inflater inflater;
+	private final byte[] buffer = new byte[8 * 1024];
+	private int position = 0;
+	private int limit = 0;
+	private int recordCount = 0;
+	/** the record following the attributes of the current element, or -1 */
+	private int nextRecord = -1;
+	private final List<String> sharedStrings = new ArrayList<String>();
+	private char[] chars = new char[256];
+	private int depth = 0;
+	private String[] elementNames = new String[32];
+	private String[] elementPrefixes = new String[32];
+	private String[] elementNamespaces = new String[32];
+	private String name;
+	/** if the xml start tag of the current element is followed by a line break */
+	private boolean lineBreak;
+	private String prefix;
+	private String namespace;
+	private boolean endElementPending;
+	private int attributeCount;
+	private String[] attributeNames = new String[16];
+	private String[] attributePrefixes = new String[16];
+	private String[] attributeNamespaces = new String[16];
+	private String[] attributeValues = new String[16];
+	private String text;
+	/** parses the current raw content */
+	private XMLPullParser fragmentParser;
+	private int fragmentDepth;
+
+	BinaryXMLParser(final InputStream input) throws IOException {
+		final byte[] header = new byte[BinaryXMLWriter.MAGIC.length + 2];
+		for (int read = 0; read < header.length;) {
+			final int count = input.read(header, read, header.length - read);
+			if (count < 0) {
+				throw new IOException("binary tree expected");
+			}
+			read += count;
+		}
+		if (!isBinary(header, header.length)) {
+			throw new IOException("binary tree expected");
+		}
+		final int version = header[BinaryXMLWriter.MAGIC.length];
+		if (version != BinaryXMLWriter.VERSION) {
+			throw new IOException("unsupported binary tree version " + version);
+		}
+		if ((header[BinaryXMLWriter.MAGIC.length + 1] & BinaryXMLWriter.FLAG_COMPRESSED) != 0) {
+			inflater = new Inflater();
+			this.input = new InflaterInputStream(input, inflater, buffer.length);
+		}
+		else {
+			inflater = null;
+			this.input = input;
+		}
+	}
+
+	/** releases the inflater, the input is not closed */
+	void close() {
+		if (inflater != null) {
+			inflater.end();
+		}
+	}
+
+	public String getSystemID() {
+		return SYSTEM_ID;
+	}
+
+	/** number of the records read so far, there are no lines */
+	public int getLineNr() {
+		return recordCount;
+	}
+
+	public String getName() {
+		return fragmentParser != null ? fragmentParser.getName() : name;
+	}
+
+	public String getPrefix() {
+		return fragmentParser != null ? fragmentParser.getPrefix() : prefix;
+	}
+
+	public String getNamespaceURI() {
+		return fragmentParser != null ? fragmentParser.getNamespaceURI() : namespace;
+	}
+
+	public int getAttributeCount() {
+		return fragmentParser != null ? fragmentParser.getAttributeCount() : attributeCount;
+	}
+
+	public String getAttributeName(final int index) {
+		return fragmentParser != null ? fragmentParser.getAttributeName(index) : attributeNames[index];
+	}
+
+	public String getAttributePrefix(final int index) {
+		return fragmentParser != null ? fragmentParser.getAttributePrefix(index) : attributePrefixes[index];
+	}
+
+	public String getAttributeNamespaceURI(final int index) {
+		return fragmentParser != null ? fragmentParser.getAttributeNamespaceURI(index) : attributeNamespaces[index];
+	}
+
+	public String getAttributeValue(final int index) {
+		return fragmentParser != null ? fragmentParser.getAttributeValue(index) : attributeValues[index];
+	}
+
+	public String getText() {
+		return fragmentParser != null ? fragmentParser.getText() : text;
+	}
+
+	public int next() throws IOException, XMLParseException {
+		text = null;
+		if (endElementPending) {
+			endElementPending = false;
+			return endElement();
+		}
+		if (fragmentParser != null) {
+			final int event = nextInFragment();
+			if (event != END_DOCUMENT) {
+				return event;
+			}
+		}
+		attributeCount = 0;
+		for (;;) {
+			final int record = nextRecord();
+			switch (record & ~BinaryXMLWriter.LINE_BREAK) {
+				case BinaryXMLWriter.START_ELEMENT:
+				case BinaryXMLWriter.START_ELEMENT_NS:
+					readStartElement(record);
+					return START_ELEMENT;
+				case BinaryXMLWriter.END_ELEMENT:
+					if (depth == 0) {
+						throw error("Unexpected end of element");
+					}
+					return endElement();
+				case BinaryXMLWriter.TEXT:
+					text = readString();
+					if (!isWhitespace(text)) {
+						return TEXT;
+					}
+					text = null;
+					break;
+				case BinaryXMLWriter.RAW_CONTENT:
+					final String content = readString();
+					if (isPlainText(content)) {
+						if (!isWhitespace(content)) {
+							text = content;
+							return TEXT;
+						}
+						break;
+					}
+					fragmentParser = new XMLPullParser(new StringReader(FRAGMENT_START + content + FRAGMENT_END),
+					    FRAGMENT_START.length() + content.length() + FRAGMENT_END.length() + 1);
+					fragmentParser.next();
+					fragmentDepth = 0;
+					final int event = nextInFragment();
+					if (event != END_DOCUMENT) {
+						return event;
+					}
+					break;
+				case BinaryXMLWriter.END_DOCUMENT:
+					if (depth != 0) {
+						throw error("Unexpected end of document");
+					}
+					return END_DOCUMENT;
+				default:
+					throw error("Invalid record " + record);
+			}
+		}
+	}
+
+	/** text without markup is reported like {@link XMLPullParser} reports it */
+	private static boolean isPlainText(final String content) {
+		for (int i = 0; i < content.length(); i++) {
+			final char c = content.charAt(i);
+			if (c == '<' || c == '&' || c == '\r' || c == '\t') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** {@link XMLPullParser} does not report such text */
+	private static boolean isWhitespace(final String text) {
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			if (c != ' ' && c != '\n') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** @return the next event of the raw content, or END_DOCUMENT after its end */
+	private int nextInFragment() throws IOException, XMLParseException {
+		final int event = fragmentParser.next();
+		if (event == START_ELEMENT) {
+			fragmentDepth++;
+		}
+		else if (event == END_ELEMENT) {
+			if (fragmentDepth == 0) {
+				fragmentParser = null;
+				return END_DOCUMENT;
+			}
+			fragmentDepth--;
+		}
+		return event;
+	}
+
+	private int endElement() {
+		depth--;
+		name = elementNames[depth];
+		prefix = elementPrefixes[depth];
+		namespace = elementNamespaces[depth];
+		return END_ELEMENT;
+	}
+
+	private void readStartElement(final int record) throws IOException, XMLParseException {
+		lineBreak = (record & BinaryXMLWriter.LINE_BREAK) != 0;
+		final String fullName = readString();
+		namespace = (record & ~BinaryXMLWriter.LINE_BREAK) == BinaryXMLWriter.START_ELEMENT_NS ? readString() : null;
+		final int colon = fullName.indexOf(':');
+		if (colon < 0) {
+			prefix = null;
+			name = fullName;
+		}
+		else {
+			prefix = fullName.substring(0, colon);
+			name = fullName.substring(colon + 1);
+		}
+		if (depth == elementNames.length) {
+			elementNames = grow(elementNames);
+			elementPrefixes = grow(elementPrefixes);
+			elementNamespaces = grow(elementNamespaces);
+		}
+		elementNames[depth] = name;
+		elementPrefixes[depth] = prefix;
+		elementNamespaces[depth] = namespace;
+		depth++;
+		for (;;) {
+			final int next = nextRecord();
+			if (next != BinaryXMLWriter.ATTRIBUTE && next != BinaryXMLWriter.ATTRIBUTE_NS) {
+				nextRecord = next;
+				return;
+			}
+			final String attributeName = readString();
+			final String value = readString();
+			final String attributeNamespace = next == BinaryXMLWriter.ATTRIBUTE_NS ? readString() : null;
+			if (attributeCount == attributeNames.length) {
+				attributeNames = grow(attributeNames);
+				attributePrefixes = grow(attributePrefixes);
+				attributeNamespaces = grow(attributeNamespaces);
+				attributeValues = grow(attributeValues);
+			}
+			final int attributeColon = attributeName.indexOf(':');
+			if (attributeColon < 0) {
+				attributePrefixes[attributeCount] = null;
+				attributeNames[attributeCount] = attributeName;
+			}
+			else {
+				attributePrefixes[attributeCount] = attributeName.substring(0, attributeColon);
+				attributeNames[attributeCount] = attributeName.substring(attributeColon + 1);
+			}
+			attributeNamespaces[attributeCount] = attributeNamespace;
+			attributeValues[attributeCount] = value;
+			attributeCount++;
+		}
+	}
+
+	private static String[] grow(final String[] array) {
+		final String[] newArray = new String[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	public String readElementContent() throws IOException, XMLParseException {
+		if (fragmentParser != null) {
+			return fragmentParser.readElementContent();
+		}
+		int record = nextRecord();
+		if (record == BinaryXMLWriter.END_ELEMENT && !lineBreak) {
+			endElementPending = true;
+			return null;
+		}
+		final StringBuilder content = new StringBuilder();
+		if (lineBreak) {
+			content.append('\n');
+		}
+		final List<String> openElements = new ArrayList<String>();
+		for (;; record = nextRecord()) {
+			switch (record & ~BinaryXMLWriter.LINE_BREAK) {
+				case BinaryXMLWriter.START_ELEMENT:
+				case BinaryXMLWriter.START_ELEMENT_NS:
+					final String fullName = readString();
+					content.append('<').append(fullName);
+					if ((record & ~BinaryXMLWriter.LINE_BREAK) == BinaryXMLWriter.START_ELEMENT_NS) {
+						final int colon = fullName.indexOf(':');
+						appendNamespace(content, colon < 0 ? null : fullName.substring(0, colon), readString());
+					}
+					int next;
+					while ((next = nextRecord()) == BinaryXMLWriter.ATTRIBUTE || next == BinaryXMLWriter.ATTRIBUTE_NS) {
+						final String attributeName = readString();
+						final String value = readString();
+						if (next == BinaryXMLWriter.ATTRIBUTE_NS) {
+							appendNamespace(content, attributeName.substring(0, attributeName.indexOf(':')),
+							    readString());
+						}
+						content.append(' ').append(attributeName).append("=\"");
+						appendEncoded(content, value, true, false);
+						content.append('"');
+					}
+					if (next == BinaryXMLWriter.END_ELEMENT) {
+						content.append("/>");
+					}
+					else {
+						content.append('>');
+						if ((record & BinaryXMLWriter.LINE_BREAK) != 0) {
+							content.append('\n');
+						}
+						openElements.add(fullName);
+						nextRecord = next;
+					}
+					break;
+				case BinaryXMLWriter.END_ELEMENT:
+					if (openElements.isEmpty()) {
+						endElementPending = true;
+						return content.toString();
+					}
+					content.append("</").append(openElements.remove(openElements.size() - 1)).append('>');
+					break;
+				case BinaryXMLWriter.TEXT:
+					appendEncoded(content, readString(), false, false);
+					break;
+				case BinaryXMLWriter.RAW_CONTENT:
+					appendEncoded(content, readString(), false, true);
+					break;
+				default:
+					throw error("Unexpected record " + record);
+			}
+		}
+	}
+
+	private static void appendNamespace(final StringBuilder content, final String namespacePrefix, final String uri) {
+		content.append(namespacePrefix == null ? " xmlns" : " xmlns:" + namespacePrefix).append("=\"").append(uri)
+		    .append('"');
+	}
+
+	/** encodes the string like {@link XMLWriter}, line ends are normalized like {@link XMLPullParser} does */
+	private static void appendEncoded(final StringBuilder content, final String string, final boolean attributeValue,
+	                                  final boolean xmlInclude) {
+		for (int i = 0; i < string.length(); i++) {
+			final char c = string.charAt(i);
+			if (c > 0x7E) {
+				content.append("&#x").append(Integer.toString(c, 16)).append(';');
+				continue;
+			}
+			if (xmlInclude) {
+				if (c != '\r') {
+					content.append(c);
+				}
+				else if (i + 1 == string.length() || string.charAt(i + 1) != '\n') {
+					content.append('\n');
+				}
+				continue;
+			}
+			switch (c) {
+				case '<':
+					content.append("&lt;");
+					continue;
+				case '>':
+					content.append("&gt;");
+					continue;
+				case '&':
+					content.append("&amp;");
+					continue;
+				case '\'':
+					content.append("&apos;");
+					continue;
+				case '"':
+					content.append("&quot;");
+					continue;
+				case 0x0A:
+					content.append(attributeValue ? "&#xa;" : "\n");
+					continue;
+				default:
+					if (c < ' ') {
+						content.append("&#x").append(Integer.toString(c, 16)).append(';');
+						continue;
+					}
+					content.append(c);
+			}
+		}
+	}
+
+	private int nextRecord() throws IOException, XMLParseException {
+		if (nextRecord >= 0) {
+			final int record = nextRecord;
+			nextRecord = -1;
+			return record;
+		}
+		recordCount++;
+		return readByte();
+	}
+
+	private int readByte() throws IOException, XMLParseException {
+		if (position == limit) {
+			limit = input.read(buffer);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				throw error("Unexpected EOF");
+			}
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	private int readVarInt() throws IOException, XMLParseException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw error("Invalid number");
+	}
+
+	private String readString() throws IOException, XMLParseException {
+		final int reference = readVarInt();
+		if (reference > BinaryXMLWriter.NEW_SHARED) {
+			final int index = reference - 2;
+			if (index >= sharedStrings.size()) {
+				throw error("Invalid string reference " + reference);
+			}
+			return sharedStrings.get(index);
+		}
+		final int length = readVarInt();
+		if (chars.length < length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+		}
+		for (int i = 0; i < length;) {
+			final int b = readByte();
+			if (b < 0x80) {
+				chars[i++] = (char) b;
+			}
+			else if (b < 0xE0) {
+				chars[i++] = (char) ((b & 0x1F) << 6 | readByte() & 0x3F);
+			}
+			else if (b < 0xF0) {
+				chars[i++] = (char) ((b & 0x0F) << 12 | (readByte() & 0x3F) << 6 | readByte() & 0x3F);
+			}
+			else {
+				final int codePoint = (b & 0x07) << 18 | (readByte() & 0x3F) << 12 | (readByte() & 0x3F) << 6
+				        | readByte() & 0x3F;
+				if (i + 2 > length) {
+					throw error("Invalid string");
+				}
+				i += Character.toChars(codePoint, chars, i);
+			}
+		}
+		final String string = new String(chars, 0, length);
+		if (reference == BinaryXMLWriter.NEW_SHARED) {
+			sharedStrings.add(string);
+		}
+		return string;
+	}
+
+	private XMLParseException error(final String message) {
+		return new XMLParseException(SYSTEM_ID, recordCount, message);
+	}
+}
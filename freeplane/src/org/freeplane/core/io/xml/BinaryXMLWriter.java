@@ -0,0 +1,228 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.freeplane.n3.nanoxml.XMLElement;
+
+/**
+ * Writes the output of {@link TreeXmlWriter} as binary records, which are read by {@link BinaryXMLParser}.
+ * <p>
+ * The output starts with the {@link #MAGIC} bytes, the format version and a flags byte, followed by the records,
+ * which are deflated if {@link #FLAG_COMPRESSED} is set. A record is a tag byte followed by its strings. A string is
+ * a reference: {@link #LITERAL} or {@link #NEW_SHARED} followed by the number of its characters and its UTF-8 bytes,
+ * or the index of a shared string plus 2. Element names, attribute names and short attribute values are shared, so
+ * that each of them is written once. Raw xml content is written as a record of its own and parsed when it is read.
+ * Comments are not written. Text mixed with child elements is written without the line breaks and the indentation
+ * added by pretty printing, which are trimmed when it is written as xml again.
+ */
+class BinaryXMLWriter extends XMLWriter {
+	static final byte[] MAGIC = { 'F', 'P', 'M', 'B' };
+	static final int VERSION = 1;
+	static final int FLAG_COMPRESSED = 1;
+	static final int END_DOCUMENT = 0;
+	static final int START_ELEMENT = 1;
+	/** start element followed by its namespace */
+	static final int START_ELEMENT_NS = 2;
+	static final int ATTRIBUTE = 3;
+	/** attribute followed by its namespace */
+	static final int ATTRIBUTE_NS = 4;
+	static final int END_ELEMENT = 5;
+	static final int TEXT = 6;
+	static final int RAW_CONTENT = 7;
+	/** flag of the start element records, the xml start tag is followed by a line break */
+	static final int LINE_BREAK = 0x10;
+	static final int LITERAL = 0;
+	static final int NEW_SHARED = 1;
+	private static final int MAX_SHARED_VALUE_LENGTH = 32;
+	private final OutputStream output;
+	private final OutputStream recordOutput;
+	private final Deflater deflater;
+	private final byte[] buffer = new byte[8 * 1024];
+	private int count = 0;
+	private final Map<String, Integer> sharedStrings = new HashMap<String, Integer>();
+	/** the first error, it is thrown by {@link #finish()} like {@link java.io.PrintWriter} reports it on request */
+	private IOException error = null;
+
+	BinaryXMLWriter(final OutputStream output, final boolean compressed) throws IOException {
+		this.output = output;
+		output.write(MAGIC);
+		output.write(VERSION);
+		output.write(compressed ? FLAG_COMPRESSED : 0);
+		if (compressed) {
+			deflater = new Deflater(Deflater.BEST_SPEED);
+			recordOutput = new DeflaterOutputStream(output, deflater, buffer.length);
+		}
+		else {
+			deflater = null;
+			recordOutput = output;
+		}
+	}
+
+	@Override
+	public void endElement(final String fullName, final boolean prettyPrint) {
+		writeByte(END_ELEMENT);
+	}
+
+	/** writes the end of the document and flushes the output, it is not closed. */
+	void finish() throws IOException {
+		writeByte(END_DOCUMENT);
+		flushBuffer();
+		try {
+			if (error == null) {
+				if (deflater != null) {
+					((DeflaterOutputStream) recordOutput).finish();
+				}
+				output.flush();
+			}
+		}
+		finally {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	@Override
+	public void flush() {
+		flushBuffer();
+		if (error == null) {
+			try {
+				recordOutput.flush();
+			}
+			catch (final IOException e) {
+				error = e;
+			}
+		}
+	}
+
+	private void flushBuffer() {
+		if (error == null && count > 0) {
+			try {
+				recordOutput.write(buffer, 0, count);
+			}
+			catch (final IOException e) {
+				error = e;
+			}
+		}
+		count = 0;
+	}
+
+	@Override
+	public void write(final String content) {
+		writeByte(RAW_CONTENT);
+		writeString(content, false);
+	}
+
+	@Override
+	protected void write(final XMLElement xml, final boolean prettyPrint, final int indent,
+	                     final boolean collapseEmptyElements, final boolean endElement) {
+		final String content = xml.getContent();
+		if (xml.getName() == null) {
+			if (content != null) {
+				writeByte(TEXT);
+				writeString(prettyPrint ? content.trim() : content, false);
+			}
+			return;
+		}
+		final boolean hasContent = content != null && content.length() > 0;
+		final boolean lineBreak = prettyPrint && !hasContent
+		        && (xml.hasChildren() || !collapseEmptyElements || !endElement);
+		final String namespace = xml.getNamespace();
+		writeByte((namespace == null ? START_ELEMENT : START_ELEMENT_NS) | (lineBreak ? LINE_BREAK : 0));
+		writeString(xml.getFullName(), true);
+		if (namespace != null) {
+			writeString(namespace, true);
+		}
+		final Enumeration<String> attributeNames = xml.enumerateAttributeNames();
+		while (attributeNames.hasMoreElements()) {
+			final String key = attributeNames.nextElement();
+			final String value = xml.getAttribute(key, null);
+			final String attributeNamespace = xml.getAttributeNamespace(key);
+			writeByte(attributeNamespace == null ? ATTRIBUTE : ATTRIBUTE_NS);
+			writeString(key, true);
+			writeString(value, value.length() <= MAX_SHARED_VALUE_LENGTH);
+			if (attributeNamespace != null) {
+				writeString(attributeNamespace, true);
+			}
+		}
+		if (hasContent) {
+			writeByte(TEXT);
+			writeString(content, false);
+		}
+		else if (xml.hasChildren() || !collapseEmptyElements) {
+			final Enumeration<XMLElement> children = xml.enumerateChildren();
+			while (children.hasMoreElements()) {
+				write(children.nextElement(), prettyPrint, indent + 4, collapseEmptyElements, true);
+			}
+		}
+		if (endElement) {
+			writeByte(END_ELEMENT);
+		}
+	}
+
+	private void writeByte(final int b) {
+		if (count == buffer.length) {
+			flushBuffer();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	private void writeVarInt(int value) {
+		while ((value & ~0x7F) != 0) {
+			writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		writeByte(value);
+	}
+
+	private void writeString(final String string, final boolean shared) {
+		if (shared) {
+			final Integer index = sharedStrings.get(string);
+			if (index != null) {
+				writeVarInt(index.intValue() + 2);
+				return;
+			}
+			sharedStrings.put(string, sharedStrings.size());
+			writeVarInt(NEW_SHARED);
+		}
+		else {
+			writeVarInt(LITERAL);
+		}
+		final int length = string.length();
+		writeVarInt(length);
+		for (int i = 0; i < length; i++) {
+			if (count + 4 > buffer.length) {
+				flushBuffer();
+			}
+			final char c = string.charAt(i);
+			if (c < 0x80) {
+				buffer[count++] = (byte) c;
+			}
+			else if (c < 0x800) {
+				buffer[count++] = (byte) (0xC0 | c >> 6);
+				buffer[count++] = (byte) (0x80 | c & 0x3F);
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+				final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+				buffer[count++] = (byte) (0xF0 | codePoint >> 18);
+				buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+				buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+				buffer[count++] = (byte) (0x80 | codePoint & 0x3F);
+			}
+			else {
+				buffer[count++] = (byte) (0xE0 | c >> 12);
+				buffer[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+				buffer[count++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+
+import org.freeplane.n3.nanoxml.XMLParseException;
+
+/**
+ * Events read by {@link TreeXmlReader}, see {@link XMLPullParser} for their data.
+ */
+interface PullParser {
+	int START_ELEMENT = 1;
+	int END_ELEMENT = 2;
+	int TEXT = 3;
+	int END_DOCUMENT = 4;
+
+	String getSystemID();
+
+	int getLineNr();
+
+	int next() throws IOException, XMLParseException;
+
+	/** local name of the current element */
+	String getName();
+
+	String getPrefix();
+
+	String getNamespaceURI();
+
+	int getAttributeCount();
+
+	/** local name of the attribute */
+	String getAttributeName(int index);
+
+	String getAttributePrefix(int index);
+
+	String getAttributeNamespaceURI(int index);
+
+	String getAttributeValue(int index);
+
+	String getText();
+
+	/**
+	 * Returns the unparsed content of the current element or null if it is empty, the element is ended by the next
+	 * event.
+	 */
+	String readElementContent() throws IOException, XMLParseException;
+}
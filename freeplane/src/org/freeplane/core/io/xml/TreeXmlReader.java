@@ -20,6 +20,7 @@
 package org.freeplane.core.io.xml;
 
 import java.awt.Point;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.Date;
 import java.util.Enumeration;
@@ -33,6 +34,7 @@ import org.freeplane.core.io.IAttributeHandler;
 import org.freeplane.core.io.IElementContentHandler;
 import org.freeplane.core.io.IElementDOMHandler;
 import org.freeplane.core.io.IElementHandler;
+import org.freeplane.core.io.IUnparsedElement;
 import org.freeplane.core.io.ListHashTable;
 import org.freeplane.core.io.ReadManager;
 import org.freeplane.n3.nanoxml.IXMLBuilder;
@@ -43,6 +45,9 @@ import org.freeplane.n3.nanoxml.XMLElement;
 import org.freeplane.n3.nanoxml.XMLException;
 
 public class TreeXmlReader implements IXMLBuilder {
+	/** Maps are read by the NanoXML parser instead of {@link XMLPullParser} if this system property is true. */
+	private static final boolean PULL_PARSER_DISABLED = Boolean.getBoolean("org.freeplane.core.io.xml.TreeXmlReader.nanoxml");
+
 	public static boolean xmlToBoolean(final String string) {
 		if (string == null) {
 			return false;
@@ -90,6 +95,9 @@ public class TreeXmlReader implements IXMLBuilder {
 	private Object parentElement;
 	final private ReadManager parseManager;
 	private XMLParser parser;
+	private PullParser pullParser;
+	private boolean skipNextElementContent;
+	private boolean usePullParser = false;
 	private XMLElement saveAsXmlUntil;
 	private String tag;
 	private StdXMLBuilder xmlBuilder;
@@ -153,10 +161,10 @@ public class TreeXmlReader implements IXMLBuilder {
 			currentElement = nodeCreator.createElement(parentElement, name, lastBuiltElement);
 		}
 		if (currentElement != null) {
-			if (nodeCreator instanceof IElementContentHandler) {
-				parser.notParseNextElementContent();
+			if (nodeCreator instanceof IElementContentHandler || currentElement instanceof IUnparsedElement) {
+				notParseNextElementContent();
 			}
-			attributeHandlersForTag = getAttributeLoaders().get(tag);
+			attributeHandlersForTag = getAttributeHandlersForCurrentElement();
 			if (attributeHandlersForTag == null) {
 				return;
 			}
@@ -201,6 +209,9 @@ public class TreeXmlReader implements IXMLBuilder {
 			    elementContentAsString);
 		}
 		else if (nodeCreator instanceof IElementDOMHandler) {
+			if (element instanceof IUnparsedElement) {
+				lastBuiltElement.setContent(elementContentAsString);
+			}
 			((IElementDOMHandler) nodeCreator).endElement(currentElement, name, element, lastBuiltElement);
 		}
 		final XMLElement top = lastBuiltElement.getParent();
@@ -216,6 +227,13 @@ public class TreeXmlReader implements IXMLBuilder {
 		return parseManager.getAttributeHandlers();
 	}
 
+	private Hashtable<String, IAttributeHandler> getAttributeHandlersForCurrentElement() {
+		if (currentElement instanceof IUnparsedElement) {
+			return null;
+		}
+		return getAttributeLoaders().get(tag);
+	}
+
 	private ListHashTable<String, IElementHandler> getElementHandlers() {
 		return parseManager.getElementHandlers();
 	}
@@ -233,12 +251,115 @@ public class TreeXmlReader implements IXMLBuilder {
 	 * @see freeplane.persistence.Reader#load()
 	 */
 	public void load(final Reader reader) throws XMLException {
-		parser = new XMLParser();
-		final IXMLReader nanoxmlReader = new StdXMLReader(reader);
-		parser.setReader(nanoxmlReader);
-		parser.setBuilder(this);
-		parser.setValidator(new NonValidator());
-		parser.parse();
+		if (!usePullParser || PULL_PARSER_DISABLED) {
+			parser = new XMLParser();
+			final IXMLReader nanoxmlReader = new StdXMLReader(reader);
+			parser.setReader(nanoxmlReader);
+			parser.setBuilder(this);
+			parser.setValidator(new NonValidator());
+			parser.parse();
+			return;
+		}
+		pullParser = new XMLPullParser(reader);
+		try {
+			parse();
+		}
+		catch (final XMLException e) {
+			throw e;
+		}
+		catch (final Exception e) {
+			throw new XMLException(e);
+		}
+		finally {
+			pullParser = null;
+		}
+	}
+
+	/** reads a tree written by {@link BinaryTreeWriter} */
+	public void loadBinary(final InputStream input) throws XMLException {
+		BinaryXMLParser binaryParser = null;
+		try {
+			binaryParser = new BinaryXMLParser(input);
+			pullParser = binaryParser;
+			parse();
+		}
+		catch (final XMLException e) {
+			throw e;
+		}
+		catch (final Exception e) {
+			throw new XMLException(e);
+		}
+		finally {
+			pullParser = null;
+			if (binaryParser != null) {
+				binaryParser.close();
+			}
+		}
+	}
+
+	public void loadBinary(final Object currentElement, final InputStream input) throws XMLException {
+		this.currentElement = currentElement;
+		loadBinary(input);
+	}
+
+	/** @return true if the bytes start a tree written by {@link BinaryTreeWriter} */
+	public static boolean isBinary(final byte[] start, final int length) {
+		return BinaryXMLParser.isBinary(start, length);
+	}
+
+	/** calls the builder methods for the events of the pull parser like the NanoXML parser */
+	private void parse() throws Exception {
+		final String systemID = pullParser.getSystemID();
+		startBuilding(systemID, pullParser.getLineNr());
+		for (;;) {
+			switch (pullParser.next()) {
+				case PullParser.START_ELEMENT:
+					final String name = pullParser.getName();
+					final String nsPrefix = pullParser.getPrefix();
+					final String nsURI = pullParser.getNamespaceURI();
+					startElement(name, nsPrefix, nsURI, systemID, pullParser.getLineNr());
+					final int attributeCount = pullParser.getAttributeCount();
+					for (int i = 0; i < attributeCount; i++) {
+						addAttribute(pullParser.getAttributeName(i), pullParser.getAttributePrefix(i),
+						    pullParser.getAttributeNamespaceURI(i), pullParser.getAttributeValue(i), "CDATA");
+					}
+					elementAttributesProcessed(name, nsPrefix, nsURI);
+					if (skipNextElementContent) {
+						skipNextElementContent = false;
+						final String content = pullParser.readElementContent();
+						if (content != null) {
+							setElementContent(content);
+						}
+					}
+					break;
+				case PullParser.END_ELEMENT:
+					endElement(pullParser.getName(), pullParser.getPrefix(), pullParser.getNamespaceURI());
+					break;
+				case PullParser.TEXT:
+					xmlBuilder.addPCData(pullParser.getText(), systemID, pullParser.getLineNr());
+					break;
+				case PullParser.END_DOCUMENT:
+					return;
+			}
+		}
+	}
+
+	private void notParseNextElementContent() {
+		if (pullParser != null) {
+			skipNextElementContent = true;
+		}
+		else {
+			parser.notParseNextElementContent();
+		}
+	}
+
+	/**
+	 * Text is read by {@link XMLPullParser} instead of the NanoXML parser if set.
+	 * The pull parser does not support entities declared in a DOCTYPE, it is only
+	 * used for maps, which never declare any.
+	 */
+	public void setUsePullParser(final boolean usePullParser) {
+		this.usePullParser = usePullParser;
 	}
 
 	/*
@@ -297,9 +418,9 @@ public class TreeXmlReader implements IXMLBuilder {
 			currentElement = nodeCreator.createElement(parentElement, tag, null);
 		}
 		if (currentElement != null) {
-			attributeHandlersForTag = getAttributeLoaders().get(tag);
-			if (nodeCreator instanceof IElementContentHandler) {
-				parser.notParseNextElementContent();
+			attributeHandlersForTag = getAttributeHandlersForCurrentElement();
+			if (nodeCreator instanceof IElementContentHandler || currentElement instanceof IUnparsedElement) {
+				notParseNextElementContent();
 			}
 		}
 		else {
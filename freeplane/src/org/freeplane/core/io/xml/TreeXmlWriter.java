@@ -80,9 +80,13 @@ public class TreeXmlWriter implements ITreeWriter {
     }
 
 	public TreeXmlWriter(final WriteManager writeManager, final Writer writer) {
+		this(writeManager, new XMLWriter(writer));
+	}
+
+	TreeXmlWriter(final WriteManager writeManager, final XMLWriter xmlwriter) {
 		super();
 		this.writeManager = writeManager;
-		xmlwriter = new XMLWriter(writer);
+		this.xmlwriter = xmlwriter;
 		hints = new HashMap<Object, Object>();
 	}
 
@@ -0,0 +1,775 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.freeplane.n3.nanoxml.XMLParseException;
+
+/**
+ * Pull parser reading xml from a character buffer, used by {@link TreeXmlReader} instead of the NanoXML parser.
+ * <p>
+ * The events and their data match the calls of the NanoXML parser to its builder: line ends are normalized, white
+ * space preceding elements is not reported as text, each text and CDATA section is reported separately and xmlns
+ * attributes are not reported. Element and attribute names are shared strings. Processing instructions, comments and
+ * document type declarations are skipped, entities declared in them are not supported.
+ */
+class XMLPullParser implements PullParser {
+	private static final String SYSTEM_ID = "file:.";
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	/** Table of the element and attribute names, so that every name is created once. */
+	private static class NameTable {
+		private static final int MAX_SIZE = 4096;
+		private String[] names = new String[256];
+		private int size = 0;
+
+		String get(final char[] chars, final int start, final int length) {
+			int hash = 0;
+			for (int i = start; i < start + length; i++) {
+				hash = 31 * hash + chars[i];
+			}
+			int index = hash & (names.length - 1);
+			for (String name = names[index]; name != null; name = names[index]) {
+				if (matches(name, chars, start, length)) {
+					return name;
+				}
+				index = (index + 1) & (names.length - 1);
+			}
+			final String name = new String(chars, start, length);
+			if (size < MAX_SIZE) {
+				names[index] = name;
+				if (++size * 2 > names.length) {
+					rehash();
+				}
+			}
+			return name;
+		}
+
+		private static boolean matches(final String name, final char[] chars, final int start, final int length) {
+			if (name.length() != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (name.charAt(i) != chars[start + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void rehash() {
+			final String[] oldNames = names;
+			names = new String[oldNames.length * 2];
+			for (final String name : oldNames) {
+				if (name != null) {
+					int index = name.hashCode() & (names.length - 1);
+					while (names[index] != null) {
+						index = (index + 1) & (names.length - 1);
+					}
+					names[index] = name;
+				}
+			}
+		}
+	}
+
+	private final Reader reader;
+	private char[] buffer;
+	private int position = 0;
+	private int limit = 0;
+	/** start of the scanned token, kept in the buffer when it is filled */
+	private int mark = -1;
+	private boolean eof = false;
+	private boolean afterCarriageReturn = false;
+	private int lineNr = 1;
+	/** buffer position up to which the line ends are counted */
+	private int linePosition = 0;
+	private final NameTable nameTable = new NameTable();
+	private final StringBuilder textBuilder = new StringBuilder();
+	private int depth = 0;
+	private String[] elementNames = new String[32];
+	private String[] elementPrefixes = new String[32];
+	private String[] elementNamespaces = new String[32];
+	private int[] namespaceCounts = new int[32];
+	private String[] defaultNamespaces = new String[32];
+	private String[] namespacePrefixes = new String[8];
+	private String[] namespaceURIs = new String[8];
+	private int namespaceCount = 0;
+	private String name;
+	private String prefix;
+	private String namespace;
+	private boolean emptyElement;
+	private boolean endElementPending;
+	private int attributeCount;
+	private String[] attributeNames = new String[16];
+	private String[] attributePrefixes = new String[16];
+	private String[] attributeValues = new String[16];
+	private String text;
+
+	XMLPullParser(final Reader reader) {
+		this(reader, BUFFER_SIZE);
+	}
+
+	/** @param bufferSize initial size of the character buffer, it grows if needed */
+	XMLPullParser(final Reader reader, final int bufferSize) {
+		this.reader = reader;
+		buffer = new char[bufferSize];
+	}
+
+	public String getSystemID() {
+		return SYSTEM_ID;
+	}
+
+	public int getLineNr() {
+		for (; linePosition < position; linePosition++) {
+			if (buffer[linePosition] == '\n') {
+				lineNr++;
+			}
+		}
+		return lineNr;
+	}
+
+	/** local name of the current element */
+	public String getName() {
+		return name;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public String getNamespaceURI() {
+		return namespace;
+	}
+
+	boolean isEmptyElement() {
+		return emptyElement;
+	}
+
+	public int getAttributeCount() {
+		return attributeCount;
+	}
+
+	/** local name of the attribute */
+	public String getAttributeName(final int index) {
+		return attributeNames[index];
+	}
+
+	public String getAttributePrefix(final int index) {
+		return attributePrefixes[index];
+	}
+
+	public String getAttributeNamespaceURI(final int index) {
+		final String attributePrefix = attributePrefixes[index];
+		return attributePrefix == null ? null : getNamespaceURI(attributePrefix);
+	}
+
+	public String getAttributeValue(final int index) {
+		return attributeValues[index];
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public int next() throws IOException, XMLParseException {
+		text = null;
+		if (endElementPending) {
+			endElementPending = false;
+			return endElement();
+		}
+		attributeCount = 0;
+		if (depth == 0) {
+			return nextOutsideOfElements();
+		}
+		for (;;) {
+			if (!available()) {
+				throw error("Unexpected EOF");
+			}
+			if (buffer[position] != '<') {
+				if (scanText()) {
+					return TEXT;
+				}
+				continue;
+			}
+			position++;
+			final char ch = read();
+			if (ch == '/') {
+				scanEndTag();
+				return endElement();
+			}
+			if (ch == '!') {
+				if (scanSpecialTag()) {
+					return TEXT;
+				}
+				continue;
+			}
+			if (ch == '?') {
+				skipProcessingInstruction();
+				continue;
+			}
+			position--;
+			return scanStartTag();
+		}
+	}
+
+	private int nextOutsideOfElements() throws IOException, XMLParseException {
+		for (;;) {
+			if (!available()) {
+				return END_DOCUMENT;
+			}
+			final char ch = buffer[position++];
+			if (ch == '<') {
+				final char next = read();
+				if (next == '?') {
+					skipProcessingInstruction();
+				}
+				else if (next == '!') {
+					if (scanSpecialTag()) {
+						throw error("No CDATA section is expected here");
+					}
+				}
+				else {
+					position--;
+					return scanStartTag();
+				}
+			}
+			else if (ch != ' ' && ch != '\t' && ch != '\n' && !(ch == '\uFEFF' && position == 1)) {
+				throw error("Invalid input: `" + ch + "' (0x" + Integer.toHexString(ch) + ')');
+			}
+		}
+	}
+
+	/**
+	 * Returns the unparsed content of the current element, the element is ended by the next event.
+	 */
+	public String readElementContent() throws IOException, XMLParseException {
+		if (emptyElement) {
+			return null;
+		}
+		mark = position;
+		int level = 1;
+		for (;;) {
+			final char ch = read();
+			if (ch != '<') {
+				continue;
+			}
+			final char next = read();
+			if (next == '/') {
+				if (--level == 0) {
+					break;
+				}
+				skipTo(">");
+			}
+			else if (next == '!') {
+				if (read() == '[') {
+					skipTo("]]>");
+				}
+				else {
+					skipTo("-->");
+				}
+			}
+			else if (next == '?') {
+				skipTo("?>");
+			}
+			else if (!skipStartTag()) {
+				level++;
+			}
+		}
+		final String content = new String(buffer, mark, position - 2 - mark);
+		mark = -1;
+		scanEndTag();
+		endElementPending = true;
+		return content;
+	}
+
+	private boolean available() throws IOException {
+		return position < limit || fill();
+	}
+
+	private char read() throws IOException, XMLParseException {
+		if (position >= limit && !fill()) {
+			throw error("Unexpected EOF");
+		}
+		return buffer[position++];
+	}
+
+	/** reads the next characters, line ends are converted to '\n' */
+	private boolean fill() throws IOException {
+		if (eof) {
+			return false;
+		}
+		final int keep = mark >= 0 ? mark : position;
+		if (keep > 0) {
+			getLineNr();
+			System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+			limit -= keep;
+			position -= keep;
+			linePosition -= keep;
+			if (mark >= 0) {
+				mark = 0;
+			}
+		}
+		if (limit == buffer.length) {
+			final char[] newBuffer = new char[buffer.length * 2];
+			System.arraycopy(buffer, 0, newBuffer, 0, limit);
+			buffer = newBuffer;
+		}
+		for (;;) {
+			final int count = reader.read(buffer, limit, buffer.length - limit);
+			if (count < 0) {
+				eof = true;
+				return false;
+			}
+			final int end = limit + count;
+			int newLimit = limit;
+			for (int i = limit; i < end; i++) {
+				final char ch = buffer[i];
+				if (ch == '\r') {
+					buffer[newLimit++] = '\n';
+					afterCarriageReturn = true;
+					continue;
+				}
+				if (ch != '\n' || !afterCarriageReturn) {
+					buffer[newLimit++] = ch;
+				}
+				afterCarriageReturn = false;
+			}
+			if (newLimit > limit) {
+				limit = newLimit;
+				return true;
+			}
+		}
+	}
+
+	private XMLParseException error(final String message) {
+		return new XMLParseException(SYSTEM_ID, getLineNr(), message);
+	}
+
+	private static boolean isNameChar(final char ch) {
+		return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_'
+		        || ch == ':' || ch == '-' || ch == '.' || ch > '~';
+	}
+
+	private String scanName() throws IOException {
+		mark = position;
+		while (available() && isNameChar(buffer[position])) {
+			position++;
+		}
+		final String scannedName = nameTable.get(buffer, mark, position - mark);
+		mark = -1;
+		return scannedName;
+	}
+
+	private void skipWhitespace() throws IOException {
+		while (available()) {
+			final char ch = buffer[position];
+			if (ch != ' ' && ch != '\t' && ch != '\n') {
+				return;
+			}
+			position++;
+		}
+	}
+
+	private int scanStartTag() throws IOException, XMLParseException {
+		final String fullName = scanName();
+		if (fullName.length() == 0) {
+			throw error("Invalid input: `" + read() + "'");
+		}
+		skipWhitespace();
+		if (depth == elementNames.length) {
+			elementNames = grow(elementNames);
+			elementPrefixes = grow(elementPrefixes);
+			elementNamespaces = grow(elementNamespaces);
+			defaultNamespaces = grow(defaultNamespaces);
+			final int[] newNamespaceCounts = new int[depth * 2];
+			System.arraycopy(namespaceCounts, 0, newNamespaceCounts, 0, depth);
+			namespaceCounts = newNamespaceCounts;
+		}
+		namespaceCounts[depth] = namespaceCount;
+		String defaultNamespace = depth > 0 ? defaultNamespaces[depth - 1] : null;
+		char ch;
+		for (;;) {
+			ch = read();
+			if (ch == '/' || ch == '>') {
+				break;
+			}
+			position--;
+			final String attributeName = scanName();
+			skipWhitespace();
+			if (read() != '=') {
+				throw error("Expected: `='");
+			}
+			skipWhitespace();
+			final String value = scanAttributeValue();
+			skipWhitespace();
+			if (attributeName.equals("xmlns")) {
+				defaultNamespace = value;
+			}
+			else if (attributeName.startsWith("xmlns:")) {
+				addNamespace(attributeName.substring(6), value);
+			}
+			else {
+				addAttribute(attributeName, value);
+			}
+		}
+		if (ch == '/' && read() != '>') {
+			throw error("Expected: `>'");
+		}
+		emptyElement = ch == '/';
+		endElementPending = emptyElement;
+		final int colonIndex = fullName.indexOf(':');
+		if (colonIndex > 0) {
+			prefix = fullName.substring(0, colonIndex);
+			name = nameTable.get(fullName.toCharArray(), colonIndex + 1, fullName.length() - colonIndex - 1);
+			namespace = getNamespaceURI(prefix);
+		}
+		else {
+			prefix = null;
+			name = fullName;
+			namespace = defaultNamespace;
+		}
+		elementNames[depth] = fullName;
+		elementPrefixes[depth] = prefix;
+		elementNamespaces[depth] = namespace;
+		defaultNamespaces[depth] = defaultNamespace;
+		depth++;
+		return START_ELEMENT;
+	}
+
+	private void addAttribute(final String fullName, final String value) {
+		if (attributeCount == attributeNames.length) {
+			attributeNames = grow(attributeNames);
+			attributePrefixes = grow(attributePrefixes);
+			attributeValues = grow(attributeValues);
+		}
+		final int colonIndex = fullName.indexOf(':');
+		if (colonIndex > 0) {
+			attributePrefixes[attributeCount] = fullName.substring(0, colonIndex);
+			attributeNames[attributeCount] = fullName.substring(colonIndex + 1);
+		}
+		else {
+			attributePrefixes[attributeCount] = null;
+			attributeNames[attributeCount] = fullName;
+		}
+		attributeValues[attributeCount] = value;
+		attributeCount++;
+	}
+
+	private void addNamespace(final String namespacePrefix, final String uri) {
+		if (namespaceCount == namespacePrefixes.length) {
+			namespacePrefixes = grow(namespacePrefixes);
+			namespaceURIs = grow(namespaceURIs);
+		}
+		namespacePrefixes[namespaceCount] = namespacePrefix;
+		namespaceURIs[namespaceCount] = uri;
+		namespaceCount++;
+	}
+
+	private String getNamespaceURI(final String namespacePrefix) {
+		for (int i = namespaceCount - 1; i >= 0; i--) {
+			if (namespacePrefixes[i].equals(namespacePrefix)) {
+				return namespaceURIs[i];
+			}
+		}
+		return null;
+	}
+
+	private static String[] grow(final String[] array) {
+		final String[] newArray = new String[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private void scanEndTag() throws IOException, XMLParseException {
+		skipWhitespace();
+		final String fullName = scanName();
+		final String expectedName = elementNames[depth - 1];
+		if (!fullName.equals(expectedName)) {
+			throw error("Closing tag does not match opening tag: `" + fullName + "' != `" + expectedName + "'");
+		}
+		skipWhitespace();
+		if (read() != '>') {
+			throw error("Closing tag must be empty");
+		}
+	}
+
+	private int endElement() {
+		depth--;
+		final String fullName = elementNames[depth];
+		prefix = elementPrefixes[depth];
+		name = prefix == null ? fullName : fullName.substring(prefix.length() + 1);
+		namespace = elementNamespaces[depth];
+		namespaceCount = namespaceCounts[depth];
+		emptyElement = false;
+		return END_ELEMENT;
+	}
+
+	private String scanAttributeValue() throws IOException, XMLParseException {
+		final char delimiter = read();
+		if (delimiter != '\'' && delimiter != '"') {
+			throw error("Expected: delimited string");
+		}
+		mark = position;
+		for (;;) {
+			final char ch = read();
+			if (ch == delimiter) {
+				final String value = new String(buffer, mark, position - 1 - mark);
+				mark = -1;
+				return value;
+			}
+			if (ch == '&' || ch == '\t' || ch == '\n') {
+				position--;
+				break;
+			}
+		}
+		textBuilder.setLength(0);
+		textBuilder.append(buffer, mark, position - mark);
+		mark = -1;
+		for (;;) {
+			final char ch = read();
+			if (ch == delimiter) {
+				return textBuilder.toString();
+			}
+			if (ch == '&') {
+				appendEntity(textBuilder);
+			}
+			else if (ch == '\t' || ch == '\n') {
+				textBuilder.append(' ');
+			}
+			else {
+				textBuilder.append(ch);
+			}
+		}
+	}
+
+	/**
+	 * Scans text up to the next tag. Text consisting of white space only is skipped, white space preceding other text
+	 * belongs to the text.
+	 *
+	 * @return true if the text was not skipped
+	 */
+	private boolean scanText() throws IOException, XMLParseException {
+		mark = position;
+		boolean whitespaceOnly = true;
+		boolean plain = true;
+		for (;;) {
+			if (!available()) {
+				throw error("Unexpected EOF");
+			}
+			final char ch = buffer[position];
+			if (ch == '<') {
+				break;
+			}
+			if (ch == '&') {
+				plain = false;
+				break;
+			}
+			if (whitespaceOnly) {
+				if (ch == '\t') {
+					plain = false;
+					break;
+				}
+				whitespaceOnly = ch == ' ' || ch == '\n';
+			}
+			position++;
+		}
+		if (plain) {
+			if (!whitespaceOnly) {
+				text = new String(buffer, mark, position - mark);
+			}
+			mark = -1;
+			return !whitespaceOnly;
+		}
+		textBuilder.setLength(0);
+		textBuilder.append(buffer, mark, position - mark);
+		mark = -1;
+		for (;;) {
+			if (!available()) {
+				throw error("Unexpected EOF");
+			}
+			final char ch = buffer[position];
+			if (ch == '<') {
+				break;
+			}
+			position++;
+			if (ch == '&') {
+				appendEntity(textBuilder);
+				whitespaceOnly = false;
+			}
+			else if (whitespaceOnly && (ch == ' ' || ch == '\t' || ch == '\n')) {
+				textBuilder.append(ch == '\n' ? '\n' : ' ');
+			}
+			else {
+				textBuilder.append(ch);
+				whitespaceOnly = false;
+			}
+		}
+		if (whitespaceOnly) {
+			return false;
+		}
+		text = textBuilder.toString();
+		return true;
+	}
+
+	/** appends the entity following '&' */
+	private void appendEntity(final StringBuilder builder) throws IOException, XMLParseException {
+		mark = position;
+		while (read() != ';') {
+			if (position - mark > 32) {
+				throw error("Invalid entity: `&" + new String(buffer, mark, position - mark) + "'");
+			}
+		}
+		final int start = mark;
+		final int length = position - 1 - mark;
+		mark = -1;
+		if (length > 1 && buffer[start] == '#') {
+			int codePoint;
+			try {
+				if (buffer[start + 1] == 'x') {
+					codePoint = Integer.parseInt(new String(buffer, start + 2, length - 2), 16);
+				}
+				else {
+					codePoint = Integer.parseInt(new String(buffer, start + 1, length - 1), 10);
+				}
+				builder.appendCodePoint(codePoint);
+			}
+			catch (final IllegalArgumentException e) {
+				throw error("Invalid entity: `&" + new String(buffer, start, length) + ";'");
+			}
+			return;
+		}
+		final String entity = new String(buffer, start, length);
+		if (entity.equals("amp")) {
+			builder.append('&');
+		}
+		else if (entity.equals("lt")) {
+			builder.append('<');
+		}
+		else if (entity.equals("gt")) {
+			builder.append('>');
+		}
+		else if (entity.equals("quot")) {
+			builder.append('"');
+		}
+		else if (entity.equals("apos")) {
+			builder.append('\'');
+		}
+		else {
+			throw error("Invalid entity: `&" + entity + ";'");
+		}
+	}
+
+	/**
+	 * Scans the tag following "&lt;!".
+	 *
+	 * @return true if it is a CDATA section, its content is the text
+	 */
+	private boolean scanSpecialTag() throws IOException, XMLParseException {
+		final char ch = read();
+		if (ch == '-') {
+			if (read() != '-') {
+				throw error("Expected: <!--");
+			}
+			skipTo("-->");
+			return false;
+		}
+		if (ch == '[') {
+			for (int i = 0; i < 6; i++) {
+				if (read() != "CDATA[".charAt(i)) {
+					throw error("Expected: <![CDATA[");
+				}
+			}
+			mark = position;
+			skipTo("]]>");
+			text = new String(buffer, mark, position - 3 - mark);
+			mark = -1;
+			return true;
+		}
+		if (ch == 'D') {
+			skipDocType();
+			return false;
+		}
+		throw error("Invalid input: <!" + ch);
+	}
+
+	private void skipProcessingInstruction() throws IOException, XMLParseException {
+		skipTo("?>");
+	}
+
+	private void skipDocType() throws IOException, XMLParseException {
+		int brackets = 0;
+		char quote = 0;
+		for (;;) {
+			final char ch = read();
+			if (quote != 0) {
+				if (ch == quote) {
+					quote = 0;
+				}
+			}
+			else if (ch == '"' || ch == '\'') {
+				quote = ch;
+			}
+			else if (ch == '[') {
+				brackets++;
+			}
+			else if (ch == ']') {
+				brackets--;
+			}
+			else if (ch == '>' && brackets == 0) {
+				return;
+			}
+		}
+	}
+
+	/** skips the characters up to and including the given end */
+	private void skipTo(final String end) throws IOException, XMLParseException {
+		final char last = end.charAt(end.length() - 1);
+		final int keptMark = mark;
+		if (keptMark < 0) {
+			mark = position;
+		}
+		for (;;) {
+			if (read() == last && position - mark >= end.length() && endsWith(end)) {
+				break;
+			}
+		}
+		if (keptMark < 0) {
+			mark = -1;
+		}
+	}
+
+	private boolean endsWith(final String end) {
+		final int start = position - end.length();
+		for (int i = 0; i < end.length(); i++) {
+			if (buffer[start + i] != end.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Skips a start tag in unparsed element content, attribute values may contain '&gt;'.
+	 *
+	 * @return true if it is an empty element tag
+	 */
+	private boolean skipStartTag() throws IOException, XMLParseException {
+		char quote = 0;
+		char previous = 0;
+		for (;;) {
+			final char ch = read();
+			if (quote != 0) {
+				if (ch == quote) {
+					quote = 0;
+				}
+			}
+			else if (ch == '"' || ch == '\'') {
+				quote = ch;
+			}
+			else if (ch == '>') {
+				return previous == '/';
+			}
+			previous = ch;
+		}
+	}
+}
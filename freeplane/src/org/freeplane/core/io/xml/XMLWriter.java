@@ -45,6 +45,12 @@ class XMLWriter {
 	    writer.flush();
     }
 
+	/**
+	 * Creates an XML writer for subclasses writing another format, they override all write methods.
+	 */
+	protected XMLWriter() {
+	}
+
 	/**
 	 * Creates a new XML writer.
 	 * 
@@ -0,0 +1,341 @@
+package org.freeplane.core.util;
+
+/**
+ * Converts html to plain text without regular expressions, see {@link HtmlUtils#htmlToPlain(String, boolean, boolean)}.
+ * <p>
+ * The result is identical to the one of the former sequence of pattern replacements. Those replacements were applied
+ * one after another, so that the replacement of a tag may depend on how earlier replacements changed its neighbours:
+ * <ul>
+ * <li>&lt;p&gt;, &lt;div&gt; and &lt;tr&gt; are replaced by a new line only if they are followed by white space,
+ * the following &lt;br&gt; tags and tags replaced by earlier passes count as white space.</li>
+ * <li>closing tags remove the preceding spaces, including those inserted for &lt;td&gt;, &lt;dd&gt; and &lt;li&gt;.</li>
+ * <li>other tags remove the following spaces.</li>
+ * </ul>
+ * Markup with a '&lt;' inside of a tag, an empty tag or an unclosed tag is not converted,
+ * {@link #convert(String, boolean)} returns null for it.
+ */
+final class HtmlToPlainConverter {
+	// tag types, white space and line break tags are replaced in this order
+	private static final int BR = 0;
+	private static final int P = 1;
+	private static final int DIV = 2;
+	private static final int TR = 3;
+	private static final int DT = 4;
+	private static final int DD = 5;
+	private static final int TD = 6;
+	private static final int LIST = 7;
+	private static final int LI = 8;
+	private static final int CLOSING = 9;
+	private static final int OTHER = 10;
+
+	/** @return the plain text or null if the markup is not supported */
+	static String convert(final String text, final boolean removeNewLines) {
+		final String normalized = normalizeWhiteSpace(text, removeNewLines);
+		if (normalized == null) {
+			return null;
+		}
+		final String plain = new HtmlToPlainConverter(normalized).removeTags().trim();
+		return replaceEntities(HtmlUtils.unescapeHTMLUnicodeEntity(plain));
+	}
+
+	/**
+	 * removes line breaks and tabs after '&gt;' and optionally collapses white space.
+	 * @return null unless all tags are closed
+	 */
+	private static String normalizeWhiteSpace(final String text, final boolean removeNewLines) {
+		final int length = text.length();
+		final StringBuilder result = new StringBuilder(length);
+		int tagStart = -1;
+		int i = 0;
+		while (i < length) {
+			final char c = text.charAt(i);
+			if (c == '>') {
+				if (tagStart != -1) {
+					if (tagStart == result.length() - 1) {
+						return null;
+					}
+					tagStart = -1;
+				}
+				result.append(c);
+				i++;
+				while (i < length && (text.charAt(i) == '\n' || text.charAt(i) == '\t')) {
+					i++;
+				}
+			}
+			else if (removeNewLines && (c == '\n' || c == '\t' || c == ' ')) {
+				result.append(' ');
+				i++;
+				while (i < length && (text.charAt(i) == '\n' || text.charAt(i) == '\t' || text.charAt(i) == ' ')) {
+					i++;
+				}
+			}
+			else {
+				if (c == '<') {
+					if (tagStart != -1) {
+						return null;
+					}
+					tagStart = result.length();
+				}
+				result.append(c);
+				i++;
+			}
+		}
+		if (tagStart != -1) {
+			return null;
+		}
+		return result.toString();
+	}
+
+	private static String replaceEntities(final String text) {
+		final int length = text.length();
+		final StringBuilder result = new StringBuilder(length);
+		// spaces replacing non breaking space characters are kept before line breaks
+		int keptSpacesEnd = 0;
+		int i = 0;
+		while (i < length) {
+			final char c = text.charAt(i);
+			if (c == '&') {
+				if (regionMatches(text, i + 1, "lt;")) {
+					result.append('<');
+					i += 4;
+				}
+				else if (regionMatches(text, i + 1, "gt;")) {
+					result.append('>');
+					i += 4;
+				}
+				else if (regionMatches(text, i + 1, "quot;")) {
+					result.append('"');
+					i += 6;
+				}
+				else if (regionMatches(text, i + 1, "nbsp;")) {
+					result.append(' ');
+					i += 6;
+				}
+				else if (regionMatches(text, i + 1, "amp;")) {
+					result.append('&');
+					i += 5;
+				}
+				else {
+					result.append(c);
+					i++;
+				}
+				continue;
+			}
+			if (c == '\n') {
+				int end = result.length();
+				while (end > keptSpacesEnd && (result.charAt(end - 1) == ' ' || result.charAt(end - 1) == '\t')) {
+					end--;
+				}
+				result.setLength(end);
+				result.append(c);
+			}
+			else if (c == '\u00a0') {
+				result.append(' ');
+				keptSpacesEnd = result.length();
+			}
+			else {
+				result.append(c);
+			}
+			i++;
+		}
+		return result.toString();
+	}
+
+	/** compares ignoring the case of ascii letters like the former case insensitive patterns */
+	private static boolean regionMatches(final String text, final int start, final String lowerCase) {
+		if (start + lowerCase.length() > text.length()) {
+			return false;
+		}
+		for (int i = 0; i < lowerCase.length(); i++) {
+			char c = text.charAt(start + i);
+			if (c >= 'A' && c <= 'Z') {
+				c = (char) (c + ('a' - 'A'));
+			}
+			if (c != lowerCase.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isWhiteSpace(final char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r';
+	}
+
+	private final String text;
+	private final StringBuilder result;
+	// end of the result when the last removed tag other than a closing tag was found
+	private int tagEnd = 0;
+	private boolean skipSpaces = false;
+
+	private HtmlToPlainConverter(final String text) {
+		this.text = text;
+		result = new StringBuilder(text.length());
+	}
+
+	private String removeTags() {
+		final int length = text.length();
+		int i = 0;
+		while (i < length) {
+			final char c = text.charAt(i);
+			if (c != '<') {
+				append(c);
+				i++;
+				continue;
+			}
+			final int end = text.indexOf('>', i) + 1;
+			final int type = getTagType(i);
+			switch (type) {
+				case BR:
+				case DT:
+				case LIST:
+					append("\n");
+					i = end;
+					break;
+				case DD:
+					append("\n   ");
+					i = end;
+					break;
+				case TD:
+					append(" ");
+					i = end;
+					break;
+				case LI:
+					append("\n   * ");
+					i = end;
+					break;
+				case CLOSING:
+					int spacesStart = result.length();
+					while (spacesStart > tagEnd && result.charAt(spacesStart - 1) == ' ') {
+						spacesStart--;
+					}
+					result.setLength(spacesStart);
+					i = end;
+					break;
+				case P:
+				case DIV:
+				case TR:
+					if (isFollowedByWhiteSpace(type, end)) {
+						append("\n");
+						i = skipWhiteSpace(type, end);
+					}
+					else {
+						i = removeTag(end);
+					}
+					break;
+				default:
+					i = removeTag(end);
+			}
+		}
+		return result.toString();
+	}
+
+	/** @return the position after the removed tag */
+	private int removeTag(final int end) {
+		tagEnd = result.length();
+		skipSpaces = true;
+		return end;
+	}
+
+	private void append(final char c) {
+		if (skipSpaces) {
+			if (c == ' ') {
+				return;
+			}
+			skipSpaces = false;
+		}
+		result.append(c);
+	}
+
+	private void append(final String replacement) {
+		for (int i = 0; i < replacement.length(); i++) {
+			append(replacement.charAt(i));
+		}
+	}
+
+	/**
+	 * @param type the type of a tag whose replacement swallows white space
+	 * @return true if <code>position</code> is followed by white space when the tags of <code>type</code> are replaced
+	 */
+	private boolean isFollowedByWhiteSpace(final int type, final int position) {
+		if (position >= text.length()) {
+			return false;
+		}
+		final char c = text.charAt(position);
+		if (c != '<') {
+			return isWhiteSpace(c);
+		}
+		return isWhiteSpaceTag(type, position);
+	}
+
+	/** @return true if the tag at <code>position</code> is replaced by white space before the tags of <code>type</code> */
+	private boolean isWhiteSpaceTag(final int type, final int position) {
+		final int tagType = getTagType(position);
+		if (tagType == BR) {
+			return true;
+		}
+		if ((tagType == P || tagType == DIV) && tagType < type) {
+			return isFollowedByWhiteSpace(tagType, text.indexOf('>', position) + 1);
+		}
+		return false;
+	}
+
+	/** @return the position after the white space swallowed by the replacement of a tag of <code>type</code> */
+	private int skipWhiteSpace(final int type, int position) {
+		while (position < text.length()) {
+			final char c = text.charAt(position);
+			if (c == '<') {
+				if (!isWhiteSpaceTag(type, position)) {
+					break;
+				}
+				position = text.indexOf('>', position) + 1;
+			}
+			else if (isWhiteSpace(c)) {
+				position++;
+			}
+			else {
+				break;
+			}
+		}
+		return position;
+	}
+
+	private int getTagType(final int position) {
+		final int start = position + 1;
+		switch (text.charAt(start)) {
+			case '/':
+				return CLOSING;
+			case 'b':
+			case 'B':
+				return regionMatches(text, start, "br") ? BR : OTHER;
+			case 'p':
+			case 'P':
+				return P;
+			case 'd':
+			case 'D':
+				if (regionMatches(text, start, "div")) {
+					return DIV;
+				}
+				if (regionMatches(text, start, "dt")) {
+					return DT;
+				}
+				return regionMatches(text, start, "dd") ? DD : OTHER;
+			case 't':
+			case 'T':
+				if (regionMatches(text, start, "tr")) {
+					return TR;
+				}
+				return regionMatches(text, start, "td") ? TD : OTHER;
+			case 'u':
+			case 'U':
+			case 'o':
+			case 'O':
+				return regionMatches(text, start + 1, "l") ? LIST : OTHER;
+			case 'l':
+			case 'L':
+				return regionMatches(text, start, "li") ? LI : OTHER;
+			default:
+				return OTHER;
+		}
+	}
+}
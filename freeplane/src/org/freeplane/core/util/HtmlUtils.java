@@ -113,6 +113,15 @@ public class HtmlUtils {
 		if (strictHTMLOnly && !HtmlUtils.isHtmlNode(text)) {
 			return text;
 		}
+		final String plainText = HtmlToPlainConverter.convert(text, removeNewLines);
+		if (plainText != null) {
+			return plainText;
+		}
+		return htmlToPlainByPatterns(text, removeNewLines);
+	}
+
+	/** used for markup with unclosed tags which {@link HtmlToPlainConverter} does not support. */
+	private static String htmlToPlainByPatterns(final String text, final boolean removeNewLines) {
 		if (PATTERNS == null) {
 			PATTERNS = new Pattern[] { 
 					Pattern.compile("(?ims)>[\n\t]+"), 
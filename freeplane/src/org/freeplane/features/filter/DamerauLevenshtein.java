@@ -30,6 +30,13 @@ import java.util.Arrays;
  * Optionally the edit distance of a semi-global alignment is computed which
  * allows the search term to be shifted free-of-cost (i.e. dist("file", "a file is")==0).
  * 
+ * Matching a node is allocation free: the matrix and the tables are kept per thread and reused
+ * (up to a size, larger ones needed for long texts are released again),
+ * the "last row" table is indexed by the (few) distinct characters of the search term instead of the
+ * whole alphabet, and the computation stops as soon as the distance exceeds the one accepted by
+ * {@link #matches(String, String, boolean, boolean)}. Search terms of up to 64 characters are first
+ * checked with Myers' bit-parallel Levenshtein algorithm which decides most texts without the matrix. 
+ * 
  * Some properties are explained in the unit test, {@link org.freeplane.features.filter.EditDistanceStringMatchingStrategiesTest}.
  * 
  * TODO: use unicode code points instead of chars !!
@@ -39,118 +46,279 @@ import java.util.Arrays;
  */
 public class DamerauLevenshtein implements EditDistanceStringMatchingStrategy {
 	
+	private static final int MAX_BIT_PARALLEL_TERM_LENGTH = 64;
+	// 256 KB per thread for the matrix, enough for a search term of 20 characters and a text of 2900 characters
+	private static final int MAX_CACHED_BUFFER_SIZE = 1 << 16;
+
+	/** buffers reused by all computations of one thread, they grow as needed and are trimmed by
+	 * {@link #release()} after each computation. */
+	private static class Workspace {
+		private int[] matrix = new int[0];
+		private int[] termCharIndices = new int[0];
+		private int[] textCharIndices = new int[0];
+		private int[] lastRows = new int[0];
+		private long[] positionMasks = new long[0];
+		// open addressing hash table: distinct characters of the search term -> their index
+		private char[] tableKeys = new char[0];
+		private int[] tableValues = new int[0];
+		private int tableMask;
+
+		/** assigns an index to every distinct character of the search term and maps both strings to these
+		 * indices, characters not contained in the search term are mapped to -1.
+		 * @return the number of distinct characters of the search term */
+		int indexCharacters(final String searchTerm, final String searchText) {
+			final int m = searchTerm.length();
+			int tableSize = 2;
+			while (tableSize < 2 * m)
+				tableSize <<= 1;
+			if (tableKeys.length < tableSize) {
+				tableKeys = new char[tableSize];
+				tableValues = new int[tableSize];
+			}
+			tableMask = tableSize - 1;
+			Arrays.fill(tableValues, 0, tableSize, -1);
+			if (termCharIndices.length < m)
+				termCharIndices = new int[m];
+			int count = 0;
+			for (int i = 0; i < m; i++) {
+				final char c = searchTerm.charAt(i);
+				int slot = slot(c);
+				while (tableValues[slot] != -1 && tableKeys[slot] != c)
+					slot = (slot + 1) & tableMask;
+				if (tableValues[slot] == -1) {
+					tableKeys[slot] = c;
+					tableValues[slot] = count++;
+				}
+				termCharIndices[i] = tableValues[slot];
+			}
+			final int n = searchText.length();
+			if (textCharIndices.length < n)
+				textCharIndices = new int[Math.max(n, 2 * textCharIndices.length)];
+			for (int j = 0; j < n; j++) {
+				textCharIndices[j] = indexOf(searchText.charAt(j));
+			}
+			return count;
+		}
+
+		private int slot(final char c) {
+			return (c ^ (c >>> 7)) & tableMask;
+		}
+
+		private int indexOf(final char c) {
+			int slot = slot(c);
+			while (tableValues[slot] != -1) {
+				if (tableKeys[slot] == c)
+					return tableValues[slot];
+				slot = (slot + 1) & tableMask;
+			}
+			return -1;
+		}
+
+		int[] matrix(final int size) {
+			if (matrix.length < size)
+				matrix = new int[Math.max(size, 2 * matrix.length)];
+			return matrix;
+		}
+
+		int[] lastRows(final int size) {
+			if (lastRows.length < size)
+				lastRows = new int[size];
+			Arrays.fill(lastRows, 0, size, 0);
+			return lastRows;
+		}
+
+		long[] positionMasks(final int size) {
+			if (positionMasks.length < size)
+				positionMasks = new long[size];
+			Arrays.fill(positionMasks, 0, size, 0L);
+			return positionMasks;
+		}
+
+		/** drops the buffers grown too large for keeping them for the lifetime of the thread. */
+		void release() {
+			if (matrix.length > MAX_CACHED_BUFFER_SIZE)
+				matrix = new int[0];
+			if (textCharIndices.length > MAX_CACHED_BUFFER_SIZE)
+				textCharIndices = new int[0];
+			if (termCharIndices.length > MAX_CACHED_BUFFER_SIZE)
+				termCharIndices = new int[0];
+			if (lastRows.length > MAX_CACHED_BUFFER_SIZE)
+				lastRows = new int[0];
+			if (positionMasks.length > MAX_CACHED_BUFFER_SIZE)
+				positionMasks = new long[0];
+			if (tableKeys.length > MAX_CACHED_BUFFER_SIZE) {
+				tableKeys = new char[0];
+				tableValues = new int[0];
+			}
+		}
+	}
+
+	private static final ThreadLocal<Workspace> workspace = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return new Workspace();
+		}
+	};
+
 	private String searchTerm;
 	private String searchText;
 	private Type type;
-	private int alphabetLength;
 
 	public int distance()
 	{
-		final int INFINITY = searchTerm.length() + searchText.length();
-		int[][] H = new int[searchTerm.length()+2][searchText.length()+2];  
-		H[0][0] = INFINITY;
-		for(int i = 0; i<=searchTerm.length(); i++) {
-			H[i+1][1] = i;
-			H[i+1][0] = INFINITY;
-		}
-		for(int j = 0; j<=searchText.length(); j++) {
-			H[1][j+1] = (type == Type.Global) ? j : 0;
-			H[0][j+1] = INFINITY;
-		}      
-		int[] DA = new int[alphabetLength];
-		Arrays.fill(DA, 0);
-		for(int i = 1; i<=searchTerm.length(); i++) {
+		return distance(Integer.MAX_VALUE);
+	}
+
+	/** @return the exact distance if it does not exceed <code>maxDistance</code>, otherwise any value
+	 * greater than <code>maxDistance</code>. */
+	int distance(final int maxDistance)
+	{
+		final Workspace workspace = DamerauLevenshtein.workspace.get();
+		try {
+			final int alphabetSize = workspace.indexCharacters(searchTerm, searchText);
+			return distance(workspace, alphabetSize, maxDistance);
+		}
+		finally {
+			workspace.release();
+		}
+	}
+
+	private int distance(final Workspace workspace, final int alphabetSize, final int maxDistance)
+	{
+		final int m = searchTerm.length();
+		final int n = searchText.length();
+		final int[] termChars = workspace.termCharIndices;
+		final int[] textChars = workspace.textCharIndices;
+		final int INFINITY = m + n;
+		// H[i][j] is stored at H[i * width + j]
+		final int width = n + 2;
+		final int[] H = workspace.matrix((m + 2) * width);
+		H[0] = INFINITY;
+		for(int i = 0; i<=m; i++) {
+			H[(i+1)*width + 1] = i;
+			H[(i+1)*width] = INFINITY;
+		}
+		for(int j = 0; j<=n; j++) {
+			H[width + j+1] = (type == Type.Global) ? j : 0;
+			H[j+1] = INFINITY;
+		}
+		// the last row in which each character of the search term occurred
+		final int[] DA = workspace.lastRows(alphabetSize);
+		for(int i = 1; i<=m; i++) {
+			final int termChar = termChars[i-1];
+			final int previousRow = i * width;
+			final int row = previousRow + width;
+			int rowMin = H[row + 1];
 			int DB = 0;
-			for(int j = 1; j<=searchText.length(); j++) {
-				int i1 = DA[searchText.charAt(j-1)];
-				int j1 = DB;
-				int d = ((searchTerm.charAt(i-1)==searchText.charAt(j-1))?0:1);
+			for(int j = 1; j<=n; j++) {
+				final int textChar = textChars[j-1];
+				final int i1 = textChar == -1 ? 0 : DA[textChar];
+				final int j1 = DB;
+				final int d = (termChar == textChar) ? 0 : 1;
 				if(d==0) DB = j;
-				H[i+1][j+1] =
-						min(H[i][j]+d,
-								H[i+1][j] + 1,
-								H[i][j+1]+1, 
-								H[i1][j1] + (i-i1-1) + 1 + (j-j1-1));
+				int h = H[previousRow + j] + d;
+				h = Math.min(h, H[row + j] + 1);
+				h = Math.min(h, H[previousRow + j+1] + 1);
+				h = Math.min(h, H[i1*width + j1] + (i-i1-1) + 1 + (j-j1-1));
+				H[row + j+1] = h;
+				rowMin = Math.min(rowMin, h);
 			}
-			DA[searchTerm.charAt(i-1)] = i;
+			DA[termChar] = i;
+			// the row minimum never decreases, so the distance can not get small enough any more
+			if (rowMin > maxDistance)
+				return rowMin;
 		}
-		//writeMatrix(H);
+		final int lastRow = (m + 1) * width;
 		if (type == Type.Global)
 		{
-			return H[searchTerm.length()+1][searchText.length()+1];
+			return H[lastRow + n + 1];
 		}
 		else
 		{
 			int min = Integer.MAX_VALUE;
-			for (int j = 1; j <= searchText.length() + 1; j++)
+			for (int j = 1; j <= n + 1; j++)
 			{
-				min = Math.min(min, H[searchTerm.length()+1][j]);
+				min = Math.min(min, H[lastRow + j]);
 			}
 			return min;
 		}
 	}
-	
-	private void writeMatrix(int[][] H)
+
+	/** Myers' bit-parallel algorithm in Hyyrö's formulation: the Levenshtein distance (without transpositions)
+	 * for search terms of 1 to 64 characters. Each column of the matrix is encoded by its vertical deltas. */
+	private int bitParallelLevenshteinDistance(final Workspace workspace, final int alphabetSize)
 	{
-		for (int i = 0; i < H.length; i++)
-		{
-			for (int j = 0; j < H[0].length; j++)
-			{
-				System.out.format(" %3d", H[i][j]);
-			}
-			System.out.println();
+		final int m = searchTerm.length();
+		final int n = searchText.length();
+		final int[] termChars = workspace.termCharIndices;
+		final int[] textChars = workspace.textCharIndices;
+		final long[] peq = workspace.positionMasks(alphabetSize);
+		for (int i = 0; i < m; i++) {
+			peq[termChars[i]] |= 1L << i;
 		}
-	}
-	
-	private static int min(int ... nums) 
-	{
-		int min = Integer.MAX_VALUE;
-		for (int num : nums) {
-			min = Math.min(min, num);
+		final long lastBit = 1L << (m - 1);
+		final boolean global = type == Type.Global;
+		long pv = -1L;
+		long mv = 0L;
+		int score = m;
+		int min = m;
+		for (int j = 0; j < n; j++) {
+			final int textChar = textChars[j];
+			final long eq = textChar == -1 ? 0L : peq[textChar];
+			final long xv = eq | mv;
+			final long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			if ((ph & lastBit) != 0)
+				score++;
+			else if ((mh & lastBit) != 0)
+				score--;
+			// the first row is 0, 1, 2... for global alignments and constantly 0 for semi-global ones 
+			ph = global ? (ph << 1) | 1L : ph << 1;
+			mh <<= 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+			min = Math.min(min, score);
 		}
-		return min;
+		return global ? score : min;
 	}
 
-	public float matchProb()
+	private int matchProbDenominator()
 	{
 		if (type == Type.SemiGlobal)
 		{
-			return 1.0F - ((float)distance() / searchTerm.length());
+			return searchTerm.length();
 		}
 		else
 		{
-			return 1.0F - ((float)distance() / Math.min(searchTerm.length(), searchText.length()));
+			return Math.min(searchTerm.length(), searchText.length());
 		}
 	}
-	
-	/*
-	public DamerauLevenshtein(final String searchTerm, final String searchText,
-			final Type type, final boolean caseSensitive) 
+
+	public float matchProb()
 	{
-		if (caseSensitive)
-		{
-			this.searchTerm = searchTerm;
-			this.searchText = searchText;
-		}
-		else
-		{
-			this.searchTerm = searchTerm.toLowerCase();
-			this.searchText= searchText.toLowerCase();
-		}
-		this.type = type;
-		int maxCodePoint = 0;
-		for (int i = 0; i < searchTerm.length(); i++)
-		{
-			maxCodePoint = Math.max(maxCodePoint, searchTerm.charAt(i));
-		}
-		for (int i = 0; i < searchText.length(); i++)
-		{
-			maxCodePoint = Math.max(maxCodePoint, searchText.charAt(i));
-		}
-		alphabetLength = maxCodePoint + 1;
+		return matchProb(distance());
 	}
-	*/
-	
+
+	private float matchProb(final int distance)
+	{
+		return 1.0F - ((float)distance / matchProbDenominator());
+	}
+
+	/** the greatest distance d with matchProb(d) > minProbability, or -1 if there is none. */
+	private int maxDistance(final double minProbability)
+	{
+		final int greatestDistance = searchTerm.length() + searchText.length();
+		int maxDistance = (int) Math.ceil((1.0 - minProbability) * matchProbDenominator());
+		maxDistance = Math.min(maxDistance, greatestDistance);
+		// compensate rounding so that the result agrees with matchProb()
+		while (maxDistance >= 0 && !(matchProb(maxDistance) > minProbability))
+			maxDistance--;
+		while (maxDistance < greatestDistance && matchProb(maxDistance + 1) > minProbability)
+			maxDistance++;
+		return maxDistance;
+	}
+
 	public DamerauLevenshtein() {
 		
 	}
@@ -174,16 +342,6 @@ public class DamerauLevenshtein implements EditDistanceStringMatchingStrategy {
 			this.searchText= searchText.toLowerCase();
 		}
 		this.type = subStringMatch ? Type.SemiGlobal : Type.Global;
-		int maxCodePoint = 0;
-		for (int i = 0; i < this.searchTerm.length(); i++)
-		{
-			maxCodePoint = Math.max(maxCodePoint, this.searchTerm.charAt(i));
-		}
-		for (int i = 0; i < this.searchText.length(); i++)
-		{
-			maxCodePoint = Math.max(maxCodePoint, this.searchText.charAt(i));
-		}
-		alphabetLength = maxCodePoint + 1;
 	}
 	
 	public boolean matches(final String searchTerm, final String searchText, final boolean subStringMatch,
@@ -191,7 +349,44 @@ public class DamerauLevenshtein implements EditDistanceStringMatchingStrategy {
 	{
 		//LogUtils.severe(String.format("DL(%s,%s)\n", searchTerm, searchText));
 		init(searchTerm, searchText, subStringMatch, caseSensitive);
-		
-		return matchProb() > StringMatchingStrategy.APPROXIMATE_MATCHING_MINPROB; 
+		return matches(StringMatchingStrategy.APPROXIMATE_MATCHING_MINPROB);
+	}
+
+	/** same as <code>matchProb() > minProbability</code>. */
+	boolean matches(final double minProbability)
+	{
+		if (matchProbDenominator() == 0)
+		{
+			// matchProb() is NaN or negative infinity
+			return false;
+		}
+		final int maxDistance = maxDistance(minProbability);
+		if (maxDistance < 0)
+		{
+			return false;
+		}
+		final Workspace workspace = DamerauLevenshtein.workspace.get();
+		try
+		{
+			final int alphabetSize = workspace.indexCharacters(searchTerm, searchText);
+			if (searchTerm.length() <= MAX_BIT_PARALLEL_TERM_LENGTH)
+			{
+				// distance <= levenshteinDistance <= 2 * distance since a transposition replaces two other edits
+				final int levenshteinDistance = bitParallelLevenshteinDistance(workspace, alphabetSize);
+				if (levenshteinDistance <= maxDistance)
+				{
+					return true;
+				}
+				if (levenshteinDistance > 2 * maxDistance)
+				{
+					return false;
+				}
+			}
+			return distance(workspace, alphabetSize, maxDistance) <= maxDistance;
+		}
+		finally
+		{
+			workspace.release();
+		}
 	}
 }
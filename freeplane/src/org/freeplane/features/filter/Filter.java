@@ -24,6 +24,7 @@ import javax.swing.Icon;
 import javax.swing.ImageIcon;
 
 import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.filter.condition.ASelectableCondition;
 import org.freeplane.features.filter.condition.ICondition;
 import org.freeplane.features.map.IMapSelection;
 import org.freeplane.features.map.MapChangeEvent;
@@ -40,6 +41,7 @@ public class Filter {
 	}
 
 	final private boolean appliesToVisibleNodesOnly;
+	final private boolean cachesCheckResults;
 	final private ICondition condition;
 	final private int options;
 
@@ -57,6 +59,8 @@ public class Filter {
 		}
 		this.options = options;
 		appliesToVisibleNodesOnly = condition != null && applyToVisibleNodesOnly;
+		cachesCheckResults = !appliesToVisibleNodesOnly && condition instanceof ASelectableCondition
+		        && ((ASelectableCondition) condition).isResultCacheable();
 	}
 
 	void addFilterResult(final NodeModel node, final int flag) {
@@ -163,7 +167,26 @@ public class Filter {
 		if (appliesToVisibleNodesOnly && !node.isVisible()) {
 			return false;
 		}
-		return condition.checkNode(node);
+		if (!cachesCheckResults) {
+			return condition.checkNode(node);
+		}
+		// reapplying the filter only checks nodes changed since the last check
+		final FilterInfo filterInfo = node.getFilterInfo();
+		final long stamp = getCheckStamp(node);
+		if (filterInfo.hasCheckResult(condition, stamp)) {
+			return filterInfo.getCheckResult();
+		}
+		final boolean result = condition.checkNode(node);
+		filterInfo.setCheckResult(condition, stamp, result);
+		return result;
+	}
+
+	/** stamps only grow, so their sum changes whenever the node or its parent changes.
+	 * Moving nodes changes the parent and the level, so all results are invalidated by structure changes. */
+	private long getCheckStamp(final NodeModel node) {
+		final NodeModel parent = node.getParentNode();
+		final int nodeStamp = node.getModificationStamp() + (parent == null ? 0 : parent.getModificationStamp());
+		return (long) node.getMap().getStructureModificationStamp() << 32 | nodeStamp & 0xffffffffL;
 	}
 
 	private boolean filterChildren(final NodeModel node,
@@ -19,6 +19,8 @@
  */
 package org.freeplane.features.filter;
 
+import org.freeplane.features.filter.condition.ICondition;
+
 /**
  * @author Dimitry Polivaev
  */
@@ -30,6 +32,9 @@ public class FilterInfo {
 	public static final int FILTER_SHOW_HIDDEN = 32;
 	public static final int FILTER_SHOW_MATCHED = 2;
 	private int info = FilterInfo.FILTER_INITIAL_VALUE;
+	private ICondition checkedCondition = null;
+	private long checkStamp;
+	private boolean checkResult;
 
 	/**
 	 *
@@ -49,6 +54,20 @@ public class FilterInfo {
 		return info;
 	}
 
+	boolean hasCheckResult(final ICondition condition, final long stamp) {
+		return checkedCondition == condition && checkStamp == stamp;
+	}
+
+	boolean getCheckResult() {
+		return checkResult;
+	}
+
+	void setCheckResult(final ICondition condition, final long stamp, final boolean result) {
+		checkedCondition = condition;
+		checkStamp = stamp;
+		checkResult = result;
+	}
+
 	/**
 	 */
 	public boolean isAncestor() {
@@ -98,6 +98,20 @@ public abstract class ASelectableCondition  implements ICondition{
 
 	abstract protected String getName();
 
+	/** true if {@link #checkNode} only depends on the node, its parent and the map structure.
+	 * {@link org.freeplane.features.filter.Filter} reuses such results until the node changes.
+	 * Conditions depending on time, selection or other nodes must return false. */
+	public boolean isResultCacheable() {
+		if (this instanceof ICombinedCondition) {
+			for (final ASelectableCondition condition : ((ICombinedCondition) this).split()) {
+				if (!condition.isResultCacheable()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
 
 	public void setUserName(String userName) {
 		if(userName == this.userName || userName != null && userName.equals(this.userName))
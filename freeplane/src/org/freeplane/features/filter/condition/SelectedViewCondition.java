@@ -45,6 +45,12 @@ public class SelectedViewCondition extends ASelectableCondition {
 		return selection != null && selection.isSelected(node);
 	}
 
+	@Override
+	public boolean isResultCacheable() {
+		// the selection changes without changing the node
+		return false;
+	}
+
 	@Override
     protected String createDescription() {
 		if (SelectedViewCondition.description == null) {
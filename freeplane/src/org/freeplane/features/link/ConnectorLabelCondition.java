@@ -104,6 +104,12 @@ public abstract class ConnectorLabelCondition extends ASelectableCondition {
 		return false;
 	}
 
+	@Override
+	public boolean isResultCacheable() {
+		// incoming connectors belong to their source nodes which change without changing this node
+		return false;
+	}
+
 	abstract protected String createDescription();
 
 	protected abstract String getName();
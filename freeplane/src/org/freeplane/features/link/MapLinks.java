@@ -19,9 +19,11 @@
  */
 package org.freeplane.features.link;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.freeplane.core.extension.IExtension;
@@ -49,6 +51,15 @@ public class MapLinks implements IExtension {
 		return true;
 	}
 
+	/** @return all links of the map */
+	public List<LinkModel> getAllLinks() {
+		final ArrayList<LinkModel> allLinks = new ArrayList<LinkModel>();
+		for (final Set<LinkModel> set : links.values()) {
+			allLinks.addAll(set);
+		}
+		return allLinks;
+	}
+
 	public boolean containsTarget(final String targetID) {
 		return links.containsKey(targetID);
 	}
@@ -52,21 +52,28 @@ public class MapModel {
 	final private IconRegistry iconRegistry;
 	final private List<IMapChangeListener> listeners;
 	final private Map<String, NodeModel> nodes;
+	/** folded nodes by the ids of the nodes in their unloaded subtrees, see {@link UnloadedChildren} */
+	final private Map<String, NodeModel> unloadedNodes;
 	private boolean readOnly = false;
 	private NodeModel root;
 	private URL url;
+	private int structureModificationStamp = 0;
 
 	public MapModel() {
 		extensionContainer = new ExtensionContainer(new HashMap<Class<? extends IExtension>, IExtension>());
 		this.root = null;
 		listeners = new LinkedList<IMapChangeListener>();
 		nodes = new HashMap<String, NodeModel>();
-		final FilterController filterController = FilterController.getCurrentFilterController();
+		unloadedNodes = new HashMap<String, NodeModel>();
+		// maps are also created without controller, e.g. by unit tests
+		final Controller controller = Controller.getCurrentController();
+		final FilterController filterController = controller != null ? FilterController.getController(controller) : null;
 		if (filterController != null) {
 			filter = filterController.createTransparentFilter();
 		}
-		final ModeController modeController = Controller.getCurrentModeController();
-		iconRegistry = new IconRegistry(modeController.getMapController(), this);
+		final ModeController modeController = controller != null ? controller.getModeController() : null;
+		// the map has no root node yet, so the map controller is not used to register its icons
+		iconRegistry = new IconRegistry(modeController != null ? modeController.getMapController() : null, this);
 	}
 
 	public void createNewRoot() {
@@ -107,7 +114,7 @@ public class MapModel {
 	}
 
 	public String generateNodeID(final String proposedID) {
-		if (proposedID != null && !"".equals(proposedID) && getNodeForID(proposedID) == null) {
+		if (proposedID != null && !"".equals(proposedID) && !isRegistered(proposedID)) {
 			return proposedID;
 		}
 		String returnValue;
@@ -118,10 +125,14 @@ public class MapModel {
 			 * XML/DTD.
 			 */
 			returnValue = prefix + Integer.toString(ran.nextInt(UNDEFINED_NODE_ID));
-		} while (nodes.containsKey(returnValue));
+		} while (nodes.containsKey(returnValue) || unloadedNodes.containsKey(returnValue));
 		return returnValue;
 	}
 
+	private boolean isRegistered(final String nodeID) {
+		return nodes.get(nodeID) != null || unloadedNodes.containsKey(nodeID);
+	}
+
 	public <T extends IExtension> T getExtension(final Class<T> clazz) {
 		return extensionContainer.getExtension(clazz);
 	}
@@ -156,13 +167,39 @@ public class MapModel {
 	 */
 	public NodeModel getNodeForID(final String nodeID) {
 		final NodeModel node = nodes.get(nodeID);
+		if (node == null) {
+			final NodeModel foldedNode = unloadedNodes.get(nodeID);
+			if (foldedNode != null) {
+				// reads the subtree containing the node, the node may be in a folded subtree of it again
+				foldedNode.getChildren();
+				if (unloadedNodes.get(nodeID) != foldedNode) {
+					return getNodeForID(nodeID);
+				}
+			}
+		}
 		return node;
 	}
 
+	/**
+	 * @return the node with the id if it is loaded, unlike {@link #getNodeForID(String)} no unloaded subtree is read
+	 */
+	public NodeModel getLoadedNodeForID(final String nodeID) {
+		return nodes.get(nodeID);
+	}
+
 	public int getNumberOfChangesSinceLastSave() {
 		return changesPerformedSinceLastSave;
 	}
 
+	/** incremented whenever a node of the map is inserted or removed. */
+	public int getStructureModificationStamp() {
+		return structureModificationStamp;
+	}
+
+	void structureChanged() {
+		structureModificationStamp++;
+	}
+
 	public NodeModel getRootNode() {
 		return root;
 	}
@@ -210,6 +247,14 @@ public class MapModel {
 		}
 	}
 
+	void registryUnloadedID(final String id, final NodeModel foldedNode) {
+		unloadedNodes.put(id, foldedNode);
+	}
+
+	void unregistryUnloadedID(final String id) {
+		unloadedNodes.remove(id);
+	}
+
 	/**
 	 * @param nodeModel
 	 * @return
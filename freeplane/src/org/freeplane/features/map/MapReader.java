@@ -20,6 +20,7 @@
 package org.freeplane.features.map;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.HashMap;
 import java.util.Map;
@@ -55,11 +56,21 @@ public class MapReader implements IElementDOMHandler {
         }
 
 		public NodeModel create(final Reader pReader) throws XMLException {
+			return create(pReader, null);
+		}
+
+		private NodeModel create(final Reader pReader, final InputStream binaryInput) throws XMLException {
 			final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
 			final TreeXmlReader reader = new TreeXmlReader(readManager);
+			reader.setUsePullParser(true);
 			try {
 				nodeTreeCreator = this;
-				reader.load(createdMap, pReader);
+				if (binaryInput != null) {
+					reader.loadBinary(createdMap, binaryInput);
+				}
+				else {
+					reader.load(createdMap, pReader);
+				}
 				final NodeModel node = nodeBuilder.getMapChild();
 				return node;
 			}
@@ -71,8 +82,18 @@ public class MapReader implements IElementDOMHandler {
 
 		public NodeModel createNodeTreeFromXml(final MapModel map, final Reader pReader) throws IOException,
 		        XMLException {
+			return createNodeTree(map, pReader, null);
+		}
+
+		public NodeModel createNodeTreeFromBinary(final MapModel map, final InputStream input) throws IOException,
+		        XMLException {
+			return createNodeTree(map, null, input);
+		}
+
+		private NodeModel createNodeTree(final MapModel map, final Reader pReader, final InputStream binaryInput)
+		        throws XMLException {
 			start(map);
-			final NodeModel node = create(pReader);
+			final NodeModel node = create(pReader, binaryInput);
 			if (node == null)
 				throw new RuntimeException("corrupted map, no root node found");
 			finish(node);
@@ -151,6 +172,15 @@ public class MapReader implements IElementDOMHandler {
 		hints.put(Hint.MODE, mode);
 		return createNodeTreeFromXml(map, pReader, hints);
 	}
+
+	/** reads the children of folded nodes only when they are accessed, see {@link UnloadedChildren} */
+	public NodeModel createNodeTreeFromXmlLazily(final MapModel map, final Reader pReader) throws IOException,
+	        XMLException {
+		final Map<Object, Object> hints = new HashMap<Object, Object>(2);
+		hints.put(Hint.MODE, Mode.FILE);
+		hints.put(NodeBuilder.RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY, Boolean.TRUE);
+		return createNodeTreeFromXml(map, pReader, hints);
+	}
 	public NodeModel createNodeTreeFromXml(final MapModel map, final Reader pReader, final Map<Object, Object> hints)
 	        throws IOException, XMLException {
 		final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
@@ -164,6 +194,19 @@ public class MapReader implements IElementDOMHandler {
 		}
 	}
 
+	/** reads a map written by {@link MapWriter#writeMapAsBinary} */
+	public NodeModel createNodeTreeFromBinary(final MapModel map, final InputStream input,
+	                                          final Map<Object, Object> hints) throws IOException, XMLException {
+		final NodeTreeCreator oldNodeTreeCreator = nodeTreeCreator;
+		try {
+			nodeTreeCreator = new NodeTreeCreator(hints);
+			return nodeTreeCreator.createNodeTreeFromBinary(map, input);
+		}
+		finally {
+			nodeTreeCreator = oldNodeTreeCreator;
+		}
+	}
+
 	public void endElement(final Object parent, final String tag, final Object element, final XMLElement dom) {
 		final MapModel map = (MapModel) element;
 		if (dom.getAttributeCount() != 0 || dom.hasChildren()) {
@@ -20,6 +20,7 @@
 package org.freeplane.features.map;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Arrays;
 
@@ -28,6 +29,7 @@ import org.freeplane.core.io.IAttributeWriter;
 import org.freeplane.core.io.IElementWriter;
 import org.freeplane.core.io.ITreeWriter;
 import org.freeplane.core.io.WriteManager;
+import org.freeplane.core.io.xml.BinaryTreeWriter;
 import org.freeplane.core.io.xml.TreeXmlWriter;
 import org.freeplane.core.util.FreeplaneVersion;
 import org.freeplane.n3.nanoxml.XMLElement;
@@ -99,6 +101,21 @@ public class MapWriter implements IElementWriter, IAttributeWriter {
 		fileout.close();
 	}
 
+	/**
+	 * Writes the map in the binary format of {@link BinaryTreeWriter}, it is read by
+	 * {@link MapReader#createNodeTreeFromBinary(MapModel, java.io.InputStream, java.util.Map)}.
+	 */
+	public void writeMapAsBinary(final MapModel map, final OutputStream output, final Mode mode,
+	                             final boolean saveInvisible, final boolean compressed) throws IOException {
+		final BinaryTreeWriter binaryWriter = new BinaryTreeWriter(writeManager, output, compressed);
+		binaryWriter.setHint(Hint.MODE, mode);
+		final XMLElement xmlMap = new XMLElement("map");
+		setSaveInvisible(saveInvisible);
+		binaryWriter.addElement(map, xmlMap);
+		binaryWriter.finish();
+		output.close();
+	}
+
 	protected void writeNode(final ITreeWriter xmlWriter, final NodeModel node, final boolean writeInvisible,
 	                       final boolean writeChildren) throws IOException {
 		final NodeWriter oldNodeWriter = currentNodeWriter;
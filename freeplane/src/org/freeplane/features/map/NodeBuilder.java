@@ -45,6 +45,7 @@ public class NodeBuilder implements IElementDOMHandler {
 	public static final String RESOURCES_LOAD_FOLDING = "load_folding";
 	public static final String RESOURCES_LOAD_FOLDING_FROM_MAP_DEFAULT_FOLD_ALL = "load_folding_from_map_default_fold_all";
 	public static final String RESOURCES_LOAD_FOLDING_FROM_MAP_DEFAULT_UNFOLD_ALL = "load_folding_from_map_default_unfold_all";
+	public static final String RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY = "load_folded_subtrees_lazily";
 	protected static final String MAX_DISPLAYED_NODE_COUNT = "max_displayed_node_count";
 	public static final String RESOURCES_NEVER_SAVE_FOLDING = "never_save_folding";
 	public static final String RESOURCES_SAVE_FOLDING = "save_folding";
@@ -64,6 +65,9 @@ public class NodeBuilder implements IElementDOMHandler {
 	}
 
 	public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
+		if (parent instanceof NodeModel && isLoadedLazily((NodeModel) parent, tag)) {
+			return UnloadedChildren.createModel((NodeModel) parent, mapReader);
+		}
 		final NodeModel userObject = createNode();
 		if (getMapChild() == null) {
 			setMapChild(userObject);
@@ -75,7 +79,17 @@ public class NodeBuilder implements IElementDOMHandler {
 		return new NodeModel(getMap());
 	}
 
+	/** the children of folded nodes are only read when they are needed */
+	private boolean isLoadedLazily(final NodeModel parent, final String tag) {
+		return parent.isFolded() && parent != getMapChild() && tag.equals(XML_NODE)
+		        && Boolean.TRUE.equals(mapReader.getCurrentNodeTreeCreator().getHint(RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY));
+	}
+
 	public void endElement(final Object parentObject, final String tag, final Object userObject, final XMLElement dom) {
+		if (userObject instanceof UnloadedChildren) {
+			((UnloadedChildren) userObject).addChild(dom);
+			return;
+		}
 		final NodeModel node = (NodeModel) userObject;
 		if (dom.getAttributeCount() != 0 || dom.hasChildren()) {
 			node.addExtension(new UnknownElements(dom));
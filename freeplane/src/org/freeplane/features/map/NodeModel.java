@@ -74,6 +74,7 @@ public class NodeModel implements MutableTreeNode {
 	final private NodeIconSetModel icons;
 	private String id;
 	private MapModel map = null;
+	private int modificationStamp = 0;
 	private NodeModel parent;
 	private int position = NodeModel.UNKNOWN_POSITION;
 	private NodeModel preferredChild;
@@ -140,6 +141,12 @@ public class NodeModel implements MutableTreeNode {
 	}
 
 	protected List<NodeModel> getChildrenInternal() {
+		if (folded && children.isEmpty()) {
+			final UnloadedChildren unloadedChildren = UnloadedChildren.getModel(this);
+			if (unloadedChildren != null) {
+				unloadedChildren.load(this);
+			}
+		}
 	    return children;
     }
 	
@@ -168,6 +175,7 @@ public class NodeModel implements MutableTreeNode {
 	}
 
 	public void fireNodeChanged(final NodeChangeEvent nodeChangeEvent) {
+		modificationStamp++;
 		if (views == null) {
 			return;
 		}
@@ -183,6 +191,7 @@ public class NodeModel implements MutableTreeNode {
 	}
 
 	private void fireNodeInserted(final NodeModel child, final int index) {
+		structureChanged();
 		if (views == null) {
 			return;
 		}
@@ -193,6 +202,7 @@ public class NodeModel implements MutableTreeNode {
 	}
 
 	private void fireNodeRemoved(final NodeModel child, final int index) {
+		structureChanged();
 		if (views == null) {
 			return;
 		}
@@ -202,6 +212,19 @@ public class NodeModel implements MutableTreeNode {
 		}
 	}
 
+	private void structureChanged() {
+		modificationStamp++;
+		if (map != null) {
+			map.structureChanged();
+		}
+	}
+
+	/** incremented whenever the node is changed or a child is inserted or removed.
+	 * Used to find out whether results computed for the node are still valid. */
+	public int getModificationStamp() {
+		return modificationStamp;
+	}
+
 	public boolean getAllowsChildren() {
 		return NodeModel.ALLOWSCHILDREN;
 	};
@@ -211,6 +234,12 @@ public class NodeModel implements MutableTreeNode {
 	}
 
 	public int getChildCount() {
+		if (folded && children.isEmpty()) {
+			final UnloadedChildren unloadedChildren = UnloadedChildren.getModel(this);
+			if (unloadedChildren != null) {
+				return unloadedChildren.getChildCount();
+			}
+		}
 		if (getChildrenInternal() == null) {
 			return 0;
 		}
@@ -482,6 +511,10 @@ public class NodeModel implements MutableTreeNode {
 		if (this.folded == folded) {
 			return;
 		}
+		if (!folded) {
+			// reads unloaded children before the views are unfolded
+			getChildrenInternal();
+		}
 		this.folded = folded;
 		fireNodeChanged(new NodeChangeEvent(this, NodeChangeType.FOLDING, Boolean.valueOf(!folded),
 		    Boolean.valueOf(folded)));
@@ -499,8 +532,8 @@ public class NodeModel implements MutableTreeNode {
 	public void setLeft(final boolean isLeft) {
 		position = isLeft ? NodeModel.LEFT_POSITION : NodeModel.RIGHT_POSITION;
 		if (!isRoot()) {
-			for (int i = 0; i < getChildCount(); i++) {
-				final NodeModel child = (NodeModel) getChildAt(i);
+			// unloaded children take the position of the node when they are loaded
+			for (final NodeModel child : children) {
 				if (child.position != position) {
 					child.setLeft(isLeft);
 				}
@@ -512,7 +545,8 @@ public class NodeModel implements MutableTreeNode {
 	 */
 	public void setMap(final MapModel map) {
 		this.map = map;
-		for (final NodeModel child : getChildrenInternal()) {
+		// unloaded children get the map of the node when they are loaded
+		for (final NodeModel child : children) {
 			child.setMap(map);
 		}
 	}
@@ -124,7 +124,12 @@ class NodeWriter implements IElementWriter, IAttributeWriter {
 		for (int i = 0; i < xmlNode.getChildrenCount(); i++) {
 			writer.addElement(null, xmlNode.getChildAtIndex(i));
 		}
-		if (mayWriteChildren && shouldWriteChildren && mapController.childrenUnfolded(node).size()>0) {
+		final UnloadedChildren unloadedChildren = UnloadedChildren.getModel(node);
+		if (mayWriteChildren && shouldWriteChildren && unloadedChildren != null && writeInvisible
+		        && Mode.FILE.equals(writer.getHint(Hint.MODE))) {
+			unloadedChildren.write(writer);
+		}
+		else if (mayWriteChildren && shouldWriteChildren && mapController.childrenUnfolded(node).size()>0) {
 			saveChildren(writer, node);
 		}
 		return;
@@ -0,0 +1,201 @@
+package org.freeplane.features.map;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.io.ITreeWriter;
+import org.freeplane.core.io.IUnparsedElement;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.MapWriter.Hint;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.n3.nanoxml.XMLElement;
+
+/**
+ * Keeps the unparsed XML of the children of a folded node of a lazily loaded map. The children are read when they
+ * are first accessed, until then they are saved unchanged. The ids of the unloaded nodes stay registered in the map,
+ * so that {@link MapModel#getNodeForID(String)} reads the children when links or connectors refer to them.
+ */
+public class UnloadedChildren implements IExtension, IUnparsedElement {
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	public static UnloadedChildren getModel(final NodeModel node) {
+		return node.getExtension(UnloadedChildren.class);
+	}
+
+	static UnloadedChildren createModel(final NodeModel node, final MapReader mapReader) {
+		UnloadedChildren unloadedChildren = getModel(node);
+		if (unloadedChildren == null) {
+			unloadedChildren = new UnloadedChildren(node, mapReader);
+			node.addExtension(unloadedChildren);
+		}
+		return unloadedChildren;
+	}
+
+	private final NodeModel foldedNode;
+	private final MapReader mapReader;
+	private final List<String> childrenXml = new ArrayList<String>();
+	/** ids of all unloaded nodes, they are reserved in the map until the nodes are read */
+	private final List<String> nodeIDs = new ArrayList<String>();
+	private boolean loadingFailed = false;
+
+	private UnloadedChildren(final NodeModel foldedNode, final MapReader mapReader) {
+		this.foldedNode = foldedNode;
+		this.mapReader = mapReader;
+	}
+
+	void addChild(final XMLElement dom) {
+		addNodeID(dom.getAttribute("ID", null));
+		final String content = dom.getContent();
+		if (content != null) {
+			addNodeIDs(content);
+		}
+		final StringBuilder xml = new StringBuilder();
+		xml.append('<').append(dom.getFullName());
+		final Enumeration<String> attributeNames = dom.enumerateAttributeNames();
+		while (attributeNames.hasMoreElements()) {
+			final String name = attributeNames.nextElement();
+			xml.append(' ').append(name).append("=\"");
+			appendEncoded(xml, dom.getAttribute(name, ""));
+			xml.append('"');
+		}
+		if (content == null) {
+			xml.append("/>");
+		}
+		else {
+			xml.append('>').append(content).append("</").append(dom.getFullName()).append('>');
+		}
+		childrenXml.add(xml.toString());
+	}
+
+	private void addNodeID(final String id) {
+		if (id != null) {
+			nodeIDs.add(id);
+			foldedNode.getMap().registryUnloadedID(id, foldedNode);
+		}
+	}
+
+	/** finds the ID attributes of the node elements in the raw XML without reading it */
+	private void addNodeIDs(final String xml) {
+		int start = xml.indexOf("<node");
+		while (start != -1) {
+			final int tagEnd = xml.indexOf('>', start);
+			if (tagEnd == -1) {
+				return;
+			}
+			final String tag = xml.substring(start + "<node".length(), tagEnd);
+			if (tag.length() > 0 && Character.isWhitespace(tag.charAt(0))) {
+				addNodeID(getAttribute(tag, "ID"));
+			}
+			start = xml.indexOf("<node", start + 1);
+		}
+	}
+
+	private static String getAttribute(final String tag, final String name) {
+		int i = 0;
+		for (;;) {
+			final int nameEnd = tag.indexOf('=', i);
+			if (nameEnd == -1) {
+				return null;
+			}
+			int valueStart = nameEnd + 1;
+			while (valueStart < tag.length() && Character.isWhitespace(tag.charAt(valueStart))) {
+				valueStart++;
+			}
+			if (valueStart == tag.length()) {
+				return null;
+			}
+			final int valueEnd = tag.indexOf(tag.charAt(valueStart), valueStart + 1);
+			if (valueEnd == -1) {
+				return null;
+			}
+			if (tag.substring(i, nameEnd).trim().equals(name)) {
+				return tag.substring(valueStart + 1, valueEnd);
+			}
+			i = valueEnd + 1;
+		}
+	}
+
+	private static void appendEncoded(final StringBuilder xml, final String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+				case '<':
+					xml.append("&lt;");
+					break;
+				case '>':
+					xml.append("&gt;");
+					break;
+				case '&':
+					xml.append("&amp;");
+					break;
+				case '"':
+					xml.append("&quot;");
+					break;
+				default:
+					if (c < ' ') {
+						xml.append("&#x").append(Integer.toString(c, 16)).append(';');
+					}
+					else {
+						xml.append(c);
+					}
+			}
+		}
+	}
+
+	public int getChildCount() {
+		return loadingFailed ? 0 : childrenXml.size();
+	}
+
+	/** reads the children and inserts them into the node, the node keeps the XML if they can not be read. */
+	void load(final NodeModel node) {
+		if (loadingFailed) {
+			return;
+		}
+		final MapModel map = node.getMap();
+		// the read nodes take over their ids
+		for (final String id : nodeIDs) {
+			map.unregistryUnloadedID(id);
+		}
+		final List<NodeModel> children = new ArrayList<NodeModel>(childrenXml.size());
+		try {
+			for (final String childXml : childrenXml) {
+				children.add(mapReader.createNodeTreeFromXml(node.getMap(), new StringReader(childXml),
+				    createHints()));
+			}
+		}
+		catch (final Exception e) {
+			LogUtils.severe("folded nodes can not be loaded, they are saved unchanged", e);
+			loadingFailed = true;
+			for (final String id : nodeIDs) {
+				map.registryUnloadedID(id, node);
+			}
+			return;
+		}
+		node.removeExtension(this);
+		for (final NodeModel child : children) {
+			node.insert(child, -1);
+		}
+	}
+
+	private Map<Object, Object> createHints() {
+		final Map<Object, Object> hints = new HashMap<Object, Object>();
+		hints.put(Hint.MODE, Mode.FILE);
+		hints.put(NodeBuilder.RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY, Boolean.TRUE);
+		hints.put(NodeBuilder.FOLDING_LOADED, Boolean.TRUE);
+		return hints;
+	}
+
+	/** writes the children as they were read */
+	void write(final ITreeWriter writer) throws IOException {
+		for (final String childXml : childrenXml) {
+			writer.addElementContent(childXml);
+			writer.addElementContent(LINE_SEPARATOR);
+		}
+	}
+}
@@ -251,6 +251,10 @@ public class MMapController extends MapController {
 	@Override
 	public boolean close(final boolean force) {
 		final MapModel map = Controller.getCurrentController().getMap();
+		if (!force) {
+			// a failed background write marks the map as not saved again
+			((MFileManager) UrlManager.getController()).waitForBackgroundSave(map);
+		}
 		if (!force && !map.isSaved()) {
 			final List<Component> views = Controller.getCurrentController().getMapViewManager().getViews(map);
 			if (views.size() == 1) {
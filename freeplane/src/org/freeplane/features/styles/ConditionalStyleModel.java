@@ -29,24 +29,28 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
         }
 		public void setCondition(ASelectableCondition condition) {
 	        this.condition = condition;
+	        modifications++;
         }
 		public ASelectableCondition getCondition() {
 	        return condition;
         }
 		public void setStyle(IStyle style) {
 	        this.style = style;
+	        modifications++;
         }
 		public IStyle getStyle() {
 	        return style;
         }
 		public void setActive(boolean isActive) {
 	        this.isActive = isActive;
+	        modifications++;
         }
 		public boolean isActive() {
 	        return isActive;
         }
 		public void setLast(boolean isLast) {
 	        this.isLast = isLast;
+	        modifications++;
         }
 		public boolean isLast() {
 	        return isLast;
@@ -79,6 +83,24 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 	    this.styles = new ArrayList<Item>();
     }
 	private boolean recursiveCall;
+	// counts changes of the conditional styles, used to invalidate resolved styles
+	private int modifications = 0;
+
+	int getModifications() {
+		return modifications;
+	}
+
+	/** false if an active condition may change its result without a change of the node, its ancestors, its
+	 * descendants or the map structure, see {@link ASelectableCondition#isResultCacheable()}. */
+	public boolean isResultCacheable() {
+		for (Item item : styles) {
+			final ASelectableCondition condition = item.getCondition();
+			if (item.isActive() && condition != null && !condition.isResultCacheable()) {
+				return false;
+			}
+		}
+		return true;
+	}
 	
 	public Collection<IStyle> getStyles(NodeModel node){
 		if(recursiveCall){
@@ -105,6 +127,7 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 	
 	void addCondition(boolean isActive, ASelectableCondition condition, IStyle style, boolean isLast){
 		styles.add(new Item(isActive, condition, style, isLast));
+		modifications++;
 		if(table == null){
 			return;
 		}
@@ -114,6 +137,7 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 	
 	void insertCondition(int index, boolean isActive, ASelectableCondition condition, IStyle style, boolean isLast){
 		styles.add(index, new Item(isActive, condition, style, isLast));
+		modifications++;
 		if(table == null){
 			return;
 		}
@@ -122,6 +146,7 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 	
 	Item removeCondition(int index){
 		final Item item = styles.remove(index);
+		modifications++;
 		if(table == null){
 			return item;
 		}
@@ -134,6 +159,7 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 		final Item item2 = styles.get(index2);
 		styles.set(index1, item2);
 		styles.set(index2, item1);
+		modifications++;
 		if(table == null){
 			return;
 		}
@@ -157,6 +183,7 @@ public class ConditionalStyleModel implements IExtension, Iterable<ConditionalSt
 	
 	void clear(){
 		styles.clear();
+		modifications++;
 	}
 
 	public Iterator<Item> iterator() {
@@ -21,7 +21,7 @@ package org.freeplane.features.styles;
 
 import java.awt.Component;
 import java.awt.EventQueue;
-import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -61,8 +61,11 @@ public class LogicalStyleController implements IExtension {
 // 	final private ModeController modeController;
 	
 	private static final int STYLE_TOOLTIP = 0;
-	private WeakReference<NodeModel> cachedNode;
-	private Collection<IStyle>  cachedStyle;
+	private final ResolvedStylesCache cachedStyles = new ResolvedStylesCache();
+	// conditional style models consulted while the styles of a node are resolved
+	private final Collection<ConditionalStyleModel> consultedModels = new ArrayList<ConditionalStyleModel>();
+	private boolean resolvedStylesCacheable;
+	private int conditionEvaluations = 0;
 	final private CombinedPropertyChain<Collection<IStyle>, NodeModel> styleHandlers;
 
 	public LogicalStyleController(ModeController modeController) {
@@ -84,8 +87,7 @@ public class LogicalStyleController implements IExtension {
 					add(node, currentValue, style);
 				}
 				final MapStyleModel styleModel = MapStyleModel.getExtension(node.getMap());
-				Collection<IStyle> condStyles = styleModel.getConditionalStyleModel().getStyles(node);
-				clearCache();
+				Collection<IStyle> condStyles = getConditionalStyles(styleModel.getConditionalStyleModel(), node);
 				addAll(node, styleModel, currentValue, condStyles);
 				return currentValue;
 			}
@@ -100,7 +102,7 @@ public class LogicalStyleController implements IExtension {
 			public String getTooltip(ModeController modeController, NodeModel node, Component view) {
 				if(!ResourceController.getResourceController().getBooleanProperty("show_styles_in_tooltip"))
 					return null;
-				final Collection<IStyle> styles = getStyles(node);
+				final Collection<IStyle> styles = new LinkedHashSet<IStyle>(getStyles(node));
 				if(styles.size() > 0)
 					styles.remove(styles.iterator().next());
 				final String label = TextUtils.getText("node_styles");
@@ -144,8 +146,7 @@ public class LogicalStyleController implements IExtension {
 			final ConditionalStyleModel conditionalStyleModel = (ConditionalStyleModel) styleNode.getExtension(ConditionalStyleModel.class);
 			if(conditionalStyleModel == null)
 				return;
-			Collection<IStyle> styles = conditionalStyleModel.getStyles(node);
-			cachedNode = null;
+			Collection<IStyle> styles = getConditionalStyles(conditionalStyleModel, node);
 			addAll(node, styleModel, currentValue, styles);
     }
 
@@ -154,23 +155,22 @@ public class LogicalStyleController implements IExtension {
 		final MapController mapController = modeController.getMapController();
 		mapController.addMapChangeListener(new IMapChangeListener() {
 			public void onPreNodeMoved(NodeModel oldParent, int oldIndex, NodeModel newParent, NodeModel child, int newIndex) {
-				clearCache();
 			}
 			
 			public void onPreNodeDelete(NodeModel oldParent, NodeModel selectedNode, int index) {
-				clearCache();
 			}
 			
 			public void onNodeMoved(NodeModel oldParent, int oldIndex, NodeModel newParent, NodeModel child, int newIndex) {
-				clearCache();
+				cachedStyles.structureChanged(oldParent, child);
+				cachedStyles.structureChanged(newParent, child);
 			}
 			
 			public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
-				clearCache();
+				cachedStyles.structureChanged(parent, child);
 			}
 			
 			public void onNodeDeleted(NodeModel parent, NodeModel child, int index) {
-				clearCache();
+				cachedStyles.structureChanged(parent, child);
 			}
 			
 			public void mapChanged(MapChangeEvent event) {
@@ -179,7 +179,7 @@ public class LogicalStyleController implements IExtension {
 		});
 		mapController.addNodeChangeListener(new INodeChangeListener() {
 			public void nodeChanged(NodeChangeEvent event) {
-				clearCache();
+				cachedStyles.nodeChanged(event.getNode());
 			}
 		});
 	    
@@ -256,6 +256,7 @@ public class LogicalStyleController implements IExtension {
 	private static Map<MapModel, Integer> mapsToRefresh = new HashMap<MapModel, Integer>();
 
 	private void refreshMapLater(final MapModel map) {
+		clearCache();
 		final Integer count = mapsToRefresh.get(map);
 		if (count == null) {
 			mapsToRefresh.put(map, 0);
@@ -294,13 +295,39 @@ public class LogicalStyleController implements IExtension {
 		return MapStyleModel.DEFAULT_STYLE;
 	}
 	public Collection<IStyle>  getStyles(final NodeModel node) {
-		if(cachedNode != null && node.equals(cachedNode.get())){
-			return cachedStyle;
+		if(isEvaluatingConditions()){
+			return styleHandlers.getProperty(node, new LinkedHashSet<IStyle>());
+		}
+		Collection<IStyle> styles = cachedStyles.get(node);
+		if(styles != null){
+			return styles;
+		}
+		resolvedStylesCacheable = true;
+		consultedModels.clear();
+		styles = styleHandlers.getProperty(node, new LinkedHashSet<IStyle>());
+		if(resolvedStylesCacheable){
+			cachedStyles.put(node, styles, consultedModels);
+		}
+		consultedModels.clear();
+		return styles;
+	}
+
+	/** true while conditional styles are checked. Styles resolved meanwhile are incomplete because
+	 * {@link ConditionalStyleModel#getStyles(NodeModel)} does not evaluate a model recursively. */
+	public boolean isEvaluatingConditions() {
+		return conditionEvaluations > 0;
+	}
+
+	private Collection<IStyle> getConditionalStyles(final ConditionalStyleModel conditionalStyleModel, final NodeModel node) {
+		resolvedStylesCacheable = resolvedStylesCacheable && conditionalStyleModel.isResultCacheable();
+		consultedModels.add(conditionalStyleModel);
+		conditionEvaluations++;
+		try {
+			return conditionalStyleModel.getStyles(node);
+		}
+		finally {
+			conditionEvaluations--;
 		}
-		cachedStyle = null;
-		cachedStyle = styleHandlers.getProperty(node, new LinkedHashSet<IStyle>());
-		cachedNode = new WeakReference<NodeModel>(node);
-		return cachedStyle;
 	}
 	
 	public void moveConditionalStyleDown(final ConditionalStyleModel conditionalStyleModel, int index) {
@@ -326,8 +353,7 @@ public class LogicalStyleController implements IExtension {
     }
 
 	private void clearCache() {
-	    cachedStyle = null;
-	    cachedNode = null;
+	    cachedStyles.clear();
     }
 
 	public IPropertyHandler<Collection<IStyle>, NodeModel> addStyleGetter(
@@ -356,8 +382,7 @@ public class LogicalStyleController implements IExtension {
 
 	public Collection<IStyle>  getConditionalMapStyles(final NodeModel node) {
 		final MapStyleModel styleModel = MapStyleModel.getExtension(node.getMap());
-		Collection<IStyle> condStyles = styleModel.getConditionalStyleModel().getStyles(node);
-		clearCache();
+		Collection<IStyle> condStyles = getConditionalStyles(styleModel.getConditionalStyleModel(), node);
 		return getResursively(node, condStyles);
 	}
 
@@ -370,8 +395,7 @@ public class LogicalStyleController implements IExtension {
 		
 		final ConditionalStyleModel conditionalStyleModel = (ConditionalStyleModel) node.getExtension(ConditionalStyleModel.class);
 		if(conditionalStyleModel != null) {
-			Collection<IStyle> styles = conditionalStyleModel.getStyles(node);
-			clearCache();
+			Collection<IStyle> styles = getConditionalStyles(conditionalStyleModel, node);
 			condStyles.addAll(styles);
 		}
 		final Collection<IStyle> all = getResursively(node, condStyles);
@@ -0,0 +1,83 @@
+package org.freeplane.features.styles;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Remembers the resolved styles per node, see {@link LogicalStyleController#getStyles(NodeModel)}.
+ * <p>
+ * Conditions may check the node, its ancestors and its descendants. Therefore a changed node invalidates the styles
+ * of its ancestors and of its whole branch, and a structure change invalidates the ancestors of the changed parents
+ * and the moved branch. All styles are invalidated when a conditional style model consulted to resolve them has been
+ * modified.
+ */
+class ResolvedStylesCache {
+	private final Map<NodeModel, Collection<IStyle>> styles = new WeakHashMap<NodeModel, Collection<IStyle>>();
+	// modification counts of the consulted conditional style models when their results were cached
+	private final Map<ConditionalStyleModel, Integer> consultedModels = new WeakHashMap<ConditionalStyleModel, Integer>();
+
+	Collection<IStyle> get(final NodeModel node) {
+		if (styles.isEmpty()) {
+			return null;
+		}
+		for (final Map.Entry<ConditionalStyleModel, Integer> model : consultedModels.entrySet()) {
+			if (model.getKey().getModifications() != model.getValue().intValue()) {
+				clear();
+				return null;
+			}
+		}
+		return styles.get(node);
+	}
+
+	void put(final NodeModel node, final Collection<IStyle> resolvedStyles,
+	         final Collection<ConditionalStyleModel> models) {
+		for (final ConditionalStyleModel model : models) {
+			if (!consultedModels.containsKey(model)) {
+				consultedModels.put(model, model.getModifications());
+			}
+		}
+		styles.put(node, resolvedStyles);
+	}
+
+	int size() {
+		return styles.size();
+	}
+
+	void clear() {
+		styles.clear();
+		consultedModels.clear();
+	}
+
+	void nodeChanged(final NodeModel node) {
+		if (styles.isEmpty()) {
+			return;
+		}
+		removeAncestors(node.getParentNode());
+		removeBranch(node);
+	}
+
+	/** called after <code>child</code> has been inserted into, moved to or deleted from <code>parent</code>. */
+	void structureChanged(final NodeModel parent, final NodeModel child) {
+		if (styles.isEmpty()) {
+			return;
+		}
+		removeAncestors(parent);
+		removeBranch(child);
+	}
+
+	private void removeAncestors(NodeModel node) {
+		for (; node != null; node = node.getParentNode()) {
+			styles.remove(node);
+		}
+	}
+
+	private void removeBranch(final NodeModel node) {
+		styles.remove(node);
+		for (final NodeModel child : node.getChildren()) {
+			removeBranch(child);
+		}
+	}
+}
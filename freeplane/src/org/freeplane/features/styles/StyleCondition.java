@@ -18,6 +18,12 @@ public class StyleCondition extends ASelectableCondition {
 		return value.equals(firstStyle);
 	}
 
+	@Override
+	public boolean isResultCacheable() {
+		// conditional styles may depend on other nodes
+		return false;
+	}
+
 	public void fillXML(final XMLElement child) {
 		if (value instanceof StyleString) {
 			child.setAttribute("TEXT", value.toString());
@@ -21,6 +21,12 @@ public class StyleContainsCondition extends ASelectableCondition {
 		return styles.contains(value);
 	}
 
+	@Override
+	public boolean isResultCacheable() {
+		// conditional styles may depend on other nodes
+		return false;
+	}
+
 	public void fillXML(final XMLElement child) {
 		if (value instanceof StyleString) {
 			child.setAttribute("TEXT", value.toString());
@@ -26,6 +26,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.swing.Icon;
 
@@ -63,9 +65,23 @@ public class TextController implements IExtension {
 	private static final Integer NODE_TOOLTIP = 1;
 	private static final Integer DETAILS_TOOLTIP = 2;
 	private final List<IContentTransformer> textTransformers;
+	private final TransformationCache transformationCache = new TransformationCache();
+	// plain text of html node texts, valid as long as the node text is the same instance
+	private final Map<NodeModel, PlainTextCacheEntry> plainTextCache = Collections
+	    .synchronizedMap(new WeakHashMap<NodeModel, PlainTextCacheEntry>());
 	protected final ModeController modeController;
 	public static final String MARK_TRANSFORMED_TEXT = "highlight_formulas";
 
+	private static class PlainTextCacheEntry {
+		private final String html;
+		private final String plainText;
+
+		private PlainTextCacheEntry(final String html, final String plainText) {
+			this.html = html;
+			this.plainText = plainText;
+		}
+	}
+
 
 	public static boolean isMarkTransformedTextSet() {
 		return Controller.getCurrentController().getResourceController().getBooleanProperty(MARK_TRANSFORMED_TEXT);
@@ -101,6 +117,9 @@ public class TextController implements IExtension {
 		textBuilder.registerBy(readManager, writeManager);
 		writeManager.addExtensionElementWriter(DetailTextModel.class, textBuilder);
 		writeManager.addExtensionAttributeWriter(ShortenedTextModel.class, textBuilder);
+		mapController.addNodeChangeListener(transformationCache);
+		mapController.addMapChangeListener(transformationCache);
+		ResourceController.getResourceController().addPropertyChangeListener(transformationCache);
 
 		modeController.addAction(new ToggleDetailsAction());
 		modeController.addAction(new SetShortenerStateAction());
@@ -113,6 +132,7 @@ public class TextController implements IExtension {
 	public void addTextTransformer(IContentTransformer textTransformer) {
 	    textTransformers.add(textTransformer);
 	    Collections.sort(textTransformers);
+	    transformationCache.invalidate();
     }
 
 	public List<IContentTransformer> getTextTransformers() {
@@ -120,13 +140,36 @@ public class TextController implements IExtension {
 	}
 	public void removeTextTransformer(IContentTransformer textTransformer) {
 	    textTransformers.remove(textTransformer);
+	    transformationCache.invalidate();
     }
 
+	public TransformationCache getTransformationCache() {
+		return transformationCache;
+	}
+
 	public String getText(NodeModel nodeModel) {
 		return nodeModel.getText();
 	}
 	
 	public Object getTransformedObject(Object object, final NodeModel nodeModel, Object extension) throws TransformationException{
+		// styles resolved while conditional styles are evaluated are incomplete
+		if(nodeModel == null || isEvaluatingConditions())
+			return transformObject(object, nodeModel, extension);
+		final Object cachedObject = transformationCache.get(nodeModel, object, extension);
+		if(cachedObject != null)
+			return cachedObject;
+		final long version = transformationCache.getVersion();
+		final Object transformedObject = transformObject(object, nodeModel, extension);
+		transformationCache.put(version, nodeModel, object, extension, transformedObject);
+		return transformedObject;
+	}
+
+	private boolean isEvaluatingConditions() {
+		final LogicalStyleController styleController = LogicalStyleController.getController(modeController);
+		return styleController != null && styleController.isEvaluatingConditions();
+	}
+
+	private Object transformObject(Object object, final NodeModel nodeModel, Object extension) throws TransformationException{
 		if(object instanceof String && ResourceController.getResourceController().getBooleanProperty("parse_data")){
 			String string = (String) object;
 			if(string.length() > 0 && string.charAt(0) == '\''){
@@ -140,7 +183,9 @@ public class TextController implements IExtension {
 		for (IContentTransformer textTransformer : getTextTransformers()) {
 			try {
 				Object in = object;
+				final long startTime = System.nanoTime();
 	            object = textTransformer.transformContent(this, in, nodeModel, extension);
+	            transformationCache.addTransformerTime(textTransformer, System.nanoTime() - startTime);
 	            markTransformation = markTransformation || textTransformer.markTransformation() && ! in.equals(object); 
             }
             catch (RuntimeException e) {
@@ -154,8 +199,18 @@ public class TextController implements IExtension {
 	}
 
 	public Icon getIcon(Object object, final NodeModel nodeModel, Object extension){
+		final Icon[] cachedIcon = new Icon[1];
+		if(transformationCache.getIcon(nodeModel, object, extension, cachedIcon))
+			return cachedIcon[0];
+		final long version = transformationCache.getVersion();
+		final Icon icon = createIcon(object, nodeModel, extension);
+		transformationCache.putIcon(version, nodeModel, object, extension, icon);
+		return icon;
+	}
+
+	private Icon createIcon(Object object, final NodeModel nodeModel, Object extension){
 		if(object instanceof HighlightedTransformedObject){
-			return getIcon(((HighlightedTransformedObject)object).getObject(), nodeModel, extension);
+			return createIcon(((HighlightedTransformedObject)object).getObject(), nodeModel, extension);
 		}
 		for (IContentTransformer textTransformer : getTextTransformers()) {
 			Icon icon = textTransformer.getIcon(this, object, nodeModel, extension);
@@ -217,13 +272,23 @@ public class TextController implements IExtension {
 	    final Object userObject = nodeModel.getUserObject();
 		final Object input;
 		if(userObject instanceof String &&  HtmlUtils.isHtmlNode((String) userObject))
-			input = HtmlUtils.htmlToPlain((String) userObject);
+			input = getPlainText(nodeModel, (String) userObject);
 		else
 			input = userObject;
 		final String text = getTransformedTextNoThrow(input, nodeModel, userObject);
 	    return text;
     }
 
+	private String getPlainText(final NodeModel nodeModel, final String html) {
+		final PlainTextCacheEntry entry = plainTextCache.get(nodeModel);
+		if (entry != null && entry.html == html) {
+			return entry.plainText;
+		}
+		final String plainText = HtmlUtils.htmlToPlain(html);
+		plainTextCache.put(nodeModel, new PlainTextCacheEntry(html, plainText));
+		return plainText;
+	}
+
 	public String getShortText(NodeModel nodeModel) {
 		String adaptedText = getPlainTextContent(nodeModel);
 		if (adaptedText.length() > 40) {
@@ -0,0 +1,266 @@
+package org.freeplane.features.text;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.swing.Icon;
+
+import org.freeplane.core.resources.IFreeplanePropertyListener;
+import org.freeplane.features.map.IMapChangeListener;
+import org.freeplane.features.map.INodeChangeListener;
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeModel;
+
+/**
+ * Remembers the results of the content transformers per node, see {@link TextController#getTransformedObject(Object, NodeModel, Object)}.
+ * <p>
+ * A result is reused for the same content and extension. Transformers like formulas, links and node numbering
+ * depend on other nodes and styles of the same map, therefore every change of a node or a map invalidates all
+ * results of that map. Every changed property and every change of the transformers invalidates the results of all
+ * maps. Transformations in progress while the cache is invalidated are not stored.
+ */
+public class TransformationCache implements INodeChangeListener, IMapChangeListener, IFreeplanePropertyListener {
+	// nodes usually have few transformed contents: text, details and attributes
+	private static final int MAX_ENTRIES_PER_NODE = 16;
+
+	private static class Entry {
+		private final Object content;
+		private final Object extension;
+		private final Object result;
+		private boolean iconCreated = false;
+		private Object iconExtension;
+		private Icon icon;
+
+		private Entry(final Object content, final Object extension, final Object result) {
+			this.content = content;
+			this.extension = extension;
+			this.result = result;
+		}
+
+		private boolean matches(final Object content, final Object extension) {
+			return this.extension == extension && (this.content == content || this.content.equals(content));
+		}
+	}
+
+	private static class TransformerStatistics {
+		private long calls = 0;
+		private long time = 0;
+	}
+
+	private final Map<MapModel, Map<NodeModel, List<Entry>>> entries = new WeakHashMap<MapModel, Map<NodeModel, List<Entry>>>();
+	private final Map<IContentTransformer, TransformerStatistics> statistics = new IdentityHashMap<IContentTransformer, TransformerStatistics>();
+	private boolean enabled = true;
+	private long version = 0;
+	private long hits = 0;
+	private long misses = 0;
+
+	synchronized Object get(final NodeModel node, final Object content, final Object extension) {
+		final Entry entry = getEntry(node, content, extension);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.result;
+	}
+
+	/** @return the version to pass to {@link #put(long, NodeModel, Object, Object, Object)} */
+	synchronized long getVersion() {
+		return version;
+	}
+
+	synchronized void put(final long version, final NodeModel node, final Object content, final Object extension,
+	                      final Object result) {
+		if (!enabled || version != this.version || content == null || result == null) {
+			return;
+		}
+		Map<NodeModel, List<Entry>> mapEntries = entries.get(node.getMap());
+		if (mapEntries == null) {
+			mapEntries = new WeakHashMap<NodeModel, List<Entry>>();
+			entries.put(node.getMap(), mapEntries);
+		}
+		List<Entry> nodeEntries = mapEntries.get(node);
+		if (nodeEntries == null) {
+			nodeEntries = new ArrayList<Entry>(2);
+			mapEntries.put(node, nodeEntries);
+		}
+		else {
+			for (final Iterator<Entry> it = nodeEntries.iterator(); it.hasNext();) {
+				if (it.next().matches(content, extension)) {
+					it.remove();
+				}
+			}
+			if (nodeEntries.size() >= MAX_ENTRIES_PER_NODE) {
+				nodeEntries.remove(0);
+			}
+		}
+		nodeEntries.add(new Entry(content, extension, result));
+	}
+
+	/** @return true if the icon for the cached <code>result</code> is known, the icon is stored in <code>icon[0]</code> */
+	synchronized boolean getIcon(final NodeModel node, final Object result, final Object extension, final Icon[] icon) {
+		final Entry entry = getEntryByResult(node, result);
+		if (entry == null || !entry.iconCreated || entry.iconExtension != extension) {
+			return false;
+		}
+		icon[0] = entry.icon;
+		return true;
+	}
+
+	synchronized void putIcon(final long version, final NodeModel node, final Object result, final Object extension,
+	                          final Icon icon) {
+		if (version != this.version) {
+			return;
+		}
+		final Entry entry = getEntryByResult(node, result);
+		if (entry != null) {
+			entry.iconExtension = extension;
+			entry.icon = icon;
+			entry.iconCreated = true;
+		}
+	}
+
+	private Entry getEntry(final NodeModel node, final Object content, final Object extension) {
+		if (!enabled || content == null) {
+			return null;
+		}
+		final List<Entry> nodeEntries = getEntries(node);
+		if (nodeEntries == null) {
+			return null;
+		}
+		for (final Entry entry : nodeEntries) {
+			if (entry.matches(content, extension)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private Entry getEntryByResult(final NodeModel node, final Object result) {
+		if (!enabled) {
+			return null;
+		}
+		final List<Entry> nodeEntries = getEntries(node);
+		if (nodeEntries == null) {
+			return null;
+		}
+		for (final Entry entry : nodeEntries) {
+			if (entry.result == result) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private List<Entry> getEntries(final NodeModel node) {
+		final Map<NodeModel, List<Entry>> mapEntries = entries.get(node.getMap());
+		return mapEntries == null ? null : mapEntries.get(node);
+	}
+
+	synchronized void addTransformerTime(final IContentTransformer transformer, final long nanos) {
+		TransformerStatistics transformerStatistics = statistics.get(transformer);
+		if (transformerStatistics == null) {
+			transformerStatistics = new TransformerStatistics();
+			statistics.put(transformer, transformerStatistics);
+		}
+		transformerStatistics.calls++;
+		transformerStatistics.time += nanos;
+	}
+
+	public synchronized void invalidate() {
+		version++;
+		entries.clear();
+	}
+
+	/** invalidates the results of the nodes of the given map, or of all maps if <code>map</code> is null. */
+	public synchronized void invalidate(final MapModel map) {
+		if (map == null) {
+			invalidate();
+			return;
+		}
+		version++;
+		entries.remove(map);
+	}
+
+	/** disables caching, e.g. for transformers whose results change without notification. */
+	public synchronized void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+		invalidate();
+	}
+
+	public synchronized boolean isEnabled() {
+		return enabled;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getTransformerCalls(final IContentTransformer transformer) {
+		final TransformerStatistics transformerStatistics = statistics.get(transformer);
+		return transformerStatistics == null ? 0 : transformerStatistics.calls;
+	}
+
+	/** @return the total time spent in the transformer in milliseconds */
+	public synchronized long getTransformerTime(final IContentTransformer transformer) {
+		final TransformerStatistics transformerStatistics = statistics.get(transformer);
+		return transformerStatistics == null ? 0 : transformerStatistics.time / 1000000;
+	}
+
+	@Override
+	public synchronized String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("transformation cache hits: ").append(hits).append(", misses: ").append(misses);
+		for (final Map.Entry<IContentTransformer, TransformerStatistics> entry : statistics.entrySet()) {
+			sb.append(", ").append(entry.getKey().getClass().getSimpleName()).append(": ")
+			    .append(entry.getValue().calls).append(" calls ").append(entry.getValue().time / 1000000)
+			    .append(" ms");
+		}
+		return sb.toString();
+	}
+
+	public void nodeChanged(final NodeChangeEvent event) {
+		invalidate(event.getNode().getMap());
+	}
+
+	public void mapChanged(final MapChangeEvent event) {
+		invalidate(event.getMap());
+	}
+
+	public void onNodeDeleted(final NodeModel parent, final NodeModel child, final int index) {
+		invalidate(parent.getMap());
+	}
+
+	public void onNodeInserted(final NodeModel parent, final NodeModel child, final int newIndex) {
+		invalidate(parent.getMap());
+	}
+
+	public void onNodeMoved(final NodeModel oldParent, final int oldIndex, final NodeModel newParent,
+	                        final NodeModel child, final int newIndex) {
+		invalidate(oldParent.getMap());
+		if (newParent.getMap() != oldParent.getMap()) {
+			invalidate(newParent.getMap());
+		}
+	}
+
+	public void onPreNodeMoved(final NodeModel oldParent, final int oldIndex, final NodeModel newParent,
+	                           final NodeModel child, final int newIndex) {
+	}
+
+	public void onPreNodeDelete(final NodeModel oldParent, final NodeModel selectedNode, final int index) {
+	}
+
+	public void propertyChanged(final String propertyName, final String newValue, final String oldValue) {
+		invalidate();
+	}
+}
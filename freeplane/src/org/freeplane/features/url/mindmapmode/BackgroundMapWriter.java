@@ -0,0 +1,219 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.freeplane.core.util.LogUtils;
+
+/**
+ * Writes map snapshots by a single background thread.
+ * <p>
+ * A snapshot is the xml text of a map, it is created on the event dispatch thread. Writing it to the disk, including
+ * the rotation of backup files, is performed in the background. Tasks are identified by their target. If a task is
+ * queued for a target whose previous task has not been started yet, the previous task is dropped, so that only the
+ * latest snapshot is written. Queued tasks are completed before the application exits.
+ * <p>
+ * A failed write is reported to its task on the event dispatch thread, unless it has been taken by
+ * {@link #waitForFailure(File)} before, e.g. when the map is closed.
+ */
+public class BackgroundMapWriter {
+	static abstract class Task {
+		/** called by the writer thread */
+		abstract void write() throws Exception;
+
+		/** called on the event dispatch thread after the task was written */
+		void onSuccess() {
+		}
+
+		/** called on the event dispatch thread if writing the task failed and the failure was not taken before */
+		void onFailure(final Exception e) {
+		}
+	}
+
+	private static BackgroundMapWriter instance;
+
+	public static synchronized BackgroundMapWriter getInstance() {
+		if (instance == null) {
+			instance = new BackgroundMapWriter();
+		}
+		return instance;
+	}
+
+	private final Thread writer;
+	private final Map<File, Task> pendingTasks = new LinkedHashMap<File, Task>();
+	/** failures of the last writes of their targets, until they are reported */
+	private final Map<File, Exception> failures = new HashMap<File, Exception>();
+	private File currentTarget = null;
+	private long writtenTasks = 0;
+	private long droppedTasks = 0;
+	private long failedTasks = 0;
+	private boolean shutdown = false;
+
+	private BackgroundMapWriter() {
+		writer = new Thread(getClass().getSimpleName()) {
+			@Override
+			public void run() {
+				writeTasks();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				shutdown();
+			}
+		});
+	}
+
+	synchronized void enqueue(final File target, final Task task) {
+		final File key = target.getAbsoluteFile();
+		if (pendingTasks.remove(key) != null) {
+			droppedTasks++;
+		}
+		pendingTasks.put(key, task);
+		notifyAll();
+	}
+
+	/**
+	 * drops the queued task for <code>target</code> and waits until a task writing it is finished,
+	 * used before the target is written synchronously.
+	 */
+	synchronized void discard(final File target) {
+		final File key = target.getAbsoluteFile();
+		if (pendingTasks.remove(key) != null) {
+			droppedTasks++;
+		}
+		waitWhile(key, false);
+	}
+
+	/** waits until the queued task for <code>target</code> is written, e.g. before the target is read. */
+	public synchronized void waitFor(final File target) {
+		waitWhile(target.getAbsoluteFile(), true);
+	}
+
+	/**
+	 * waits until the queued task for <code>target</code> is written.
+	 * @return the failure of the last write of <code>target</code> if it has not been reported yet, it is not
+	 * reported to the task afterwards
+	 */
+	synchronized Exception waitForFailure(final File target) {
+		final File key = target.getAbsoluteFile();
+		waitWhile(key, true);
+		return failures.remove(key);
+	}
+
+	/** waits until all queued tasks are written. */
+	public synchronized void flush() {
+		waitWhile(null, true);
+	}
+
+	private void waitWhile(final File key, final boolean pending) {
+		if (Thread.currentThread() == writer) {
+			return;
+		}
+		boolean interrupted = false;
+		for (;;) {
+			final boolean busy;
+			if (key == null) {
+				busy = currentTarget != null || !pendingTasks.isEmpty();
+			}
+			else {
+				busy = key.equals(currentTarget) || pending && pendingTasks.containsKey(key);
+			}
+			if (!busy) {
+				break;
+			}
+			try {
+				wait();
+			}
+			catch (final InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void shutdown() {
+		synchronized (this) {
+			shutdown = true;
+		}
+		flush();
+	}
+
+	private void writeTasks() {
+		for (;;) {
+			final File target;
+			final Task task;
+			synchronized (this) {
+				currentTarget = null;
+				notifyAll();
+				while (pendingTasks.isEmpty()) {
+					try {
+						wait();
+					}
+					catch (final InterruptedException e) {
+					}
+				}
+				final Iterator<Map.Entry<File, Task>> iterator = pendingTasks.entrySet().iterator();
+				final Map.Entry<File, Task> next = iterator.next();
+				iterator.remove();
+				target = next.getKey();
+				currentTarget = target;
+				task = next.getValue();
+			}
+			try {
+				task.write();
+				synchronized (this) {
+					writtenTasks++;
+					failures.remove(target);
+				}
+				invokeLater(new Runnable() {
+					public void run() {
+						task.onSuccess();
+					}
+				});
+			}
+			catch (final Exception e) {
+				LogUtils.severe("can not write " + target, e);
+				synchronized (this) {
+					failedTasks++;
+					failures.put(target, e);
+				}
+				invokeLater(new Runnable() {
+					public void run() {
+						final Exception failure;
+						synchronized (BackgroundMapWriter.this) {
+							failure = failures.remove(target);
+						}
+						if (failure != null) {
+							task.onFailure(failure);
+						}
+					}
+				});
+			}
+		}
+	}
+
+	private void invokeLater(final Runnable runnable) {
+		synchronized (this) {
+			// the event dispatch thread may be waiting for the exit
+			if (shutdown) {
+				return;
+			}
+		}
+		EventQueue.invokeLater(runnable);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "pending map writes: " + (pendingTasks.size() + (currentTarget != null ? 1 : 0)) + ", written: "
+		        + writtenTasks + ", dropped: " + droppedTasks + ", failed: " + failedTasks;
+	}
+}
@@ -21,6 +21,7 @@ package org.freeplane.features.url.mindmapmode;
 
 import java.awt.EventQueue;
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.TimerTask;
@@ -59,6 +60,49 @@ public class DoAutomaticSave extends TimerTask {
 		changeState = model.getNumberOfChangesSinceLastSave();
 	}
 
+	private class AutomaticSaveTask extends BackgroundMapWriter.Task {
+		private final ModeController modeController;
+		private final byte[] snapshot;
+		private final File pathToStore;
+		private final File file;
+		private File tempFile;
+
+		private AutomaticSaveTask(final ModeController modeController, final byte[] snapshot,
+		                          final File pathToStore, final File file) {
+			this.modeController = modeController;
+			this.snapshot = snapshot;
+			this.pathToStore = pathToStore;
+			this.file = file;
+		}
+
+		@Override
+		void write() throws IOException {
+			pathToStore.mkdirs();
+			tempFile = MFileManager.renameBackupFiles(pathToStore, file, numberOfFiles, AUTOSAVE_EXTENSION);
+			if (tempFile == null) {
+				return;
+			}
+			if (filesShouldBeDeletedAfterShutdown) {
+				tempFile.deleteOnExit();
+			}
+			MFileManager.writeSnapshot(snapshot, tempFile);
+		}
+
+		@Override
+		void onSuccess() {
+			if (tempFile != null) {
+				modeController.getController().getViewController()
+				    .out(TextUtils.format("automatically_save_message", tempFile));
+			}
+		}
+
+		@Override
+		void onFailure(final Exception e) {
+			modeController.getController().getViewController()
+			    .out(TextUtils.format("save_failed", tempFile != null ? tempFile.getName() : file.getName()));
+		}
+	}
+
 	@Override
 	public void run() {
 		/* Map is dirty enough? */
@@ -95,19 +139,21 @@ public class DoAutomaticSave extends TimerTask {
 						else {
 							pathToStore = new File(file.getParent(), BACKUP_DIR);
 						}
-						pathToStore.mkdirs();
-						final File tempFile = MFileManager.renameBackupFiles(pathToStore, file, numberOfFiles,
-						    AUTOSAVE_EXTENSION);
-						if (tempFile == null) {
-							return;
+						final MMapModel map = (MMapModel) model;
+						if (map.getTimerForAutomaticSaving() != null) {
+							map.getTimerForAutomaticSaving().cancel();
+						}
+						final byte[] snapshot;
+						try {
+							snapshot = ((MFileManager) UrlManager.getController()).createAutomaticSaveSnapshot(map);
 						}
-						if (filesShouldBeDeletedAfterShutdown) {
-							tempFile.deleteOnExit();
+						finally {
+							map.scheduleTimerForAutomaticSaving();
 						}
-						((MFileManager) UrlManager.getController())
-						    .saveInternal((MMapModel) model, tempFile, true /*=internal call*/);
-						modeController.getController().getViewController()
-						    .out(TextUtils.format("automatically_save_message", tempFile));
+						// the backup files are rotated and written in the background
+						final File target = MFileManager.createBackupFile(pathToStore, file, 0, AUTOSAVE_EXTENSION);
+						BackgroundMapWriter.getInstance().enqueue(target, new AutomaticSaveTask(modeController,
+						    snapshot, pathToStore, file));
 					}
 					catch (final Exception e) {
 						LogUtils.severe("Error in automatic MapModel.save(): ", e);
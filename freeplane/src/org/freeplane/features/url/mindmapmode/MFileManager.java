@@ -24,25 +24,27 @@ import java.awt.dnd.DropTarget;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.BufferedInputStream;
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.SequenceInputStream;
+import java.io.StringWriter;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.channels.FileLock;
 import java.nio.charset.Charset;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -53,6 +55,7 @@ import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileFilter;
 
 import org.freeplane.core.extension.IExtension;
+import org.freeplane.core.io.xml.TreeXmlReader;
 import org.freeplane.core.resources.NamedObject;
 import org.freeplane.core.resources.ResourceController;
 import org.freeplane.core.resources.components.ComboProperty;
@@ -70,7 +73,10 @@ import org.freeplane.features.link.LinkController;
 import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapReader;
+import org.freeplane.features.map.MapWriter.Hint;
 import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeBuilder;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.mindmapmode.MMapController;
 import org.freeplane.features.map.mindmapmode.MMapModel;
@@ -121,6 +127,7 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 	}
 
 	private static final String BACKUP_FILE_NUMBER = "backup_file_number";
+	private static final String AUTOMATIC_SAVE_IN_BINARY_FORMAT = "automatic_save_in_binary_format";
 	private static final String FREEPLANE_VERSION_UPDATER_XSLT = "/xslt/freeplane_version_updater.xslt";
 	private static File singleBackupDirectory;
 
@@ -390,6 +397,7 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
         if (!file.canWrite()) {
         	map.setReadOnly(true);
         }
+        BackgroundMapWriter.getInstance().waitFor(file);
         try {
         	final String lockingUser = tryToLock(map, file);
         	if (lockingUser != null) {
@@ -478,6 +486,15 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		final String mapStart = new String(buffer, FileUtils.defaultCharset().name());
 		final ByteArrayInputStream readBytes = new ByteArrayInputStream(buffer, 0, readCount);
 		final InputStream sequencedInput = new SequenceInputStream(readBytes, file);
+		if (TreeXmlReader.isBinary(buffer, readCount)) {
+			map.addExtension(MapVersionInterpreter.DEFAULT);
+			try {
+				return loadBinaryTree(map, sequencedInput);
+			}
+			finally {
+				FileUtils.silentlyClose(sequencedInput);
+			}
+		}
 		Reader reader = null;
 		MapVersionInterpreter versionInterpreter = MapVersionInterpreter.getVersionInterpreter(mapStart);
 		map.addExtension(versionInterpreter);
@@ -502,18 +519,36 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		else
 			reader = UrlManager.getActualReader(sequencedInput);
 		try {
-			NodeModel root = Controller.getCurrentModeController().getMapController().getMapReader()
-			    .createNodeTreeFromXml(map, reader, Mode.FILE);			
+			final MapReader mapReader = Controller.getCurrentModeController().getMapController().getMapReader();
+			// converted maps are read completely, their folded nodes are converted too
 			if (versionInterpreter.getMapConverter() != null) {
+				NodeModel root = mapReader.createNodeTreeFromXml(map, reader, Mode.FILE);
 				versionInterpreter.getMapConverter().convert(root);
+				return root;
 			}
-			return root;
+			if (ResourceController.getResourceController().getBooleanProperty(
+			    NodeBuilder.RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY)) {
+				return mapReader.createNodeTreeFromXmlLazily(map, reader);
+			}
+			return mapReader.createNodeTreeFromXml(map, reader, Mode.FILE);
 		}
 		finally {
 			FileUtils.silentlyClose(reader);
 		}
 	}
 
+	/** binary maps are written by automatic saves, they need no conversion */
+	private NodeModel loadBinaryTree(final MapModel map, final InputStream input) throws IOException, XMLException {
+		final MapReader mapReader = Controller.getCurrentModeController().getMapController().getMapReader();
+		final Map<Object, Object> hints = new HashMap<Object, Object>(2);
+		hints.put(Hint.MODE, Mode.FILE);
+		if (ResourceController.getResourceController().getBooleanProperty(
+		    NodeBuilder.RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY)) {
+			hints.put(NodeBuilder.RESOURCES_LOAD_FOLDED_SUBTREES_LAZILY, Boolean.TRUE);
+		}
+		return mapReader.createNodeTreeFromBinary(map, new BufferedInputStream(input), hints);
+	}
+
 	/**@deprecated -- use LinkController*/
 	@Deprecated
 	@Override
@@ -682,6 +717,13 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 	/**@deprecated -- use MMapIO*/
 	@Deprecated
 	public boolean save(final MapModel map, final File file) {
+		return save(map, file, false);
+	}
+
+	/**
+	 * saves the map, the file is written in the background. The map saved events are fired after it was written.
+	 */
+	private boolean save(final MapModel map, final File file, final boolean savedAs) {
 		if(file == null){
 			return saveAs(map);
 		}
@@ -703,15 +745,21 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 			return false;
 		}
 		final URL urlBefore = map.getURL();
-		final boolean saved = saveInternal((MMapModel) map, file, false);
+		final MMapController mapController = (MMapController) Controller.getCurrentModeController().getMapController();
+		final boolean saved = saveInBackground((MMapModel) map, file, new Runnable() {
+			public void run() {
+				mapController.fireMapSaved(map);
+				if (savedAs) {
+					mapController.fireMapSavedAs(map);
+				}
+			}
+		});
 		if (!saved) {
 			return false;
 		}
 		map.setReadOnly(false);
 		final URL urlAfter = map.getURL();
-		final MMapController mapController = (MMapController) Controller.getCurrentModeController().getMapController();
 		mapController.fireMapChanged(new MapChangeEvent(this, map, UrlManager.MAP_URL, urlBefore, urlAfter));
-		mapController.fireMapSaved(map);
 		mapController.setSaved(map, true);
 		return true;
 	}
@@ -764,9 +812,8 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		if (!f.getAbsoluteFile().equals(oldFile) && null != map.getExtension(BackupFlag.class)) {
 			map.removeExtension(BackupFlag.class);
 		}
-		if (save(map, f)) {
+		if (save(map, f, true)) {
 			Controller.getCurrentController().getMapViewManager().updateMapViewName();
-			Controller.getCurrentModeController().getMapController().fireMapSavedAs(map);
 			return true;
 		}
 		return false;
@@ -809,25 +856,122 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		return false;
 	}
 
+	/**
+	 * Like {@link #saveInternal(MMapModel, File, boolean)} for normal saves, but only the snapshot of the map is
+	 * created on the calling thread, it is written by the {@link BackgroundMapWriter}.
+	 * @param onSaved called on the event dispatch thread after the file was written
+	 */
+	private boolean saveInBackground(final MMapModel map, final File file, final Runnable onSaved) {
+		if (file.exists() && !file.canWrite()) {
+			LogUtils.severe("Attempt to write in read-only file.");
+			return false;
+		}
+		try {
+			if (map.getTimerForAutomaticSaving() != null) {
+				map.getTimerForAutomaticSaving().cancel();
+			}
+			final String snapshot = createSnapshot(map);
+			map.setURL(Compat.fileToUrl(file));
+			map.setSaved(true);
+			BackgroundMapWriter.getInstance().enqueue(file, new BackgroundMapWriter.Task() {
+				@Override
+				void write() throws IOException {
+					writeSnapshot(snapshot, file);
+				}
+
+				@Override
+				void onSuccess() {
+					onSaved.run();
+				}
+
+				@Override
+				void onFailure(final Exception e) {
+					Controller.getCurrentModeController().getMapController().setSaved(map, false);
+					UITools.errorMessage(TextUtils.format("save_failed", file.getName()));
+				}
+			});
+			map.scheduleTimerForAutomaticSaving();
+			return true;
+		}
+		catch (final Exception e) {
+			LogUtils.severe("Error in MapModel.save(): ", e);
+		}
+		map.scheduleTimerForAutomaticSaving();
+		return false;
+	}
+
+	/**
+	 * waits until the map is written by the {@link BackgroundMapWriter}, so that a failure is reported before the
+	 * map is closed.
+	 * @return false if writing the map failed, the map is marked as not saved then
+	 */
+	public boolean waitForBackgroundSave(final MapModel map) {
+		final File file = map.getFile();
+		if (file == null) {
+			return true;
+		}
+		final Exception failure = BackgroundMapWriter.getInstance().waitForFailure(file);
+		if (failure == null) {
+			return true;
+		}
+		Controller.getCurrentModeController().getMapController().setSaved(map, false);
+		UITools.errorMessage(TextUtils.format("save_failed", file.getName()));
+		return false;
+	}
+
 	/**@deprecated -- use MMapIO*/
 	@Deprecated
 	public void writeToFile(final MapModel map, final File file) throws FileNotFoundException, IOException {
+		final String snapshot = createSnapshot(map);
+		// the snapshot written now is newer than the queued one
+		BackgroundMapWriter.getInstance().discard(file);
+		writeSnapshot(snapshot, file);
+	}
+
+	/** @return the xml text of the map, it can be written by {@link #writeSnapshot(String, File)} on any thread */
+	String createSnapshot(final MapModel map) throws IOException {
+		final StringWriter snapshot = new StringWriter();
+		Controller.getCurrentModeController().getMapController().getMapWriter()
+		    .writeMapAsXml(map, snapshot, Mode.FILE, true, false);
+		return snapshot.toString();
+	}
+
+	/**
+	 * @return the snapshot written by automatic saves, it is binary if {@link #AUTOMATIC_SAVE_IN_BINARY_FORMAT} is
+	 * set, see {@link org.freeplane.features.map.MapWriter#writeMapAsBinary}
+	 */
+	byte[] createAutomaticSaveSnapshot(final MapModel map) throws IOException {
+		if (!ResourceController.getResourceController().getBooleanProperty(AUTOMATIC_SAVE_IN_BINARY_FORMAT)) {
+			return createSnapshot(map).getBytes();
+		}
+		final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		Controller.getCurrentModeController().getMapController().getMapWriter()
+		    .writeMapAsBinary(map, snapshot, Mode.FILE, true, true);
+		return snapshot.toByteArray();
+	}
+
+	static void writeSnapshot(final String snapshot, final File file) throws IOException {
+		writeSnapshot(snapshot.getBytes(), file);
+	}
+
+	static void writeSnapshot(final byte[] snapshot, final File file) throws IOException {
 		final File tmpFile = new File(file.getParentFile(), "~"+file.getName());
 		final FileOutputStream out = new FileOutputStream(tmpFile);
 		final FileLock lock = out.getChannel().tryLock();
 		if (lock == null) {
+			out.close();
 			throw new IOException("can not obtain file lock for " + file);
 		}
 		try {
-			final BufferedWriter fileout = new BufferedWriter(new OutputStreamWriter(out));
-			Controller.getCurrentModeController().getMapController().getMapWriter()
-			    .writeMapAsXml(map, fileout, Mode.FILE, true, false);
+			out.write(snapshot);
+			out.close();
 		}
 		finally {
 			if (lock.isValid()) {
 				lock.release();
 			}
-			if(isValidMapFile(tmpFile)) {
+			if(tmpFile.length() == snapshot.length
+			        && (TreeXmlReader.isBinary(snapshot, snapshot.length) || isValidMapFile(tmpFile))) {
 				if(file.exists()) {
 					file.delete();
 				}
@@ -836,7 +980,7 @@ public class MFileManager extends UrlManager implements IMapViewChangeListener {
 		}
 	}
 	
-	private boolean isValidMapFile(File file) {
+	private static boolean isValidMapFile(File file) {
 		try {
 			RandomAccessFile raf = new RandomAccessFile(file, "r");
 			try {
@@ -152,8 +152,9 @@ public class XMLElement implements Serializable {
 	 *            the line in the XML data where the element starts.
 	 */
 	public XMLElement(final String fullName, final String namespace, final String systemID, final int lineNr) {
-		attributes = new Vector<XMLAttribute>();
-		children = new Vector<XMLElement>(8);
+		// most elements read from maps keep neither attributes nor children
+		attributes = new Vector<XMLAttribute>(0);
+		children = new Vector<XMLElement>(0);
 		this.fullName = fullName;
 		if (namespace == null) {
 			name = fullName;
@@ -318,23 +319,6 @@ public class XMLElement implements Serializable {
 		return true;
 	}
 
-	/**
-	 * Cleans up the object when it's destroyed.
-	 */
-	@Override
-	protected void finalize() throws Throwable {
-		attributes.clear();
-		attributes = null;
-		children = null;
-		fullName = null;
-		name = null;
-		namespace = null;
-		content = null;
-		systemID = null;
-		parent = null;
-		super.finalize();
-	}
-
 	/**
 	 * Searches an attribute.
 	 * 
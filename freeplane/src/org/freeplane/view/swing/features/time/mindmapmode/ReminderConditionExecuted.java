@@ -42,6 +42,12 @@ public class ReminderConditionExecuted extends ASelectableCondition {
 		return before;
 	}
 
+	@Override
+	public boolean isResultCacheable() {
+		// depends on the current time
+		return false;
+	}
+
 	@Override
 	protected String createDescription() {
 		final String reminder = TextUtils.getText(ReminderConditionController.FILTER_REMINDER);
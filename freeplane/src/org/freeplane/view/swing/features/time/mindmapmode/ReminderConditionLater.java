@@ -43,6 +43,12 @@ public class ReminderConditionLater extends ASelectableCondition {
 		return later;
 	}
 
+	@Override
+	public boolean isResultCacheable() {
+		// depends on the current time
+		return false;
+	}
+
 	@Override
 	protected String createDescription() {
 		final String reminder = TextUtils.getText(ReminderConditionController.FILTER_REMINDER);
@@ -20,9 +20,7 @@
 package org.freeplane.view.swing.features.time.mindmapmode;
 
 import java.util.Date;
-import java.util.Timer;
 import org.freeplane.core.extension.IExtension;
-import org.freeplane.core.util.SysUtils;
 import org.freeplane.features.map.IMapChangeListener;
 import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.NodeModel;
@@ -43,7 +41,6 @@ public class ReminderExtension implements IExtension, IMapChangeListener {
 	private long remindUserAt = 0;
 	private PeriodUnit periodUnit;
 	private int period;
-	private Timer timer;
 	private String script;
 	private TimerBlinkTask task;
 
@@ -97,19 +94,16 @@ public class ReminderExtension implements IExtension, IMapChangeListener {
     }
 
 	public void scheduleTimer(final TimerBlinkTask task, final Date date) {
-		if (timer == null) {
-			timer = SysUtils.createTimer(getClass().getSimpleName());
-		}
-		timer.schedule(task, date, BLINKING_PERIOD);
+		deactivateTimer();
+		ReminderScheduler.getInstance().schedule(task, date, BLINKING_PERIOD);
 		this.task = task;
 	}
 
 	public void deactivateTimer() {
-		if (timer == null) {
+		if (task == null) {
 			return;
 		}
-		timer.cancel();
-		timer = null;
+		ReminderScheduler.getInstance().cancel(task);
 		task = null;
 	}
 
@@ -0,0 +1,126 @@
+package org.freeplane.view.swing.features.time.mindmapmode;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Timer;
+
+import javax.swing.SwingUtilities;
+
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.core.util.SysUtils;
+
+/**
+ * Runs the blink tasks of all reminders by a single timer thread.
+ *
+ * Tasks becoming due together are passed to the event dispatch thread as one batch.
+ * A task failing does not keep the other tasks of its batch from being executed.
+ * The delays between the scheduled execution times and the executions are measured,
+ * large delays are logged.
+ */
+class ReminderScheduler {
+	private static final long LAG_WARNING_THRESHOLD = 5000;
+	private static final long LAG_WARNING_INTERVAL = 60000;
+	// cancelled tasks stay in the timer queue until they are purged
+	private static final int PURGE_THRESHOLD = 1000;
+	private static ReminderScheduler instance;
+
+	static synchronized ReminderScheduler getInstance() {
+		if (instance == null) {
+			instance = new ReminderScheduler();
+		}
+		return instance;
+	}
+
+	private final Timer timer;
+	private List<TimerBlinkTask> dueTasks = new ArrayList<TimerBlinkTask>();
+	private int scheduledTasks = 0;
+	private int cancelledTasks = 0;
+	private long executions = 0;
+	private long totalLag = 0;
+	private long maxLag = 0;
+	private long lastLagWarning = 0;
+
+	private ReminderScheduler() {
+		timer = SysUtils.createTimer(getClass().getSimpleName());
+	}
+
+	synchronized void schedule(final TimerBlinkTask task, final Date date, final long period) {
+		timer.schedule(task, date, period);
+		scheduledTasks++;
+	}
+
+	synchronized void cancel(final TimerBlinkTask task) {
+		if (!task.cancel()) {
+			return;
+		}
+		scheduledTasks--;
+		cancelledTasks++;
+		if (cancelledTasks >= PURGE_THRESHOLD) {
+			timer.purge();
+			cancelledTasks = 0;
+		}
+	}
+
+	/**
+	 * called by the timer thread when a task is due.
+	 */
+	void taskDue(final TimerBlinkTask task) {
+		final long now = System.currentTimeMillis();
+		final long lag = Math.max(0, now - task.scheduledExecutionTime());
+		synchronized (this) {
+			executions++;
+			totalLag += lag;
+			maxLag = Math.max(maxLag, lag);
+			if (lag > LAG_WARNING_THRESHOLD && now - lastLagWarning > LAG_WARNING_INTERVAL) {
+				lastLagWarning = now;
+				LogUtils.warn("reminder executed " + lag + " ms late, " + this);
+			}
+		}
+		addDueTask(task);
+	}
+
+	/**
+	 * adds the task to the batch executed next by the event dispatch thread.
+	 */
+	void addDueTask(final TimerBlinkTask task) {
+		final boolean startBatch;
+		synchronized (this) {
+			startBatch = dueTasks.isEmpty();
+			dueTasks.add(task);
+		}
+		if (startBatch) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					runDueTasks();
+				}
+			});
+		}
+	}
+
+	void runDueTasks() {
+		final List<TimerBlinkTask> tasks;
+		synchronized (this) {
+			tasks = dueTasks;
+			dueTasks = new ArrayList<TimerBlinkTask>();
+		}
+		for (final TimerBlinkTask task : tasks) {
+			if (task.isCancelled()) {
+				continue;
+			}
+			try {
+				task.execute();
+			}
+			catch (final RuntimeException e) {
+				LogUtils.warn(e);
+			}
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		final long averageLag = executions == 0 ? 0 : totalLag / executions;
+		return "scheduled reminders: " + scheduledTasks + ", executions: " + executions + ", average lag: "
+		        + averageLag + " ms, max lag: " + maxLag + " ms";
+	}
+}
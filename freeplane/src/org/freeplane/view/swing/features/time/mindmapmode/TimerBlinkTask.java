@@ -21,8 +21,6 @@ package org.freeplane.view.swing.features.time.mindmapmode;
 
 import java.util.TimerTask;
 
-import javax.swing.SwingUtilities;
-
 
 /**
  * @author Dimitry Polivaev
@@ -37,6 +35,7 @@ class TimerBlinkTask extends TimerTask {
 	private boolean stateAdded = false;
 	private boolean runScript;
 	private boolean alreadyExecuted;
+	private volatile boolean cancelled = false;
 
 	/**
 	 * @param b 
@@ -53,18 +52,30 @@ class TimerBlinkTask extends TimerTask {
 
 	@Override
 	public void run() {
-		SwingUtilities.invokeLater(new Runnable() {
+		ReminderScheduler.getInstance().taskDue(this);
+	}
+
+	/**
+	 * called in the event dispatch thread.
+	 */
+	void execute() {
+		if(runScript){
+			runScript = false;
+			reminderController.runScript(reminderExtension);
+		}
+		alreadyExecuted = true;
+		stateAdded = !stateAdded;
+		reminderController.blink(reminderExtension, stateAdded);
+	}
+
+	@Override
+	public boolean cancel() {
+		cancelled = true;
+		return super.cancel();
+	}
 
-			public void run() {
-				if(runScript){
-					runScript = false;
-					reminderController.runScript(reminderExtension);
-				}
-				alreadyExecuted = true;
-				stateAdded = !stateAdded;
-				reminderController.blink(reminderExtension, stateAdded);
-			}
-		});
+	boolean isCancelled() {
+		return cancelled;
 	}
 	
 	public boolean alreadyExecuted(){
@@ -0,0 +1,100 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freeplane.view.swing.map.link.ILinkView;
+
+/**
+ * Uniform grid of the bounds of the link views painted by a {@link MapView}.
+ * <p>
+ * Views are registered in every cell their bounds overlap, views with bounds covering too many cells are kept in a
+ * list instead. Queries return the views whose bounds intersect the queried area and the views without known bounds,
+ * in the order they were added, which is the painting order.
+ */
+class LinkViewIndex {
+	private static final int CELL_SIZE = 512;
+	private static final int MAX_CELLS_PER_VIEW = 64;
+	private final Map<ILinkView, Integer> order = new IdentityHashMap<ILinkView, Integer>();
+	private final Map<ILinkView, Rectangle> bounds = new IdentityHashMap<ILinkView, Rectangle>();
+	private final Map<Long, List<ILinkView>> cells = new HashMap<Long, List<ILinkView>>();
+	private final List<ILinkView> unboundedViews = new ArrayList<ILinkView>();
+	private final List<ILinkView> largeViews = new ArrayList<ILinkView>();
+
+	/** @param bounds the bounds of the view in map view coordinates or null if unknown */
+	void add(final ILinkView view, final Rectangle bounds) {
+		order.put(view, order.size());
+		if (bounds == null || bounds.isEmpty()) {
+			unboundedViews.add(view);
+			return;
+		}
+		this.bounds.put(view, new Rectangle(bounds));
+		final int minColumn = cell(bounds.x);
+		final int maxColumn = cell(bounds.x + bounds.width);
+		final int minRow = cell(bounds.y);
+		final int maxRow = cell(bounds.y + bounds.height);
+		if ((long) (maxColumn - minColumn + 1) * (maxRow - minRow + 1) > MAX_CELLS_PER_VIEW) {
+			largeViews.add(view);
+			return;
+		}
+		for (int column = minColumn; column <= maxColumn; column++) {
+			for (int row = minRow; row <= maxRow; row++) {
+				final Long key = key(column, row);
+				List<ILinkView> views = cells.get(key);
+				if (views == null) {
+					views = new ArrayList<ILinkView>(2);
+					cells.put(key, views);
+				}
+				views.add(view);
+			}
+		}
+	}
+
+	/** @return the views whose bounds intersect <code>area</code> and the views without bounds, each of them once */
+	List<ILinkView> get(final Rectangle area) {
+		final IdentityHashMap<ILinkView, ILinkView> found = new IdentityHashMap<ILinkView, ILinkView>();
+		final List<ILinkView> result = new ArrayList<ILinkView>(unboundedViews);
+		for (final ILinkView view : largeViews) {
+			if (bounds.get(view).intersects(area)) {
+				result.add(view);
+			}
+		}
+		final int minColumn = cell(area.x);
+		final int maxColumn = cell(area.x + area.width);
+		final int minRow = cell(area.y);
+		final int maxRow = cell(area.y + area.height);
+		for (int column = minColumn; column <= maxColumn; column++) {
+			for (int row = minRow; row <= maxRow; row++) {
+				final List<ILinkView> views = cells.get(key(column, row));
+				if (views == null) {
+					continue;
+				}
+				for (final ILinkView view : views) {
+					if (bounds.get(view).intersects(area) && found.put(view, view) == null) {
+						result.add(view);
+					}
+				}
+			}
+		}
+		Collections.sort(result, new Comparator<ILinkView>() {
+			public int compare(final ILinkView o1, final ILinkView o2) {
+				return order.get(o1).compareTo(order.get(o2));
+			}
+		});
+		return result;
+	}
+
+	private static int cell(final int coordinate) {
+		return (int) Math.floor(coordinate / (double) CELL_SIZE);
+	}
+
+	private static Long key(final int column, final int row) {
+		return Long.valueOf(((long) column << 32) | (row & 0xffffffffL));
+	}
+}
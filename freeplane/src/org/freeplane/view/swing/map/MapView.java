@@ -73,15 +73,16 @@ import org.freeplane.features.attribute.ModelessAttributeController;
 import org.freeplane.features.filter.Filter;
 import org.freeplane.features.link.ConnectorModel;
 import org.freeplane.features.link.ConnectorModel.Shape;
-import org.freeplane.features.link.LinkController;
 import org.freeplane.features.link.LinkModel;
-import org.freeplane.features.link.NodeLinks;
+import org.freeplane.features.link.MapLinks;
 import org.freeplane.features.map.IMapChangeListener;
 import org.freeplane.features.map.IMapSelection;
+import org.freeplane.features.map.INodeChangeListener;
 import org.freeplane.features.map.INodeView;
 import org.freeplane.features.map.MapChangeEvent;
 import org.freeplane.features.map.MapController;
 import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.SummaryNode;
 import org.freeplane.features.mode.Controller;
@@ -102,7 +103,8 @@ import org.freeplane.view.swing.map.link.ILinkView;
  * This class represents the view of a whole MindMap (in analogy to class
  * JTree).
  */
-public class MapView extends JPanel implements Printable, Autoscroll, IMapChangeListener, IFreeplanePropertyListener {
+public class MapView extends JPanel implements Printable, Autoscroll, IMapChangeListener, INodeChangeListener,
+        IFreeplanePropertyListener {
 	
 
 	private class Resizer extends HierarchyBoundsAdapter{
@@ -398,6 +400,8 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	private Point anchorContentLocation;
 	/** Used to identify a right click onto a link curve. */
 	private Vector<ILinkView> arrowLinkViews;
+	/** bounds of the link views in arrowLinkViews, valid until the next layout or change */
+	private LinkViewIndex linkViewIndex;
 	private Color background = null;
 	private Rectangle boundingRectangle = null;
 	private int centerNodeCounter;
@@ -1039,6 +1043,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	}
 
 	public void mapChanged(final MapChangeEvent event) {
+		invalidateLinkViews();
 		final Object property = event.getProperty();
 		if (property.equals(MapStyle.RESOURCES_BACKGROUND_COLOR)) {
 			setBackground(requiredBackground());
@@ -1167,14 +1172,23 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		return selectSibling(continious, true, false);
     }
 
+	public void nodeChanged(final NodeChangeEvent event) {
+		if (event.getNode().getMap() == model) {
+			invalidateLinkViews();
+		}
+	}
+
 	public void onNodeDeleted(final NodeModel parent, final NodeModel child, final int index) {
+		invalidateLinkViews();
 	}
 
 	public void onNodeInserted(final NodeModel parent, final NodeModel child, final int newIndex) {
+		invalidateLinkViews();
 	}
 
 	public void onNodeMoved(final NodeModel oldParent, final int oldIndex, final NodeModel newParent,
 	                        final NodeModel child, final int newIndex) {
+		invalidateLinkViews();
 	}
 
 	public void onPreNodeDelete(final NodeModel oldParent, final NodeModel selectedNode, final int index) {
@@ -1308,82 +1322,113 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 		return paintingMode;
 	}
 
-	private void paintLinks(final Collection<LinkModel> links, final Graphics2D graphics,
-	                        final HashSet<ConnectorModel> alreadyPaintedLinks) {
-		final Font font = graphics.getFont();
-		try {
-			final Iterator<LinkModel> linkIterator = links.iterator();
-			while (linkIterator.hasNext()) {
-				final LinkModel next = linkIterator.next();
-				if (!(next instanceof ConnectorModel)) {
+	private ILinkView createLinkView(final ConnectorModel ref) {
+		final NodeModel source = ref.getSource();
+		final NodeModel target = ref.getTarget();
+		final NodeView sourceView = getNodeView(source);
+		final NodeView targetView = getNodeView(target);
+		if (sourceView != null && targetView != null
+		        && (Shape.EDGE_LIKE.equals(ref.getShape()) || sourceView.getMap().getLayoutType() == MapViewLayout.OUTLINE)
+		        && source.isVisible() && target.isVisible()) {
+			return new EdgeLinkView(ref, getModeController(), sourceView, targetView);
+		}
+		return new ConnectorView(ref, sourceView, targetView, getBackground());
+	}
+
+	/**
+	 * returns the connectors of the map with a shown node at either end, connectors between nodes inside folded
+	 * branches have no view. The target of a connector is only read from an unloaded subtree if its source is shown.
+	 */
+	static List<ConnectorModel> getShownConnectors(final MapModel map, final Set<NodeModel> shownNodes) {
+		final List<ConnectorModel> connectors = new ArrayList<ConnectorModel>();
+		final MapLinks links = MapLinks.getLinks(map);
+		if (links == null) {
+			return connectors;
+		}
+		for (final LinkModel link : links.getAllLinks()) {
+			if (!(link instanceof ConnectorModel)) {
+				continue;
+			}
+			final ConnectorModel connector = (ConnectorModel) link;
+			final NodeModel source = connector.getSource();
+			if (!isAttached(map, source)) {
+				continue;
+			}
+			final NodeModel target;
+			if (shownNodes.contains(source)) {
+				target = connector.getTarget();
+			}
+			else {
+				target = map.getLoadedNodeForID(connector.getTargetID());
+				if (!shownNodes.contains(target)) {
 					continue;
 				}
-				final ConnectorModel ref = (ConnectorModel) next;
-				if (alreadyPaintedLinks.add(ref)) {
-					final NodeModel target = ref.getTarget();
-					if (target == null) {
-						continue;
-					}
-					final NodeModel source = ref.getSource();
-					final NodeView sourceView = getNodeView(source);
-					final NodeView targetView = getNodeView(target);
-					final ILinkView arrowLink;
-					if (sourceView != null && targetView != null
-					        && (Shape.EDGE_LIKE.equals(ref.getShape()) || sourceView.getMap().getLayoutType() == MapViewLayout.OUTLINE)
-					        && source.isVisible() && target.isVisible()) {
-						arrowLink = new EdgeLinkView(ref, getModeController(), sourceView, targetView);
-					}
-					else {
-						arrowLink = new ConnectorView(ref, sourceView, targetView, getBackground());
-					}
-					arrowLink.paint(graphics);
-					arrowLinkViews.add(arrowLink);
-				}
+			}
+			if (target != null) {
+				connectors.add(connector);
 			}
 		}
-		finally {
-			graphics.setFont(font);
+		return connectors;
+	}
+
+	private static boolean isAttached(final MapModel map, NodeModel node) {
+		while (node.getParentNode() != null) {
+			node = node.getParentNode();
+		}
+		return node == map.getRootNode();
+	}
+
+	private void addShownNodes(final NodeView view, final Set<NodeModel> shownNodes) {
+		shownNodes.add(view.getModel());
+		final int componentCount = view.getComponentCount();
+		for (int i = 0; i < componentCount; i++) {
+			final Component component = view.getComponent(i);
+			if (component instanceof NodeView) {
+				addShownNodes((NodeView) component, shownNodes);
+			}
 		}
 	}
 
+	/**
+	 * The link views are created and indexed by their bounds after a layout or a change without painting them. Only
+	 * the views intersecting the clip are painted.
+	 */
 	private void paintLinks(final Graphics2D graphics) {
-		arrowLinkViews = new Vector<ILinkView>();
 		final Object renderingHint = getModeController().getController().getMapViewManager().setEdgesRenderingHint(
 		    graphics);
-		paintLinks(rootView, graphics, new HashSet<ConnectorModel>());
+		final Font font = graphics.getFont();
+		try {
+			if (linkViewIndex == null || arrowLinkViews == null) {
+				createLinkViews(graphics);
+			}
+			final Rectangle clip = graphics.getClipBounds();
+			for (final ILinkView linkView : clip == null ? arrowLinkViews : linkViewIndex.get(clip)) {
+				linkView.paint(graphics);
+			}
+		}
+		finally {
+			graphics.setFont(font);
+		}
 		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, renderingHint);
 	}
 
-	private void paintLinks(final NodeView source, final Graphics2D graphics,
-	                        final HashSet<ConnectorModel> alreadyPaintedLinks) {
-		final NodeModel node = source.getModel();
-		final Collection<LinkModel> outLinks = NodeLinks.getLinks(node);
-		paintLinks(outLinks, graphics, alreadyPaintedLinks);
-		final Collection<LinkModel> inLinks = LinkController.getController(getModeController()).getLinksTo(node);
-		paintLinks(inLinks, graphics, alreadyPaintedLinks);
-		final int nodeViewCount = source.getComponentCount();
-		for (int i = 0; i < nodeViewCount; i++) {
-			final Component component = source.getComponent(i);
-			if (!(component instanceof NodeView)) {
-				continue;
-			}
-			final NodeView child = (NodeView) component;
-			if (!isPrinting) {
-				final Rectangle bounds = SwingUtilities.convertRectangle(source, child.getBounds(), this);
-				final JViewport vp = (JViewport) getParent();
-				if(vp != null){
-					final Rectangle viewRect = vp.getViewRect();
-					viewRect.x -= viewRect.width;
-					viewRect.y -= viewRect.height;
-					viewRect.width *= 3;
-					viewRect.height *= 3;
-					if (!viewRect.intersects(bounds)) {
-						continue;
-					}
-				}
-			}
-			paintLinks(child, graphics, alreadyPaintedLinks);
+	private void createLinkViews(final Graphics2D graphics) {
+		arrowLinkViews = new Vector<ILinkView>();
+		final LinkViewIndex index = new LinkViewIndex();
+		final Set<NodeModel> shownNodes = new HashSet<NodeModel>();
+		addShownNodes(rootView, shownNodes);
+		for (final ConnectorModel connector : getShownConnectors(model, shownNodes)) {
+			final ILinkView arrowLink = createLinkView(connector);
+			arrowLinkViews.add(arrowLink);
+			index.add(arrowLink, arrowLink instanceof ConnectorView ? ((ConnectorView) arrowLink).measure(graphics)
+			        : null);
 		}
+		linkViewIndex = index;
+	}
+
+	/** called when the painted link views may change, they are created again by the next painting */
+	void invalidateLinkViews() {
+		linkViewIndex = null;
 	}
 
 	private void paintSelecteds(final Graphics2D g) {
@@ -1901,6 +1946,7 @@ public class MapView extends JPanel implements Printable, Autoscroll, IMapChange
 	}
 
 	public void propertyChanged(String propertyName, String newValue, String oldValue) {
+		invalidateLinkViews();
 		if(propertyName.equals(TextController.MARK_TRANSFORMED_TEXT))
 			UITools.repaintAll(getRoot());
 	}
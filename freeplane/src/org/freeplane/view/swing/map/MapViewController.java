@@ -258,6 +258,7 @@ public class MapViewController implements IMapViewManager , IMapViewChangeListen
 		}
 		int index = mapViewVector.indexOf(mapView);
 		mapController.removeMapChangeListener(mapView);
+		mapController.removeNodeChangeListener(mapView);
 		ResourceController.getResourceController().removePropertyChangeListener(mapView);
 		mapViewVector.remove(mapView);
 		if (mapViewVector.isEmpty()) {
@@ -455,6 +456,7 @@ public class MapViewController implements IMapViewManager , IMapViewChangeListen
 		final MapView mapView = new MapView(map, modeController);
 		addToOrChangeInMapViews(mapView.getName(), mapView);
 		modeController.getMapController().addMapChangeListener(mapView);
+		modeController.getMapController().addNodeChangeListener(mapView);
 		ResourceController.getResourceController().addPropertyChangeListener(mapView);
 		mapViewChangeListeners.mapViewCreated(mapView);
 		changeToMapView(mapView);
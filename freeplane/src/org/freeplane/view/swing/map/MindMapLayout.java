@@ -72,6 +72,7 @@ public class MindMapLayout implements LayoutManager {
 
 	public void layoutContainer(final Container c) {
 		final MapView mapView = (MapView) c;
+		mapView.invalidateLinkViews();
 		final int calcXBorderSize = calcXBorderSize(mapView);
 		final int calcYBorderSize = calcYBorderSize(mapView);
 		getRoot(mapView).validate();
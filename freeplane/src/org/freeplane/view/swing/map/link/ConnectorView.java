@@ -110,7 +110,8 @@ public class ConnectorView extends AConnectorView{
 		return new CollisionDetector().detectCollision(p, arrowLinkCurve);
 	}
 
-	private Rectangle drawEndPointText(final Graphics2D g, final String text, final Point endPoint, final Point controlPoint) {
+	private Rectangle drawEndPointText(final Graphics2D g, final String text, final Point endPoint, final Point controlPoint,
+	                                   final boolean draw) {
 		if (text == null || text.equals("")) {
 			return null;
 		}
@@ -131,11 +132,13 @@ public class ConnectorView extends AConnectorView{
 		else {
 			y = endPoint.y - textHeight - LABEL_GAP;
 		}
-		textPainter.draw(x, y, textColor, bgColor);
+		if (draw) {
+			textPainter.draw(x, y, textColor, bgColor);
+		}
 		return new Rectangle(x, y, textWidth, textHeight);
 	}
 	
-	private Rectangle drawMiddleLabel(final Graphics2D g, final String text, final Point centerPoint) {
+	private Rectangle drawMiddleLabel(final Graphics2D g, final String text, final Point centerPoint, final boolean draw) {
 		if (text == null || text.equals("")) {
 			return null;
 		}
@@ -144,7 +147,9 @@ public class ConnectorView extends AConnectorView{
 		final int x = centerPoint.x - textWidth / 2;
 		final int textHeight = textPainter.getTextHeight();
 		int y = centerPoint.y - textHeight/2;
-		textPainter.draw(x, y, textColor, bgColor);
+		if (draw) {
+			textPainter.draw(x, y, textColor, bgColor);
+		}
 		return new Rectangle(x, y, textWidth, textHeight);
 	}
 
@@ -282,6 +287,31 @@ public class ConnectorView extends AConnectorView{
 	 * @see org.freeplane.view.swing.map.link.ILinkView#paint(java.awt.Graphics)
 	 */
 	public void paint(final Graphics graphics) {
+		paint(graphics, true);
+	}
+
+	/**
+	 * computes the curve and the label bounds like {@link #paint(Graphics)} does, without drawing anything.
+	 * @return the bounds of everything {@link #paint(Graphics)} would draw, or null if it would draw nothing.
+	 */
+	public Rectangle measure(final Graphics graphics) {
+		paint(graphics, false);
+		final Rectangle bounds = getPaintedBounds();
+		if (bounds != null) {
+			// the stroke, the arrows and the circles at the control points are painted around the curve
+			int margin = (int) Math.ceil(stroke.getLineWidth() / 2 + getZoom() * 10);
+			if (source != null) {
+				margin = Math.max(margin, source.getZoomedFoldingSymbolHalfWidth() + 1);
+			}
+			if (target != null) {
+				margin = Math.max(margin, target.getZoomedFoldingSymbolHalfWidth() + 1);
+			}
+			bounds.grow(margin, margin);
+		}
+		return bounds;
+	}
+
+	private void paint(final Graphics graphics, final boolean draw) {
         final boolean selfLink = getSource() == getTarget();
 		if (!isSourceVisible() && !isTargetVisible()) {
 			return;
@@ -338,8 +368,8 @@ public class ConnectorView extends AConnectorView{
 			endPoint2.translate(((targetIsLeft) ? -1 : 1) * getMap().getZoomed(endInclination.x), getMap()
 				.getZoomed(endInclination.y));
 		}
-		paintCurve(g, startPoint, startPoint2, endPoint2, endPoint);
-		drawLabels(g, startPoint, startPoint2, endPoint2, endPoint);
+		paintCurve(g, startPoint, startPoint2, endPoint2, endPoint, draw);
+		drawLabels(g, startPoint, startPoint2, endPoint2, endPoint, draw);
 		g.setColor(oldColor);
 	}
 
@@ -362,7 +392,8 @@ public class ConnectorView extends AConnectorView{
 		return generalPath;
     }
 
-	private void paintCurve(final Graphics2D g, Point startPoint, Point startPoint2, Point endPoint2, Point endPoint) {
+	private void paintCurve(final Graphics2D g, Point startPoint, Point startPoint2, Point endPoint2, Point endPoint,
+	                        final boolean draw) {
 		final boolean selfLink = getSource() == getTarget();
 		final boolean isLine = ConnectorModel.Shape.LINE.equals(connectorModel.getShape());
 		if (startPoint != null && endPoint != null) {
@@ -381,6 +412,15 @@ public class ConnectorView extends AConnectorView{
 		}
 		else
 			arrowLinkCurve = null;
+		if (!draw) {
+			if (arrowLinkCurve == null && startPoint != null) {
+				arrowLinkCurve = createLine(startPoint, startPoint2);
+			}
+			if (arrowLinkCurve == null && endPoint != null) {
+				arrowLinkCurve = createLine(endPoint, endPoint2);
+			}
+			return;
+		}
 	    if (arrowLinkCurve != null) {
 			g.draw(arrowLinkCurve);
 		}
@@ -431,7 +471,8 @@ public class ConnectorView extends AConnectorView{
 	    paintArrow(from, to, g, getZoom() * 10);
     }
 
-	private void drawLabels(final Graphics2D g, Point startPoint, Point startPoint2, Point endPoint2, Point endPoint) {
+	private void drawLabels(final Graphics2D g, Point startPoint, Point startPoint2, Point endPoint2, Point endPoint,
+	                        final boolean draw) {
 	    final String sourceLabel = connectorModel.getSourceLabel();
 		final String middleLabel = connectorModel.getMiddleLabel();
 		final String targetLabel = connectorModel.getTargetLabel();
@@ -446,19 +487,19 @@ public class ConnectorView extends AConnectorView{
         g.setFont(linksFont);
 
 		if (startPoint != null) {
-			sourceTextRectangle = drawEndPointText(g, sourceLabel, startPoint, startPoint2);
+			sourceTextRectangle = drawEndPointText(g, sourceLabel, startPoint, startPoint2, draw);
 			if (endPoint == null) {
-				middleTextRectangle = drawEndPointText(g, middleLabel, startPoint2, startPoint);
+				middleTextRectangle = drawEndPointText(g, middleLabel, startPoint2, startPoint, draw);
 			}
 		}
 		if (endPoint != null) {
-			targetTextRectangle = drawEndPointText(g, targetLabel, endPoint, endPoint2);
+			targetTextRectangle = drawEndPointText(g, targetLabel, endPoint, endPoint2, draw);
 			if (startPoint == null) {
-				middleTextRectangle = drawEndPointText(g, middleLabel, endPoint2, endPoint);
+				middleTextRectangle = drawEndPointText(g, middleLabel, endPoint2, endPoint, draw);
 			}
 		}
                 if (startPoint != null && endPoint != null) {
-                    middleTextRectangle = drawMiddleLabel(g, middleLabel, getCenterPoint());
+                    middleTextRectangle = drawMiddleLabel(g, middleLabel, getCenterPoint(), draw);
 		}
 		g.setFont(oldFont);
     }
@@ -495,6 +536,26 @@ public class ConnectorView extends AConnectorView{
 		increaseBounds(innerBounds, targetTextRectangle);
 	}
 
+	/**
+	 * @return the bounds of the curve including its control points and of the labels as painted or measured last
+	 * time, or null if nothing was painted.
+	 */
+	public Rectangle getPaintedBounds() {
+		final Shape arrowLinkCurve = getArrowLinkCurve();
+		final Rectangle bounds = arrowLinkCurve != null ? arrowLinkCurve.getBounds() : null;
+		return union(union(union(bounds, sourceTextRectangle), middleTextRectangle), targetTextRectangle);
+	}
+
+	private Rectangle union(final Rectangle bounds, final Rectangle rect) {
+		if (bounds == null) {
+			return rect == null ? null : new Rectangle(rect);
+		}
+		if (rect != null) {
+			bounds.add(rect);
+		}
+		return bounds;
+	}
+
 	private void increaseBounds(Rectangle innerBounds, Rectangle rect) {
 	    if (rect != null)
                 innerBounds.add(rect);
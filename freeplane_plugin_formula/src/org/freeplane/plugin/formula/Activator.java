@@ -40,6 +40,8 @@ public class Activator implements BundleActivator {
 				if (disableCacheProperty) {
 					System.err.println("Formula cache disabled."
 					        + " This might severely impair performance when using formulas.");
+					// formulas have to be evaluated whenever they are displayed
+					TextController.getController(modeController).getTransformationCache().setEnabled(false);
 				}
 			}
 			else {
@@ -5,6 +5,8 @@ import java.awt.event.ActionEvent;
 import org.freeplane.core.ui.AFreeplaneAction;
 import org.freeplane.features.map.MapModel;
 import org.freeplane.features.mode.Controller;
+import org.freeplane.features.text.TextController;
+import org.freeplane.plugin.script.FormulaRecalculation;
 import org.freeplane.view.swing.map.MapView;
 
 class EvaluateAllAction extends AFreeplaneAction {
@@ -16,7 +18,9 @@ class EvaluateAllAction extends AFreeplaneAction {
 
 	public void actionPerformed(final ActionEvent e) {
 		final MapModel map = Controller.getCurrentController().getMap();
-		org.freeplane.plugin.script.FormulaUtils.clearCache(map);
+		// evaluate in dependency order first so that the view is refreshed only once with the final values
+		new FormulaRecalculation(map).run();
+		TextController.getController().getTransformationCache().invalidate(map);
 		MapView mapView = (MapView)Controller.getCurrentController().getMapViewManager().getMapViewComponent();
 		mapView.getRoot().updateAll();
 	}
@@ -30,17 +30,20 @@ public class FormulaUpdateChangeListener implements INodeChangeListener, IMapCha
 	}
 
 	public void onNodeDeleted(NodeModel parent, NodeModel child, int index) {
+		FormulaUtils.structureChanged(parent.getMap());
 		nodeChangedImpl(true, parent);
 	}
 
 	public void onNodeInserted(NodeModel parent, NodeModel child, int newIndex) {
 		// all formulas dependent on the child via getChildren() are also dependent on its parent
+		FormulaUtils.structureChanged(parent.getMap());
 		nodeChangedImpl(true, parent);
 	}
 
 	public void onNodeMoved(NodeModel oldParent, int oldIndex, NodeModel newParent, NodeModel child, int newIndex) {
 		// - all formulas dependent on the child via getChildren() are also dependent on its parent
 		// FIXME: is child updated or do we have to force that here?
+		FormulaUtils.structureChanged(newParent.getMap());
 		nodeChangedImpl(true, oldParent, newParent);
 	}
 
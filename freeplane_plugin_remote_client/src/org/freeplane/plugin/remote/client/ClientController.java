@@ -225,6 +225,10 @@ public class ClientController {
 		return applyChangeActor;
 	}
 
+	public ActorRef initCollaborationActor() {
+		return initCollaborationactor;
+	}
+
 	public ActorRef listenForUpdatesActor() {
 		return listenForUpdatesActor;
 	}
@@ -8,12 +8,16 @@ import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.map.MapModel;
 import org.freeplane.features.mapio.mindmapmode.MMapIO;
+import org.freeplane.features.mode.Controller;
 import org.freeplane.n3.nanoxml.XMLException;
 import org.freeplane.plugin.remote.client.ClientController;
 import org.freeplane.plugin.remote.client.ClientController.CheckForChangesRunnable;
 import org.freeplane.plugin.remote.client.User;
 import org.freeplane.plugin.remote.client.actors.InitCollaborationActor.Messages.InitCollaborationMode;
+import org.freeplane.plugin.remote.client.actors.InitCollaborationActor.Messages.ReloadMap;
 import org.freeplane.plugin.remote.client.actors.ListenForUpdatesActor.Messages.SetMapAndRevision;
 import org.freeplane.plugin.remote.client.services.WS;
 
@@ -21,6 +25,7 @@ import scala.concurrent.Future;
 import scala.concurrent.duration.Duration;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
+import akka.actor.Status;
 import akka.pattern.Patterns;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -28,6 +33,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 public class InitCollaborationActor extends FreeplaneClientActor {
 
 	private String mapId = null;
+	private MapModel map = null;
+	private boolean reloading = false;
+	private boolean checkingForChanges = false;
 
 	public InitCollaborationActor(ClientController clientController) {
 		super(clientController);
@@ -43,6 +51,23 @@ public class InitCollaborationActor extends FreeplaneClientActor {
 			Patterns.pipe(loginFuture, getContext().system().dispatcher()).to(getSelf());
 
 		}
+		// updates since the revision of the open map are no longer available
+		else if (message instanceof ReloadMap) {
+			if (!((ReloadMap) message).getMapId().equals(mapId)) {
+				return;
+			}
+			reloading = true;
+			final User user = getClientController().getUser();
+			final WS ws = getClientController().webservice();
+			final Future<JsonNode> mindmapFuture = ws.getMapAsXml(user.getUsername(), user.getAccessToken(), mapId);
+			Patterns.pipe(mindmapFuture, getContext().system().dispatcher()).to(getSelf());
+		}
+		else if (message instanceof Status.Failure) {
+			LogUtils.warn("loading map " + mapId + " failed", ((Status.Failure) message).cause());
+			if (reloading) {
+				getContext().system().scheduler().scheduleOnce(Duration.create(5, TimeUnit.SECONDS), getSelf(), new ReloadMap(mapId), getContext().system().dispatcher());
+			}
+		}
 		// login response
 		else if (message instanceof User) {
 			final User user = (User) message;
@@ -67,8 +92,10 @@ public class InitCollaborationActor extends FreeplaneClientActor {
 				FileUtils.writeStringToFile(file, xmlString);
 				final URL pathURL = file.toURI().toURL();
 
+				closeMap();
 				final MMapIO mio = (MMapIO) ClientController.getMapIO();
 				mio.newMap(pathURL);
+				map = Controller.getCurrentController().getMap();
 			} catch (IOException e) {
 				throw new AssertionError(e);
 			} catch (URISyntaxException e) {
@@ -83,12 +110,32 @@ public class InitCollaborationActor extends FreeplaneClientActor {
 			listenForUpdatesActor.tell(new SetMapAndRevision(mapId, currentRevision), getSelf());
 			listenForUpdatesActor.tell("listen", getSelf());
 
+			reloading = false;
+			if (checkingForChanges) {
+				return;
+			}
+			checkingForChanges = true;
 			final ActorSystem system = getContext().system();
 			system.scheduler().schedule(Duration.Zero(), Duration.create(1, TimeUnit.SECONDS), new CheckForChangesRunnable(getClientController()), system.dispatcher());
 		}
 
 	}
 
+	/**
+	 * closes the former version of the map without saving it, its changes are
+	 * contained in the reloaded map.
+	 */
+	private void closeMap() {
+		if (map == null) {
+			return;
+		}
+		final Controller controller = Controller.getCurrentController();
+		if (controller.getMap() == map) {
+			controller.close(true);
+		}
+		map = null;
+	}
+
 	public static final class Messages {
 		public static class InitCollaborationMode {
 			private final String mapId;
@@ -115,5 +162,19 @@ public class InitCollaborationActor extends FreeplaneClientActor {
 			}
 
 		}
+
+		public static class ReloadMap {
+			private final String mapId;
+
+			public ReloadMap(String mapId) {
+				super();
+				this.mapId = mapId;
+			}
+
+			public String getMapId() {
+				return mapId;
+			}
+
+		}
 	}
 }
@@ -1,5 +1,7 @@
 package org.freeplane.plugin.remote.client.actors;
 
+import java.util.concurrent.TimeUnit;
+
 import org.freeplane.core.util.LogUtils;
 import org.freeplane.plugin.remote.client.ClientController;
 import org.freeplane.plugin.remote.client.User;
@@ -7,14 +9,33 @@ import org.freeplane.plugin.remote.client.services.GetUpdatesResponse;
 import org.freeplane.plugin.remote.client.services.WS;
 import org.freeplane.plugin.remote.v10.model.updates.MapUpdate;
 
+import scala.concurrent.ExecutionContext;
 import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+import akka.actor.Status;
+import akka.dispatch.Mapper;
+import akka.dispatch.Recover;
 import akka.pattern.Patterns;
 
+/**
+ * Receives the updates of the current map. The updates are streamed by the
+ * webservice as they occur, if the webservice does not support streaming the
+ * actor listens for update occurrences and fetches the updates. If the
+ * updates since the current revision are no longer known by the webservice,
+ * the map is loaded again.
+ *
+ * Every start of listening is a new execution, results of former executions
+ * and streamed updates of other maps are discarded.
+ */
 public class ListenForUpdatesActor extends FreeplaneClientActor {
 
 	private String currentMapId;
-	private String mapIdForThisExecution;
 	private int currentRevision;
+	private int execution = 0;
+	private boolean streamingSupported = true;
+	private boolean streaming = false;
+	private boolean fetching = false;
+	private boolean waitingForReload = false;
 
 	public ListenForUpdatesActor(ClientController clientController) {
 		super(clientController);
@@ -24,35 +45,149 @@ public class ListenForUpdatesActor extends FreeplaneClientActor {
 	public void onReceive(Object message) throws Exception {
 		LogUtils.info(message.toString());
 		if (message instanceof Messages.SetMapAndRevision) {
+			stopListening();
 			currentMapId = ((Messages.SetMapAndRevision) message).getMapId();
 			currentRevision = ((Messages.SetMapAndRevision) message).getRevision();
+			waitingForReload = false;
 		} else if (message.equals("listen")) {
-			LogUtils.info("listening");
-			mapIdForThisExecution = currentMapId;
-			final User user = getClientController().getUser();
-			final Future<Boolean> future = webservice().listenIfUpdatesOccur(user.getUsername(), user.getAccessToken(), mapIdForThisExecution);
-			Patterns.pipe(future, getContext().system().dispatcher()).to(getSelf());
-		} else if (message instanceof Boolean) {
-			final Boolean updateOccured = (Boolean) message;
-			if (updateOccured && mapIdForThisExecution.equals(currentMapId)) {
+			startListening();
+		} else if (message instanceof ExecutionResult) {
+			final ExecutionResult result = (ExecutionResult) message;
+			if (result.execution != execution) {
+				// result of a former execution
+				return;
+			}
+			onExecutionResult(result.value);
+		} else if (message instanceof GetUpdatesResponse) {
+			// streamed updates
+			applyUpdates((GetUpdatesResponse) message);
+		}
+	}
+
+	private void onExecutionResult(Object result) {
+		if (result instanceof Boolean && streaming) {
+			// stream ended, false if the webservice does not support streaming
+			streaming = false;
+			if (!(Boolean) result) {
+				LogUtils.info("streaming not supported, falling back to polling");
+				streamingSupported = false;
+			}
+			startListening();
+		} else if (result instanceof Boolean) {
+			final Boolean updateOccured = (Boolean) result;
+			if (updateOccured) {
 				LogUtils.info("updates occured");
+				fetching = true;
 				final User user = getClientController().getUser();
-				final Future<GetUpdatesResponse> future = webservice().getUpdatesSinceRevision(user.getUsername(), user.getAccessToken(), mapIdForThisExecution, currentRevision);
-				Patterns.pipe(future, getContext().system().dispatcher()).to(getSelf());
+				final Future<GetUpdatesResponse> future = webservice().getUpdatesSinceRevision(user.getUsername(), user.getAccessToken(), currentMapId, currentRevision);
+				pipeToSelf(future);
 			} else {
-				getSelf().tell("listen", getSelf());
+				startListening();
 			}
-		} else if (message instanceof GetUpdatesResponse) {
-			final GetUpdatesResponse response = (GetUpdatesResponse) message;
+		} else if (result instanceof GetUpdatesResponse) {
+			fetching = false;
+			if (applyUpdates((GetUpdatesResponse) result)) {
+				startListening();
+			}
+		} else if (result instanceof Status.Failure) {
+			LogUtils.warn("listening for updates failed", ((Status.Failure) result).cause());
+			streaming = false;
+			if (fetching) {
+				// the updates since the current revision may have been discarded
+				fetching = false;
+				reloadMap();
+				return;
+			}
+			final ExecutionContext dispatcher = getContext().system().dispatcher();
+			getContext().system().scheduler().scheduleOnce(Duration.create(5, TimeUnit.SECONDS), getSelf(), new ExecutionResult(execution, "retry"), dispatcher);
+		} else if (result.equals("retry")) {
+			startListening();
+		}
+	}
 
-			this.currentRevision = response.getCurrentRevision();
+	private void startListening() {
+		stopListening();
+		if (currentMapId == null || waitingForReload) {
+			return;
+		}
+		LogUtils.info("listening");
+		final User user = getClientController().getUser();
+		streaming = streamingSupported;
+		if (streaming) {
+			pipeToSelf(webservice().streamUpdates(user.getUsername(), user.getAccessToken(), currentMapId, currentRevision, getSelf()));
+		} else {
+			pipeToSelf(webservice().listenIfUpdatesOccur(user.getUsername(), user.getAccessToken(), currentMapId));
+		}
+	}
 
-			for (MapUpdate mapUpdate : response.getOrderedUpdates()) {
-				getClientController().applyChangesActor().tell(mapUpdate, getSelf());
+	/**
+	 * starts a new execution, so that the pending results are discarded.
+	 */
+	private void stopListening() {
+		execution++;
+		if (streaming) {
+			webservice().stopStreaming(getSelf());
+		}
+		streaming = false;
+		fetching = false;
+	}
 
-			}
-			getSelf().tell("listen", getSelf());
+	/**
+	 * @return false if the updates are discarded or the map is loaded again
+	 */
+	private boolean applyUpdates(GetUpdatesResponse response) {
+		if (waitingForReload || !response.getMapId().equals(currentMapId)) {
+			// updates of the former map
+			return false;
 		}
+		if (response.isReloadRequired()) {
+			reloadMap();
+			return false;
+		}
+		if (response.getCurrentRevision() <= currentRevision) {
+			// already applied, e.g. sent by a stopped stream
+			return true;
+		}
+
+		this.currentRevision = response.getCurrentRevision();
+
+		for (MapUpdate mapUpdate : response.getOrderedUpdates()) {
+			getClientController().applyChangesActor().tell(mapUpdate, getSelf());
+
+		}
+		return true;
+	}
+
+	/**
+	 * stops listening until the map has been loaded again, the init actor
+	 * sets the new revision and restarts listening.
+	 */
+	private void reloadMap() {
+		LogUtils.info("reloading map " + currentMapId);
+		stopListening();
+		waitingForReload = true;
+		getClientController().initCollaborationActor().tell(new InitCollaborationActor.Messages.ReloadMap(currentMapId), getSelf());
+	}
+
+	/**
+	 * sends the result or the failure of the future to this actor, tagged
+	 * with the current execution.
+	 */
+	private <T> void pipeToSelf(Future<T> future) {
+		final int execution = this.execution;
+		final ExecutionContext dispatcher = getContext().system().dispatcher();
+		final Future<Object> result = future.map(new Mapper<T, Object>() {
+			@Override
+			public Object apply(T value) {
+				return new ExecutionResult(execution, value);
+			}
+		}, dispatcher).recover(new Recover<Object>() {
+			@Override
+			public Object recover(Throwable failure) {
+				return new ExecutionResult(execution, new Status.Failure(failure));
+			}
+		}, dispatcher);
+		Patterns.pipe(result, dispatcher).to(getSelf());
 	}
 
 	public int getCurrentRevision() {
@@ -72,6 +207,21 @@ public class ListenForUpdatesActor extends FreeplaneClientActor {
 		return getClientController().webservice();
 	}
 
+	private static class ExecutionResult {
+		private final int execution;
+		private final Object value;
+
+		private ExecutionResult(int execution, Object value) {
+			this.execution = execution;
+			this.value = value;
+		}
+
+		@Override
+		public String toString() {
+			return "ExecutionResult [execution=" + execution + ", value=" + value + "]";
+		}
+	}
+
 	public final static class Messages {
 		private Messages() {
 		}
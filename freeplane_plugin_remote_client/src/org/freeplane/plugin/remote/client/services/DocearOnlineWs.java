@@ -1,6 +1,10 @@
 package org.freeplane.plugin.remote.client.services;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -8,6 +12,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -23,8 +29,10 @@ import org.freeplane.plugin.remote.v10.model.updates.MapUpdate;
 import org.freeplane.plugin.remote.v10.model.updates.MoveNodeUpdate;
 
 import scala.concurrent.Await;
+import scala.concurrent.ExecutionContext;
 import scala.concurrent.Future;
 import scala.concurrent.duration.Duration;
+import akka.actor.ActorRef;
 import akka.dispatch.Futures;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -40,20 +48,28 @@ import com.sun.jersey.client.apache.ApacheHttpClient;
 import com.sun.jersey.core.util.MultivaluedMapImpl;
 
 public class DocearOnlineWs implements WS {
-	private final ClientController clientController;
-	private final String serviceUrl = "http://localhost:9000";
-	// private final String serviceUrl = "https://staging.my.docear.org";
+	private final String serviceUrl;
+	private final String source;
+	private final ExecutionContext executor;
 	private final Client restClient;
+	/** the open update stream of each receiver */
+	private final ConcurrentMap<ActorRef, HttpURLConnection> streams = new ConcurrentHashMap<ActorRef, HttpURLConnection>();
 
 	public DocearOnlineWs(ClientController clientController) {
-		this.clientController = clientController;
+		this("http://localhost:9000", clientController.source(), clientController.system().dispatcher());
+		// this("https://staging.my.docear.org", clientController.source(), clientController.system().dispatcher());
+	}
+
+	public DocearOnlineWs(String serviceUrl, final String source, ExecutionContext executor) {
+		this.serviceUrl = serviceUrl;
+		this.source = source;
+		this.executor = executor;
 		// com.google.common.util.concurrent.
 		PrintStream stream = new PrintStream(new NullOutputStream());
 		// disableCertificateValidation();
 		restClient = ApacheHttpClient.create();
 		restClient.addFilter(new LoggingFilter(stream));
 
-		final String source = clientController.source();
 		restClient.addFilter(new ClientFilter() {
 
 			@Override
@@ -96,7 +112,7 @@ public class DocearOnlineWs implements WS {
 				final ClientResponse loginResponse = resource.get(ClientResponse.class);
 				return loginResponse.getStatus() == 200;
 			}
-		}, clientController.system().dispatcher());
+		}, executor);
 
 	}
 
@@ -117,43 +133,112 @@ public class DocearOnlineWs implements WS {
 	@Override
 	public Future<GetUpdatesResponse> getUpdatesSinceRevision(String username, String accessToken, final String mapId, final int sinceRevision) {
 
-		int currentRevision = -1;
-		List<MapUpdate> updates = new ArrayList<MapUpdate>();
 		final WebResource fetchUpdates = preparedResource(username, accessToken).path("map/" + mapId + "/updates/" + sinceRevision);
 		final ClientResponse response = fetchUpdates.get(ClientResponse.class);
+		if (response.getStatus() != 200) {
+			// e.g. the updates since the revision have been discarded
+			response.close();
+			return Futures.failed(new IOException("Status: " + response.getStatus()));
+		}
 		final ObjectMapper mapper = new ObjectMapper();
 		try {
-			JsonNode json = mapper.readTree(response.getEntity(String.class));
-			currentRevision = json.get("currentRevision").asInt();
-
-			Iterator<JsonNode> it = json.get("orderedUpdates").iterator();
-			while (it.hasNext()) {
-				final JsonNode mapUpdateJson = mapper.readTree(it.next().asText());
-
-				final MapUpdate.Type type = MapUpdate.Type.valueOf(mapUpdateJson.get("type").asText());
-				switch (type) {
-				case AddNode:
-					
-					updates.add(mapper.treeToValue(mapUpdateJson, AddNodeUpdate.class));
-					break;
-				case ChangeNodeAttribute:
-					updates.add(mapper.treeToValue(mapUpdateJson, ChangeNodeAttributeUpdate.class));
-					break;
-				case DeleteNode:
-					updates.add(mapper.treeToValue(mapUpdateJson, DeleteNodeUpdate.class));
-					break;
-				case MoveNode:
-					updates.add(mapper.treeToValue(mapUpdateJson, MoveNodeUpdate.class));
-					break;
+			return Futures.successful(readUpdatesResponse(mapId, mapper, mapper.readTree(response.getEntity(String.class))));
+		} catch (Exception e) {
+			return Futures.failed(e);
+		}
+	}
 
+	@Override
+	public Future<Boolean> streamUpdates(final String username, final String accessToken, final String mapId, final int sinceRevision, final ActorRef receiver) {
+		return Futures.future(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws Exception {
+				// not read by the rest client, which can not close a stream before it ended
+				final URI uri = preparedResource(username, accessToken).path("map/" + mapId + "/updates/" + sinceRevision + "/stream").queryParam("source", source).getURI();
+				final HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+				if (connection.getResponseCode() == 404) {
+					connection.disconnect();
+					return false;
+				}
+				if (connection.getResponseCode() != 200) {
+					connection.disconnect();
+					throw new IOException("Status: " + connection.getResponseCode());
 				}
 
+				// a receiver listens to one stream only
+				close(streams.put(receiver, connection));
+				final ObjectMapper mapper = new ObjectMapper();
+				try {
+					final BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+					// one batch of updates per line, optionally as server-sent event
+					for (String line = reader.readLine(); line != null && streams.get(receiver) == connection; line = reader.readLine()) {
+						if (line.startsWith("data:")) {
+							line = line.substring("data:".length());
+						}
+						line = line.trim();
+						if (line.length() == 0 || line.startsWith(":")) {
+							continue;
+						}
+						receiver.tell(readUpdatesResponse(mapId, mapper, mapper.readTree(line)), null);
+					}
+				} catch (IOException e) {
+					if (streams.get(receiver) == connection) {
+						throw e;
+					}
+					// closed by stopStreaming or by the next stream of the receiver
+				} finally {
+					streams.remove(receiver, connection);
+					connection.disconnect();
+				}
+				return true;
 			}
-		} catch (Exception e) {
-			return Futures.failed(e);
+		}, executor);
+	}
+
+	@Override
+	public void stopStreaming(ActorRef receiver) {
+		close(streams.remove(receiver));
+	}
+
+	/**
+	 * closes the connection of a stream, so that the thread reading it stops.
+	 */
+	private void close(HttpURLConnection stream) {
+		if (stream != null) {
+			stream.disconnect();
 		}
-		return Futures.successful(new GetUpdatesResponse(currentRevision, updates));
+	}
+
+	private GetUpdatesResponse readUpdatesResponse(String mapId, ObjectMapper mapper, JsonNode json) throws IOException {
+		final int currentRevision = json.get("currentRevision").asInt();
+		final List<MapUpdate> updates = new ArrayList<MapUpdate>();
+
+		Iterator<JsonNode> it = json.get("orderedUpdates").iterator();
+		while (it.hasNext()) {
+			final JsonNode mapUpdateJson = mapper.readTree(it.next().asText());
+
+			final MapUpdate.Type type = MapUpdate.Type.valueOf(mapUpdateJson.get("type").asText());
+			switch (type) {
+			case AddNode:
+				
+				updates.add(mapper.treeToValue(mapUpdateJson, AddNodeUpdate.class));
+				break;
+			case ChangeNodeAttribute:
+				updates.add(mapper.treeToValue(mapUpdateJson, ChangeNodeAttributeUpdate.class));
+				break;
+			case DeleteNode:
+				updates.add(mapper.treeToValue(mapUpdateJson, DeleteNodeUpdate.class));
+				break;
+			case MoveNode:
+				updates.add(mapper.treeToValue(mapUpdateJson, MoveNodeUpdate.class));
+				break;
 
+			}
+
+		}
+		final JsonNode reloadRequired = json.get("reloadRequired");
+		return new GetUpdatesResponse(mapId, currentRevision, updates, reloadRequired != null && reloadRequired.asBoolean());
 	}
 
 	@Override
@@ -5,12 +5,19 @@ import java.util.List;
 import org.freeplane.plugin.remote.v10.model.updates.MapUpdate;
 
 public class GetUpdatesResponse {
+	private final String mapId;
 	private final int currentRevision;
 	private final List<MapUpdate> orderedUpdates;
-	public GetUpdatesResponse(int currentRevision, List<MapUpdate> orderedUpdates) {
+	private final boolean reloadRequired;
+	public GetUpdatesResponse(String mapId, int currentRevision, List<MapUpdate> orderedUpdates, boolean reloadRequired) {
 		super();
+		this.mapId = mapId;
 		this.currentRevision = currentRevision;
 		this.orderedUpdates = orderedUpdates;
+		this.reloadRequired = reloadRequired;
+	}
+	public String getMapId() {
+		return mapId;
 	}
 	public int getCurrentRevision() {
 		return currentRevision;
@@ -18,6 +25,13 @@ public class GetUpdatesResponse {
 	public List<MapUpdate> getOrderedUpdates() {
 		return orderedUpdates;
 	}
+	/**
+	 * @return true if the updates since the requested revision are no longer
+	 *         known by the server, the map has to be loaded again
+	 */
+	public boolean isReloadRequired() {
+		return reloadRequired;
+	}
 	
 	
 }
@@ -3,6 +3,7 @@ package org.freeplane.plugin.remote.client.services;
 import org.freeplane.plugin.remote.client.User;
 
 import scala.concurrent.Future;
+import akka.actor.ActorRef;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -21,6 +22,22 @@ public interface WS {
 	
 	Future<GetUpdatesResponse> getUpdatesSinceRevision(String username, String accessToken, String mapId, int sinceRevision);
 	
+	/**
+	 * Streams the updates of the map since the revision. Every batch pushed
+	 * by the server is sent to the receiver as {@link GetUpdatesResponse}.
+	 * Starting a stream stops the former stream of the receiver.
+	 * 
+	 * @return true when the stream ended or was stopped, false if the service
+	 *         does not support streaming
+	 */
+	Future<Boolean> streamUpdates(String username, String accessToken, String mapId, int sinceRevision, ActorRef receiver);
+	
+	/**
+	 * Stops the stream of the receiver, batches which have already been
+	 * read may still be sent.
+	 */
+	void stopStreaming(ActorRef receiver);
+	
 	Future<String> createNode(String username, String accessToken, String mapId, String parentNodeId);
 	
 	Future<Boolean> moveNodeTo(String username, String accessToken, String mapId, String newParentId, String nodeToMoveId, int newIndex);
@@ -4,6 +4,28 @@ import java.io.Serializable;
 
 public class InternalMessages {
 
+	/** sent by a map actor to the main actor when it has handled a request to open its map */
+	@SuppressWarnings("serial")
+	public static class OpenMapFinished implements Serializable {
+		private final String mapId;
+		private final boolean mapOpen;
+
+		public OpenMapFinished(String mapId, boolean mapOpen) {
+			super();
+			this.mapId = mapId;
+			this.mapOpen = mapOpen;
+		}
+
+		public String getMapId() {
+			return mapId;
+		}
+
+		/** false if the map could not be opened and no former map with the id is open */
+		public boolean isMapOpen() {
+			return mapOpen;
+		}
+	}
+
 	@SuppressWarnings("serial")
 	public static class ReleaseTimedOutLocks implements Serializable {
 		private final Long millisecondsSinceRequest;
@@ -4,16 +4,16 @@ import java.io.Serializable;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.docear.messages.Messages.ListenToUpdateOccurrenceRespone;
+import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeModel;
-import org.freeplane.plugin.remote.v10.model.updates.AddNodeUpdate;
-import org.freeplane.plugin.remote.v10.model.updates.ChangeNodeAttributeUpdate;
-import org.freeplane.plugin.remote.v10.model.updates.DeleteNodeUpdate;
+import org.freeplane.plugin.remote.SubscriptionMessages.PushedUpdatesResponse;
 import org.freeplane.plugin.remote.v10.model.updates.MapUpdate;
-import org.freeplane.plugin.remote.v10.model.updates.MoveNodeUpdate;
 
 import akka.actor.ActorRef;
 
@@ -21,49 +21,63 @@ public class OpenMindmapInfo implements Serializable {
 	private static final long serialVersionUID = 1L;
 
 	private final URL mapUrl;
+	private transient MapModel map;
 	private final Set<NodeModel> lockedNodes;
 	private long lastAccessTime;
 	private long lastUpdateTime;
 	private final String name;
-	private final List<MapUpdate> updateList;
+	private final UpdateLog updateLog;
 	private final List<ActorRef> listeningActors;
+	// subscribers and the revision pushed to them
+	private final Map<ActorRef, Integer> subscribers;
 
 	public OpenMindmapInfo(URL mapUrl, String name) {
 		this.mapUrl = mapUrl;
 		this.name = name;
 		this.lockedNodes = new HashSet<NodeModel>();
-		this.updateList = new ArrayList<MapUpdate>();
+		this.updateLog = new UpdateLog();
 		this.listeningActors = new ArrayList<ActorRef>();
+		this.subscribers = new LinkedHashMap<ActorRef, Integer>();
 		updateAccessTime();
 	}
 
-	public URL getMapUrl() {
+	public synchronized URL getMapUrl() {
 		updateAccessTime();
 		return mapUrl;
 	}
 
-	public Set<NodeModel> getLockedNodes() {
+	/** the loaded map, requests use it without selecting the map by its url */
+	public synchronized MapModel getMap() {
+		updateAccessTime();
+		return map;
+	}
+
+	public synchronized void setMap(MapModel map) {
+		this.map = map;
+	}
+
+	public synchronized Set<NodeModel> getLockedNodes() {
 		updateUpdateTime();
 		return lockedNodes;
 	}
 	
-	public void addLockedNode(NodeModel freeplaneNode) {
+	public synchronized void addLockedNode(NodeModel freeplaneNode) {
 		updateAccessTime();
 		updateUpdateTime();
 		lockedNodes.add(freeplaneNode);
 	}
 	
-	public void removeLockedNode(NodeModel freeplaneNode) {
+	public synchronized void removeLockedNode(NodeModel freeplaneNode) {
 		updateAccessTime();
 		updateUpdateTime();
 		lockedNodes.remove(freeplaneNode);
 	}
 
-	public long getLastAccessTime() {
+	public synchronized long getLastAccessTime() {
 		return lastAccessTime;
 	}
 	
-	public long getLastUpdateTime() {
+	public synchronized long getLastUpdateTime() {
 		return lastUpdateTime;
 	}
 
@@ -80,13 +94,16 @@ public class OpenMindmapInfo implements Serializable {
 		lastUpdateTime = System.currentTimeMillis();
 	}
 	
-	public int getCurrentRevision() {
-		return updateList.size();
+	public synchronized int getCurrentRevision() {
+		return updateLog.getCurrentRevision();
 	}
 	
-	public void addUpdate(MapUpdate updateStatement) {
+	/**
+	 * @return the json of the update
+	 */
+	public synchronized String addUpdate(MapUpdate updateStatement) {
 		RemoteController.getLogger().debug("OpenMindmapInfo.addUpdate => update added: "+updateStatement.getClass().getSimpleName());
-		updateList.add(updateStatement);
+		final String json = updateLog.add(updateStatement);
 		updateUpdateTime();
 		//tell listeners that change has happened
 		for(ActorRef ref : listeningActors) {
@@ -94,84 +111,49 @@ public class OpenMindmapInfo implements Serializable {
 		}
 		//empty list, because they have to register again
 		listeningActors.clear();
+		return json;
 	}
 	
-	public void registerUpdateListener(ActorRef actor) {
+	public synchronized void registerUpdateListener(ActorRef actor) {
 		listeningActors.add(actor);
 	}
-	
-	public List<String> getUpdateListAsJson(long sinceRevisionNumber) {
-		return getShortUpdateListAsJson((int)sinceRevisionNumber);
+
+	public synchronized void subscribe(ActorRef actor, int sinceRevision) {
+		subscribers.put(actor, sinceRevision);
 	}
-	
-	public List<String> getShortUpdateListAsJson(int sinceRevision) {
-		final List<String> shortList = new ArrayList<String>();
-		for(int i = sinceRevision; i < updateList.size(); i++) {
-			final MapUpdate update = updateList.get(i);
-			boolean hasMatch = false;
-			if(update instanceof AddNodeUpdate) {
-				hasMatch = hasMatch((AddNodeUpdate)update, i+1);
-			} else if(update instanceof ChangeNodeAttributeUpdate) {
-				hasMatch = hasMatch((ChangeNodeAttributeUpdate) update, i+1);
-			} else if(update instanceof MoveNodeUpdate) {
-				hasMatch = hasMatch((MoveNodeUpdate)update, i+1);
-			}
 
-			if(!hasMatch)
-				shortList.add(update.toJson());
-		}
-		return shortList;
+	public synchronized void unsubscribe(ActorRef actor) {
+		subscribers.remove(actor);
 	}
-	
-	private boolean hasMatch(AddNodeUpdate update, int sinceRevision) {
-		//has to check, if node has been deleted in future
-		
-		for(int j = sinceRevision; j < updateList.size(); j++) { //check against all coming events
-			final MapUpdate curUpdate = updateList.get(j);
-			if(curUpdate instanceof DeleteNodeUpdate) {
-				final DeleteNodeUpdate delUpdate = (DeleteNodeUpdate)curUpdate;
-				if (delUpdate.getNodeId().equals(update.getNewNodeId())) {
-					return true;
-				}
+
+	/**
+	 * pushes the updates added since the last push to the subscribers, all
+	 * updates of a request are sent in one message
+	 */
+	public synchronized void pushUpdates(String mapId) {
+		final int currentRevision = updateLog.getCurrentRevision();
+		for (Map.Entry<ActorRef, Integer> entry : subscribers.entrySet()) {
+			final int sinceRevision = entry.getValue();
+			if (sinceRevision >= currentRevision) {
+				continue;
 			}
-		}
-		return false;
-	}
-	
-	private boolean hasMatch(ChangeNodeAttributeUpdate update, int sinceRevision) {
-		//has to check, if node has been deleted in future
-		//has to check, if attribute has been changed in future
-		
-		for(int j = sinceRevision; j < updateList.size(); j++) { //check against all coming events
-			final MapUpdate curUpdate = updateList.get(j);
-			if(curUpdate instanceof DeleteNodeUpdate) {
-				final DeleteNodeUpdate delUpdate = (DeleteNodeUpdate)curUpdate;
-				if (delUpdate.getNodeId().equals(update.getNodeId())) {
-					return true;
-				}
-			} else if(curUpdate instanceof ChangeNodeAttributeUpdate) {
-				final ChangeNodeAttributeUpdate changeUpdate =(ChangeNodeAttributeUpdate) curUpdate; 
-				if(changeUpdate.getNodeId().equals(update.getNodeId())
-						&& changeUpdate.getAttribute().equals(update.getAttribute())) {
-					return true;
-				}
+			PushedUpdatesResponse response;
+			try {
+				response = new PushedUpdatesResponse(mapId, currentRevision, updateLog.getUpdatesSince(sinceRevision), false);
+			} catch (IllegalArgumentException e) {
+				response = new PushedUpdatesResponse(mapId, currentRevision, new ArrayList<String>(), true);
 			}
+			entry.getKey().tell(response, null);
+			entry.setValue(currentRevision);
 		}
-		return false;
 	}
 	
-	private boolean hasMatch(MoveNodeUpdate update, int sinceRevision) {
-		//has to check, if node has been deleted in future
-		
-		for(int j = sinceRevision; j < updateList.size(); j++) { //check against all coming events
-			final MapUpdate curUpdate = updateList.get(j);
-			if(curUpdate instanceof DeleteNodeUpdate) {
-				final DeleteNodeUpdate delUpdate = (DeleteNodeUpdate)curUpdate;
-				if (delUpdate.getNodeId().equals(update.getNodetoMoveId())) {
-					return true;
-				}
-			}
-		}
-		return false;
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the updates since the revision were discarded, the map
+	 *             has to be loaded again
+	 */
+	public synchronized List<String> getUpdateListAsJson(long sinceRevisionNumber) {
+		return updateLog.getUpdatesSince((int)sinceRevisionNumber);
 	}
 }
@@ -1,7 +1,7 @@
 package org.freeplane.plugin.remote.server;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.docear.messages.Messages.CloseAllOpenMapsRequest;
@@ -30,7 +30,8 @@ public class RemoteController {
 	private final ActorRef mainActor;
 	private final Cancellable closeUnusedMapsJob;
 	private final Cancellable releaseExpiredLocksJob;
-	private final Map<String, OpenMindmapInfo> mapIdInfoMap = new HashMap<String, OpenMindmapInfo>();
+	// accessed by the actors of the different maps
+	private final Map<String, OpenMindmapInfo> mapIdInfoMap = new ConcurrentHashMap<String, OpenMindmapInfo>();
 	
 	private static RemoteController instance;
 	public static RemoteController getInstance() throws ChannelException{
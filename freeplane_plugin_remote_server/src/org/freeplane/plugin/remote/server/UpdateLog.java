@@ -0,0 +1,209 @@
+package org.freeplane.plugin.remote.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freeplane.plugin.remote.v10.model.updates.AddNodeUpdate;
+import org.freeplane.plugin.remote.v10.model.updates.ChangeNodeAttributeUpdate;
+import org.freeplane.plugin.remote.v10.model.updates.DeleteNodeUpdate;
+import org.freeplane.plugin.remote.v10.model.updates.MapUpdate;
+import org.freeplane.plugin.remote.v10.model.updates.MoveNodeUpdate;
+
+/**
+ * Revision log of the updates of one open map.
+ *
+ * The updates are stored as json when they are added. An update is superseded
+ * when a later update makes it obsolete: the node it added, moved or changed
+ * is deleted, or the same attribute of the node is changed again. Superseded
+ * updates are never sent to clients and are removed by compaction.
+ *
+ * The log keeps at most MAX_UPDATES updates and MAX_JSON_LENGTH characters.
+ * Older updates are discarded. Fetching the updates since a discarded revision
+ * fails, subscribers are told to reload instead. Clients load the map again in
+ * both cases, it is the snapshot of all discarded updates.
+ */
+public class UpdateLog {
+	private static final int MAX_UPDATES = 10000;
+	private static final long MAX_JSON_LENGTH = 8 * 1024 * 1024;
+	private static final int MIN_SUPERSEDED_TO_COMPACT = 64;
+
+	private static class Entry {
+		private final int revision;
+		private final String json;
+		// node added, moved or changed by the update
+		private final String nodeId;
+		// attribute changed by the update, null for other updates
+		private final String attribute;
+		private boolean superseded = false;
+
+		private Entry(int revision, String json, String nodeId, String attribute) {
+			this.revision = revision;
+			this.json = json;
+			this.nodeId = nodeId;
+			this.attribute = attribute;
+		}
+	}
+
+	/** the live updates of a node, which are superseded when the node is deleted */
+	private static class NodeEntries {
+		private final List<Entry> entries = new ArrayList<Entry>();
+		private final Map<String, Entry> changesByAttribute = new HashMap<String, Entry>();
+	}
+
+	private final int maxUpdates;
+	private final long maxJsonLength;
+	private final ArrayList<Entry> entries = new ArrayList<Entry>();
+	private final Map<String, NodeEntries> entriesByNodeId = new HashMap<String, NodeEntries>();
+	private int currentRevision = 0;
+	// updates since earlier revisions were discarded
+	private int oldestRevision = 0;
+	private int supersededCount = 0;
+	private long jsonLength = 0;
+
+	public UpdateLog() {
+		this(MAX_UPDATES, MAX_JSON_LENGTH);
+	}
+
+	public UpdateLog(int maxUpdates, long maxJsonLength) {
+		this.maxUpdates = maxUpdates;
+		this.maxJsonLength = maxJsonLength;
+	}
+
+	public int getCurrentRevision() {
+		return currentRevision;
+	}
+
+	public int getOldestRevision() {
+		return oldestRevision;
+	}
+
+	/**
+	 * @return the json of the update
+	 */
+	public String add(MapUpdate update) {
+		final String json = update.toJson();
+		currentRevision++;
+		final Entry entry;
+		if (update instanceof DeleteNodeUpdate) {
+			final String nodeId = ((DeleteNodeUpdate) update).getNodeId();
+			entry = new Entry(currentRevision, json, null, null);
+			final NodeEntries nodeEntries = entriesByNodeId.remove(nodeId);
+			if (nodeEntries != null) {
+				for (Entry nodeEntry : nodeEntries.entries) {
+					supersede(nodeEntry);
+				}
+			}
+		} else if (update instanceof ChangeNodeAttributeUpdate) {
+			final ChangeNodeAttributeUpdate changeUpdate = (ChangeNodeAttributeUpdate) update;
+			entry = new Entry(currentRevision, json, changeUpdate.getNodeId(), changeUpdate.getAttribute());
+		} else if (update instanceof AddNodeUpdate) {
+			entry = new Entry(currentRevision, json, ((AddNodeUpdate) update).getNewNodeId(), null);
+		} else if (update instanceof MoveNodeUpdate) {
+			entry = new Entry(currentRevision, json, ((MoveNodeUpdate) update).getNodetoMoveId(), null);
+		} else {
+			entry = new Entry(currentRevision, json, null, null);
+		}
+		entries.add(entry);
+		jsonLength += json.length();
+		index(entry);
+
+		if (entries.size() > maxUpdates || jsonLength > maxJsonLength
+				|| supersededCount >= MIN_SUPERSEDED_TO_COMPACT && supersededCount * 2 > entries.size()) {
+			compact();
+		}
+		return json;
+	}
+
+	private void index(Entry entry) {
+		if (entry.nodeId == null) {
+			return;
+		}
+		NodeEntries nodeEntries = entriesByNodeId.get(entry.nodeId);
+		if (nodeEntries == null) {
+			nodeEntries = new NodeEntries();
+			entriesByNodeId.put(entry.nodeId, nodeEntries);
+		}
+		if (entry.attribute != null) {
+			final Entry formerChange = nodeEntries.changesByAttribute.put(entry.attribute, entry);
+			if (formerChange != null) {
+				supersede(formerChange);
+			}
+		}
+		nodeEntries.entries.add(entry);
+	}
+
+	private void supersede(Entry entry) {
+		if (!entry.superseded) {
+			entry.superseded = true;
+			supersededCount++;
+		}
+	}
+
+	/**
+	 * removes the superseded updates and discards the oldest updates exceeding
+	 * the limits
+	 */
+	private void compact() {
+		final int maxKeptUpdates = maxUpdates * 3 / 4;
+		final long maxKeptJsonLength = maxJsonLength * 3 / 4;
+		final ArrayList<Entry> liveEntries = new ArrayList<Entry>(entries.size() - supersededCount);
+		long liveJsonLength = 0;
+		for (Entry entry : entries) {
+			if (!entry.superseded) {
+				liveEntries.add(entry);
+				liveJsonLength += entry.json.length();
+			}
+		}
+		int first = 0;
+		while (first < liveEntries.size() && (liveEntries.size() - first > maxKeptUpdates || liveJsonLength > maxKeptJsonLength)) {
+			final Entry discarded = liveEntries.get(first++);
+			liveJsonLength -= discarded.json.length();
+			oldestRevision = discarded.revision;
+		}
+		entries.clear();
+		entries.addAll(liveEntries.subList(first, liveEntries.size()));
+		entries.trimToSize();
+		jsonLength = liveJsonLength;
+		supersededCount = 0;
+		entriesByNodeId.clear();
+		for (Entry entry : entries) {
+			index(entry);
+		}
+	}
+
+	/**
+	 * @return the json of the updates since the given revision, which are not
+	 *         superseded
+	 * @throws IllegalArgumentException
+	 *             if updates since the revision were discarded
+	 */
+	public List<String> getUpdatesSince(int sinceRevision) {
+		if (sinceRevision < oldestRevision) {
+			throw new IllegalArgumentException("Updates since revision " + sinceRevision + " were discarded, the map has to be loaded again.");
+		}
+		final List<String> updates = new ArrayList<String>();
+		for (int i = firstIndexAfter(sinceRevision); i < entries.size(); i++) {
+			final Entry entry = entries.get(i);
+			if (!entry.superseded) {
+				updates.add(entry.json);
+			}
+		}
+		return updates;
+	}
+
+	private int firstIndexAfter(int revision) {
+		int low = 0;
+		int high = entries.size();
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (entries.get(middle).revision <= revision) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -1,25 +1,18 @@
 package org.freeplane.plugin.remote.server.actors;
 
-import org.docear.messages.Messages.AddNodeRequest;
-import org.docear.messages.Messages.ChangeNodeRequest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.docear.messages.Messages.CloseAllOpenMapsRequest;
 import org.docear.messages.Messages.CloseMapRequest;
 import org.docear.messages.Messages.CloseServerRequest;
 import org.docear.messages.Messages.CloseUnusedMaps;
-import org.docear.messages.Messages.FetchMindmapUpdatesRequest;
-import org.docear.messages.Messages.GetNodeRequest;
-import org.docear.messages.Messages.ListenToUpdateOccurrenceRequest;
-import org.docear.messages.Messages.MindmapAsJsonRequest;
-import org.docear.messages.Messages.MindmapAsXmlRequest;
-import org.docear.messages.Messages.MoveNodeToRequest;
+import org.docear.messages.Messages.MindMapRequest;
 import org.docear.messages.Messages.OpenMindMapRequest;
-import org.docear.messages.Messages.ReleaseLockRequest;
-import org.docear.messages.Messages.RemoveNodeRequest;
-import org.docear.messages.Messages.RequestLockRequest;
-import org.docear.messages.exceptions.LockNotFoundException;
 import org.docear.messages.exceptions.MapNotFoundException;
-import org.docear.messages.exceptions.NodeAlreadyLockedException;
-import org.docear.messages.exceptions.NodeNotFoundException;
+import org.freeplane.plugin.remote.server.InternalMessages.OpenMapFinished;
 import org.freeplane.plugin.remote.server.InternalMessages.ReleaseTimedOutLocks;
 import org.freeplane.plugin.remote.server.RemoteController;
 import org.freeplane.plugin.remote.server.v10.Actions;
@@ -27,10 +20,38 @@ import org.slf4j.Logger;
 
 import akka.actor.ActorRef;
 import akka.actor.Status;
+import akka.actor.Terminated;
 import akka.actor.UntypedActor;
 
+/**
+ * Routes the requests concerning one map to the {@link MapActor} of the map,
+ * requests concerning all maps or the server are handled here.
+ * <p>
+ * A map actor closing its map stays registered until it has stopped. Requests
+ * opening a map with the same id wait for it, so that the closing actor never
+ * closes the reopened map.
+ */
 public class MainActor extends UntypedActor {
 
+	private static class DeferredRequest {
+		private final Object message;
+		private final ActorRef sender;
+
+		private DeferredRequest(Object message, ActorRef sender) {
+			this.message = message;
+			this.sender = sender;
+		}
+	}
+
+	// actors of the open maps
+	private final Map<String, ActorRef> mapActors = new HashMap<String, ActorRef>();
+	// actors of the maps being opened and the number of their pending open requests
+	private final Map<String, ActorRef> openingMapActors = new HashMap<String, ActorRef>();
+	private final Map<String, Integer> pendingOpenRequests = new HashMap<String, Integer>();
+	// actors closing their maps and the open requests waiting for them to stop
+	private final Map<String, ActorRef> closingMapActors = new HashMap<String, ActorRef>();
+	private final Map<String, List<DeferredRequest>> deferredOpenRequests = new HashMap<String, List<DeferredRequest>>();
+
 	public MainActor() {
 	}
 
@@ -47,108 +68,76 @@ public class MainActor extends UntypedActor {
 
 		Object response = null;
 		try {
-			// get map as json
-			if (message instanceof MindmapAsJsonRequest) {
-				response = Actions.getMapModelJson((MindmapAsJsonRequest) message);
-			}
-
-			// get map as xml
-			else if (message instanceof MindmapAsXmlRequest) {
-				response = Actions.getMapModelXml((MindmapAsXmlRequest) message);
-			}
-
-			// add node to map
-			else if (message instanceof AddNodeRequest) {
-				response = Actions.addNode((AddNodeRequest) message);
-			}
-
-			// change node
-			else if (message instanceof ChangeNodeRequest) {
-				response = Actions.changeNode((ChangeNodeRequest) message);
-			}
-
-			// move node to another position
-			else if (message instanceof MoveNodeToRequest) {
-				response = Actions.moveNodeTo((MoveNodeToRequest) message);
-			}
-
-			// remove node from map
-			else if (message instanceof RemoveNodeRequest) {
-				response = Actions.removeNode((RemoveNodeRequest) message);
+			// Open mindmap, creates the actor of the map. The actor is
+			// registered when it reports that the map is open.
+			if (message instanceof OpenMindMapRequest) {
+				final String mapId = ((OpenMindMapRequest) message).getMapId();
+				if (closingMapActors.containsKey(mapId)) {
+					deferOpenRequest(mapId, message, sender);
+				} else {
+					openMap(mapId, message);
+				}
 			}
 
-			// get node from map
-			else if (message instanceof GetNodeRequest) {
-				response = Actions.getNode((GetNodeRequest) message);
+			// map actor has handled an open request
+			else if (message instanceof OpenMapFinished) {
+				openMapFinished((OpenMapFinished) message, sender);
 			}
 
-			// Open mindmap
-			else if (message instanceof OpenMindMapRequest) {
-				response = Actions.openMindmap((OpenMindMapRequest) message);
+			// map actor has stopped after closing its map
+			else if (message instanceof Terminated) {
+				closeMapFinished(((Terminated) message).getActor());
 			}
 
-			// close map
-			else if (message instanceof CloseMapRequest) {
-				Actions.closeMap((CloseMapRequest) message);
+			// requests for one map, the map actor replies to the sender
+			else if (message instanceof MindMapRequest) {
+				final String mapId = ((MindMapRequest) message).getMapId();
+				final ActorRef mapActor = mapActors.get(mapId);
+				if (mapActor == null) {
+					throw new MapNotFoundException("Map with id " + mapId + " is not present.", mapId);
+				}
+				if (message instanceof CloseMapRequest) {
+					closeMap((CloseMapRequest) message, sender);
+				} else {
+					mapActor.forward(message, getContext());
+				}
 			}
 
 			// close all maps
 			else if (message instanceof CloseAllOpenMapsRequest) {
-				Actions.closeAllOpenMaps((CloseAllOpenMapsRequest) message);
+				final CloseAllOpenMapsRequest request = (CloseAllOpenMapsRequest) message;
+				closeMaps(request.getSource(), request.getUsername());
 			}
 
-			// close server
+			// close server, the maps are closed by their actors
 			else if (message instanceof CloseServerRequest) {
-				Actions.closeServer((CloseServerRequest) message);
-			}
-
-			// release lock
-			else if (message instanceof ReleaseLockRequest) {
-				response = Actions.releaseLock((ReleaseLockRequest) message);
-			}
-
-			// request lock
-			else if (message instanceof RequestLockRequest) {
-				response = Actions.requestLock((RequestLockRequest) message);
-			}
-
-			// get updates since specific revision
-			else if (message instanceof FetchMindmapUpdatesRequest) {
-				response = Actions.fetchUpdatesSinceRevision((FetchMindmapUpdatesRequest) message);
-			}
-
-			// listen if update occurs
-			else if (message instanceof ListenToUpdateOccurrenceRequest) {
-				Actions.listenIfUpdateOccurs((ListenToUpdateOccurrenceRequest) message, getSender());
+				final CloseServerRequest request = (CloseServerRequest) message;
+				closeMaps(request.getSource(), request.getUsername());
+				Actions.closeServer(request);
 			}
 
 			// close unused maps
 			else if (message instanceof CloseUnusedMaps) {
-				Actions.closeUnusedMaps((CloseUnusedMaps) message);
+				final CloseUnusedMaps request = (CloseUnusedMaps) message;
+				for (String mapId : Actions.getUnusedMapIds(request)) {
+					if (mapActors.containsKey(mapId)) {
+						closeMap(new CloseMapRequest(request.getSource(), request.getUsername(), mapId), getSelf());
+					}
+				}
 			}
 
 			// release timed out Locks
 			else if (message instanceof ReleaseTimedOutLocks) {
-				Actions.releaseTimedOutLocks((ReleaseTimedOutLocks) message);
+				for (ActorRef mapActor : mapActors.values()) {
+					mapActor.tell(message, getSelf());
+				}
 			}
 		} catch (MapNotFoundException e) {
 			logger.warn("MainActor.onReceive => Map not found exception catched. ", e);
 			response = new Status.Failure(e);
-		} catch (NodeNotFoundException e) {
-			logger.warn("MainActor.onReceive => Node not found exception catched. ", e);
-			response = new Status.Failure(e);
-		} catch (NodeAlreadyLockedException e) {
-			logger.warn("MainActor.onReceive => Node already locked exception catched. ", e);
-			response = new Status.Failure(e);
-		} catch (LockNotFoundException e) {
-			logger.warn("MainActor.onReceive => Lock not found exception catched. ", e);
-			response = new Status.Failure(e);
 		} catch (Exception e) {
 			logger.error("MainActor.onReceive => Unrecognized Exception! ", e);
 			response = new Status.Failure(e);
-		} catch (AssertionError e) {
-			logger.error("MainActor.onReceive => Something really bad happened! ", e);
-			response = new Status.Failure(e);
 		}
 
 		if (response != null) {
@@ -158,4 +147,90 @@ public class MainActor extends UntypedActor {
 			logger.trace("MainActor.onReceive => No response available");
 		}
 	}
+
+	private void openMap(String mapId, Object message) {
+		ActorRef mapActor = mapActors.get(mapId);
+		if (mapActor == null) {
+			mapActor = openingMapActors.get(mapId);
+		}
+		if (mapActor == null) {
+			mapActor = getContext().actorOf(MapActor.props(mapId));
+		}
+		openingMapActors.put(mapId, mapActor);
+		final Integer pending = pendingOpenRequests.get(mapId);
+		pendingOpenRequests.put(mapId, pending == null ? 1 : pending + 1);
+		mapActor.forward(message, getContext());
+	}
+
+	private void openMapFinished(OpenMapFinished message, ActorRef mapActor) {
+		final String mapId = message.getMapId();
+		final Integer pending = pendingOpenRequests.get(mapId);
+		final int stillPending = pending == null ? 0 : pending - 1;
+		if (stillPending > 0) {
+			pendingOpenRequests.put(mapId, stillPending);
+		} else {
+			pendingOpenRequests.remove(mapId);
+			openingMapActors.remove(mapId);
+		}
+		if (mapActor.equals(closingMapActors.get(mapId))) {
+			// opened before the close request, the actor closes the map and stops
+			return;
+		}
+		if (message.isMapOpen()) {
+			mapActors.put(mapId, mapActor);
+		} else {
+			mapActors.remove(mapId);
+			if (stillPending == 0) {
+				getContext().stop(mapActor);
+			}
+		}
+	}
+
+	/**
+	 * closes the map by its actor, requests already sent to the actor are
+	 * handled before. The actor stays registered as closing until it has
+	 * stopped.
+	 */
+	private void closeMap(CloseMapRequest request, ActorRef sender) {
+		final String mapId = request.getMapId();
+		final ActorRef mapActor = mapActors.remove(mapId);
+		closingMapActors.put(mapId, mapActor);
+		getContext().watch(mapActor);
+		mapActor.tell(request, sender);
+	}
+
+	private void closeMaps(String source, String username) {
+		for (String mapId : new ArrayList<String>(mapActors.keySet())) {
+			closeMap(new CloseMapRequest(source, username, mapId), getSelf());
+		}
+	}
+
+	private void deferOpenRequest(String mapId, Object message, ActorRef sender) {
+		List<DeferredRequest> requests = deferredOpenRequests.get(mapId);
+		if (requests == null) {
+			requests = new ArrayList<DeferredRequest>();
+			deferredOpenRequests.put(mapId, requests);
+		}
+		requests.add(new DeferredRequest(message, sender));
+	}
+
+	/**
+	 * the map of the stopped actor is closed, the open requests waiting for it
+	 * are handled again
+	 */
+	private void closeMapFinished(ActorRef mapActor) {
+		for (Map.Entry<String, ActorRef> entry : closingMapActors.entrySet()) {
+			if (entry.getValue().equals(mapActor)) {
+				final String mapId = entry.getKey();
+				closingMapActors.remove(mapId);
+				final List<DeferredRequest> requests = deferredOpenRequests.remove(mapId);
+				if (requests != null) {
+					for (DeferredRequest request : requests) {
+						getSelf().tell(request.message, request.sender);
+					}
+				}
+				return;
+			}
+		}
+	}
 }
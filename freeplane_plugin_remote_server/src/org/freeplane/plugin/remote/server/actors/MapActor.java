@@ -0,0 +1,205 @@
+package org.freeplane.plugin.remote.server.actors;
+
+import org.docear.messages.Messages.AddNodeRequest;
+import org.docear.messages.Messages.ChangeNodeRequest;
+import org.docear.messages.Messages.CloseMapRequest;
+import org.docear.messages.Messages.FetchMindmapUpdatesRequest;
+import org.docear.messages.Messages.GetNodeRequest;
+import org.docear.messages.Messages.ListenToUpdateOccurrenceRequest;
+import org.docear.messages.Messages.MindmapAsJsonRequest;
+import org.docear.messages.Messages.MindmapAsXmlRequest;
+import org.docear.messages.Messages.MoveNodeToRequest;
+import org.docear.messages.Messages.OpenMindMapRequest;
+import org.docear.messages.Messages.ReleaseLockRequest;
+import org.docear.messages.Messages.RemoveNodeRequest;
+import org.docear.messages.Messages.RequestLockRequest;
+import org.docear.messages.exceptions.LockNotFoundException;
+import org.docear.messages.exceptions.MapNotFoundException;
+import org.docear.messages.exceptions.NodeAlreadyLockedException;
+import org.docear.messages.exceptions.NodeNotFoundException;
+import org.freeplane.plugin.remote.SubscriptionMessages.SubscribeToUpdatesRequest;
+import org.freeplane.plugin.remote.SubscriptionMessages.UnsubscribeFromUpdatesRequest;
+import org.freeplane.plugin.remote.server.InternalMessages.OpenMapFinished;
+import org.freeplane.plugin.remote.server.InternalMessages.ReleaseTimedOutLocks;
+import org.freeplane.plugin.remote.server.RemoteController;
+import org.freeplane.plugin.remote.server.v10.Actions;
+import org.slf4j.Logger;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.Status;
+import akka.actor.Terminated;
+import akka.actor.UntypedActor;
+import akka.actor.UntypedActorFactory;
+
+/**
+ * Handles the requests for one open map. The MainActor routes the requests by
+ * their map id, so requests of the same map are handled one after another and
+ * requests of different maps in parallel.
+ */
+public class MapActor extends UntypedActor {
+
+	private final String mapId;
+
+	public MapActor(String mapId) {
+		this.mapId = mapId;
+	}
+
+	static Props props(String mapId) {
+		return new Props(new Factory(mapId));
+	}
+
+	private static class Factory implements UntypedActorFactory {
+		private static final long serialVersionUID = 1L;
+		private final String mapId;
+
+		public Factory(String mapId) {
+			this.mapId = mapId;
+		}
+
+		@Override
+		public UntypedActor create() {
+			return new MapActor(mapId);
+		}
+	}
+
+	@Override
+	public void onReceive(Object message) throws Exception {
+		final Logger logger = RemoteController.getLogger();
+		final ActorRef sender = getSender();
+
+		if (!(message instanceof ReleaseTimedOutLocks)) {
+			// Release check happens every 5 seconds and would flood the logging
+			logger.info("MapActor.onReceive => '{}' received for map '{}'.", message.getClass().getName(), mapId);
+		}
+
+		Object response = null;
+		try {
+			// get map as json
+			if (message instanceof MindmapAsJsonRequest) {
+				response = Actions.getMapModelJson((MindmapAsJsonRequest) message);
+			}
+
+			// get map as xml
+			else if (message instanceof MindmapAsXmlRequest) {
+				response = Actions.getMapModelXml((MindmapAsXmlRequest) message);
+			}
+
+			// add node to map
+			else if (message instanceof AddNodeRequest) {
+				response = Actions.addNode((AddNodeRequest) message);
+			}
+
+			// change node
+			else if (message instanceof ChangeNodeRequest) {
+				response = Actions.changeNode((ChangeNodeRequest) message);
+			}
+
+			// move node to another position
+			else if (message instanceof MoveNodeToRequest) {
+				response = Actions.moveNodeTo((MoveNodeToRequest) message);
+			}
+
+			// remove node from map
+			else if (message instanceof RemoveNodeRequest) {
+				response = Actions.removeNode((RemoveNodeRequest) message);
+			}
+
+			// get node from map
+			else if (message instanceof GetNodeRequest) {
+				response = Actions.getNode((GetNodeRequest) message);
+			}
+
+			// Open mindmap
+			else if (message instanceof OpenMindMapRequest) {
+				try {
+					response = Actions.openMindmap((OpenMindMapRequest) message);
+				} finally {
+					// the main actor routes requests to this actor only while its map is open,
+					// it is told before the sender so that the next request of the sender finds the map
+					getContext().parent().tell(new OpenMapFinished(mapId, Actions.isMapOpen(mapId)), getSelf());
+				}
+			}
+
+			// close map
+			else if (message instanceof CloseMapRequest) {
+				try {
+					Actions.closeMap((CloseMapRequest) message);
+				} finally {
+					// the main actor does not route requests to this actor any more
+					getContext().stop(getSelf());
+				}
+			}
+
+			// release lock
+			else if (message instanceof ReleaseLockRequest) {
+				response = Actions.releaseLock((ReleaseLockRequest) message);
+			}
+
+			// request lock
+			else if (message instanceof RequestLockRequest) {
+				response = Actions.requestLock((RequestLockRequest) message);
+			}
+
+			// get updates since specific revision
+			else if (message instanceof FetchMindmapUpdatesRequest) {
+				response = Actions.fetchUpdatesSinceRevision((FetchMindmapUpdatesRequest) message);
+			}
+
+			// listen if update occurs
+			else if (message instanceof ListenToUpdateOccurrenceRequest) {
+				Actions.listenIfUpdateOccurs((ListenToUpdateOccurrenceRequest) message, getSender());
+			}
+
+			// push updates to the sender
+			else if (message instanceof SubscribeToUpdatesRequest) {
+				Actions.subscribeToUpdates((SubscribeToUpdatesRequest) message, sender);
+				getContext().watch(sender);
+			}
+
+			// stop pushing updates to the sender
+			else if (message instanceof UnsubscribeFromUpdatesRequest) {
+				Actions.unsubscribeFromUpdates(mapId, sender);
+				getContext().unwatch(sender);
+			}
+
+			// subscriber is gone
+			else if (message instanceof Terminated) {
+				Actions.unsubscribeFromUpdates(mapId, ((Terminated) message).getActor());
+			}
+
+			// release timed out Locks
+			else if (message instanceof ReleaseTimedOutLocks) {
+				Actions.releaseTimedOutLocks(mapId, (ReleaseTimedOutLocks) message);
+			}
+		} catch (MapNotFoundException e) {
+			logger.warn("MapActor.onReceive => Map not found exception catched. ", e);
+			response = new Status.Failure(e);
+		} catch (NodeNotFoundException e) {
+			logger.warn("MapActor.onReceive => Node not found exception catched. ", e);
+			response = new Status.Failure(e);
+		} catch (NodeAlreadyLockedException e) {
+			logger.warn("MapActor.onReceive => Node already locked exception catched. ", e);
+			response = new Status.Failure(e);
+		} catch (LockNotFoundException e) {
+			logger.warn("MapActor.onReceive => Lock not found exception catched. ", e);
+			response = new Status.Failure(e);
+		} catch (Exception e) {
+			logger.error("MapActor.onReceive => Unrecognized Exception! ", e);
+			response = new Status.Failure(e);
+		} catch (AssertionError e) {
+			logger.error("MapActor.onReceive => Something really bad happened! ", e);
+			response = new Status.Failure(e);
+		}
+
+		if (response != null) {
+			logger.debug("MapActor.onReceive => sending '{}' as response.", response.getClass().getName());
+			sender.tell(response, getSelf());
+		} else {
+			logger.trace("MapActor.onReceive => No response available");
+		}
+
+		// all updates of the request are pushed in one message
+		Actions.pushUpdates(mapId);
+	}
+}
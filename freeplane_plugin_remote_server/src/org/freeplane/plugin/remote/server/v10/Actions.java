@@ -5,6 +5,7 @@ import static org.freeplane.plugin.remote.RemoteUtils.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -52,11 +53,11 @@ import org.freeplane.core.util.LogUtils;
 import org.freeplane.features.map.MapWriter;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.mindmapmode.MMapController;
-import org.freeplane.features.mapio.MapIO;
 import org.freeplane.features.mapio.mindmapmode.MMapIO;
 import org.freeplane.features.mode.ModeController;
 import org.freeplane.n3.nanoxml.XMLException;
 import org.freeplane.plugin.remote.RemoteUtils;
+import org.freeplane.plugin.remote.SubscriptionMessages.SubscribeToUpdatesRequest;
 import org.freeplane.plugin.remote.server.InternalMessages.ReleaseTimedOutLocks;
 import org.freeplane.plugin.remote.server.OpenMindmapInfo;
 import org.freeplane.plugin.remote.server.RemoteController;
@@ -79,7 +80,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class Actions {
 
 	private static final ObjectMapper objectMapper = new ObjectMapper();
-	private static String currentSelectedMapId = null;
+	/**
+	 * The actors of the different maps run in parallel, but the controllers of
+	 * freeplane are not thread safe. The freeplane model is only accessed
+	 * holding this lock, json conversion and update handling are done outside.
+	 */
+	private static final Object modelLock = new Object();
 
 	/**
 	 * returns a map as a JSON-Object
@@ -99,27 +105,22 @@ public class Actions {
 		final boolean loadAllNodes = nodeCount == -1;
 
 		logger().debug("Actions.getMapModelJson => mapId:'{}'; nodeCount:{}; loadAllNodes:{}", mapId, nodeCount, loadAllNodes);
-		final ModeController modeController = modeController();
-
-		logger().debug("Actions.getMapModelJson => selecting map");
-		selectMap(mapId);
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
 
-		logger().debug("Actions.getMapModelJson => retrieving freeplane map");
-		org.freeplane.features.map.MapModel freeplaneMap = modeController.getController().getMap();
-		if (freeplaneMap == null) { // when not mapMode
-			logger().error("Actions.getMapModelJson => Current mode not MapMode!");
-			throw new AssertionError("Current mode not MapMode");
-		}
+		final MapModel mm;
+		synchronized (modelLock) {
+			logger().debug("Actions.getMapModelJson => selecting map");
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
 
-		// create the MapModel for JSON
-		logger().debug("Actions.getMapModelJson => creating mapmodel for JSON-convertion");
-		final OpenMindmapInfo info = RemoteController.getMapIdInfoMap().get(mapId);
-		final String mapName = info.getName();
-		final int revision = info.getCurrentRevision();
-		MapModel mm = new MapModel(freeplaneMap, mapName, revision, loadAllNodes);
+			// create the MapModel for JSON
+			logger().debug("Actions.getMapModelJson => creating mapmodel for JSON-convertion");
+			final String mapName = info.getName();
+			final int revision = info.getCurrentRevision();
+			mm = new MapModel(freeplaneMap, mapName, revision, loadAllNodes);
 
-		if (!loadAllNodes) {
-			RemoteUtils.loadNodesIntoModel(mm.root, nodeCount);
+			if (!loadAllNodes) {
+				RemoteUtils.loadNodesIntoModel(mm.root, nodeCount);
+			}
 		}
 
 		logger().debug("Actions.getMapModelJson => creating JSON string");
@@ -145,21 +146,19 @@ public class Actions {
 		final String mapId = request.getMapId();
 		logger().debug("Actions.getMapModelXml => mapId:'{}'", mapId);
 
-		logger().debug("Actions.getMapModelXml => selecting map");
-		selectMap(mapId);
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
 
-		final ModeController modeController = modeController();
-		final org.freeplane.features.map.MapModel freeplaneMap = modeController.getController().getMap();
-		if (freeplaneMap == null) { // when not mapMode
-			logger().error("Actions.getMapModelXml => current mode not MapMode!");
-			throw new AssertionError("Current mode not MapMode");
-		}
-
-		logger().debug("Actions.getMapModelXml => serialising map to XML");
 		final StringWriter writer = new StringWriter();
-		modeController.getMapController().getMapWriter().writeMapAsXml(freeplaneMap, writer, MapWriter.Mode.EXPORT, true, true);
+		final int currentRevision;
+		synchronized (modelLock) {
+			logger().debug("Actions.getMapModelXml => selecting map");
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
+
+			logger().debug("Actions.getMapModelXml => serialising map to XML");
+			modeController().getMapController().getMapWriter().writeMapAsXml(freeplaneMap, writer, MapWriter.Mode.EXPORT, true, true);
+			currentRevision = info.getCurrentRevision();
+		}
 
-		final int currentRevision = getOpenMindMapInfo(mapId).getCurrentRevision();
 		logger().debug("Actions.getMapModelXml => returning map as XML string");
 		return new MindmapAsXmlResponse(writer.toString(), currentRevision);
 	}
@@ -174,16 +173,23 @@ public class Actions {
 		final String mapId = request.getMapId();
 		logger().debug("Actions.closeMap => mapId:'{}'", request.getMapId());
 
-		// select map
-		logger().debug("Actions.closeMap => selecting map");
-		selectMap(mapId);
-
-		// close and remove map
-		logger().debug("Actions.closeMap => closing map");
-		modeController().getController().close(true);
-
-		logger().debug("Actions.closeMap => removing map info from MapIdInfoMap");
-		openMindmapInfoMap().remove(mapId);
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
+		synchronized (modelLock) {
+			// select map
+			logger().debug("Actions.closeMap => selecting map");
+			selectMap(mapId, info);
+
+			// close and remove map
+			logger().debug("Actions.closeMap => closing map");
+			modeController().getController().close(true);
+			info.setMap(null);
+
+			logger().debug("Actions.closeMap => removing map info from MapIdInfoMap");
+			// the id may already belong to a reopened map
+			if (openMindmapInfoMap().get(mapId) == info) {
+				openMindmapInfoMap().remove(mapId);
+			}
+		}
 	}
 
 	public static OpenMindMapResponse openMindmap(final OpenMindMapRequest request) {
@@ -203,17 +209,31 @@ public class Actions {
 			logger().debug("Actions.openMindmap => writing mindmap content to file");
 			FileUtils.writeStringToFile(file, mapContent);
 
-			// put map in openMap Collection
 			final URL pathURL = file.toURI().toURL();
 			final OpenMindmapInfo info = new OpenMindmapInfo(pathURL, mapName);
-			openMindmapInfoMap().put(mapId, info);
-			logger().debug("Actions.openMindmap => mindmap was put into openMindmapInfoMap ({} => {})", mapId, info.getMapUrl());
-
-			// open map
-			logger().debug("Actions.openMindmap => opening mindmap...");
-			final MMapIO mio = (MMapIO) RemoteController.getMapIO();
-			mio.newMap(pathURL);
-			logger().debug("Actions.openMindmap => map successfully loaded and opened!");
+			synchronized (modelLock) {
+				// a map opened again replaces the former one
+				final OpenMindmapInfo formerInfo = getOpenMindMapInfo(mapId);
+				if (formerInfo != null && formerInfo.getMap() != null) {
+					logger().debug("Actions.openMindmap => closing former map with id '{}'", mapId);
+					// silent fail
+					try {
+						closeMap(new CloseMapRequest(request.getSource(), request.getUsername(), mapId));
+					} catch (MapNotFoundException e) {
+					}
+				}
+
+				// open map
+				logger().debug("Actions.openMindmap => opening mindmap...");
+				final MMapIO mio = (MMapIO) RemoteController.getMapIO();
+				mio.newMap(pathURL);
+				info.setMap(modeController().getController().getMap());
+				logger().debug("Actions.openMindmap => map successfully loaded and opened!");
+
+				// put map in openMap Collection
+				openMindmapInfoMap().put(mapId, info);
+				logger().debug("Actions.openMindmap => mindmap was put into openMindmapInfoMap ({} => {})", mapId, info.getMapUrl());
+			}
 		} catch (IOException e) {
 			throw new AssertionError(e);
 		} catch (URISyntaxException e) {
@@ -251,12 +271,39 @@ public class Actions {
 		info.registerUpdateListener(sender);
 	}
 
+	public static void subscribeToUpdates(SubscribeToUpdatesRequest request, ActorRef sender) throws MapNotFoundException {
+		final String mapId = request.getMapId();
+		final Integer sinceRevision = request.getSinceRevision();
+		logger().debug("Actions.subscribeToUpdates => mapId: {}; sinceRevision: {}", mapId, sinceRevision);
+
+		getPresentMapInfo(mapId).subscribe(sender, sinceRevision);
+	}
+
+	public static void unsubscribeFromUpdates(String mapId, ActorRef subscriber) {
+		logger().debug("Actions.unsubscribeFromUpdates => mapId: {}", mapId);
+		final OpenMindmapInfo info = getOpenMindMapInfo(mapId);
+		if (info != null) {
+			info.unsubscribe(subscriber);
+		}
+	}
+
+	/**
+	 * pushes the updates of the map to its subscribers, called by the actor of
+	 * the map after every request
+	 */
+	public static void pushUpdates(String mapId) {
+		final OpenMindmapInfo info = getOpenMindMapInfo(mapId);
+		if (info != null) {
+			info.pushUpdates(mapId);
+		}
+	}
+
+	/**
+	 * shuts the application down, the maps are closed by their actors before
+	 */
 	public static void closeServer(CloseServerRequest request) {
 		logger().debug("Actions.closeServer => no parameters");
 
-		logger().debug("Actions.closeServer => closing open maps");
-		closeAllOpenMaps(new CloseAllOpenMapsRequest(request.getSource(), request.getUsername()));
-
 		logger().debug("Actions.closeServer => Starting Thread to shutdown App in 2 seconds");
 		new Thread(new Runnable() {
 
@@ -299,16 +346,20 @@ public class Actions {
 
 		logger().debug("Actions.getNode => mapId:'{}'; nodeId:'{}'; nodeCount:{}; loadAllNodes:{}", mapId, nodeId, nodeCount, loadAllNodes);
 
-		logger().debug("Actions.getNode => selecting map");
-		selectMap(mapId);
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
+		final NodeModelDefault node;
+		synchronized (modelLock) {
+			logger().debug("Actions.getNode => selecting map");
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
 
-		logger().debug("Actions.getNode => retrieving freeplane node");
-		final NodeModel freeplaneNode = getNodeFromOpenMapById(mmapController(), nodeId);
+			logger().debug("Actions.getNode => retrieving freeplane node");
+			final NodeModel freeplaneNode = getNodeFromOpenMapById(freeplaneMap, nodeId);
 
-		logger().debug("Actions.getNode => loading into model to convert to JSON");
-		final NodeModelDefault node = new NodeModelDefault(freeplaneNode, loadAllNodes);
-		if (!loadAllNodes) {
-			RemoteUtils.loadNodesIntoModel(node, request.getNodeCount());
+			logger().debug("Actions.getNode => loading into model to convert to JSON");
+			node = new NodeModelDefault(freeplaneNode, loadAllNodes);
+			if (!loadAllNodes) {
+				RemoteUtils.loadNodesIntoModel(node, request.getNodeCount());
+			}
 		}
 
 		logger().debug("Actions.getNode => returning node as JSON");
@@ -322,21 +373,25 @@ public class Actions {
 		final String parentNodeId = request.getParentNodeId();
 		logger().debug("Actions.addNode => mapId:'{}'; parentNodeId:'{}'", mapId, parentNodeId);
 
-		logger().debug("Actions.addNode => selecting map");
-		selectMap(mapId);
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
+		final NodeModelDefault nodeModel;
+		synchronized (modelLock) {
+			logger().debug("Actions.addNode => selecting map");
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
 
-		// get parent Node
-		logger().debug("Actions.addNode => retrieving freeplane parent node");
-		final NodeModel parentNode = getNodeFromOpenMapById(mmapController(), parentNodeId);
+			// get parent Node
+			logger().debug("Actions.addNode => retrieving freeplane parent node");
+			final NodeModel parentNode = getNodeFromOpenMapById(freeplaneMap, parentNodeId);
 
-		// create new node
-		final NodeModel node = RemoteUtils.addNodeToOpenMap(mmapController(), parentNode);
+			// create new node
+			final NodeModel node = RemoteUtils.addNodeToOpenMap(mmapController(), parentNode);
+			nodeModel = new NodeModelDefault(node, false);
+		}
 
 		logger().debug("Actions.addNode => returning response with new node as json");
-		final String nodeJson = new NodeModelDefault(node, false).toJsonString();
-		final AddNodeUpdate update = new AddNodeUpdate(source, username, parentNodeId, node.getID(), nodeJson);
-		getOpenMindMapInfo(mapId).addUpdate(update);
-		return new AddNodeResponse(update.toJson());
+		final String nodeJson = nodeModel.toJsonString();
+		final AddNodeUpdate update = new AddNodeUpdate(source, username, parentNodeId, nodeModel.id, nodeJson);
+		return new AddNodeResponse(info.addUpdate(update));
 	}
 
 	public static ChangeNodeResponse changeNode(final ChangeNodeRequest request) throws MapNotFoundException, NodeNotFoundException, NodeNotLockedByUserException {
@@ -347,45 +402,45 @@ public class Actions {
 		final String nodeId = request.getNodeId();
 		logger().debug("Actions.changeNode => mapId:'{}'; nodeId:'{}'; username: '{}'; attributes: '{}'", mapId, nodeId, username, attributeMap.toString());
 
-		logger().debug("Actions.changeNode => selecting map");
-		selectMap(mapId);
-
-		// get node
-		logger().debug("Actions.changeNode => retrieving node");
-		final NodeModel freeplaneNode = getNodeFromOpenMapById(mmapController(), nodeId);
-		// check if user has lock
-		if (!hasUserLockOnNode(mapId, freeplaneNode, username)) {
-			throw new NodeNotLockedByUserException("User has no lock on node");
-		}
-
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
 		// list to collect updates done
 		final List<MapUpdate> updates = new ArrayList<MapUpdate>();
+		synchronized (modelLock) {
+			logger().debug("Actions.changeNode => selecting map");
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
+
+			// get node
+			logger().debug("Actions.changeNode => retrieving node");
+			final NodeModel freeplaneNode = getNodeFromOpenMapById(freeplaneMap, nodeId);
+			// check if user has lock
+			if (!hasUserLockOnNode(mapId, freeplaneNode, username)) {
+				throw new NodeNotLockedByUserException("User has no lock on node");
+			}
 
-		for (Map.Entry<String, Object> entry : attributeMap.entrySet()) {
-			final String attribute = entry.getKey();
-			final Object valueObj = entry.getValue();
+			for (Map.Entry<String, Object> entry : attributeMap.entrySet()) {
+				final String attribute = entry.getKey();
+				final Object valueObj = entry.getValue();
 
-			logger().debug("Actions.changeNode => {} changed to {}", attribute, valueObj);
-			updates.add(new ChangeNodeAttributeUpdate(source, username, nodeId, attribute, valueObj));
+				logger().debug("Actions.changeNode => {} changed to {}", attribute, valueObj);
+				updates.add(new ChangeNodeAttributeUpdate(source, username, nodeId, attribute, valueObj));
 
-			changeNodeAttribute(freeplaneNode, attribute, valueObj);
-		}
+				changeNodeAttribute(freeplaneNode, attribute, valueObj);
+			}
 
-		logger().debug("Actions.changeNode => refreshing lock access time");
-		refreshLockAccessTime(freeplaneNode);
+			logger().debug("Actions.changeNode => refreshing lock access time");
+			refreshLockAccessTime(freeplaneNode);
+		}
 
 		// submit changes and create list for response
-		final OpenMindmapInfo info = getOpenMindMapInfo(mapId);
 		final List<String> updateJsons = new ArrayList<String>();
 		for (MapUpdate update : updates) {
-			info.addUpdate(update);
-			updateJsons.add(update.toJson());
+			updateJsons.add(info.addUpdate(update));
 		}
 
 		return new ChangeNodeResponse(updateJsons);
 	}
 
-	public static MoveNodeToResponse moveNodeTo(MoveNodeToRequest request) throws NodeNotFoundException {
+	public static MoveNodeToResponse moveNodeTo(MoveNodeToRequest request) throws MapNotFoundException, NodeNotFoundException {
 		final String source = request.getSource();
 		final String username = request.getUsername();
 		final String mapId = request.getMapId();
@@ -393,9 +448,12 @@ public class Actions {
 		final String nodeId = request.getNodeToMoveId();
 		final Integer index = request.getNewIndex();
 
-		selectMap(mapId);
-		RemoteUtils.moveNodeTo(mmapController(), newParentNodeId, nodeId, index);
-		addUpdateForMap(mapId, new MoveNodeUpdate(source, username, newParentNodeId, nodeId, index));
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
+		synchronized (modelLock) {
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
+			RemoteUtils.moveNodeTo(mmapController(), freeplaneMap, newParentNodeId, nodeId, index);
+		}
+		info.addUpdate(new MoveNodeUpdate(source, username, newParentNodeId, nodeId, index));
 
 		return new MoveNodeToResponse(true);
 	}
@@ -407,22 +465,23 @@ public class Actions {
 		final String nodeId = request.getNodeId();
 		logger().debug("Actions.removeNode => mapId:'{}'; nodeId:'{}'; username:'{}'", mapId, nodeId, username);
 
-		logger().debug("Actions.removeNode => selecting map");
-		selectMap(request.getMapId());
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
+		synchronized (modelLock) {
+			logger().debug("Actions.removeNode => selecting map");
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
 
-		logger().debug("Actions.removeNode => retrieving node");
-		final MMapController mapController = (MMapController) modeController().getMapController();
-		final NodeModel node = getNodeFromOpenMapById(mmapController(), nodeId);
+			logger().debug("Actions.removeNode => retrieving node");
+			final NodeModel node = getNodeFromOpenMapById(freeplaneMap, nodeId);
 
-		// check if any node below has a lock
-		if (hasAnyChildALock(node)) {
-			return new RemoveNodeResponse(false);
-		}
+			// check if any node below has a lock
+			if (hasAnyChildALock(node)) {
+				return new RemoveNodeResponse(false);
+			}
 
-		logger().debug("Actions.removeNode => deleting node");
-		mapController.deleteNode(node);
+			logger().debug("Actions.removeNode => deleting node");
+			mmapController().deleteNode(node);
+		}
 
-		final OpenMindmapInfo info = getOpenMindMapInfo(mapId);
 		info.addUpdate(new DeleteNodeUpdate(source, username, nodeId));
 
 		return new RemoveNodeResponse(true);
@@ -451,25 +510,28 @@ public class Actions {
 		final String source = request.getSource();
 		logger().debug("Actions.requestLock => mapId:'{}'; nodeId:'{}'; username:'{}'", mapId, nodeId, username);
 
-		logger().debug("Actions.requestLock => selecting map");
-		selectMap(mapId);
-
-		logger().debug("Actions.requestLock => retrieving freeplane node");
-		final NodeModel node = getNodeFromOpenMapById(mmapController(), nodeId);
-
-		logger().debug("Actions.requestLock => retrieving lock model");
-		final LockModel lockModel = node.getExtension(LockModel.class);
-
-		if (lockModel == null) { // no lock present
-			logger().debug("Actions.requestLock => no lock on node, creating lock...");
-			final String mapUpdateJson = addLockToNode(source, username, mapId, node);
-			return new RequestLockResponse(true, mapUpdateJson);
-		} else if (username.equals(lockModel.getUsername())) { // refresh from
-			// locking user
-			refreshLockAccessTime(node);
-			return new RequestLockResponse(true, null);
-		} else { // already locked by someone else
-			return new RequestLockResponse(false, null);
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
+		synchronized (modelLock) {
+			logger().debug("Actions.requestLock => selecting map");
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
+
+			logger().debug("Actions.requestLock => retrieving freeplane node");
+			final NodeModel node = getNodeFromOpenMapById(freeplaneMap, nodeId);
+
+			logger().debug("Actions.requestLock => retrieving lock model");
+			final LockModel lockModel = node.getExtension(LockModel.class);
+
+			if (lockModel == null) { // no lock present
+				logger().debug("Actions.requestLock => no lock on node, creating lock...");
+				final String mapUpdateJson = addLockToNode(source, username, mapId, node);
+				return new RequestLockResponse(true, mapUpdateJson);
+			} else if (username.equals(lockModel.getUsername())) { // refresh from
+				// locking user
+				refreshLockAccessTime(node);
+				return new RequestLockResponse(true, null);
+			} else { // already locked by someone else
+				return new RequestLockResponse(false, null);
+			}
 		}
 	}
 
@@ -480,40 +542,48 @@ public class Actions {
 		final String source = request.getSource();
 		logger().debug("Actions.releaseLock => mapId:'{}'; nodeId:'{}'; username: {}", mapId, nodeId, username);
 
-		logger().debug("Actions.releaseLock => selecting map");
-		selectMap(mapId);
-
-		logger().debug("Actions.releaseLock => retrieving node");
-		final NodeModel node = getNodeFromOpenMapById(mmapController(), nodeId);
-
-		logger().debug("Actions.releaseLock => retrieving lock");
-		final LockModel lm = node.getExtension(LockModel.class);
-		if (lm == null) {
-			// No lock available, nothing to release... just quit
-			logger().warn("Actions.releaseLock => no lock present");
-			// throw new LockNotFoundException("Lock for nodeId " +
-			// request.getNodeId() + " not found.");
-			return new ReleaseLockResponse(true, null);
-		}
+		final OpenMindmapInfo info = getPresentMapInfo(mapId);
+		synchronized (modelLock) {
+			logger().debug("Actions.releaseLock => selecting map");
+			final org.freeplane.features.map.MapModel freeplaneMap = selectMap(mapId, info);
+
+			logger().debug("Actions.releaseLock => retrieving node");
+			final NodeModel node = getNodeFromOpenMapById(freeplaneMap, nodeId);
+
+			logger().debug("Actions.releaseLock => retrieving lock");
+			final LockModel lm = node.getExtension(LockModel.class);
+			if (lm == null) {
+				// No lock available, nothing to release... just quit
+				logger().warn("Actions.releaseLock => no lock present");
+				// throw new LockNotFoundException("Lock for nodeId " +
+				// request.getNodeId() + " not found.");
+				return new ReleaseLockResponse(true, null);
+			}
 
-		// check if correct user
-		if (username.equals(lm.getUsername())) {
-			// release lock
-			logger().debug("Actions.releaseLock => releasing lock");
-			final String updateJson = releaseLockFromNode(source, username, mapId, node);
+			// check if correct user
+			if (username.equals(lm.getUsername())) {
+				// release lock
+				logger().debug("Actions.releaseLock => releasing lock");
+				final String updateJson = releaseLockFromNode(source, username, mapId, node);
 
-			return new ReleaseLockResponse(true, updateJson);
-		} else {
-			return new ReleaseLockResponse(false, null);
+				return new ReleaseLockResponse(true, updateJson);
+			} else {
+				return new ReleaseLockResponse(false, null);
+			}
 		}
 	}
 
-	public static void releaseTimedOutLocks(ReleaseTimedOutLocks request) throws MapNotFoundException, JsonGenerationException, JsonMappingException, IOException {
+	/**
+	 * releases the timed out locks of one map, called by the actor of the map
+	 */
+	public static void releaseTimedOutLocks(String mapId, ReleaseTimedOutLocks request) {
 		final Long millisSinceRequest = request.getMillisecondsSinceRequest();
 
-		for (Entry<String, OpenMindmapInfo> entry : openMindmapInfoMap().entrySet()) {
-			final String mapId = entry.getKey();
-			final OpenMindmapInfo info = entry.getValue();
+		final OpenMindmapInfo info = getOpenMindMapInfo(mapId);
+		if (info == null) {
+			return;
+		}
+		synchronized (modelLock) {
 			final Set<NodeModel> lockedNodes = new HashSet<NodeModel>(info.getLockedNodes());
 
 			for (NodeModel lockedNode : lockedNodes) {
@@ -523,7 +593,6 @@ public class Actions {
 					releaseLockFromNode("server", "server", mapId, lockedNode);
 				}
 			}
-
 		}
 	}
 
@@ -540,26 +609,29 @@ public class Actions {
 		}
 	}
 
-	public static void closeUnusedMaps(CloseUnusedMaps request) throws Exception {
+	/**
+	 * returns the ids of the maps to close, the maps are closed by their actors
+	 */
+	public static List<String> getUnusedMapIds(CloseUnusedMaps request) {
 		final long allowedMsSinceLastAccess = request.getUnusedSinceInMs();
-		final String source = request.getSource();
-		final String username = request.getUsername();
-		logger().debug("Actions.closeUnusedMaps => max ms since last access:'{}'", allowedMsSinceLastAccess);
+		logger().debug("Actions.getUnusedMapIds => max ms since last access:'{}'", allowedMsSinceLastAccess);
 
+		final List<String> unusedMapIds = new ArrayList<String>();
 		final long now = System.currentTimeMillis();
-		for (final String mapId : new HashSet<String>(openMindmapInfoMap().keySet())) {
-			final OpenMindmapInfo omi = getOpenMindMapInfo(mapId);
-			final long lastAccessTime = omi.getLastAccessTime();
+		for (final Entry<String, OpenMindmapInfo> entry : openMindmapInfoMap().entrySet()) {
+			final String mapId = entry.getKey();
+			final long lastAccessTime = entry.getValue().getLastAccessTime();
 			final long sinceLastAccess = now - lastAccessTime;
 			final long sinceLastAccessInMinutes = sinceLastAccess / 60000;
-			logger().debug("Actions.closeUnusedMaps => mapId:'{}'; lastAccess:{}; sinceLastAccess:{}", mapId, lastAccessTime, sinceLastAccess);
+			logger().debug("Actions.getUnusedMapIds => mapId:'{}'; lastAccess:{}; sinceLastAccess:{}", mapId, lastAccessTime, sinceLastAccess);
 
 			if (sinceLastAccess > allowedMsSinceLastAccess) {
 				// TODO tell ZooKeeper and save to hadoop
-				closeMap(new CloseMapRequest(source, username, mapId));
-				logger().info("Actions.closeUnusedMaps => map was closed, because it havent been used for about {} minutes.", sinceLastAccessInMinutes);
+				unusedMapIds.add(mapId);
+				logger().info("Actions.getUnusedMapIds => map will be closed, because it havent been used for about {} minutes.", sinceLastAccessInMinutes);
 			}
 		}
+		return unusedMapIds;
 	}
 
 	// private static org.freeplane.features.map.NodeModel
@@ -579,36 +651,39 @@ public class Actions {
 	// }
 
 	/**
-	 * Select Map so getMapController() has right map.
+	 * Select Map so getMapController() has right map. The map is not loaded
+	 * again, its view is selected. Has to be called holding the model lock.
 	 * 
 	 * @param mapId
 	 *            Id of Map
+	 * @return the selected map
 	 * @throws MapNotFoundException
 	 */
-	private static void selectMap(String mapId) throws MapNotFoundException {
+	private static org.freeplane.features.map.MapModel selectMap(String mapId, OpenMindmapInfo info) throws MapNotFoundException {
 		logger().debug("Actions.selectMap => mapId:'{}'", mapId);
-
-		// check if map is already selected
-		if (currentSelectedMapId == mapId) {
-			return;
+		final org.freeplane.features.map.MapModel freeplaneMap = info.getMap();
+		if (freeplaneMap == null) {
+			logger().error("Actions.selectMap => map was closed");
+			throw new MapNotFoundException("Map with id " + mapId + " is not present.", mapId);
 		}
 
-		if (!isMapPresent(mapId)) {
-			logger().error("Actions.selectMap => map not found");
-			throw new MapNotFoundException("Map with id " + mapId + " is not present.", mapId);
+		// check if map is already selected
+		if (modeController().getController().getMap() == freeplaneMap) {
+			return freeplaneMap;
 		}
 
 		logger().debug("Actions.selectMap => Changing map to '{}'", mapId);
-		final URL pathURL = getOpenMindMapInfo(mapId).getMapUrl();
-
 		try {
-			final MapIO mio = RemoteController.getMapIO();
-			mio.newMap(pathURL);
-			logger().debug("Actions.selectMap => Map succesfully selected");
-		} catch (Exception e) {
+			if (modeController().getController().getMapViewManager().tryToChangeToMapView(info.getMapUrl())) {
+				logger().debug("Actions.selectMap => Map succesfully selected");
+				return freeplaneMap;
+			}
+		} catch (MalformedURLException e) {
 			logger().error("Actions.selectMap => Error while selecting map with id '{}'", mapId);
-			throw new MapNotFoundException("Could not open Map with id " + mapId, e, mapId);
+			throw new MapNotFoundException("Could not select Map with id " + mapId, e, mapId);
 		}
+		logger().error("Actions.selectMap => map view not found");
+		throw new MapNotFoundException("Could not select Map with id " + mapId, mapId);
 	}
 
 	/**
@@ -637,8 +712,7 @@ public class Actions {
 
 			final ChangeNodeAttributeUpdate update = new ChangeNodeAttributeUpdate(source, username, freeplaneNode.getID(), "locked", username);
 			// add change to revision list
-			info.addUpdate(update);
-			return update.toJson();
+			return info.addUpdate(update);
 		} else {
 			throw new AssertionError("Tried to add Lock to a Node with a Lock present");
 		}
@@ -656,8 +730,7 @@ public class Actions {
 
 			final ChangeNodeAttributeUpdate update = new ChangeNodeAttributeUpdate(source, username, freeplaneNode.getID(), "locked", null);
 			// add change to revision list
-			info.addUpdate(update);
-			return update.toJson();
+			return info.addUpdate(update);
 		} else {
 			throw new AssertionError("Tried to remove Lock from a Node without a Lock");
 		}
@@ -674,6 +747,10 @@ public class Actions {
 		}
 	}
 
+	public static boolean isMapOpen(String mapId) {
+		return getOpenMindMapInfo(mapId) != null;
+	}
+
 	private static OpenMindmapInfo getOpenMindMapInfo(String mapId) {
 		final Map<String, OpenMindmapInfo> map = openMindmapInfoMap();
 		if (!map.containsKey(mapId)) {
@@ -682,15 +759,13 @@ public class Actions {
 		return map.get(mapId);
 	}
 
-	private static boolean isMapPresent(String mapId) {
-		return (getOpenMindMapInfo(mapId) != null);
-	}
-
-	private static void addUpdateForMap(String mapId, MapUpdate update) {
+	private static OpenMindmapInfo getPresentMapInfo(String mapId) throws MapNotFoundException {
 		final OpenMindmapInfo info = getOpenMindMapInfo(mapId);
-		if (info == null)
-			throw new NullPointerException();
-		info.addUpdate(update);
+		if (info == null) {
+			logger().error("Actions.getPresentMapInfo => map not found");
+			throw new MapNotFoundException("Map with id " + mapId + " is not present.", mapId);
+		}
+		return info;
 	}
 
 	private static String buildJSON(Object object) {
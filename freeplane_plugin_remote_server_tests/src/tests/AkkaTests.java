@@ -44,6 +44,9 @@ import org.docear.messages.Messages.RequestLockResponse;
 import org.docear.messages.exceptions.MapNotFoundException;
 import org.docear.messages.exceptions.NodeNotFoundException;
 import org.fest.assertions.Fail;
+import org.freeplane.plugin.remote.SubscriptionMessages.PushedUpdatesResponse;
+import org.freeplane.plugin.remote.SubscriptionMessages.SubscribeToUpdatesRequest;
+import org.freeplane.plugin.remote.SubscriptionMessages.UnsubscribeFromUpdatesRequest;
 import org.freeplane.plugin.remote.v10.model.NodeModelDefault;
 import org.freeplane.plugin.remote.v10.model.updates.AddNodeUpdate;
 import org.freeplane.plugin.remote.v10.model.updates.ChangeNodeAttributeUpdate;
@@ -714,6 +717,43 @@ public class AkkaTests {
 		};
 	}
 
+	/**
+	 * testSubscribeToUpdates Open Map. Subscribe to the updates, add a node.
+	 * The update of the new node is pushed to the subscriber.
+	 */
+	@Test
+	public void testSubscribeToUpdates() {
+		new JavaTestKit(system) {
+			{
+				localActor.tell(getRef(), getRef());
+				new Within(duration("3 seconds")) {
+					@Override
+					public void run() {
+						try {
+							sendMindMapToServer(5);
+							remoteActor.tell(new SubscribeToUpdatesRequest(SOURCE, USERNAME1, "5", 0), localActor);
+							remoteActor.tell(new AddNodeRequest(SOURCE, USERNAME1, "5", "ID_0"), localActor);
+							final AddNodeResponse addResponse = expectMsgClass(AddNodeResponse.class);
+
+							final PushedUpdatesResponse pushed = expectMsgClass(PushedUpdatesResponse.class);
+							assertThat(pushed.getMapId()).isEqualTo("5");
+							assertThat(pushed.isReloadRequired()).isFalse();
+							assertThat(pushed.getCurrentRevision()).isEqualTo(1);
+							assertThat(pushed.getOrderedUpdates()).containsOnly(addResponse.getMapUpdate());
+
+							remoteActor.tell(new UnsubscribeFromUpdatesRequest(SOURCE, USERNAME1, "5"), localActor);
+							remoteActor.tell(new AddNodeRequest(SOURCE, USERNAME1, "5", "ID_0"), localActor);
+							expectMsgClass(AddNodeResponse.class);
+							expectNoMsg(duration("500 milliseconds"));
+						} finally {
+							closeMindMapOnServer(5);
+						}
+					}
+				};
+			}
+		};
+	}
+
 	/**
 	 * simulateMultipleUserAkka four user opening 4 different maps, each in one
 	 * thread
@@ -0,0 +1,147 @@
+package tests;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.fest.assertions.Fail;
+import org.freeplane.plugin.remote.client.services.DocearOnlineWs;
+import org.freeplane.plugin.remote.client.services.GetUpdatesResponse;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import scala.concurrent.Await;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+import akka.actor.ActorSystem;
+import akka.testkit.JavaTestKit;
+
+/**
+ * Tests the client webservice against a {@link StandInServer}.
+ */
+public class DocearOnlineWsTest {
+	private static final String USERNAME = "USER1";
+	private static final String TOKEN = "token";
+
+	private static ActorSystem system;
+	private StandInServer server;
+	private DocearOnlineWs webservice;
+
+	@BeforeClass
+	public static void setUpBeforeClass() {
+		system = ActorSystem.create("clientTest");
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() {
+		system.shutdown();
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		server = new StandInServer();
+		webservice = new DocearOnlineWs(server.getUrl(), "testing", system.dispatcher());
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+	}
+
+	private static String batch(int currentRevision, boolean reloadRequired) {
+		return "{\"currentRevision\":" + currentRevision + ",\"orderedUpdates\":[],\"reloadRequired\":" + reloadRequired + "}";
+	}
+
+	private static <T> T result(Future<T> future) throws Exception {
+		return Await.result(future, Duration.create("3 seconds"));
+	}
+
+	@Test
+	public void testStreamedUpdatesCarryTheMapId() {
+		new JavaTestKit(system) {
+			{
+				server.respond("/map/5/updates/3/stream", 200, batch(4, false), ":", "data: " + batch(5, true));
+				try {
+					final Future<Boolean> stream = webservice.streamUpdates(USERNAME, TOKEN, "5", 3, getRef());
+
+					final GetUpdatesResponse first = expectMsgClass(GetUpdatesResponse.class);
+					assertThat(first.getMapId()).isEqualTo("5");
+					assertThat(first.getCurrentRevision()).isEqualTo(4);
+					assertThat(first.isReloadRequired()).isFalse();
+
+					final GetUpdatesResponse second = expectMsgClass(GetUpdatesResponse.class);
+					assertThat(second.getMapId()).isEqualTo("5");
+					assertThat(second.getCurrentRevision()).isEqualTo(5);
+					assertThat(second.isReloadRequired()).isTrue();
+
+					assertThat(result(stream)).isTrue();
+				} catch (Exception e) {
+					Fail.fail("error occured", e);
+				}
+			}
+		};
+	}
+
+	@Test
+	public void testStreamingNotSupported() {
+		new JavaTestKit(system) {
+			{
+				try {
+					assertThat(result(webservice.streamUpdates(USERNAME, TOKEN, "5", 0, getRef()))).isFalse();
+				} catch (Exception e) {
+					Fail.fail("error occured", e);
+				}
+			}
+		};
+	}
+
+	@Test
+	public void testNextStreamStopsFormerStream() {
+		new JavaTestKit(system) {
+			{
+				server.stream("/map/5/updates/0/stream", batch(1, false));
+				server.stream("/map/6/updates/0/stream", batch(2, false));
+				try {
+					final Future<Boolean> formerStream = webservice.streamUpdates(USERNAME, TOKEN, "5", 0, getRef());
+					assertThat(expectMsgClass(GetUpdatesResponse.class).getMapId()).isEqualTo("5");
+
+					final Future<Boolean> stream = webservice.streamUpdates(USERNAME, TOKEN, "6", 0, getRef());
+					assertThat(expectMsgClass(GetUpdatesResponse.class).getMapId()).isEqualTo("6");
+					assertThat(result(formerStream)).isTrue();
+					assertThat(server.awaitStreamClosed("/map/5/updates/0/stream", 3000)).isTrue();
+					assertThat(stream.isCompleted()).isFalse();
+
+					webservice.stopStreaming(getRef());
+					assertThat(result(stream)).isTrue();
+					assertThat(server.awaitStreamClosed("/map/6/updates/0/stream", 3000)).isTrue();
+					expectNoMsg(duration("200 milliseconds"));
+				} catch (Exception e) {
+					Fail.fail("error occured", e);
+				}
+			}
+		};
+	}
+
+	@Test
+	public void testFetchedUpdatesCarryTheMapId() throws Exception {
+		server.respond("/map/5/updates/1", 200, batch(3, false));
+		final GetUpdatesResponse response = result(webservice.getUpdatesSinceRevision(USERNAME, TOKEN, "5", 1));
+		assertThat(response.getMapId()).isEqualTo("5");
+		assertThat(response.getCurrentRevision()).isEqualTo(3);
+		assertThat(response.getOrderedUpdates()).isEmpty();
+	}
+
+	@Test
+	public void testFetchingDiscardedUpdatesFails() throws Exception {
+		server.respond("/map/5/updates/1", 410, "{}");
+		try {
+			result(webservice.getUpdatesSinceRevision(USERNAME, TOKEN, "5", 1));
+			Fail.fail("updates since a discarded revision");
+		} catch (IOException e) {
+			assertThat(e.getMessage()).isEqualTo("Status: 410");
+		}
+	}
+}
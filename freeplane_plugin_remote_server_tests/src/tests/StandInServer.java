@@ -0,0 +1,125 @@
+package tests;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the Docear webservice, so that the client can be tested
+ * without a running webservice. Every path answers with a configured status
+ * and lines, or keeps streaming heartbeats until the client closes the
+ * connection. Unknown paths answer 404.
+ */
+public class StandInServer {
+	private static final long STREAM_TIMEOUT = 10000;
+	private static final long HEARTBEAT_INTERVAL = 20;
+
+	private static class Response {
+		private final int status;
+		private final String[] lines;
+		private final boolean keepStreaming;
+
+		private Response(int status, String[] lines, boolean keepStreaming) {
+			this.status = status;
+			this.lines = lines;
+			this.keepStreaming = keepStreaming;
+		}
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final Map<String, Response> responses = new ConcurrentHashMap<String, Response>();
+	private final Map<String, CountDownLatch> closedStreams = new ConcurrentHashMap<String, CountDownLatch>();
+
+	public StandInServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					respond(exchange);
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * answers requests of the path with the status and the lines.
+	 */
+	public void respond(String path, int status, String... lines) {
+		responses.put(path, new Response(status, lines, false));
+	}
+
+	/**
+	 * answers requests of the path with the lines followed by heartbeats
+	 * until the client closes the connection.
+	 */
+	public void stream(String path, String... lines) {
+		responses.put(path, new Response(200, lines, true));
+		closedStreams.put(path, new CountDownLatch(1));
+	}
+
+	/**
+	 * @return true if the client closed the stream of the path in time
+	 */
+	public boolean awaitStreamClosed(String path, long timeoutMillis) throws InterruptedException {
+		return closedStreams.get(path).await(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void respond(HttpExchange exchange) throws IOException {
+		final String path = exchange.getRequestURI().getPath();
+		final Response response = responses.get(path);
+		if (response == null) {
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+		exchange.sendResponseHeaders(response.status, 0);
+		final OutputStream out = exchange.getResponseBody();
+		try {
+			for (String line : response.lines) {
+				write(out, line);
+			}
+			if (response.keepStreaming) {
+				final long end = System.currentTimeMillis() + STREAM_TIMEOUT;
+				while (System.currentTimeMillis() < end) {
+					Thread.sleep(HEARTBEAT_INTERVAL);
+					write(out, ":");
+				}
+			}
+		} catch (IOException e) {
+			if (response.keepStreaming) {
+				closedStreams.get(path).countDown();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void write(OutputStream out, String line) throws IOException {
+		out.write((line + "\n").getBytes("UTF-8"));
+		out.flush();
+	}
+}
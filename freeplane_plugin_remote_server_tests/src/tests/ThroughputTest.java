@@ -0,0 +1,126 @@
+package tests;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.docear.messages.Messages.CloseAllOpenMapsRequest;
+import org.docear.messages.Messages.GetNodeRequest;
+import org.docear.messages.Messages.GetNodeResponse;
+import org.docear.messages.Messages.MindmapAsJsonReponse;
+import org.docear.messages.Messages.MindmapAsJsonRequest;
+import org.docear.messages.Messages.OpenMindMapRequest;
+import org.docear.messages.Messages.OpenMindMapResponse;
+import org.docear.messages.exceptions.MapNotFoundException;
+import org.fest.assertions.Fail;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import scala.concurrent.Await;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.pattern.Patterns;
+
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Measures the throughput of read requests to several open maps sent by
+ * several clients in parallel. Every map is handled by its own actor, so the
+ * requests are answered without loading the maps again.
+ */
+public class ThroughputTest {
+
+	private final static String SOURCE = "testing";
+	private final static String USERNAME = "USER1";
+	private final static String[] MAP_IDS = { "1", "2", "3", "5" };
+	private final static int CLIENT_COUNT = 8;
+	private final static int REQUESTS_PER_CLIENT = 200;
+
+	private static ActorSystem system;
+	private static ActorRef remoteActor;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		// any free port, so that it can run together with the other tests
+		system = ActorSystem.create("throughputuser", ConfigFactory.parseString("akka.remote.netty.port = 0").withFallback(ConfigFactory.load().getConfig("local")));
+		remoteActor = system.actorFor("akka://freeplaneRemote@127.0.0.1:2553/user/main");
+		try {
+			ask(new MindmapAsJsonRequest(SOURCE, USERNAME, "NOT_EXISTING"));
+		} catch (MapNotFoundException e) {
+			// expected, server is running
+		} catch (Exception e) {
+			Fail.fail("Could not connect to Freeplane Remote", e);
+		}
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		remoteActor.tell(new CloseAllOpenMapsRequest(SOURCE, USERNAME), null);
+		system.shutdown();
+	}
+
+	@Test
+	public void testParallelReadsOfSeveralMaps() throws Exception {
+		for (String mapId : MAP_IDS) {
+			openMap(mapId);
+		}
+
+		final AtomicInteger failures = new AtomicInteger();
+		final List<Thread> clients = new ArrayList<Thread>();
+		for (int i = 0; i < CLIENT_COUNT; i++) {
+			final int client = i;
+			clients.add(new Thread("client " + i) {
+				@Override
+				public void run() {
+					for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+						final String mapId = MAP_IDS[(client + j) % MAP_IDS.length];
+						try {
+							if (j % 2 == 0) {
+								final MindmapAsJsonReponse response = (MindmapAsJsonReponse) ask(new MindmapAsJsonRequest(SOURCE, USERNAME, mapId));
+								assertThat(response.getJsonString()).contains("\"root\":{\"id\":\"ID_0\"");
+							} else {
+								final GetNodeResponse response = (GetNodeResponse) ask(new GetNodeRequest(SOURCE, USERNAME, mapId, "ID_0", 1));
+								assertThat(response.getNode()).contains("\"id\":\"ID_0\"");
+							}
+						} catch (Throwable e) {
+							e.printStackTrace();
+							failures.incrementAndGet();
+						}
+					}
+				}
+			});
+		}
+
+		final long startTime = System.currentTimeMillis();
+		for (Thread client : clients) {
+			client.start();
+		}
+		for (Thread client : clients) {
+			client.join();
+		}
+		final long time = Math.max(1, System.currentTimeMillis() - startTime);
+
+		final int requestCount = CLIENT_COUNT * REQUESTS_PER_CLIENT;
+		System.out.println("ThroughputTest: " + requestCount + " requests to " + MAP_IDS.length + " maps in " + time + " ms, " + (requestCount * 1000L / time) + " requests per second");
+		assertThat(failures.get()).isEqualTo(0);
+	}
+
+	private static void openMap(String mapId) throws Exception {
+		final File f = new File(ThroughputTest.class.getResource("/files/mindmaps/" + mapId + ".mm").toURI());
+		final String mapContent = FileUtils.readFileToString(f);
+		final OpenMindMapResponse response = (OpenMindMapResponse) ask(new OpenMindMapRequest(SOURCE, USERNAME, mapId, mapContent, mapId + ".mm"));
+		assertThat(response.getSuccess()).isEqualTo(true);
+	}
+
+	private static Object ask(Object request) throws Exception {
+		final Future<Object> future = Patterns.ask(remoteActor, request, 5000);
+		return Await.result(future, Duration.create("5 seconds"));
+	}
+}
@@ -0,0 +1,136 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.freeplane.plugin.remote.server.UpdateLog;
+import org.freeplane.plugin.remote.v10.model.updates.AddNodeUpdate;
+import org.freeplane.plugin.remote.v10.model.updates.ChangeNodeAttributeUpdate;
+import org.freeplane.plugin.remote.v10.model.updates.DeleteNodeUpdate;
+import org.freeplane.plugin.remote.v10.model.updates.MapUpdate;
+import org.freeplane.plugin.remote.v10.model.updates.MoveNodeUpdate;
+import org.junit.Test;
+
+public class UpdateLogTest {
+	private static final String SOURCE = "test";
+	private static final String USER = "user";
+
+	private AddNodeUpdate add(String nodeId) {
+		return new AddNodeUpdate(SOURCE, USER, "root", nodeId, "{}");
+	}
+
+	private ChangeNodeAttributeUpdate change(String nodeId, String attribute, Object value) {
+		return new ChangeNodeAttributeUpdate(SOURCE, USER, nodeId, attribute, value);
+	}
+
+	private MoveNodeUpdate move(String nodeId) {
+		return new MoveNodeUpdate(SOURCE, USER, "root", nodeId, 0);
+	}
+
+	private DeleteNodeUpdate delete(String nodeId) {
+		return new DeleteNodeUpdate(SOURCE, USER, nodeId);
+	}
+
+	private List<String> addAll(UpdateLog log, MapUpdate... updates) {
+		final List<String> json = new ArrayList<String>();
+		for (MapUpdate update : updates) {
+			json.add(log.add(update));
+		}
+		return json;
+	}
+
+	@Test
+	public void testChangedAttributeSupersedesFormerChange() {
+		final UpdateLog log = new UpdateLog();
+		final List<String> json = addAll(log, add("a"), change("a", "nodeText", "1"), change("a", "folded", true),
+				change("a", "nodeText", "2"));
+		assertEquals(4, log.getCurrentRevision());
+		assertEquals(Arrays.asList(json.get(0), json.get(2), json.get(3)), log.getUpdatesSince(0));
+		assertEquals(Arrays.asList(json.get(2), json.get(3)), log.getUpdatesSince(1));
+		assertEquals(Arrays.asList(json.get(3)), log.getUpdatesSince(3));
+		assertEquals(0, log.getUpdatesSince(4).size());
+	}
+
+	@Test
+	public void testDeletedNodeSupersedesItsUpdates() {
+		final UpdateLog log = new UpdateLog();
+		final List<String> json = addAll(log, add("a"), add("b"), change("a", "nodeText", "1"), move("a"), delete("a"));
+		assertEquals(Arrays.asList(json.get(1), json.get(4)), log.getUpdatesSince(0));
+		assertEquals(Arrays.asList(json.get(4)), log.getUpdatesSince(2));
+	}
+
+	@Test
+	public void testRevisionGapsAfterCompaction() {
+		final UpdateLog log = new UpdateLog();
+		final List<String> expected = new ArrayList<String>();
+		final List<Integer> expectedRevisions = new ArrayList<Integer>();
+		// every second update is superseded, which compacts the log several times
+		for (int i = 0; i < 500; i++) {
+			log.add(change("a", "nodeText", i));
+			expected.add(log.add(add("n" + i)));
+			expectedRevisions.add(log.getCurrentRevision());
+		}
+		final String lastChange = log.add(change("a", "nodeText", "last"));
+		assertEquals(0, log.getOldestRevision());
+		for (int since = 0; since <= log.getCurrentRevision(); since++) {
+			final List<String> updates = log.getUpdatesSince(since);
+			int first = 0;
+			while (first < expectedRevisions.size() && expectedRevisions.get(first) <= since) {
+				first++;
+			}
+			final List<String> expectedUpdates = new ArrayList<String>(expected.subList(first, expected.size()));
+			if (since < log.getCurrentRevision()) {
+				expectedUpdates.add(lastChange);
+			}
+			assertEquals("since " + since, expectedUpdates, updates);
+		}
+	}
+
+	@Test
+	public void testOldestUpdatesAreDiscarded() {
+		final UpdateLog log = new UpdateLog(8, Long.MAX_VALUE);
+		final List<String> json = new ArrayList<String>();
+		for (int i = 0; i < 20; i++) {
+			json.add(log.add(add("n" + i)));
+		}
+		final int oldestRevision = log.getOldestRevision();
+		assertTrue(oldestRevision > 0);
+		final List<String> kept = log.getUpdatesSince(oldestRevision);
+		assertTrue(kept.size() <= 8);
+		assertEquals(json.subList(oldestRevision, json.size()), kept);
+	}
+
+	@Test
+	public void testJsonLengthIsLimited() {
+		final String json = add("n0").toJson();
+		final UpdateLog log = new UpdateLog(Integer.MAX_VALUE, json.length() * 10);
+		for (int i = 0; i < 100; i++) {
+			log.add(add("n" + i % 10));
+		}
+		assertTrue(log.getOldestRevision() > 0);
+		assertTrue(log.getUpdatesSince(log.getOldestRevision()).size() <= 10);
+	}
+
+	@Test
+	public void testUpdatesSinceDiscardedRevisionFail() {
+		final UpdateLog log = new UpdateLog(8, Long.MAX_VALUE);
+		final Random random = new Random(1);
+		for (int i = 0; i < 100; i++) {
+			log.add(change("n" + random.nextInt(20), "nodeText", i));
+		}
+		final int oldestRevision = log.getOldestRevision();
+		assertTrue(oldestRevision > 0);
+		log.getUpdatesSince(oldestRevision);
+		try {
+			log.getUpdatesSince(oldestRevision - 1);
+			fail("updates since a discarded revision");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+}
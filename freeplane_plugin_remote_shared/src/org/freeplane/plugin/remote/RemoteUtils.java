@@ -9,6 +9,7 @@ import org.docear.messages.exceptions.NodeNotFoundException;
 import org.freeplane.features.attribute.NodeAttributeTableModel;
 import org.freeplane.features.attribute.mindmapmode.MAttributeController;
 import org.freeplane.features.link.NodeLinks;
+import org.freeplane.features.map.MapModel;
 import org.freeplane.features.map.NodeChangeEvent;
 import org.freeplane.features.map.NodeModel;
 import org.freeplane.features.map.mindmapmode.MMapController;
@@ -55,6 +56,17 @@ public final class RemoteUtils {
 
 		return freeplaneNode;
 	}
+
+	/** looks the node up in <code>map</code>, which need not be the selected map. */
+	public static NodeModel getNodeFromOpenMapById(MapModel map, final String nodeId) throws NodeNotFoundException {
+		final NodeModel freeplaneNode = map.getNodeForID(nodeId);
+
+		if (freeplaneNode == null) {
+			throw new NodeNotFoundException("Node with id '" + nodeId + "' not found.");
+		}
+
+		return freeplaneNode;
+	}
 	
 	public static void changeNodeAttribute(NodeModel freeplaneNode, String attribute, Object valueObj) {
 		System.out.println("attribute: "+attribute);
@@ -138,6 +150,14 @@ public final class RemoteUtils {
 		mapController.moveNode(nodeToMove, parentNode, newIndex);
 		nodeToMove.setLeft(parentNode.isLeft());
 	}
+
+	public static void moveNodeTo(MMapController mapController, MapModel map, String parentNodeId, String nodeToMoveId, int newIndex) throws NodeNotFoundException {
+		final NodeModel parentNode = getNodeFromOpenMapById(map, parentNodeId);
+		final NodeModel nodeToMove = getNodeFromOpenMapById(map, nodeToMoveId);
+
+		mapController.moveNode(nodeToMove, parentNode, newIndex);
+		nodeToMove.setLeft(parentNode.isLeft());
+	}
 	
 	private static void updateLocationModel(NodeModel freeplaneNode, Integer hGap, Integer Shifty) {
 		System.out.println("changing location");
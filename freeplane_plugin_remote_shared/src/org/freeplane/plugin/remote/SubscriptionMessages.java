@@ -0,0 +1,75 @@
+package org.freeplane.plugin.remote;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.docear.messages.Messages.MindMapRequest;
+
+/**
+ * Messages to subscribe to the updates of a map. Subscribers receive a
+ * PushedUpdatesResponse with the updates of every request changing the map,
+ * instead of listening and fetching the updates after every change.
+ */
+public class SubscriptionMessages {
+
+	/**
+	 * subscribes the sender, the updates since the given revision are pushed
+	 * at once
+	 */
+	@SuppressWarnings("serial")
+	public static class SubscribeToUpdatesRequest extends MindMapRequest {
+		private final Integer sinceRevision;
+
+		public SubscribeToUpdatesRequest(String source, String username, String mapId, Integer sinceRevision) {
+			super(source, username, mapId);
+			this.sinceRevision = sinceRevision;
+		}
+
+		public Integer getSinceRevision() {
+			return sinceRevision;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	public static class UnsubscribeFromUpdatesRequest extends MindMapRequest {
+		public UnsubscribeFromUpdatesRequest(String source, String username, String mapId) {
+			super(source, username, mapId);
+		}
+	}
+
+	/**
+	 * the updates since the revision last pushed to the subscriber, superseded
+	 * updates are left out. If the updates were discarded, the list is empty
+	 * and the map has to be loaded again.
+	 */
+	@SuppressWarnings("serial")
+	public static class PushedUpdatesResponse implements Serializable {
+		private final String mapId;
+		private final Integer currentRevision;
+		private final List<String> orderedUpdates;
+		private final boolean reloadRequired;
+
+		public PushedUpdatesResponse(String mapId, Integer currentRevision, List<String> orderedUpdates, boolean reloadRequired) {
+			this.mapId = mapId;
+			this.currentRevision = currentRevision;
+			this.orderedUpdates = orderedUpdates;
+			this.reloadRequired = reloadRequired;
+		}
+
+		public String getMapId() {
+			return mapId;
+		}
+
+		public Integer getCurrentRevision() {
+			return currentRevision;
+		}
+
+		public List<String> getOrderedUpdates() {
+			return orderedUpdates;
+		}
+
+		public boolean isReloadRequired() {
+			return reloadRequired;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package org.freeplane.plugin.script;
+
+import groovy.lang.Binding;
+import groovy.lang.Script;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+/** A bounded cache of compiled script classes, keyed by the script text and shared by all maps.
+ * Only the compiled classes are cached: every call to {@link #newInstance(String, Binding)} returns a fresh
+ * {@link Script} instance with its own binding, so nested formula evaluations never share state.
+ * The least recently used classes are evicted once the capacity is exceeded. Threadsafe. */
+public class CompiledScriptCache {
+	private final LinkedHashMap<String, Class<? extends Script>> scriptClasses;
+	private final int capacity;
+	private long hits;
+	private long misses;
+
+	public CompiledScriptCache(final int capacity) {
+		this.capacity = capacity;
+		this.scriptClasses = new LinkedHashMap<String, Class<? extends Script>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Class<? extends Script>> eldest) {
+				return size() > CompiledScriptCache.this.capacity;
+			}
+		};
+	}
+
+	/** returns a new instance of the cached script class or null if <code>text</code> was not compiled yet. */
+	public Script newInstance(final String text, final Binding binding) {
+		final Class<? extends Script> scriptClass = get(text);
+		if (scriptClass == null)
+			return null;
+		return InvokerHelper.createScript(scriptClass, binding);
+	}
+
+	private synchronized Class<? extends Script> get(final String text) {
+		final Class<? extends Script> scriptClass = scriptClasses.get(text);
+		if (scriptClass == null)
+			++misses;
+		else
+			++hits;
+		return scriptClass;
+	}
+
+	/** stores the class of <code>compiledScript</code>. Caching is disabled if the capacity is not positive. */
+	public synchronized void put(final String text, final Script compiledScript) {
+		if (capacity > 0)
+			scriptClasses.put(text, compiledScript.getClass());
+	}
+
+	public synchronized void clear() {
+		scriptClasses.clear();
+	}
+
+	public synchronized int size() {
+		return scriptClasses.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "CompiledScriptCache[size=" + scriptClasses.size() + ", capacity=" + capacity + ", hits=" + hits
+		        + ", misses=" + misses + "]";
+	}
+}
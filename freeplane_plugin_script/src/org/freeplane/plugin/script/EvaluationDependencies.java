@@ -1,7 +1,10 @@
 package org.freeplane.plugin.script;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 
@@ -13,53 +16,109 @@ public class EvaluationDependencies implements IExtension{
 		NODE, BRANCH, ALL
 	}
 
+	/** edges from an accessed node to the formula nodes that accessed it. */
 	private HashMap<NodeModel, HashSet<NodeModel>> onNodeDependencies = new HashMap<NodeModel, HashSet<NodeModel>>();
-	// FIXME: organize node and branch dependencies in a tree?
+	/** edges from the root of an accessed branch to the formula nodes that accessed it. Looked up for every
+	 * ancestor of a changed node so that the cost only depends on the depth of the changed node. */
 	private HashMap<NodeModel, HashSet<NodeModel>> onBranchDependencies = new HashMap<NodeModel, HashSet<NodeModel>>();
 	private HashSet<NodeModel> onAnyNodeDependencies = new HashSet<NodeModel>();
+	/** memoized transitive closures, valid until the next edge is added or the map structure changes. */
+	private HashMap<NodeModel, Set<NodeModel>> closures = new HashMap<NodeModel, Set<NodeModel>>();
 
 	public Set<NodeModel> getDependencies(Set<NodeModel> result, final NodeModel node) {
-		final HashSet<NodeModel> onNode = onNodeDependencies.get(node);
-		if (onNode != null)
-			addRecursively(result, onNode);
-		for (Entry<NodeModel, HashSet<NodeModel>> entry : onBranchDependencies.entrySet()) {
-			if (node.isDescendantOf(entry.getKey()))
-				addRecursively(result, entry.getValue());
-		}
-		addRecursively(result, onAnyNodeDependencies);
+		result.addAll(getTransitiveDependencies(node));
 //		System.out.println("dependencies on(" + node + "): " + result);
 		return result;
 	}
 
-	private void addRecursively(Set<NodeModel> dependentNodes, final HashSet<NodeModel> nodesToAdd) {
-		for (NodeModel node : nodesToAdd) {
-			// avoid loops
-			if (dependentNodes.add(node))
-				dependentNodes.addAll(getDependencies(dependentNodes, node));
+	private Set<NodeModel> getTransitiveDependencies(final NodeModel node) {
+		Set<NodeModel> closure = closures.get(node);
+		if (closure == null) {
+			closure = computeTransitiveDependencies(node);
+			closures.put(node, closure);
+		}
+		return closure;
+	}
+
+	/** breadth first search over the dependency edges. Every node is expanded at most once which also
+	 * takes care of circular references. */
+	private Set<NodeModel> computeTransitiveDependencies(final NodeModel node) {
+		final LinkedHashSet<NodeModel> closure = new LinkedHashSet<NodeModel>();
+		final ArrayList<NodeModel> queue = new ArrayList<NodeModel>();
+		queue.add(node);
+		for (int i = 0; i < queue.size(); i++) {
+			final NodeModel changedNode = queue.get(i);
+			final Set<NodeModel> memoized = closures.get(changedNode);
+			if (memoized != null && changedNode != node) {
+				closure.addAll(memoized);
+				continue;
+			}
+			addDirectDependencies(closure, queue, changedNode);
+		}
+		return closure;
+	}
+
+	/** adds the nodes that directly accessed <code>node</code> - either itself, one of its ancestor's branches
+	 * or all nodes - to <code>result</code>. */
+	public Set<NodeModel> getDirectDependencies(Set<NodeModel> result, final NodeModel node) {
+		addDirectDependencies(result, null, node);
+		return result;
+	}
+
+	private void addDirectDependencies(final Set<NodeModel> result, final List<NodeModel> queue,
+	                                   final NodeModel changedNode) {
+		addDependencies(result, queue, onNodeDependencies.get(changedNode));
+		for (NodeModel ancestor = changedNode.getParentNode(); ancestor != null; ancestor = ancestor
+		    .getParentNode()) {
+			addDependencies(result, queue, onBranchDependencies.get(ancestor));
+		}
+		addDependencies(result, queue, onAnyNodeDependencies);
+	}
+
+	private void addDependencies(final Set<NodeModel> result, final List<NodeModel> queue,
+	                             final Set<NodeModel> dependentNodes) {
+		if (dependentNodes == null)
+			return;
+		for (NodeModel dependentNode : dependentNodes) {
+			if (result.add(dependentNode) && queue != null)
+				queue.add(dependentNode);
 		}
 	}
 
 	/** accessedNode was accessed when formulaNode was evaluated. */
 	public void accessNode(NodeModel formulaNode, NodeModel accessedNode) {
 		// FIXME: check if accessedNode is already covered by other accessModes
-		getDependencySet(accessedNode, onNodeDependencies).add(formulaNode);
+		addEdge(getDependencySet(accessedNode, onNodeDependencies), formulaNode);
 //		System.out.println(formulaNode + " accesses " + accessedNode + ". current dependencies:\n" + this);
 	}
 
 	/** accessedNode.children was accessed when formulaNode was evaluated. */
 	public void accessBranch(NodeModel formulaNode, NodeModel accessedNode) {
 		// FIXME: check if accessedNode is already covered by other accessModes
-		getDependencySet(accessedNode, onBranchDependencies).add(formulaNode);
+		addEdge(getDependencySet(accessedNode, onBranchDependencies), formulaNode);
 //		System.out.println(formulaNode + " accesses branch of " + accessedNode + ". current dependencies:\n" + this);
 	}
 
 	/** a method was used on the formulaNode that may use any node in the map. */
 	public void accessAll(NodeModel formulaNode) {
 		// FIXME: check if accessedNode is already covered by other accessModes
-		onAnyNodeDependencies.add(formulaNode);
+		addEdge(onAnyNodeDependencies, formulaNode);
 //		System.out.println(formulaNode + " accesses all nodes. current dependencies:\n" + this);
 	}
 
+	/** formulas register their accesses on every evaluation, so the memoized closures are only dropped
+	 * if the graph actually changes. */
+	private void addEdge(final HashSet<NodeModel> dependencySet, final NodeModel formulaNode) {
+		if (dependencySet.add(formulaNode) && !closures.isEmpty())
+			closures.clear();
+	}
+
+	/** the closures contain the branch dependencies of the ancestors of the changed nodes, so they have to be
+	 * dropped if nodes are inserted, moved or deleted. */
+	public void structureChanged() {
+		closures.clear();
+	}
+
 	private HashSet<NodeModel> getDependencySet(final NodeModel accessedNode,
 	                                            final HashMap<NodeModel, HashSet<NodeModel>> dependenciesMap) {
 		HashSet<NodeModel> set = dependenciesMap.get(accessedNode);
@@ -0,0 +1,204 @@
+package org.freeplane.plugin.script;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.freeplane.core.util.HtmlUtils;
+import org.freeplane.core.util.LogUtils;
+import org.freeplane.features.attribute.NodeAttributeTableModel;
+import org.freeplane.features.format.FormattedFormula;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.note.NoteModel;
+import org.freeplane.features.text.DetailTextModel;
+import org.freeplane.features.text.TextController;
+
+/** Recalculates all formulas of a map in dependency order.
+ * <p>
+ * The dependency graph is built from the {@link EvaluationDependencies} recorded by previous evaluations and split
+ * into strongly connected components before anything is evaluated. Since the components are evaluated in
+ * topological order every formula finds the values of the formulas it depends on in the {@link FormulaCache},
+ * so no recursive evaluation is necessary. Components with more than one node are circular references; they are
+ * not evaluated here but when their nodes are displayed, which reports the cycle via {@link ScriptContext}.
+ * Like {@link org.freeplane.features.text.TextController#isTextFormattingDisabled(NodeModel) unformatted} text,
+ * the formulas of nodes without text formatting are not evaluated.
+ * <p>
+ * Evaluation is sequential: {@link ScriptingEngine} replaces the process wide security manager and
+ * <code>System.out</code> for every script, and neither the formula cache nor the dependencies are threadsafe.
+ * <p>
+ * Not threadsafe, must be used from the event dispatch thread. */
+public class FormulaRecalculation {
+	private final MapModel map;
+	private final List<NodeModel> formulaNodes = new ArrayList<NodeModel>();
+	private final HashMap<NodeModel, List<NodeModel>> prerequisites = new HashMap<NodeModel, List<NodeModel>>();
+	// Tarjan's algorithm
+	private final HashMap<NodeModel, Integer> indices = new HashMap<NodeModel, Integer>();
+	private final HashMap<NodeModel, Integer> lowLinks = new HashMap<NodeModel, Integer>();
+	private final ArrayList<NodeModel> componentStack = new ArrayList<NodeModel>();
+	private final HashSet<NodeModel> onComponentStack = new HashSet<NodeModel>();
+	private final List<List<NodeModel>> components = new ArrayList<List<NodeModel>>();
+
+	public FormulaRecalculation(final MapModel map) {
+		this.map = map;
+	}
+
+	/** clears all cached formula values and dependencies of the map and evaluates all formulas again. */
+	public void run() {
+		collectFormulaNodes(map.getRootNode(), TextController.getController());
+		findEvaluationOrder(formulaNodes, map.getExtension(EvaluationDependencies.class));
+		FormulaUtils.clearCache(map);
+		for (List<NodeModel> component : components) {
+			if (component.size() > 1) {
+				LogUtils.info("circular reference between " + component);
+				continue;
+			}
+			evaluate(component.get(0));
+		}
+	}
+
+	private void collectFormulaNodes(final NodeModel root, final TextController textController) {
+		final ArrayList<NodeModel> stack = new ArrayList<NodeModel>();
+		stack.add(root);
+		while (!stack.isEmpty()) {
+			final NodeModel node = stack.remove(stack.size() - 1);
+			if (!textController.isTextFormattingDisabled(node) && containsFormula(node))
+				formulaNodes.add(node);
+			stack.addAll(node.getChildren());
+		}
+	}
+
+	private boolean containsFormula(final NodeModel node) {
+		if (containsFormula(node.getText()) || containsFormula(DetailTextModel.getDetailTextText(node))
+		        || containsFormula(NoteModel.getNoteText(node)))
+			return true;
+		final NodeAttributeTableModel attributes = NodeAttributeTableModel.getModel(node);
+		for (int row = 0; row < attributes.getRowCount(); row++) {
+			if (containsFormula(attributes.getValue(row)))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean containsFormula(final Object content) {
+		if (content instanceof FormattedFormula)
+			return true;
+		return content instanceof String && FormulaUtils.containsFormulaCheckHTML((String) content);
+	}
+
+	/** splits the formula nodes into the strongly connected components of their dependency graph. A component
+	 * only depends on the components before it. */
+	List<List<NodeModel>> findEvaluationOrder(final List<NodeModel> formulaNodes,
+	                                          final EvaluationDependencies dependencies) {
+		if (dependencies != null)
+			buildDependencyGraph(formulaNodes, dependencies);
+		for (NodeModel node : formulaNodes) {
+			if (!indices.containsKey(node))
+				findComponents(node);
+		}
+		return components;
+	}
+
+	private void buildDependencyGraph(final List<NodeModel> formulaNodes, final EvaluationDependencies dependencies) {
+		final HashSet<NodeModel> formulaNodeSet = new HashSet<NodeModel>(formulaNodes);
+		for (NodeModel node : formulaNodes) {
+			final LinkedHashSet<NodeModel> dependentNodes = new LinkedHashSet<NodeModel>();
+			dependencies.getDirectDependencies(dependentNodes, node);
+			for (NodeModel dependentNode : dependentNodes) {
+				if (dependentNode != node && formulaNodeSet.contains(dependentNode))
+					getPrerequisites(dependentNode).add(node);
+			}
+		}
+	}
+
+	private List<NodeModel> getPrerequisites(final NodeModel node) {
+		List<NodeModel> list = prerequisites.get(node);
+		if (list == null) {
+			list = new ArrayList<NodeModel>();
+			prerequisites.put(node, list);
+		}
+		return list;
+	}
+
+	private Iterator<NodeModel> prerequisitesIterator(final NodeModel node) {
+		final List<NodeModel> list = prerequisites.get(node);
+		if (list == null)
+			return Collections.<NodeModel> emptyList().iterator();
+		return list.iterator();
+	}
+
+	/** Tarjan's algorithm with an explicit stack since dependency chains may be longer than the thread's stack.
+	 * A component is completed only after all components it depends on, so {@link #components} is in
+	 * evaluation order. */
+	private void findComponents(final NodeModel start) {
+		final ArrayList<NodeModel> callStack = new ArrayList<NodeModel>();
+		final ArrayList<Iterator<NodeModel>> iterators = new ArrayList<Iterator<NodeModel>>();
+		visit(start, callStack, iterators);
+		while (!callStack.isEmpty()) {
+			final int top = callStack.size() - 1;
+			final NodeModel node = callStack.get(top);
+			final Iterator<NodeModel> iterator = iterators.get(top);
+			if (iterator.hasNext()) {
+				final NodeModel prerequisite = iterator.next();
+				if (!indices.containsKey(prerequisite))
+					visit(prerequisite, callStack, iterators);
+				else if (onComponentStack.contains(prerequisite))
+					lowLinks.put(node, Math.min(lowLinks.get(node), indices.get(prerequisite)));
+				continue;
+			}
+			callStack.remove(top);
+			iterators.remove(top);
+			if (top > 0) {
+				final NodeModel caller = callStack.get(top - 1);
+				lowLinks.put(caller, Math.min(lowLinks.get(caller), lowLinks.get(node)));
+			}
+			if (lowLinks.get(node).equals(indices.get(node))) {
+				final ArrayList<NodeModel> component = new ArrayList<NodeModel>(1);
+				NodeModel member;
+				do {
+					member = componentStack.remove(componentStack.size() - 1);
+					onComponentStack.remove(member);
+					component.add(member);
+				} while (member != node);
+				components.add(component);
+			}
+		}
+	}
+
+	private void visit(final NodeModel node, final List<NodeModel> callStack, final List<Iterator<NodeModel>> iterators) {
+		final Integer index = indices.size();
+		indices.put(node, index);
+		lowLinks.put(node, index);
+		componentStack.add(node);
+		onComponentStack.add(node);
+		callStack.add(node);
+		iterators.add(prerequisitesIterator(node));
+	}
+
+	private void evaluate(final NodeModel node) {
+		evaluate(node, node.getText());
+		evaluate(node, DetailTextModel.getDetailTextText(node));
+		evaluate(node, NoteModel.getNoteText(node));
+		final NodeAttributeTableModel attributes = NodeAttributeTableModel.getModel(node);
+		for (int row = 0; row < attributes.getRowCount(); row++) {
+			evaluate(node, attributes.getValue(row));
+		}
+	}
+
+	private void evaluate(final NodeModel node, Object content) {
+		if (content instanceof FormattedFormula)
+			content = ((FormattedFormula) content).getObject();
+		if (!containsFormula(content))
+			return;
+		try {
+			FormulaUtils.evalIfScript(node, null, HtmlUtils.htmlToPlain((String) content));
+		}
+		catch (ExecuteScriptException e) {
+			// cached by FormulaUtils.eval() and reported when the node is displayed
+		}
+	}
+}
@@ -96,12 +96,10 @@ public class FormulaUtils {
 	}
 
 	public static List<NodeModel> manageChangeAndReturnDependencies(boolean includeChanged, final NodeModel... nodes) {
-		final ArrayList<NodeModel> dependencies = new ArrayList<NodeModel>();
+		// a set since the dependencies of the nodes in a batch usually overlap
+		final LinkedHashSet<NodeModel> dependencies = new LinkedHashSet<NodeModel>();
 		for (int i = 0; i < nodes.length; i++) {
-			final LinkedHashSet<NodeModel> nodeDependencies = new LinkedHashSet<NodeModel>(0);
-			getEvaluationDependencies(nodes[i].getMap()).getDependencies(nodeDependencies, nodes[i]);
-			if (nodeDependencies != null)
-				dependencies.addAll(nodeDependencies);
+			getEvaluationDependencies(nodes[i].getMap()).getDependencies(dependencies, nodes[i]);
 			if (includeChanged)
 				dependencies.add(nodes[i]);
 		}
@@ -110,7 +108,7 @@ public class FormulaUtils {
 				getFormulaCache(nodeModel.getMap()).markAsDirtyIfFormulaNode(nodeModel);
 			}
 		}
-		return dependencies;
+		return new ArrayList<NodeModel>(dependencies);
 	}
 
 	private static FormulaCache getFormulaCache(MapModel map) {
@@ -136,13 +134,20 @@ public class FormulaUtils {
 	}
 
 	public static void accessBranch(NodeModel accessingNode, NodeModel accessedNode) {
-		getEvaluationDependencies(accessingNode.getMap()).accessBranch(accessingNode, accessingNode);
+		getEvaluationDependencies(accessingNode.getMap()).accessBranch(accessingNode, accessedNode);
 	}
 
 	public static void accessAll(NodeModel accessingNode) {
 		getEvaluationDependencies(accessingNode.getMap()).accessAll(accessingNode);
 	}
 
+	/** has to be called if nodes of the map were inserted, moved or deleted. */
+	public static void structureChanged(MapModel map) {
+		final EvaluationDependencies dependencies = map.getExtension(EvaluationDependencies.class);
+		if (dependencies != null)
+			dependencies.structureChanged();
+	}
+
 	public static void clearCache(MapModel map) {
         if (DEBUG_FORMULA_EVALUATION)
             System.out.println("clearing formula cache for " + map.getTitle());
@@ -61,8 +61,10 @@ public class ScriptingEngine {
 	public static final String RESOURCES_SCRIPT_DIRECTORIES = "script_directories";
 	public static final String RESOURCES_SCRIPT_CLASSPATH = "script_classpath";
 	public static final String SCRIPT_PREFIX = "script";
+	public static final String RESOURCES_SCRIPT_COMPILATION_CACHE_SIZE = "script_compilation_cache_size";
 	private static final HashMap<String, Object> sScriptCookies = new HashMap<String, Object>();
 	private static List<String> classpath;
+	private static CompiledScriptCache compiledScriptCache;
 	public static final IErrorHandler IGNORING_SCRIPT_ERROR_HANDLER = new IErrorHandler() {
     	public void gotoLine(final int pLineNumber) {
     	}
@@ -183,20 +185,44 @@ public class ScriptingEngine {
 	private static Script compile(Object script) throws CompilationFailedException, IOException {
 		if(script instanceof Script)
 			return (Script) script;
-		final Binding binding = new Binding();
+		final Binding binding = createBinding();
+		if(script instanceof String) {
+			// formulas are evaluated over and over again: reuse the compiled class if available
+			final CompiledScriptCache cache = getCompiledScriptCache();
+			final Script cachedScript = cache.newInstance((String) script, binding);
+			if (cachedScript != null)
+				return cachedScript;
+			final Script compiledScript = createShell(binding).parse((String)script);
+			cache.put((String) script, compiledScript);
+			return compiledScript;
+		}
+		else if(script instanceof File)
+			return createShell(binding).parse((File)script);
+		else throw new IllegalArgumentException();
+    }
+
+	private static Binding createBinding() {
+	    final Binding binding = new Binding();
 		binding.setVariable("c", null);
 		binding.setVariable("node", null);
 		binding.setVariable("cookies", ScriptingEngine.sScriptCookies);
-		final ClassLoader classLoader = ScriptingEngine.class.getClassLoader();
-		final GroovyShell shell = new GroovyShell(classLoader, binding, createCompilerConfiguration()); 
-		final Script compiledScript;
-		if(script instanceof String)
-			compiledScript = shell.parse((String)script);
-		else if(script instanceof File)
-			compiledScript = shell.parse((File)script);
-		else throw new IllegalArgumentException();
-		return compiledScript;
+	    return binding;
+    }
+
+	private static GroovyShell createShell(final Binding binding) {
+	    final ClassLoader classLoader = ScriptingEngine.class.getClassLoader();
+	    return new GroovyShell(classLoader, binding, createCompilerConfiguration());
     }
+
+	/** the cache of compiled script texts that is shared by all maps. */
+	public static synchronized CompiledScriptCache getCompiledScriptCache() {
+		if (compiledScriptCache == null) {
+			final int capacity = ResourceController.getResourceController().getIntProperty(
+			    RESOURCES_SCRIPT_COMPILATION_CACHE_SIZE, 500);
+			compiledScriptCache = new CompiledScriptCache(capacity);
+		}
+		return compiledScriptCache;
+	}
 	
 	public static Script compileScriptCheckExceptions(Object script,  final IErrorHandler pErrorHandler, final PrintStream pOutStream, ScriptingPermissions permissions){
 		try{
@@ -78,6 +78,12 @@ public class ScriptCondition extends ASelectableCondition {
         return false;
 	}
 
+	@Override
+	public boolean isResultCacheable() {
+		// scripts may access any node
+		return false;
+	}
+
 	private void setErrorStatus(final String info) {
 		if(! errorReported){
 			errorReported = true;
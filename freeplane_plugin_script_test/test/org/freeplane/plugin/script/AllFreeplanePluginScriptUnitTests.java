@@ -4,7 +4,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ ConvertibleTest.class, ScriptingConfigurationTest.class })
+@Suite.SuiteClasses({ ConvertibleTest.class, ScriptingConfigurationTest.class, CompiledScriptCacheTest.class,
+        EvaluationDependenciesTest.class, FormulaRecalculationTest.class })
 public class AllFreeplanePluginScriptUnitTests {
 	//nothing
 }
@@ -0,0 +1,54 @@
+package org.freeplane.plugin.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+
+import org.junit.Test;
+
+public class CompiledScriptCacheTest {
+	@Test
+	public void testFreshInstancePerLookup() {
+		final CompiledScriptCache cache = new CompiledScriptCache(10);
+		assertNull("nothing compiled yet", cache.newInstance("1 + x", new Binding()));
+		cache.put("1 + x", new GroovyShell().parse("1 + x"));
+		final Binding binding1 = new Binding();
+		binding1.setVariable("x", 1);
+		final Binding binding2 = new Binding();
+		binding2.setVariable("x", 2);
+		final Script script1 = cache.newInstance("1 + x", binding1);
+		final Script script2 = cache.newInstance("1 + x", binding2);
+		assertNotSame("every lookup creates a new instance", script1, script2);
+		assertSame("but instances share the class", script1.getClass(), script2.getClass());
+		assertEquals(2, script1.run());
+		assertEquals(3, script2.run());
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		final CompiledScriptCache cache = new CompiledScriptCache(2);
+		final GroovyShell shell = new GroovyShell();
+		cache.put("1", shell.parse("1"));
+		cache.put("2", shell.parse("2"));
+		// touch "1" so that "2" becomes the eldest entry
+		cache.newInstance("1", new Binding());
+		cache.put("3", shell.parse("3"));
+		assertEquals(2, cache.size());
+		assertNull(cache.newInstance("2", new Binding()));
+		assertEquals(1, cache.newInstance("1", new Binding()).run());
+		assertEquals(3, cache.newInstance("3", new Binding()).run());
+	}
+
+	@Test
+	public void testZeroCapacityDisablesCaching() {
+		final CompiledScriptCache cache = new CompiledScriptCache(0);
+		cache.put("1", new GroovyShell().parse("1"));
+		assertEquals(0, cache.size());
+	}
+}
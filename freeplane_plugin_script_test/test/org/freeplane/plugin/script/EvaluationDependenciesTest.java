@@ -0,0 +1,99 @@
+package org.freeplane.plugin.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class EvaluationDependenciesTest {
+	private NodeModel createNode(String text, NodeModel parent) {
+		final NodeModel node = new NodeModel(text, null);
+		node.setParent(parent);
+		return node;
+	}
+
+	private Set<NodeModel> getDependencies(EvaluationDependencies dependencies, NodeModel node) {
+		return dependencies.getDependencies(new LinkedHashSet<NodeModel>(), node);
+	}
+
+	@Test
+	public void testTransitiveNodeDependencies() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel a = createNode("a", root);
+		final NodeModel b = createNode("=a", root);
+		final NodeModel c = createNode("=b", root);
+		dependencies.accessNode(b, a);
+		dependencies.accessNode(c, b);
+		final Set<NodeModel> result = getDependencies(dependencies, a);
+		assertEquals(2, result.size());
+		assertTrue(result.contains(b));
+		assertTrue(result.contains(c));
+		assertTrue(getDependencies(dependencies, c).isEmpty());
+	}
+
+	@Test
+	public void testBranchDependenciesOnlyAffectDescendants() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel branch = createNode("branch", root);
+		final NodeModel child = createNode("child", branch);
+		final NodeModel grandChild = createNode("grandChild", child);
+		final NodeModel sum = createNode("=sum", root);
+		dependencies.accessBranch(sum, branch);
+		assertTrue(getDependencies(dependencies, grandChild).contains(sum));
+		assertTrue(getDependencies(dependencies, child).contains(sum));
+		assertTrue("the branch root is no descendant of itself", getDependencies(dependencies, branch).isEmpty());
+		assertTrue(getDependencies(dependencies, sum).isEmpty());
+	}
+
+	@Test
+	public void testCircularDependencies() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel a = createNode("=b", root);
+		final NodeModel b = createNode("=a", root);
+		dependencies.accessNode(a, b);
+		dependencies.accessNode(b, a);
+		final Set<NodeModel> result = getDependencies(dependencies, a);
+		assertEquals(2, result.size());
+	}
+
+	@Test
+	public void testNewEdgesInvalidateMemoizedClosures() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel a = createNode("a", root);
+		final NodeModel b = createNode("=a", root);
+		final NodeModel c = createNode("=b", root);
+		final NodeModel any = createNode("=all", root);
+		dependencies.accessNode(b, a);
+		assertEquals(1, getDependencies(dependencies, a).size());
+		dependencies.accessNode(c, b);
+		assertEquals(2, getDependencies(dependencies, a).size());
+		dependencies.accessAll(any);
+		assertEquals(3, getDependencies(dependencies, a).size());
+	}
+
+	@Test
+	public void testMovedNodesInvalidateMemoizedClosures() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel branch = createNode("branch", root);
+		final NodeModel other = createNode("other", root);
+		final NodeModel child = createNode("child", other);
+		final NodeModel sum = createNode("=sum", root);
+		dependencies.accessBranch(sum, branch);
+		assertTrue(getDependencies(dependencies, child).isEmpty());
+		child.setParent(branch);
+		dependencies.structureChanged();
+		assertTrue(getDependencies(dependencies, child).contains(sum));
+		child.setParent(other);
+		dependencies.structureChanged();
+		assertTrue(getDependencies(dependencies, child).isEmpty());
+	}
+}
@@ -0,0 +1,128 @@
+package org.freeplane.plugin.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class FormulaRecalculationTest {
+	private NodeModel createNode(String text, NodeModel parent) {
+		final NodeModel node = new NodeModel(text, null);
+		node.setParent(parent);
+		return node;
+	}
+
+	private List<List<NodeModel>> findEvaluationOrder(EvaluationDependencies dependencies, NodeModel... formulaNodes) {
+		return new FormulaRecalculation(null).findEvaluationOrder(Arrays.asList(formulaNodes), dependencies);
+	}
+
+	private int indexOf(List<List<NodeModel>> components, NodeModel node) {
+		for (int i = 0; i < components.size(); i++) {
+			if (components.get(i).contains(node))
+				return i;
+		}
+		throw new AssertionError(node + " not found in " + components);
+	}
+
+	@Test
+	public void testChainIsEvaluatedInDependencyOrder() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel a = createNode("=1", root);
+		final NodeModel b = createNode("=a", root);
+		final NodeModel c = createNode("=b", root);
+		dependencies.accessNode(b, a);
+		dependencies.accessNode(c, b);
+		final List<List<NodeModel>> components = findEvaluationOrder(dependencies, c, b, a);
+		assertEquals(3, components.size());
+		assertEquals(Arrays.asList(a), components.get(0));
+		assertEquals(Arrays.asList(b), components.get(1));
+		assertEquals(Arrays.asList(c), components.get(2));
+	}
+
+	@Test
+	public void testDiamondIsEvaluatedOnce() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel top = createNode("=1", root);
+		final NodeModel left = createNode("=top", root);
+		final NodeModel right = createNode("=top", root);
+		final NodeModel bottom = createNode("=left + right", root);
+		dependencies.accessNode(left, top);
+		dependencies.accessNode(right, top);
+		dependencies.accessNode(bottom, left);
+		dependencies.accessNode(bottom, right);
+		final List<List<NodeModel>> components = findEvaluationOrder(dependencies, bottom, right, left, top);
+		assertEquals(4, components.size());
+		assertEquals(0, indexOf(components, top));
+		assertEquals(3, indexOf(components, bottom));
+	}
+
+	@Test
+	public void testCycleIsOneComponent() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel a = createNode("=b", root);
+		final NodeModel b = createNode("=a", root);
+		final NodeModel c = createNode("=a", root);
+		final NodeModel self = createNode("=self", root);
+		dependencies.accessNode(a, b);
+		dependencies.accessNode(b, a);
+		dependencies.accessNode(c, a);
+		dependencies.accessNode(self, self);
+		final List<List<NodeModel>> components = findEvaluationOrder(dependencies, c, a, b, self);
+		assertEquals(3, components.size());
+		final int cycle = indexOf(components, a);
+		assertEquals(new HashSet<NodeModel>(Arrays.asList(a, b)), new HashSet<NodeModel>(components.get(cycle)));
+		assertTrue(cycle < indexOf(components, c));
+		assertEquals("a formula accessing its own node is no cycle", Arrays.asList(self),
+		    components.get(indexOf(components, self)));
+	}
+
+	@Test
+	public void testBranchDependencies() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final NodeModel branch = createNode("branch", root);
+		final NodeModel child = createNode("=2", branch);
+		final NodeModel sum = createNode("=branch.children.sum", root);
+		dependencies.accessBranch(sum, branch);
+		final List<List<NodeModel>> components = findEvaluationOrder(dependencies, sum, child);
+		assertEquals(Arrays.asList(Arrays.asList(child), Arrays.asList(sum)), components);
+	}
+
+	@Test
+	public void testLongChainNeedsNoRecursion() {
+		final EvaluationDependencies dependencies = new EvaluationDependencies();
+		final NodeModel root = createNode("root", null);
+		final ArrayList<NodeModel> nodes = new ArrayList<NodeModel>();
+		NodeModel previous = null;
+		for (int i = 0; i < 100000; i++) {
+			final NodeModel node = createNode("=previous", root);
+			if (previous != null)
+				dependencies.accessNode(node, previous);
+			nodes.add(0, node);
+			previous = node;
+		}
+		final List<List<NodeModel>> components = new FormulaRecalculation(null).findEvaluationOrder(nodes,
+		    dependencies);
+		assertEquals(nodes.size(), components.size());
+		assertEquals(Arrays.asList(nodes.get(nodes.size() - 1)), components.get(0));
+		assertEquals(Arrays.asList(nodes.get(0)), components.get(nodes.size() - 1));
+	}
+
+	@Test
+	public void testWithoutDependencies() {
+		final NodeModel root = createNode("root", null);
+		final NodeModel a = createNode("=1", root);
+		final NodeModel b = createNode("=2", root);
+		final List<List<NodeModel>> components = findEvaluationOrder(null, a, b);
+		assertEquals(Arrays.asList(Arrays.asList(a), Arrays.asList(b)), components);
+	}
+}
@@ -28,6 +28,7 @@ import org.freeplane.plugin.workspace.features.ModeControlAlreadyRegisteredExcep
 import org.freeplane.plugin.workspace.features.WorkspaceMapModelExtension;
 import org.freeplane.plugin.workspace.features.WorkspaceModelExtensionWriterReader;
 import org.freeplane.plugin.workspace.io.FileSystemManager;
+import org.freeplane.plugin.workspace.io.FileSystemWatcher;
 import org.freeplane.plugin.workspace.mindmapmode.MModeWorkspaceController;
 import org.freeplane.plugin.workspace.model.AWorkspaceTreeNode;
 import org.freeplane.plugin.workspace.model.WorkspaceModel;
@@ -44,6 +45,7 @@ public final class WorkspaceController implements IExtension {
 	public static final String WORKSPACE_VERSION = "1.0";
 	
 	private static WorkspaceController self;
+	private static FileSystemWatcher fileSystemWatcher;
 	private static Map<Class<? extends ModeController>, Class<? extends AWorkspaceModeExtension>> modeWorkspaceCtrlMap = new HashMap<Class<? extends ModeController>, Class<? extends AWorkspaceModeExtension>>();
 	
 	private WorkspaceController(Controller controller) {
@@ -227,7 +229,12 @@ public final class WorkspaceController implements IExtension {
 			}
 			modeExt.shutdown();
 		}
-		
+		synchronized (WorkspaceController.class) {
+			if(fileSystemWatcher != null) {
+				fileSystemWatcher.stop();
+				fileSystemWatcher = null;
+			}
+		}
 	}
 	
 	public static WorkspaceModel getCurrentModel() {
@@ -248,6 +255,13 @@ public final class WorkspaceController implements IExtension {
 	public static FileSystemManager getFileSystemMgr() {
 		return new FileSystemManager(getCurrentModeExtension().getFileTypeManager());
 	}
+	
+	public static synchronized FileSystemWatcher getFileSystemWatcher() {
+		if(fileSystemWatcher == null) {
+			fileSystemWatcher = new FileSystemWatcher();
+		}
+		return fileSystemWatcher;
+	}
 
 	public static void loadProject(AWorkspaceProject project) throws IOException {
 		getCurrentModeExtension().getProjectLoader().loadProject(project);
@@ -0,0 +1,32 @@
+package org.freeplane.plugin.workspace.io;
+
+import java.io.File;
+
+/**
+ * A change of a file reported by the {@link FileSystemWatcher}.
+ */
+public class FileChange {
+	public enum Type {
+		CREATED, MODIFIED, DELETED
+	}
+
+	private final File file;
+	private final Type type;
+
+	public FileChange(File file, Type type) {
+		this.file = file;
+		this.type = type;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String toString() {
+		return type + " " + file;
+	}
+}
@@ -0,0 +1,444 @@
+package org.freeplane.plugin.workspace.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import name.pachler.nio.file.ClosedWatchServiceException;
+import name.pachler.nio.file.FileSystems;
+import name.pachler.nio.file.Paths;
+import name.pachler.nio.file.StandardWatchEventKind;
+import name.pachler.nio.file.WatchEvent;
+import name.pachler.nio.file.WatchKey;
+import name.pachler.nio.file.WatchService;
+
+import org.freeplane.core.util.LogUtils;
+
+/**
+ * Watches files and directories and notifies the listeners about created, modified and deleted files.
+ *
+ * Directories are watched by the watch service of the operating system. If it is not available or a directory can
+ * not be watched, for example on some network drives, the files are polled instead. The changes are collected until
+ * nothing changed for a short time and are coalesced, so that saving a file reports one modification and a file
+ * created and deleted in between is not reported at all.
+ */
+public class FileSystemWatcher {
+	private static final long QUIET_PERIOD = 500;
+	private static final long POLLING_INTERVAL = 5000;
+
+	private static class FileState {
+		private final long lastModified;
+		private final long length;
+
+		private FileState(File file) {
+			lastModified = file.lastModified();
+			length = file.length();
+		}
+
+		private boolean equals(FileState state) {
+			return lastModified == state.lastModified && length == state.length;
+		}
+	}
+
+	private static class Registration {
+		private final File root;
+		private final boolean recursive;
+		private final boolean singleFile;
+		private final IFileChangeListener listener;
+		// polled files, null if the directories are watched by the watch service
+		private Map<File, FileState> polledFiles;
+
+		private Registration(File root, boolean recursive, IFileChangeListener listener) {
+			this.root = root;
+			this.recursive = recursive;
+			this.singleFile = root.isFile();
+			this.listener = listener;
+		}
+
+		private boolean covers(File file) {
+			if (singleFile) {
+				return file.equals(root);
+			}
+			if (file.equals(root) || root.equals(file.getParentFile())) {
+				return true;
+			}
+			return recursive && isAncestor(root, file);
+		}
+
+		private boolean watches(File directory) {
+			if (polledFiles != null) {
+				return false;
+			}
+			if (singleFile) {
+				return directory.equals(root.getParentFile());
+			}
+			return directory.equals(root) || recursive && isAncestor(root, directory);
+		}
+	}
+
+	private final List<Registration> registrations = new ArrayList<Registration>();
+	private final Map<File, WatchKey> keysByDirectory = new HashMap<File, WatchKey>();
+	private final Map<WatchKey, File> directoriesByKey = new HashMap<WatchKey, File>();
+	private final Map<File, FileChange.Type> pendingChanges = new LinkedHashMap<File, FileChange.Type>();
+	private WatchService watchService;
+	private Thread thread;
+	private boolean stopped = false;
+	private long lastChangeTime;
+	private long nextPollingTime;
+
+	/**
+	 * Adds a listener for the changes of a file or of the files in a directory.
+	 *
+	 * @param file the watched file or directory
+	 * @param recursive if the files in sub directories are watched, too
+	 * @param listener the listener called by the watcher thread
+	 */
+	public synchronized void addListener(File file, boolean recursive, IFileChangeListener listener) {
+		if (stopped) {
+			return;
+		}
+		start();
+		final Registration registration = new Registration(file.getAbsoluteFile(), recursive, listener);
+		registrations.add(registration);
+		if (!watchDirectories(registration)) {
+			registration.polledFiles = new HashMap<File, FileState>();
+			readFileStates(registration, registration.polledFiles);
+			releaseUnwatchedDirectories();
+			LogUtils.info("FileSystemWatcher: polling " + registration.root);
+		}
+		notifyAll();
+	}
+
+	public synchronized void removeListener(File file, IFileChangeListener listener) {
+		final File root = file.getAbsoluteFile();
+		for (Iterator<Registration> it = registrations.iterator(); it.hasNext();) {
+			final Registration registration = it.next();
+			if (registration.listener == listener && registration.root.equals(root)) {
+				it.remove();
+			}
+		}
+		releaseUnwatchedDirectories();
+	}
+
+	public synchronized void stop() {
+		stopped = true;
+		registrations.clear();
+		releaseUnwatchedDirectories();
+		if (watchService != null) {
+			try {
+				watchService.close();
+			}
+			catch (IOException e) {
+				LogUtils.warn(e);
+			}
+		}
+		notifyAll();
+	}
+
+	private void start() {
+		if (thread != null) {
+			return;
+		}
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+		}
+		catch (UnsatisfiedLinkError e) {
+			LogUtils.warn("FileSystemWatcher: no watch service available, polling files", e);
+		}
+		catch (RuntimeException e) {
+			LogUtils.warn("FileSystemWatcher: no watch service available, polling files", e);
+		}
+		nextPollingTime = System.currentTimeMillis() + POLLING_INTERVAL;
+		thread = new Thread(new Runnable() {
+			public void run() {
+				watch();
+			}
+		}, "FileSystemWatcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void watch() {
+		while (true) {
+			final long timeout;
+			synchronized (this) {
+				if (stopped) {
+					return;
+				}
+				timeout = getTimeout(System.currentTimeMillis());
+			}
+			WatchKey key = null;
+			try {
+				if (watchService != null) {
+					key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+				}
+				else {
+					synchronized (this) {
+						wait(timeout);
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				continue;
+			}
+			catch (ClosedWatchServiceException e) {
+				return;
+			}
+			final Map<Registration, List<FileChange>> deliveries;
+			synchronized (this) {
+				if (stopped) {
+					return;
+				}
+				try {
+					while (key != null) {
+						readEvents(key);
+						key = watchService.poll();
+					}
+				}
+				catch (InterruptedException e) {
+				}
+				catch (ClosedWatchServiceException e) {
+					return;
+				}
+				final long now = System.currentTimeMillis();
+				if (now >= nextPollingTime) {
+					pollFiles();
+					nextPollingTime = now + POLLING_INTERVAL;
+				}
+				deliveries = getDeliveries(now);
+			}
+			for (Entry<Registration, List<FileChange>> delivery : deliveries.entrySet()) {
+				try {
+					delivery.getKey().listener.filesChanged(delivery.getValue());
+				}
+				catch (RuntimeException e) {
+					LogUtils.warn("FileSystemWatcher: listener failed", e);
+				}
+			}
+		}
+	}
+
+	private long getTimeout(long now) {
+		long timeout = nextPollingTime - now;
+		if (!pendingChanges.isEmpty()) {
+			timeout = Math.min(timeout, lastChangeTime + QUIET_PERIOD - now);
+		}
+		return Math.max(1, timeout);
+	}
+
+	private boolean watchDirectories(Registration registration) {
+		if (registration.singleFile) {
+			return watchDirectory(registration.root.getParentFile());
+		}
+		if (!watchDirectory(registration.root)) {
+			return false;
+		}
+		return !registration.recursive || watchSubDirectories(registration.root, null);
+	}
+
+	/**
+	 * watches the sub directories and adds their files to the changes if not null
+	 */
+	private boolean watchSubDirectories(File directory, List<File> createdFiles) {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return true;
+		}
+		boolean watched = true;
+		for (File file : files) {
+			if (createdFiles != null) {
+				createdFiles.add(file);
+			}
+			if (file.isDirectory()) {
+				watched = watchDirectory(file) && watchSubDirectories(file, createdFiles) && watched;
+			}
+		}
+		return watched;
+	}
+
+	private boolean watchDirectory(File directory) {
+		if (keysByDirectory.containsKey(directory)) {
+			return true;
+		}
+		if (watchService == null || directory == null || !directory.isDirectory()) {
+			return false;
+		}
+		try {
+			final WatchKey key = Paths.get(directory.getPath()).register(watchService, StandardWatchEventKind.ENTRY_CREATE,
+					StandardWatchEventKind.ENTRY_DELETE, StandardWatchEventKind.ENTRY_MODIFY);
+			keysByDirectory.put(directory, key);
+			directoriesByKey.put(key, directory);
+			return true;
+		}
+		catch (IOException e) {
+			LogUtils.info("FileSystemWatcher: can not watch " + directory + ": " + e.getMessage());
+		}
+		catch (RuntimeException e) {
+			LogUtils.info("FileSystemWatcher: can not watch " + directory + ": " + e.getMessage());
+		}
+		return false;
+	}
+
+	private void releaseUnwatchedDirectories() {
+		for (Iterator<Entry<File, WatchKey>> it = keysByDirectory.entrySet().iterator(); it.hasNext();) {
+			final Entry<File, WatchKey> entry = it.next();
+			if (!isWatched(entry.getKey())) {
+				entry.getValue().cancel();
+				directoriesByKey.remove(entry.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	private boolean isWatched(File directory) {
+		for (Registration registration : registrations) {
+			if (registration.watches(directory)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void readEvents(WatchKey key) {
+		final File directory = directoriesByKey.get(key);
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (directory == null) {
+				continue;
+			}
+			if (event.kind() == StandardWatchEventKind.OVERFLOW) {
+				addChange(directory, FileChange.Type.MODIFIED);
+				for (Registration registration : registrations) {
+					if (registration.singleFile && registration.watches(directory)) {
+						addChange(registration.root, FileChange.Type.MODIFIED);
+					}
+				}
+				continue;
+			}
+			final File file = new File(directory, event.context().toString());
+			if (event.kind() == StandardWatchEventKind.ENTRY_CREATE) {
+				addChange(file, FileChange.Type.CREATED);
+				if (file.isDirectory() && isWatched(file)) {
+					// files created before the directory is watched
+					final List<File> createdFiles = new ArrayList<File>();
+					watchDirectory(file);
+					watchSubDirectories(file, createdFiles);
+					for (File createdFile : createdFiles) {
+						addChange(createdFile, FileChange.Type.CREATED);
+					}
+				}
+			}
+			else if (event.kind() == StandardWatchEventKind.ENTRY_DELETE) {
+				addChange(file, FileChange.Type.DELETED);
+			}
+			else if (event.kind() == StandardWatchEventKind.ENTRY_MODIFY) {
+				addChange(file, FileChange.Type.MODIFIED);
+			}
+		}
+		if (!key.reset()) {
+			// the directory is gone
+			directoriesByKey.remove(key);
+			if (directory != null) {
+				keysByDirectory.remove(directory);
+			}
+		}
+	}
+
+	private void pollFiles() {
+		for (Registration registration : registrations) {
+			if (registration.polledFiles == null) {
+				continue;
+			}
+			final Map<File, FileState> files = new HashMap<File, FileState>();
+			readFileStates(registration, files);
+			for (Entry<File, FileState> entry : files.entrySet()) {
+				final FileState formerState = registration.polledFiles.remove(entry.getKey());
+				if (formerState == null) {
+					addChange(entry.getKey(), FileChange.Type.CREATED);
+				}
+				else if (!formerState.equals(entry.getValue())) {
+					addChange(entry.getKey(), FileChange.Type.MODIFIED);
+				}
+			}
+			for (File deletedFile : registration.polledFiles.keySet()) {
+				addChange(deletedFile, FileChange.Type.DELETED);
+			}
+			registration.polledFiles = files;
+		}
+	}
+
+	private void readFileStates(Registration registration, Map<File, FileState> states) {
+		if (registration.singleFile) {
+			if (registration.root.exists()) {
+				states.put(registration.root, new FileState(registration.root));
+			}
+		}
+		else {
+			readFileStates(registration.root, registration.recursive, states);
+		}
+	}
+
+	private void readFileStates(File directory, boolean recursive, Map<File, FileState> states) {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			states.put(file, new FileState(file));
+			if (recursive && file.isDirectory()) {
+				readFileStates(file, recursive, states);
+			}
+		}
+	}
+
+	private void addChange(File file, FileChange.Type type) {
+		lastChangeTime = System.currentTimeMillis();
+		final FileChange.Type formerType = pendingChanges.remove(file);
+		if (formerType == FileChange.Type.CREATED) {
+			if (type == FileChange.Type.DELETED) {
+				return;
+			}
+			type = FileChange.Type.CREATED;
+		}
+		else if (formerType == FileChange.Type.DELETED && type == FileChange.Type.CREATED) {
+			type = FileChange.Type.MODIFIED;
+		}
+		pendingChanges.put(file, type);
+	}
+
+	private Map<Registration, List<FileChange>> getDeliveries(long now) {
+		final Map<Registration, List<FileChange>> deliveries = new LinkedHashMap<Registration, List<FileChange>>();
+		if (pendingChanges.isEmpty() || now - lastChangeTime < QUIET_PERIOD) {
+			return deliveries;
+		}
+		for (Registration registration : registrations) {
+			List<FileChange> changes = null;
+			for (Entry<File, FileChange.Type> change : pendingChanges.entrySet()) {
+				if (registration.covers(change.getKey())) {
+					if (changes == null) {
+						changes = new ArrayList<FileChange>();
+						deliveries.put(registration, changes);
+					}
+					changes.add(new FileChange(change.getKey(), change.getValue()));
+				}
+			}
+		}
+		pendingChanges.clear();
+		return deliveries;
+	}
+
+	private static boolean isAncestor(File ancestor, File file) {
+		for (File parent = file.getParentFile(); parent != null; parent = parent.getParentFile()) {
+			if (parent.equals(ancestor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,15 @@
+package org.freeplane.plugin.workspace.io;
+
+import java.util.List;
+
+public interface IFileChangeListener {
+
+	/**
+	 * Called by the watcher thread with the changes since the last call. A modified directory means that changes
+	 * were lost, its whole content has to be checked again.
+	 * 
+	 * @param changes the coalesced changes in the order they occurred
+	 */
+	void filesChanged(List<FileChange> changes);
+
+}
@@ -9,6 +9,7 @@ import java.util.Vector;
 
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
 import javax.swing.event.TreeExpansionEvent;
 import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.DefaultTreeCellRenderer;
@@ -23,6 +24,8 @@ import org.freeplane.plugin.workspace.dnd.IWorkspaceTransferableCreator;
 import org.freeplane.plugin.workspace.dnd.WorkspaceTransferable;
 import org.freeplane.plugin.workspace.event.IWorkspaceNodeActionListener;
 import org.freeplane.plugin.workspace.event.WorkspaceActionEvent;
+import org.freeplane.plugin.workspace.io.FileChange;
+import org.freeplane.plugin.workspace.io.IFileChangeListener;
 import org.freeplane.plugin.workspace.io.IFileSystemRepresentation;
 import org.freeplane.plugin.workspace.io.annotation.ExportAsAttribute;
 import org.freeplane.plugin.workspace.model.AWorkspaceTreeNode;
@@ -44,6 +47,7 @@ public class FolderLinkNode extends AFolderNode implements IWorkspaceNodeActionL
 	private boolean doMonitoring = false;
 	private boolean orderDescending = false;
 	private boolean inRefresh;
+	private transient IFileChangeListener fileChangeListener;
 	
 	public FolderLinkNode() {
 		this(AFolderNode.FOLDER_TYPE_PHYSICAL);
@@ -114,10 +118,37 @@ public class FolderLinkNode extends AFolderNode implements IWorkspaceNodeActionL
 		else {
 			if(enable != this.doMonitoring) {
 				this.doMonitoring = enable;
+				File folder = getFile();
+				if(folder == null) {
+					return;
+				}
+				if(enable) {
+					WorkspaceController.getFileSystemWatcher().addListener(folder, false, getFileChangeListener());
+				}
+				else {
+					WorkspaceController.getFileSystemWatcher().removeListener(folder, getFileChangeListener());
+				}
 			}
 		}
 	}
 	
+	private IFileChangeListener getFileChangeListener() {
+		if(fileChangeListener == null) {
+			fileChangeListener = new IFileChangeListener() {
+				public void filesChanged(List<FileChange> changes) {
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							if(isMonitoring() && getModel() != null) {
+								refresh();
+							}
+						}
+					});
+				}
+			};
+		}
+		return fileChangeListener;
+	}
+	
 	@ExportAsAttribute(name="monitor")
 	public boolean isMonitoring() {
 		return this.doMonitoring;
@@ -273,4 +304,11 @@ public class FolderLinkNode extends AFolderNode implements IWorkspaceNodeActionL
 
 	public void treeCollapsed(TreeExpansionEvent event) {		
 	}
+	
+	public void disassociateReferences() {
+		if(fileChangeListener != null && getFile() != null) {
+			WorkspaceController.getFileSystemWatcher().removeListener(getFile(), fileChangeListener);
+		}
+		super.disassociateReferences();
+	}
 }
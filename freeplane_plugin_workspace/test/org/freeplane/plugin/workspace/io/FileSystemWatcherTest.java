@@ -0,0 +1,183 @@
+package org.freeplane.plugin.workspace.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileSystemWatcherTest {
+	// longer than the polling interval, the watch service may not be available
+	private static final long TIMEOUT = 10000;
+
+	private static class RecordingListener implements IFileChangeListener {
+		private final BlockingQueue<List<FileChange>> deliveries = new LinkedBlockingQueue<List<FileChange>>();
+
+		public void filesChanged(List<FileChange> changes) {
+			deliveries.add(changes);
+		}
+
+		private Map<File, FileChange.Type> nextDelivery(long timeout) throws InterruptedException {
+			final List<FileChange> changes = deliveries.poll(timeout, TimeUnit.MILLISECONDS);
+			if (changes == null) {
+				return null;
+			}
+			final Map<File, FileChange.Type> types = new LinkedHashMap<File, FileChange.Type>();
+			for (FileChange change : changes) {
+				types.put(change.getFile(), change.getType());
+			}
+			return types;
+		}
+
+		/** collects the deliveries until the file is reported */
+		private Map<File, FileChange.Type> awaitChange(File file) throws InterruptedException {
+			final Map<File, FileChange.Type> types = new LinkedHashMap<File, FileChange.Type>();
+			final long end = System.currentTimeMillis() + TIMEOUT;
+			while (!types.containsKey(file)) {
+				final Map<File, FileChange.Type> delivery = nextDelivery(end - System.currentTimeMillis());
+				assertNotNull("no change of " + file, delivery);
+				types.putAll(delivery);
+			}
+			return types;
+		}
+	}
+
+	private FileSystemWatcher watcher;
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		watcher = new FileSystemWatcher();
+		directory = File.createTempFile("filesystemwatcher", "").getAbsoluteFile();
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@After
+	public void deleteDirectory() {
+		watcher.stop();
+		delete(directory);
+	}
+
+	private static void delete(File file) {
+		final File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static void writeFile(File file, String content) throws IOException {
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	@Test
+	public void testChangesAreCoalesced() throws Exception {
+		final RecordingListener listener = new RecordingListener();
+		watcher.addListener(directory, false, listener);
+		final File paper = new File(directory, "paper.pdf");
+		final File temporary = new File(directory, "paper.pdf.tmp");
+		writeFile(temporary, "%PDF");
+		writeFile(paper, "%PDF-1.4");
+		writeFile(paper, "%PDF-1.4 annotated");
+		temporary.delete();
+
+		final Map<File, FileChange.Type> changes = listener.awaitChange(paper);
+		assertEquals("saving a new file reports its creation once", FileChange.Type.CREATED, changes.get(paper));
+		assertFalse("a file created and deleted in between is not reported", changes.containsKey(temporary));
+		assertEquals(1, changes.size());
+		assertNull(listener.nextDelivery(1000));
+	}
+
+	@Test
+	public void testModificationsAreCoalesced() throws Exception {
+		final File paper = new File(directory, "paper.pdf");
+		writeFile(paper, "%PDF-1.4");
+		final RecordingListener listener = new RecordingListener();
+		watcher.addListener(directory, false, listener);
+		writeFile(paper, "%PDF-1.4 annotated");
+		writeFile(paper, "%PDF-1.4 annotated twice");
+
+		final Map<File, FileChange.Type> changes = listener.awaitChange(paper);
+		assertEquals(FileChange.Type.MODIFIED, changes.get(paper));
+		assertNull("the modifications are reported together", listener.nextDelivery(1000));
+	}
+
+	@Test
+	public void testSubDirectoriesAreWatchedRecursively() throws Exception {
+		final File existingDirectory = new File(directory, "existing");
+		existingDirectory.mkdir();
+		final RecordingListener listener = new RecordingListener();
+		watcher.addListener(directory, true, listener);
+
+		final File paper = new File(existingDirectory, "paper.pdf");
+		writeFile(paper, "%PDF-1.4");
+		assertEquals(FileChange.Type.CREATED, listener.awaitChange(paper).get(paper));
+
+		final File createdDirectory = new File(directory, "created");
+		final File nestedDirectory = new File(createdDirectory, "nested");
+		nestedDirectory.mkdirs();
+		final File nestedPaper = new File(nestedDirectory, "nested.pdf");
+		writeFile(nestedPaper, "%PDF-1.4");
+		final Map<File, FileChange.Type> changes = listener.awaitChange(nestedPaper);
+		assertEquals("files created with their directory are reported", FileChange.Type.CREATED, changes.get(nestedPaper));
+		assertEquals(FileChange.Type.CREATED, changes.get(createdDirectory));
+
+		final File laterPaper = new File(nestedDirectory, "later.pdf");
+		writeFile(laterPaper, "%PDF-1.4");
+		assertEquals("created directories are watched", FileChange.Type.CREATED, listener.awaitChange(laterPaper).get(laterPaper));
+	}
+
+	@Test
+	public void testSubDirectoriesAreNotWatchedWithoutRecursion() throws Exception {
+		final File subDirectory = new File(directory, "sub");
+		subDirectory.mkdir();
+		final RecordingListener recursiveListener = new RecordingListener();
+		final RecordingListener listener = new RecordingListener();
+		watcher.addListener(directory, true, recursiveListener);
+		watcher.addListener(directory, false, listener);
+
+		final File nestedPaper = new File(subDirectory, "nested.pdf");
+		writeFile(nestedPaper, "%PDF-1.4");
+		recursiveListener.awaitChange(nestedPaper);
+		final File paper = new File(directory, "paper.pdf");
+		writeFile(paper, "%PDF-1.4");
+		final Map<File, FileChange.Type> changes = listener.awaitChange(paper);
+		assertFalse(changes.containsKey(nestedPaper));
+	}
+
+	@Test
+	public void testRemovedListenerIsNotNotified() throws Exception {
+		final RecordingListener removedListener = new RecordingListener();
+		final RecordingListener listener = new RecordingListener();
+		watcher.addListener(directory, false, removedListener);
+		watcher.addListener(directory, false, listener);
+		watcher.removeListener(directory, removedListener);
+
+		final File paper = new File(directory, "paper.pdf");
+		writeFile(paper, "%PDF-1.4");
+		listener.awaitChange(paper);
+		assertNull(removedListener.nextDelivery(0));
+	}
+}
@@ -0,0 +1,194 @@
+package org.freeplane.core.io.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.freeplane.core.io.IAttributeHandler;
+import org.freeplane.core.io.IAttributeWriter;
+import org.freeplane.core.io.IElementContentHandler;
+import org.freeplane.core.io.IElementDOMHandler;
+import org.freeplane.core.io.IElementWriter;
+import org.freeplane.core.io.ITreeWriter;
+import org.freeplane.core.io.ReadManager;
+import org.freeplane.core.io.WriteManager;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLException;
+import org.freeplane.n3.nanoxml.XMLWriter;
+import org.junit.Test;
+
+/** compares the handler calls for trees written by {@link BinaryTreeWriter} with those written by {@link TreeXmlWriter}. */
+public class BinaryTreeWriterTest {
+	private static final String NODE_TEXT = "a & b <c> \"d\" 'e' \u4e2d\u00a0\tf\r\ng \uD83D\uDE00";
+	private static final String NOTE_TEXT = "a &amp; b &lt;c&gt; \u4e2d\u00a0\tf\r\ng \uD83D\uDE00";
+
+	private WriteManager createWriteManager(final int nodeCount) {
+		final WriteManager writeManager = new WriteManager();
+		writeManager.addElementWriter("map", new IElementWriter() {
+			public void writeContent(final ITreeWriter writer, final Object element, final String tag)
+			        throws IOException {
+				writer.addComment("comment");
+				writer.addElementContent("<!--usage comment-->\n");
+				writer.addElement(Integer.valueOf(nodeCount), "node");
+				writer.addElement(null, createUnknownElement());
+				writer.addElementContent("<node TEXT=\"raw &amp; \u00e4\"><richcontent TYPE=\"DETAILS\">"
+				        + "<b>raw</b></richcontent></node>\n");
+			}
+		});
+		writeManager.addAttributeWriter("node", new IAttributeWriter() {
+			public void writeAttributes(final ITreeWriter writer, final Object userObject, final String tag) {
+				final int number = ((Integer) userObject).intValue();
+				writer.addAttribute("TEXT", NODE_TEXT + number);
+				writer.addAttribute("ID", "ID_" + number);
+				writer.addAttribute("POSITION", "right");
+			}
+		});
+		writeManager.addElementWriter("node", new IElementWriter() {
+			public void writeContent(final ITreeWriter writer, final Object element, final String tag)
+			        throws IOException {
+				final int number = ((Integer) element).intValue();
+				if (number % 3 == 0) {
+					writer.addElement("\n<html>\n  <body>\n    <p>note " + NOTE_TEXT + number
+					        + "</p>\n  </body>\n</html>\n", createRichContent("NOTE"));
+				}
+				if (number % 4 == 0) {
+					writer.addElement(null, createRichContent("DETAILS"));
+				}
+				if (number > 0) {
+					writer.addElement(Integer.valueOf(number - 1), "node");
+				}
+			}
+		});
+		return writeManager;
+	}
+
+	private static XMLElement createRichContent(final String type) {
+		final XMLElement richContent = new XMLElement("richcontent");
+		richContent.setAttribute("TYPE", type);
+		return richContent;
+	}
+
+	private static XMLElement createUnknownElement() {
+		final XMLElement hook = new XMLElement("hook");
+		hook.setAttribute("NAME", "plugin");
+		final XMLElement text = hook.createElement("text");
+		text.setContent(NODE_TEXT);
+		hook.addChild(text);
+		final XMLElement data = new XMLElement("x:data", "urn:x");
+		data.setAttribute("x:key", "urn:x", "k");
+		data.setAttribute("plain", "p");
+		hook.addChild(data);
+		hook.addChild(hook.createElement("empty"));
+		return hook;
+	}
+
+	private String writeXml(final WriteManager writeManager) throws IOException {
+		final StringWriter out = new StringWriter();
+		final TreeXmlWriter writer = new TreeXmlWriter(writeManager, out);
+		writer.addElement(new Object(), new XMLElement("map"));
+		writer.flush();
+		return out.toString();
+	}
+
+	private byte[] writeBinary(final WriteManager writeManager, final boolean compressed) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final BinaryTreeWriter writer = new BinaryTreeWriter(writeManager, out, compressed);
+		writer.addElement(new Object(), new XMLElement("map"));
+		writer.finish();
+		return out.toByteArray();
+	}
+
+	private TreeXmlReader createReader(final StringBuilder trace) {
+		final ReadManager readManager = new ReadManager();
+		final IElementDOMHandler domHandler = new IElementDOMHandler() {
+			public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
+				trace.append("<").append(tag).append(">");
+				return new Object();
+			}
+
+			public void endElement(final Object parent, final String tag, final Object element, final XMLElement dom) {
+				trace.append("</").append(tag).append(" ").append(toXml(dom)).append(">");
+			}
+		};
+		readManager.addElementHandler("map", domHandler);
+		readManager.addElementHandler("node", domHandler);
+		readManager.addElementHandler("richcontent", new IElementContentHandler() {
+			public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
+				return new Object();
+			}
+
+			public void endElement(final Object parent, final String tag, final Object node,
+			                       final XMLElement attributes, final String content) {
+				trace.append("[").append(attributes.getAttribute("TYPE", null)).append(":").append(content)
+				    .append("]");
+			}
+		});
+		readManager.addAttributeHandler("node", "TEXT", new IAttributeHandler() {
+			public void setAttribute(final Object node, final String value) {
+				trace.append("TEXT=").append(value).append(";");
+			}
+		});
+		return new TreeXmlReader(readManager);
+	}
+
+	private static String toXml(final XMLElement element) {
+		final StringWriter out = new StringWriter();
+		try {
+			new XMLWriter(out).write(element, false);
+		}
+		catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+		return out.toString();
+	}
+
+	private String loadXml(final String xml) throws XMLException {
+		final StringBuilder trace = new StringBuilder();
+		createReader(trace).load(new StringReader(xml));
+		return trace.toString();
+	}
+
+	private String loadBinary(final byte[] binary) throws XMLException {
+		final StringBuilder trace = new StringBuilder();
+		createReader(trace).loadBinary(new ByteArrayInputStream(binary));
+		return trace.toString();
+	}
+
+	private void assertSameResults(final int nodeCount) throws IOException, XMLException {
+		final WriteManager writeManager = createWriteManager(nodeCount);
+		final String expected = loadXml(writeXml(writeManager));
+		Assert.assertEquals(expected, loadBinary(writeBinary(writeManager, false)));
+		Assert.assertEquals(expected, loadBinary(writeBinary(writeManager, true)));
+	}
+
+	@Test
+	public void testSmallTree() throws IOException, XMLException {
+		assertSameResults(5);
+	}
+
+	@Test
+	public void testLargeTree() throws IOException, XMLException {
+		assertSameResults(300);
+	}
+
+	@Test
+	public void testBinaryIsSmaller() throws IOException {
+		final WriteManager writeManager = createWriteManager(300);
+		final byte[] binary = writeBinary(writeManager, false);
+		Assert.assertTrue(TreeXmlReader.isBinary(binary, binary.length));
+		Assert.assertTrue(binary.length < writeXml(writeManager).getBytes("UTF-8").length);
+		Assert.assertTrue(writeBinary(writeManager, true).length < binary.length);
+	}
+
+	@Test(expected = XMLException.class)
+	public void testTruncatedInput() throws IOException, XMLException {
+		final byte[] binary = writeBinary(createWriteManager(5), false);
+		final byte[] truncated = new byte[binary.length / 2];
+		System.arraycopy(binary, 0, truncated, 0, truncated.length);
+		loadBinary(truncated);
+	}
+}
@@ -0,0 +1,127 @@
+package org.freeplane.core.io.xml;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import org.freeplane.core.io.IAttributeHandler;
+import org.freeplane.core.io.IElementContentHandler;
+import org.freeplane.core.io.IElementDOMHandler;
+import org.freeplane.core.io.ReadManager;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLException;
+
+/** Compares the load time and the garbage of {@link TreeXmlReader} using {@link XMLPullParser} and NanoXML
+ * on a large generated map. Run as a java application, JIT warm-up rounds are not reported. */
+public class XMLPullParserBenchmark {
+	private static final String[] NODE_ATTRIBUTES = { "TEXT", "ID", "CREATED", "MODIFIED", "POSITION", "FOLDED" };
+
+	public static void main(String[] args) throws XMLException {
+		final String map = createMap(new Random(1), 50000);
+		System.out.format("map with %d characters\n", map.length());
+		final TreeXmlReader reader = createReader();
+		for (int round = 0; round < 5; round++) {
+			final long[] nanoXml = measure(reader, map, true);
+			final long[] pullParser = measure(reader, map, false);
+			if (round >= 2)
+				System.out.format("NanoXML: %5d ms %6d KB, pull parser: %5d ms %6d KB\n", nanoXml[0], nanoXml[1],
+				    pullParser[0], pullParser[1]);
+		}
+	}
+
+	private static String createMap(final Random random, final int nodeCount) {
+		final String[] words = { "the", "network", "article", "approximate", "brown", "fox", "a", "mind", "map",
+		        "node", "filter", "featured", "jumps", "quick", "&amp;", "&lt;b&gt;" };
+		final StringBuilder sb = new StringBuilder(nodeCount * 300);
+		sb.append("<map version=\"freeplane 1.2.0\">\n");
+		int depth = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			sb.append("<node TEXT=\"");
+			for (int w = random.nextInt(8); w >= 0; w--) {
+				sb.append(words[random.nextInt(words.length)]).append(' ');
+			}
+			sb.append("\" ID=\"ID_").append(random.nextInt(Integer.MAX_VALUE)).append("\" CREATED=\"1345032519023\"")
+			    .append(" MODIFIED=\"1345032519023\" POSITION=\"right\">\n");
+			if (random.nextInt(4) == 0) {
+				sb.append("<font NAME=\"SansSerif\" SIZE=\"12\" BOLD=\"true\"/>\n<edge COLOR=\"#808080\"/>\n");
+			}
+			if (random.nextInt(8) == 0) {
+				sb.append("<richcontent TYPE=\"NOTE\">\n<html>\n  <head>\n\n  </head>\n  <body>\n    <p>\n");
+				for (int w = random.nextInt(40); w >= 0; w--) {
+					sb.append(words[random.nextInt(words.length)]).append(' ');
+				}
+				sb.append("\n    </p>\n  </body>\n</html>\n</richcontent>\n");
+			}
+			if (random.nextInt(5) == 0) {
+				sb.append("<attribute NAME=\"key\" VALUE=\"value ").append(i).append("\"/>\n");
+			}
+			if (depth > 0 && random.nextInt(3) != 0) {
+				sb.append("</node>\n");
+				for (int close = random.nextInt(depth); close > 0; close--, depth--) {
+					sb.append("</node>\n");
+				}
+			}
+			else {
+				depth++;
+			}
+		}
+		for (; depth > 0; depth--) {
+			sb.append("</node>\n");
+		}
+		sb.append("</map>\n");
+		return sb.toString();
+	}
+
+	private static TreeXmlReader createReader() {
+		final ReadManager readManager = new ReadManager();
+		final IElementDOMHandler domHandler = new IElementDOMHandler() {
+			public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
+				return new Object();
+			}
+
+			public void endElement(final Object parent, final String tag, final Object element, final XMLElement dom) {
+			}
+		};
+		readManager.addElementHandler("map", domHandler);
+		readManager.addElementHandler("node", domHandler);
+		readManager.addElementHandler("richcontent", new IElementContentHandler() {
+			public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
+				return new Object();
+			}
+
+			public void endElement(final Object parent, final String tag, final Object node,
+			                       final XMLElement attributes, final String content) {
+			}
+		});
+		final IAttributeHandler attributeHandler = new IAttributeHandler() {
+			public void setAttribute(final Object node, final String value) {
+			}
+		};
+		for (final String attribute : NODE_ATTRIBUTES) {
+			readManager.addAttributeHandler("node", attribute, attributeHandler);
+		}
+		return new TreeXmlReader(readManager);
+	}
+
+	/** @return the load time in ms and the allocated memory in KB, or -1 if the JVM does not measure it */
+	private static long[] measure(final TreeXmlReader reader, final String map, final boolean useNanoXml)
+	        throws XMLException {
+		reader.setUsePullParser(!useNanoXml);
+		final long allocatedBefore = allocatedBytes();
+		final long start = System.nanoTime();
+		reader.load(new StringReader(map));
+		final long time = (System.nanoTime() - start) / 1000000;
+		final long allocated = allocatedBefore < 0 ? -1 : (allocatedBytes() - allocatedBefore) / 1024;
+		return new long[] { time, allocated };
+	}
+
+	private static long allocatedBytes() {
+		final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread()
+			    .getId());
+		}
+		return -1;
+	}
+}
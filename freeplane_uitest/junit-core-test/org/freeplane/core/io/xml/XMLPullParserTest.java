@@ -0,0 +1,137 @@
+package org.freeplane.core.io.xml;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.freeplane.core.io.IAttributeHandler;
+import org.freeplane.core.io.IElementContentHandler;
+import org.freeplane.core.io.IElementDOMHandler;
+import org.freeplane.core.io.ReadManager;
+import org.freeplane.n3.nanoxml.XMLElement;
+import org.freeplane.n3.nanoxml.XMLException;
+import org.freeplane.n3.nanoxml.XMLWriter;
+import org.junit.Test;
+
+/** compares the handler calls of {@link TreeXmlReader} using {@link XMLPullParser} with those using NanoXML. */
+public class XMLPullParserTest {
+	private String load(final String xml, final boolean useNanoXml) throws XMLException {
+		final StringBuilder trace = new StringBuilder();
+		final ReadManager readManager = new ReadManager();
+		final IElementDOMHandler domHandler = new IElementDOMHandler() {
+			public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
+				trace.append("<").append(tag).append(">");
+				return new Object();
+			}
+
+			public void endElement(final Object parent, final String tag, final Object element, final XMLElement dom) {
+				trace.append("</").append(tag).append(" ").append(toXml(dom)).append(">");
+			}
+		};
+		readManager.addElementHandler("map", domHandler);
+		readManager.addElementHandler("node", domHandler);
+		readManager.addElementHandler("richcontent", new IElementContentHandler() {
+			public Object createElement(final Object parent, final String tag, final XMLElement attributes) {
+				return new Object();
+			}
+
+			public void endElement(final Object parent, final String tag, final Object node,
+			                       final XMLElement attributes, final String content) {
+				trace.append("[").append(attributes.getAttribute("TYPE", null)).append(":").append(content)
+				    .append("]");
+			}
+		});
+		readManager.addAttributeHandler("node", "TEXT", new IAttributeHandler() {
+			public void setAttribute(final Object node, final String value) {
+				trace.append("TEXT=").append(value).append(";");
+			}
+		});
+		final TreeXmlReader reader = new TreeXmlReader(readManager);
+		reader.setUsePullParser(!useNanoXml);
+		reader.load(new StringReader(xml));
+		return trace.toString();
+	}
+
+	private static String toXml(final XMLElement element) {
+		final StringWriter out = new StringWriter();
+		try {
+			new XMLWriter(out).write(element, false);
+		}
+		catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+		return out.toString();
+	}
+
+	private void assertSameResults(final String xml) throws XMLException {
+		final String expected = load(xml, true);
+		Assert.assertEquals(expected, load(xml, false));
+	}
+
+	@Test
+	public void testNodes() throws XMLException {
+		assertSameResults("<map version=\"0.9.0\">\n<node TEXT=\"root\" ID=\"ID_1\">\n"
+		        + "<node TEXT=\"child\" POSITION=\"right\"/>\n<edge COLOR=\"#808080\"/>\n"
+		        + "<node TEXT=\"second\"><font NAME=\"SansSerif\" SIZE=\"12\"/></node>\n</node>\n</map>\n");
+	}
+
+	@Test
+	public void testPrologAndComments() throws XMLException {
+		assertSameResults("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- comment -->\n"
+		        + "<!DOCTYPE map>\n<map><!-- inner comment --><node TEXT=\"a\"/></map>");
+	}
+
+	@Test
+	public void testByteOrderMark() throws XMLException {
+		// NanoXML does not skip it
+		final String xml = "<map><node TEXT=\"a\"/></map>";
+		Assert.assertEquals(load(xml, true), load("\uFEFF" + xml, false));
+	}
+
+	@Test
+	public void testEntitiesAndWhitespace() throws XMLException {
+		assertSameResults("<map>\r\n<node TEXT=\"a &amp; b &lt;c&gt; &quot;d&quot; &apos;e&apos; &#x4e2d;&#160;\tf\n\"/>\r\n"
+		        + "<attribute NAME=\"n\" VALUE=\"line&#xa;break\"/>\r<hook>\n\t some &amp; text \r\n</hook>\n</map>");
+	}
+
+	@Test
+	public void testCData() throws XMLException {
+		assertSameResults("<map><node TEXT=\"n\"><text>before<![CDATA[<b>&amp;</b>]]>after</text></node></map>");
+	}
+
+	@Test
+	public void testElementContent() throws XMLException {
+		assertSameResults("<map><node TEXT=\"n\"><richcontent TYPE=\"NOTE\">\n<html>\n  <head>\n\n  </head>\n"
+		        + "  <body>\n    <p>a &amp; b<br/><!-- c --></p>\n  </body>\n</html>\n</richcontent>"
+		        + "<richcontent TYPE=\"DETAILS\"/></node></map>");
+	}
+
+	@Test
+	public void testNamespaces() throws XMLException {
+		assertSameResults("<map xmlns:x=\"urn:x\"><x:data x:key=\"k\" plain=\"p\"><x:item/></x:data></map>");
+	}
+
+	@Test
+	public void testLongDocument() throws XMLException {
+		final StringBuilder xml = new StringBuilder("<map>");
+		for (int i = 0; i < 2000; i++) {
+			xml.append("<node TEXT=\"node ").append(i).append(" &amp; text\" ID=\"ID_").append(i).append("\">");
+			xml.append("<richcontent TYPE=\"NOTE\"><html><body><p>note ").append(i).append("</p></body></html>");
+			xml.append("</richcontent></node>\n");
+		}
+		xml.append("</map>");
+		assertSameResults(xml.toString());
+	}
+
+	@Test(expected = XMLException.class)
+	public void testUnknownEntity() throws XMLException {
+		load("<map><node TEXT=\"&unknown;\"/></map>", false);
+	}
+
+	@Test(expected = XMLException.class)
+	public void testUnclosedElement() throws XMLException {
+		load("<map><node TEXT=\"a\">", false);
+	}
+}
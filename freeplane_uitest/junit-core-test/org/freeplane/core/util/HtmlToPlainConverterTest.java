@@ -0,0 +1,65 @@
+package org.freeplane.core.util;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/** compares {@link HtmlUtils#htmlToPlain(String, boolean, boolean)} with the former {@link HtmlToPlainReference}. */
+public class HtmlToPlainConverterTest {
+	private static final String[] DOCUMENTS = {
+	        "<html>\n  <head>\n    \n  </head>\n  <body>\n    <p>\n      Hello <b>World</b>\n    </p>\n  </body>\n</html>\n",
+	        "<html>\n  <head>\n    <style type=\"text/css\">\n      p { margin-top: 0 }\n    </style>\n  </head>\n"
+	                + "  <body>\n    <p>\n      first line<br>second line\n    </p>\n    <p>\n      \n    </p>\n"
+	                + "    <p>\n      a &lt;tag&gt; &amp; &quot;quotes&quot;&nbsp;&nbsp;\n    </p>\n  </body>\n</html>",
+	        "<html><body><ul><li>one</li><li>two <i>2</i></li></ul><ol>\n<li>three</li></ol></body></html>",
+	        "<html><body><table><tr><td>a</td><td>b</td></tr>\n<tr>\n<td>c</td><td></td></tr></table></body></html>",
+	        "<html><body><dl><dt>term</dt><dd>definition</dd></dl><div>div</div><div> div </div></body></html>",
+	        "<html><body><p>no white space</p><p> <br> <br/> </p><P CLASS=x>\tupper case</P><BR></body></html>",
+	        "<html><body>&#160;&#x41;&#65;&#38;lt;&#9;&#10;&#1;&#xzz;&unknown;&AMP;&NBSP;\u00a0\n</body></html>",
+	        "<html><body><pre>  pre\n  formatted  </pre><link rel=x><label>label</label><param> <tr> </body></html>",
+	        "<html><body><!-- comment --> a > b <font color=\"red\"> red </font> <u>u</u> <o:p></o:p></body></html>",
+	        "<html><body><div><p><br> x</p></div><tr><div> <p> y</p></div></tr><div><p><p><br>z</div></body></html>",
+	        "<html><body>a <b> </b> c <td></td> d <li></li> e <dd></dd> f </body></html>",
+	        "unclosed <b tag",
+	        "a < b <i>c</i> d",
+	        "<html><body><> <<b>> </ > </></body></html>",
+	        "" };
+	private static final String[] FRAGMENTS = { "<p>", "<P class=\"x\">", "</p>", "<br>", "<br/>", "<BR>", "<div>",
+	        "</div>", "<tr>", "</tr>", "<td>", "</td>", "<dt>", "<dd>", "<ul>", "<ol>", "<li>", "</li>", "<b>",
+	        "</b>", "<html>", "<body>", "<pre>", "<link>", "<!-- c -->", "< b>", "<", ">", "<>", "</>", "&nbsp;",
+	        "&amp;", "&lt;", "&GT;", "&quot;", "&#160;", "&#32;", "&#38;lt;", "&#10;", "&x", ";", " ", " ", "  ",
+	        "\n", "\n", "\t", "\r\n", "\f", "\u00a0", "x", "Text", "\u00e4" };
+
+	private void assertSameResult(final String html) {
+		Assert.assertEquals(html, HtmlToPlainReference.htmlToPlain(html, true), HtmlUtils.htmlToPlain(html, false, true));
+		Assert.assertEquals(html, HtmlToPlainReference.htmlToPlain(html, false), HtmlUtils.htmlToPlain(html, false, false));
+	}
+
+	@Test
+	public void testDocuments() {
+		for (String html : DOCUMENTS) {
+			assertSameResult(html);
+		}
+	}
+
+	@Test
+	public void testRandomMarkup() {
+		final Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			final int length = random.nextInt(30);
+			final StringBuilder html = new StringBuilder();
+			for (int j = 0; j < length; j++) {
+				html.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+			}
+			assertSameResult(html.toString());
+		}
+	}
+
+	@Test
+	public void testStrictHtmlOnly() {
+		Assert.assertEquals("<b>no html</b>", HtmlUtils.htmlToPlain("<b>no html</b>"));
+		Assert.assertEquals("html", HtmlUtils.htmlToPlain(" <html>html</html>"));
+	}
+}
@@ -0,0 +1,64 @@
+package org.freeplane.core.util;
+
+import java.util.regex.Pattern;
+
+/** the sequence of pattern replacements that {@link HtmlToPlainConverter} replaced.
+ * Kept to verify the converter. */
+class HtmlToPlainReference {
+	private static final Pattern[] PATTERNS = new Pattern[] { 
+			Pattern.compile("(?ims)>[\n\t]+"), 
+			Pattern.compile("(?ims)[\n\t ]+"), 
+	        Pattern.compile("(?ims)<br[^>]*>"), 
+	        Pattern.compile("(?ims)<p[^>]*>\\s+"),
+	        Pattern.compile("(?ims)<div[^>]*>\\s+"), 
+	        Pattern.compile("(?ims)<tr[^>]*>\\s+"),
+	        Pattern.compile("(?ims)<dt[^>]*>"), 
+	        Pattern.compile("(?ims)<dd[^>]*>"),
+	        Pattern.compile("(?ims)<td[^>]*>"), 
+	        Pattern.compile("(?ims)<[uo]l[^>]*>"),
+	        Pattern.compile("(?ims)<li[^>]*>"), 
+	        Pattern.compile("(?ims) *</[^>]*>"),
+	        Pattern.compile("(?ims)<[^/][^>]*> *"), 
+	        Pattern.compile("^\n+"), 
+	        Pattern.compile("(?ims)&lt;"),
+	        Pattern.compile("(?ims)&gt;"), 
+	        Pattern.compile("(?ims)&quot;"), 
+	        Pattern.compile("(?ims)&nbsp;"),
+	        Pattern.compile("(?ims)&amp;"),
+	        Pattern.compile("(?ims)[ \t]+\n") };
+
+	static String htmlToPlain(final String text, final boolean removeNewLines) {
+		String intermediate = text;
+		int i = 0;
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(">");
+		if (removeNewLines)
+			intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(" ");
+		else
+			i++;
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n   ");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(" ");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n   * ");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("");
+		if (removeNewLines)
+			intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("");
+		else
+			i++;
+		intermediate = intermediate.trim();
+		intermediate = HtmlUtils.unescapeHTMLUnicodeEntity(intermediate);
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("<");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(">");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\"");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll(" ");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("&");
+		intermediate = PATTERNS[i++].matcher(intermediate).replaceAll("\n");
+		intermediate = intermediate.replace('\u00a0', ' ');
+		return intermediate;
+	}
+}
@@ -0,0 +1,70 @@
+package org.freeplane.features.filter;
+
+import java.util.Random;
+
+/** Compares the matching speed of {@link DamerauLevenshtein} with {@link DamerauLevenshteinReference}
+ * on note-sized texts. Run as a java application, JIT warm-up rounds are not reported. */
+public class DamerauLevenshteinBenchmark {
+	private static final String[] SEARCH_TERMS = { "network", "approximately", "featured article",
+	        "the quick brown fox jumps" };
+	private static final double MIN_PROBABILITY = 0.65;
+
+	public static void main(String[] args) {
+		final String[] texts = createTexts(new Random(1), 2000, 2000);
+		for (int round = 0; round < 5; round++) {
+			final long referenceTime = measureReference(texts);
+			final long optimizedTime = measureOptimized(texts);
+			if (round >= 2)
+				System.out.format("reference: %5d ms, optimized: %5d ms\n", referenceTime, optimizedTime);
+		}
+	}
+
+	private static String[] createTexts(final Random random, final int count, final int length) {
+		final String[] words = { "the", "network", "article", "approximate", "brown", "fox", "a", "mind", "map",
+		        "node", "filter", "featured", "jumps", "quick" };
+		final String[] texts = new String[count];
+		for (int i = 0; i < count; i++) {
+			final StringBuilder sb = new StringBuilder(length);
+			while (sb.length() < length) {
+				sb.append(words[random.nextInt(words.length)]).append(' ');
+			}
+			texts[i] = sb.toString();
+		}
+		return texts;
+	}
+
+	private static long measureReference(final String[] texts) {
+		final DamerauLevenshteinReference reference = new DamerauLevenshteinReference();
+		final long start = System.currentTimeMillis();
+		int matches = 0;
+		for (String searchTerm : SEARCH_TERMS) {
+			for (String text : texts) {
+				reference.init(searchTerm, text, true, false);
+				if (reference.matches(MIN_PROBABILITY))
+					matches++;
+			}
+		}
+		checkResult(matches);
+		return System.currentTimeMillis() - start;
+	}
+
+	private static long measureOptimized(final String[] texts) {
+		final DamerauLevenshtein optimized = new DamerauLevenshtein();
+		final long start = System.currentTimeMillis();
+		int matches = 0;
+		for (String searchTerm : SEARCH_TERMS) {
+			for (String text : texts) {
+				optimized.init(searchTerm, text, true, false);
+				if (optimized.matches(MIN_PROBABILITY))
+					matches++;
+			}
+		}
+		checkResult(matches);
+		return System.currentTimeMillis() - start;
+	}
+
+	private static void checkResult(final int matches) {
+		if (matches < 0)
+			throw new IllegalStateException();
+	}
+}
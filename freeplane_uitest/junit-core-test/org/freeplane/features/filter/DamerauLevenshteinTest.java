@@ -0,0 +1,79 @@
+package org.freeplane.features.filter;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/** compares {@link DamerauLevenshtein} with the straightforward {@link DamerauLevenshteinReference}. */
+public class DamerauLevenshteinTest {
+	private static final double[] THRESHOLDS = { 0.0, 0.5, 0.65, 0.8, 0.99 };
+
+	private final DamerauLevenshtein optimized = new DamerauLevenshtein();
+	private final DamerauLevenshteinReference reference = new DamerauLevenshteinReference();
+
+	private void assertSameResults(final String searchTerm, final String searchText, final boolean subStringMatch,
+	                               final boolean caseSensitive) {
+		optimized.init(searchTerm, searchText, subStringMatch, caseSensitive);
+		reference.init(searchTerm, searchText, subStringMatch, caseSensitive);
+		final String description = (subStringMatch ? "semi-global" : "global") + "(" + searchTerm + ", " + searchText
+		        + ")";
+		Assert.assertEquals(description, reference.distance(), optimized.distance());
+		for (double threshold : THRESHOLDS) {
+			Assert.assertEquals(description + " > " + threshold, reference.matches(threshold),
+			    optimized.matches(threshold));
+		}
+	}
+
+	private String randomString(final Random random, final String alphabet, final int maxLength) {
+		final int length = random.nextInt(maxLength + 1);
+		final StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testRandomStrings() {
+		final Random random = new Random(42);
+		for (int i = 0; i < 5000; i++) {
+			final String alphabet = random.nextBoolean() ? "abc" : "abcdefgh ABCä中";
+			final String searchTerm = randomString(random, alphabet, 12);
+			final String searchText = randomString(random, alphabet, 40);
+			assertSameResults(searchTerm, searchText, random.nextBoolean(), random.nextBoolean());
+		}
+	}
+
+	@Test
+	public void testLongSearchTermsWithoutBitParallelFastPath() {
+		final Random random = new Random(4711);
+		for (int i = 0; i < 200; i++) {
+			final String searchTerm = randomString(random, "abcd", 100);
+			final String searchText = randomString(random, "abcd", 150);
+			assertSameResults(searchTerm, searchText, random.nextBoolean(), true);
+		}
+	}
+
+	@Test
+	public void testTextsTooLongForCachedBuffers() {
+		final Random random = new Random(815);
+		for (int i = 0; i < 3; i++) {
+			final String searchTerm = randomString(random, "abcd", 100);
+			final String searchText = randomString(random, "abcd", 5000);
+			assertSameResults(searchTerm, searchText, true, true);
+			assertSameResults("abc", "abdc", false, true);
+		}
+	}
+
+	@Test
+	public void testTranspositionsWithinThreshold() {
+		assertSameResults("CA", "ABC", false, true);
+		assertSameResults("approximately", "aproxximatelly", true, true);
+		assertSameResults("hobbies", "hobbys", true, true);
+		assertSameResults("files", "a file is read", true, true);
+		assertSameResults("", "text", true, true);
+		assertSameResults("term", "", false, true);
+	}
+}
@@ -0,0 +1,140 @@
+package org.freeplane.features.link;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.MapWriter.Mode;
+import org.freeplane.features.map.NodeBuilder;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.UnloadedChildren;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LinkBuilderTest {
+	private static final String MAP = "<map version=\"freeplane 1.2.0\">\n"
+	        + "<node TEXT=\"root\" ID=\"ID_root\">\n"
+	        + "<node TEXT=\"source\" ID=\"ID_source\" LINK=\"#ID_target\">\n"
+	        + "<arrowlink DESTINATION=\"ID_target\" SHAPE=\"CUBIC_CURVE\" COLOR=\"#000000\" WIDTH=\"2\"/>\n"
+	        + "</node>\n"
+	        + "<node TEXT=\"folded\" ID=\"ID_folded\" FOLDED=\"true\">\n"
+	        + "<node TEXT=\"child\" ID=\"ID_child\" FOLDED=\"true\">\n"
+	        + "<node TEXT=\"target\" ID=\"ID_target\"/>\n"
+	        + "</node>\n"
+	        + "</node>\n"
+	        + "</node>\n"
+	        + "</map>\n";
+
+	private static class TestResourceController extends ResourceController {
+		private final Properties properties = new Properties();
+
+		private TestResourceController() throws IOException {
+			final InputStream defaults = getClass().getResourceAsStream(FREEPLANE_PROPERTIES);
+			try {
+				properties.load(defaults);
+			}
+			finally {
+				defaults.close();
+			}
+			properties.setProperty(NodeBuilder.RESOURCES_LOAD_FOLDING,
+			    NodeBuilder.RESOURCES_LOAD_FOLDING_FROM_MAP_DEFAULT_UNFOLD_ALL);
+		}
+
+		@Override
+		public String getFreeplaneUserDirectory() {
+			return null;
+		}
+
+		@Override
+		public Properties getProperties() {
+			return properties;
+		}
+
+		@Override
+		public String getProperty(final String key) {
+			return properties.getProperty(key);
+		}
+
+		@Override
+		public void saveProperties() {
+		}
+
+		@Override
+		public void setDefaultProperty(final String key, final String value) {
+			properties.setProperty(key, value);
+		}
+
+		@Override
+		public void setProperty(final String property, final String value) {
+			properties.setProperty(property, value);
+		}
+	}
+
+	private MapController mapController;
+	private MapModel map;
+
+	@Before
+	public void readMapLazily() throws Exception {
+		final Controller controller = new Controller(new TestResourceController());
+		Controller.setCurrentController(controller);
+		final ModeController modeController = new ModeController(controller);
+		controller.selectModeForBuild(modeController);
+		mapController = new MapController(modeController);
+		new LinkBuilder(new LinkController()).registerBy(mapController.getReadManager(),
+		    mapController.getWriteManager());
+		map = new MapModel();
+		map.setRoot(mapController.getMapReader().createNodeTreeFromXmlLazily(map, new StringReader(MAP)));
+	}
+
+	private boolean isUnloaded(final String id) {
+		return UnloadedChildren.getModel(map.getNodeForID(id)) != null;
+	}
+
+	@Test
+	public void testUnloadedIdsAreReserved() {
+		Assert.assertTrue(isUnloaded("ID_folded"));
+		Assert.assertFalse("ID_target".equals(map.generateNodeID("ID_target")));
+		Assert.assertFalse("ID_child".equals(map.generateNodeID("ID_child")));
+		Assert.assertTrue(isUnloaded("ID_folded"));
+	}
+
+	@Test
+	public void testLookupReadsUnloadedNodes() {
+		final NodeModel target = map.getNodeForID("ID_target");
+		Assert.assertNotNull(target);
+		Assert.assertEquals("ID_child", target.getParentNode().getID());
+		Assert.assertEquals("ID_folded", target.getParentNode().getParentNode().getID());
+		Assert.assertFalse(isUnloaded("ID_folded"));
+		Assert.assertFalse(isUnloaded("ID_child"));
+	}
+
+	@Test
+	public void testLinksIntoUnloadedNodesAreSaved() throws Exception {
+		final StringWriter out = new StringWriter();
+		mapController.getMapWriter().writeMapAsXml(map, out, Mode.FILE, true, false);
+		final String xml = out.toString();
+		Assert.assertTrue(xml, xml.contains("LINK=\"#ID_target\""));
+		Assert.assertTrue(xml, xml.contains("DESTINATION=\"ID_target\""));
+		Assert.assertEquals(xml, xml.indexOf("ID=\"ID_target\""), xml.lastIndexOf("ID=\"ID_target\""));
+		Assert.assertTrue(xml, xml.contains("ID=\"ID_target\""));
+	}
+
+	@Test
+	public void testUnloadedChildrenAreSavedUnchanged() throws Exception {
+		map.getNodeForID("ID_source").removeExtension(NodeLinks.class);
+		final StringWriter out = new StringWriter();
+		mapController.getMapWriter().writeMapAsXml(map, out, Mode.FILE, true, false);
+		final String xml = out.toString();
+		Assert.assertTrue(isUnloaded("ID_folded"));
+		Assert.assertTrue(xml, xml.contains("<node TEXT=\"target\" ID=\"ID_target\"/>"));
+	}
+}
@@ -0,0 +1,92 @@
+package org.freeplane.features.styles;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import junit.framework.Assert;
+
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class ResolvedStylesCacheTest {
+	private final ResolvedStylesCache cache = new ResolvedStylesCache();
+	private final Collection<IStyle> styles = Collections.<IStyle> singletonList(new StyleString("style"));
+	private final Collection<ConditionalStyleModel> noModels = Collections.emptyList();
+	private final NodeModel root = createNode("root", null);
+	private final NodeModel parent = createNode("parent", root);
+	private final NodeModel node = createNode("node", parent);
+	private final NodeModel child = createNode("child", node);
+	private final NodeModel grandChild = createNode("grand child", child);
+	private final NodeModel sibling = createNode("sibling", parent);
+
+	private NodeModel createNode(final String text, final NodeModel parent) {
+		final NodeModel node = new NodeModel(text, null);
+		if (parent != null) {
+			parent.insert(node);
+		}
+		return node;
+	}
+
+	private void putAll(final NodeModel... nodes) {
+		for (final NodeModel node : nodes) {
+			cache.put(node, styles, noModels);
+		}
+	}
+
+	private void assertCached(final boolean cached, final NodeModel... nodes) {
+		for (final NodeModel node : nodes) {
+			Assert.assertEquals(node.toString(), cached ? styles : null, cache.get(node));
+		}
+	}
+
+	@Test
+	public void testNodeChangeInvalidatesAncestorsAndDescendants() {
+		putAll(root, parent, node, child, grandChild, sibling);
+		cache.nodeChanged(node);
+		assertCached(false, root, parent, node, child, grandChild);
+		assertCached(true, sibling);
+	}
+
+	@Test
+	public void testInsertionInvalidatesAncestorsAndInsertedBranch() {
+		final NodeModel inserted = createNode("inserted", null);
+		final NodeModel insertedChild = createNode("inserted child", inserted);
+		putAll(inserted, insertedChild, root, parent, node, child, grandChild, sibling);
+		child.insert(inserted);
+		cache.structureChanged(child, inserted);
+		assertCached(false, inserted, insertedChild, child, node, parent, root);
+		assertCached(true, grandChild, sibling);
+	}
+
+	@Test
+	public void testMoveInvalidatesBothParentsAndTheirAncestors() {
+		putAll(root, parent, node, child, grandChild, sibling);
+		cache.structureChanged(node, child);
+		cache.structureChanged(sibling, child);
+		assertCached(false, root, parent, node, child, grandChild, sibling);
+	}
+
+	@Test
+	public void testModifiedConditionalStyleInvalidatesAll() {
+		final ConditionalStyleModel consulted = new ConditionalStyleModel();
+		final ConditionalStyleModel other = new ConditionalStyleModel();
+		consulted.addCondition(true, null, new StyleString("first"), false);
+		cache.put(node, styles, Arrays.asList(consulted));
+		cache.put(sibling, styles, noModels);
+		other.addCondition(true, null, new StyleString("other"), false);
+		assertCached(true, node, sibling);
+		consulted.iterator().next().setActive(false);
+		assertCached(false, node, sibling);
+		Assert.assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testModelsAddedAfterModificationAreChecked() {
+		final ConditionalStyleModel model = new ConditionalStyleModel();
+		cache.put(node, styles, Arrays.asList(model));
+		model.insertCondition(0, true, null, new StyleString("first"), false);
+		cache.put(sibling, styles, Arrays.asList(model));
+		assertCached(false, node, sibling);
+	}
+}
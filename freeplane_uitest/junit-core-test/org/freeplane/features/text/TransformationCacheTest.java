@@ -0,0 +1,123 @@
+package org.freeplane.features.text;
+
+import javax.swing.Icon;
+
+import junit.framework.Assert;
+
+import org.freeplane.features.map.MapChangeEvent;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeChangeEvent;
+import org.freeplane.features.map.NodeModel;
+import org.junit.Test;
+
+public class TransformationCacheTest {
+	private final TransformationCache cache = new TransformationCache();
+	private final MapModel map = new MapModel();
+	private final MapModel otherMap = new MapModel();
+
+	private NodeModel createNode(final String text, final MapModel map) {
+		return new NodeModel(text, map);
+	}
+
+	private void put(final NodeModel node, final Object content, final Object result) {
+		cache.put(cache.getVersion(), node, content, null, result);
+	}
+
+	@Test
+	public void testResultIsReusedForSameContentAndExtension() {
+		final NodeModel node = createNode("=1+1", map);
+		put(node, "=1+1", "2");
+		Assert.assertEquals("2", cache.get(node, "=1+1", null));
+		Assert.assertNull(cache.get(node, "=1+2", null));
+		Assert.assertNull(cache.get(node, "=1+1", "details"));
+		Assert.assertEquals(1, cache.getHits());
+		Assert.assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void testNodeChangeInvalidatesOnlyItsMap() {
+		final NodeModel node = createNode("=1", map);
+		final NodeModel sibling = createNode("=2", map);
+		final NodeModel otherNode = createNode("=3", otherMap);
+		put(node, "=1", "1");
+		put(sibling, "=2", "2");
+		put(otherNode, "=3", "3");
+		cache.nodeChanged(new NodeChangeEvent(node, NodeModel.NODE_TEXT, "=0", "=1"));
+		Assert.assertNull(cache.get(node, "=1", null));
+		Assert.assertNull("formulas may depend on any node of the same map", cache.get(sibling, "=2", null));
+		Assert.assertEquals("3", cache.get(otherNode, "=3", null));
+	}
+
+	@Test
+	public void testStructureChangeInvalidatesOnlyItsMap() {
+		final NodeModel root = createNode("root", map);
+		final NodeModel child = createNode("=1", map);
+		final NodeModel otherNode = createNode("=3", otherMap);
+		put(child, "=1", "1");
+		put(otherNode, "=3", "3");
+		cache.onNodeInserted(root, child, 0);
+		Assert.assertNull(cache.get(child, "=1", null));
+		Assert.assertEquals("3", cache.get(otherNode, "=3", null));
+		put(child, "=1", "1");
+		cache.onNodeDeleted(root, child, 0);
+		Assert.assertNull(cache.get(child, "=1", null));
+		Assert.assertEquals("3", cache.get(otherNode, "=3", null));
+	}
+
+	@Test
+	public void testMapChangeInvalidatesItsMap() {
+		final NodeModel node = createNode("=1", map);
+		final NodeModel otherNode = createNode("=3", otherMap);
+		put(node, "=1", "1");
+		put(otherNode, "=3", "3");
+		cache.mapChanged(new MapChangeEvent(this, otherMap, "property", null, null));
+		Assert.assertEquals("1", cache.get(node, "=1", null));
+		Assert.assertNull(cache.get(otherNode, "=3", null));
+		put(otherNode, "=3", "3");
+		cache.mapChanged(new MapChangeEvent(this, "property", null, null));
+		Assert.assertNull(cache.get(node, "=1", null));
+		Assert.assertNull(cache.get(otherNode, "=3", null));
+	}
+
+	@Test
+	public void testPropertyChangeInvalidatesAllMaps() {
+		final NodeModel node = createNode("=1", map);
+		final NodeModel otherNode = createNode("=3", otherMap);
+		put(node, "=1", "1");
+		put(otherNode, "=3", "3");
+		cache.propertyChanged("parse_data", "false", "true");
+		Assert.assertNull(cache.get(node, "=1", null));
+		Assert.assertNull(cache.get(otherNode, "=3", null));
+	}
+
+	@Test
+	public void testResultComputedDuringInvalidationIsNotStored() {
+		final NodeModel node = createNode("=1", map);
+		final long version = cache.getVersion();
+		cache.invalidate(map);
+		cache.put(version, node, "=1", null, "1");
+		Assert.assertNull(cache.get(node, "=1", null));
+	}
+
+	@Test
+	public void testIconIsCachedForResult() {
+		final NodeModel node = createNode("=1", map);
+		final String result = "1";
+		put(node, "=1", result);
+		final Icon[] icon = new Icon[1];
+		Assert.assertFalse(cache.getIcon(node, result, null, icon));
+		cache.putIcon(cache.getVersion(), node, result, null, null);
+		Assert.assertTrue(cache.getIcon(node, result, null, icon));
+		Assert.assertNull(icon[0]);
+		cache.invalidate(map);
+		Assert.assertFalse(cache.getIcon(node, result, null, icon));
+	}
+
+	@Test
+	public void testDisabledCacheStoresNothing() {
+		final NodeModel node = createNode("=1", map);
+		cache.setEnabled(false);
+		put(node, "=1", "1");
+		Assert.assertNull(cache.get(node, "=1", null));
+	}
+}
@@ -0,0 +1,198 @@
+package org.freeplane.features.url.mindmapmode;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BackgroundMapWriterTest {
+	private static final long TIMEOUT = 5000;
+
+	private class RecordingTask extends BackgroundMapWriter.Task {
+		private final String name;
+		private final IOException failure;
+		private boolean failureReported = false;
+
+		private RecordingTask(final String name, final IOException failure) {
+			this.name = name;
+			this.failure = failure;
+		}
+
+		private RecordingTask(final String name) {
+			this(name, null);
+		}
+
+		@Override
+		void write() throws Exception {
+			written.add(name);
+			if (failure != null) {
+				throw failure;
+			}
+		}
+
+		@Override
+		void onFailure(final Exception e) {
+			failureReported = true;
+		}
+	}
+
+	/** keeps the writer thread busy until it is released */
+	private class BlockingTask extends BackgroundMapWriter.Task {
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch released = new CountDownLatch(1);
+		private boolean finished = false;
+
+		@Override
+		void write() throws Exception {
+			started.countDown();
+			released.await(TIMEOUT, TimeUnit.MILLISECONDS);
+			finished = true;
+		}
+	}
+
+	private final List<String> written = Collections.synchronizedList(new ArrayList<String>());
+	private final BackgroundMapWriter writer = BackgroundMapWriter.getInstance();
+	private File blocked;
+	private File target;
+
+	@Before
+	public void createTargets() throws IOException {
+		blocked = File.createTempFile("blocked", ".mm");
+		target = File.createTempFile("target", ".mm");
+	}
+
+	@After
+	public void deleteTargets() {
+		writer.flush();
+		blocked.delete();
+		target.delete();
+	}
+
+	private BlockingTask block() throws InterruptedException {
+		final BlockingTask blockingTask = new BlockingTask();
+		writer.enqueue(blocked, blockingTask);
+		Assert.assertTrue(blockingTask.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+		return blockingTask;
+	}
+
+	/** failures can not be reported while the event dispatch thread is busy, as if it was waiting for the writer */
+	private CountDownLatch blockEventDispatchThread() {
+		final CountDownLatch released = new CountDownLatch(1);
+		EventQueue.invokeLater(new Runnable() {
+			public void run() {
+				try {
+					released.await(TIMEOUT, TimeUnit.MILLISECONDS);
+				}
+				catch (final InterruptedException e) {
+				}
+			}
+		});
+		return released;
+	}
+
+	private void releaseEventDispatchThread(final CountDownLatch released) throws Exception {
+		released.countDown();
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+			}
+		});
+	}
+
+	@Test
+	public void testOnlyTheLatestSnapshotIsWritten() throws Exception {
+		final BlockingTask blockingTask = block();
+		writer.enqueue(target, new RecordingTask("first"));
+		writer.enqueue(target, new RecordingTask("second"));
+		writer.enqueue(target, new RecordingTask("latest"));
+		blockingTask.released.countDown();
+		writer.waitFor(target);
+		Assert.assertEquals(Collections.singletonList("latest"), written);
+	}
+
+	@Test
+	public void testDiscardDropsQueuedTask() throws Exception {
+		final BlockingTask blockingTask = block();
+		writer.enqueue(target, new RecordingTask("discarded"));
+		writer.discard(target);
+		blockingTask.released.countDown();
+		writer.flush();
+		Assert.assertTrue(written.isEmpty());
+	}
+
+	@Test
+	public void testDiscardWaitsForRunningTask() throws Exception {
+		final BlockingTask blockingTask = block();
+		final Thread discarding = new Thread() {
+			@Override
+			public void run() {
+				writer.discard(blocked);
+			}
+		};
+		discarding.start();
+		discarding.join(200);
+		Assert.assertTrue("discard waits while the target is written", discarding.isAlive());
+		blockingTask.released.countDown();
+		discarding.join(TIMEOUT);
+		Assert.assertFalse(discarding.isAlive());
+		Assert.assertTrue(blockingTask.finished);
+	}
+
+	@Test
+	public void testWaitForWaitsForQueuedTask() throws Exception {
+		final BlockingTask blockingTask = block();
+		writer.enqueue(target, new RecordingTask("queued"));
+		final Thread releasing = new Thread() {
+			@Override
+			public void run() {
+				blockingTask.released.countDown();
+			}
+		};
+		releasing.start();
+		writer.waitFor(target);
+		Assert.assertEquals(Collections.singletonList("queued"), written);
+	}
+
+	@Test
+	public void testFailureIsReported() throws Exception {
+		final RecordingTask failingTask = new RecordingTask("failing", new IOException("disk full"));
+		writer.enqueue(target, failingTask);
+		writer.waitFor(target);
+		releaseEventDispatchThread(new CountDownLatch(0));
+		Assert.assertTrue(failingTask.failureReported);
+		Assert.assertNull(writer.waitForFailure(target));
+	}
+
+	@Test
+	public void testFailureIsTakenOnce() throws Exception {
+		final IOException failure = new IOException("disk full");
+		final CountDownLatch eventDispatchThread = blockEventDispatchThread();
+		final RecordingTask failingTask = new RecordingTask("failing", failure);
+		writer.enqueue(target, failingTask);
+		Assert.assertSame(failure, writer.waitForFailure(target));
+		Assert.assertNull(writer.waitForFailure(target));
+		releaseEventDispatchThread(eventDispatchThread);
+		Assert.assertFalse("a taken failure is not reported again", failingTask.failureReported);
+	}
+
+	@Test
+	public void testSuccessfulWriteClearsFailure() throws Exception {
+		final CountDownLatch eventDispatchThread = blockEventDispatchThread();
+		final RecordingTask failingTask = new RecordingTask("failing", new IOException("disk full"));
+		writer.enqueue(target, failingTask);
+		writer.waitFor(target);
+		writer.enqueue(target, new RecordingTask("written"));
+		Assert.assertNull(writer.waitForFailure(target));
+		releaseEventDispatchThread(eventDispatchThread);
+		Assert.assertFalse(failingTask.failureReported);
+	}
+}
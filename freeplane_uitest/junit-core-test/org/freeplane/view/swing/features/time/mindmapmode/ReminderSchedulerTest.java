@@ -0,0 +1,123 @@
+package org.freeplane.view.swing.features.time.mindmapmode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ReminderSchedulerTest {
+	private static final long PERIOD = 3600000;
+
+	private static class TestTask extends TimerBlinkTask {
+		private final CountDownLatch executed;
+		private final List<TestTask> executions;
+		private boolean onEventDispatchThread;
+
+		private TestTask(final CountDownLatch executed, final List<TestTask> executions) {
+			super(null, null, false, false);
+			this.executed = executed;
+			this.executions = executions;
+		}
+
+		@Override
+		void execute() {
+			onEventDispatchThread = SwingUtilities.isEventDispatchThread();
+			executions.add(this);
+			executed.countDown();
+		}
+	}
+
+	@Test
+	public void testDueTasksAreExecutedOnEventDispatchThread() throws InterruptedException {
+		final ReminderScheduler scheduler = ReminderScheduler.getInstance();
+		final CountDownLatch executed = new CountDownLatch(100);
+		final List<TestTask> executions = Collections.synchronizedList(new ArrayList<TestTask>());
+		final List<TestTask> tasks = new ArrayList<TestTask>();
+		for (int i = 0; i < 100; i++) {
+			final TestTask task = new TestTask(executed, executions);
+			tasks.add(task);
+			scheduler.schedule(task, new Date(), PERIOD);
+		}
+		Assert.assertTrue(executed.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals(100, executions.size());
+		for (final TestTask task : tasks) {
+			Assert.assertTrue(task.onEventDispatchThread);
+			scheduler.cancel(task);
+		}
+	}
+
+	private static class FailingTask extends TestTask {
+		private FailingTask(final CountDownLatch executed, final List<TestTask> executions) {
+			super(executed, executions);
+		}
+
+		@Override
+		void execute() {
+			super.execute();
+			throw new IllegalStateException("failing reminder");
+		}
+	}
+
+	/** keeps the batch on the event dispatch thread from running, so that the test runs it */
+	private CountDownLatch blockEventDispatchThread() {
+		final CountDownLatch released = new CountDownLatch(1);
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				try {
+					released.await(10, TimeUnit.SECONDS);
+				}
+				catch (final InterruptedException e) {
+				}
+			}
+		});
+		return released;
+	}
+
+	private void releaseEventDispatchThread(final CountDownLatch released) throws Exception {
+		released.countDown();
+		SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+			}
+		});
+	}
+
+	@Test
+	public void testCancelledTasksAreNotExecuted() throws Exception {
+		final ReminderScheduler scheduler = ReminderScheduler.getInstance();
+		final CountDownLatch executed = new CountDownLatch(1);
+		final List<TestTask> executions = Collections.synchronizedList(new ArrayList<TestTask>());
+		final TestTask cancelledInBatch = new TestTask(executed, executions);
+		final TestTask executedTask = new TestTask(executed, executions);
+		final CountDownLatch eventDispatchThread = blockEventDispatchThread();
+		scheduler.addDueTask(cancelledInBatch);
+		scheduler.addDueTask(executedTask);
+		scheduler.cancel(cancelledInBatch);
+		scheduler.runDueTasks();
+		releaseEventDispatchThread(eventDispatchThread);
+		Assert.assertEquals(Collections.singletonList(executedTask), executions);
+	}
+
+	@Test
+	public void testFailingTaskDoesNotStopBatch() throws Exception {
+		final ReminderScheduler scheduler = ReminderScheduler.getInstance();
+		final CountDownLatch executed = new CountDownLatch(2);
+		final List<TestTask> executions = Collections.synchronizedList(new ArrayList<TestTask>());
+		final TestTask failingTask = new FailingTask(executed, executions);
+		final TestTask executedTask = new TestTask(executed, executions);
+		final CountDownLatch eventDispatchThread = blockEventDispatchThread();
+		scheduler.addDueTask(failingTask);
+		scheduler.addDueTask(executedTask);
+		scheduler.runDueTasks();
+		releaseEventDispatchThread(eventDispatchThread);
+		Assert.assertEquals(Arrays.asList(failingTask, executedTask), executions);
+	}
+}
@@ -0,0 +1,82 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.freeplane.features.link.ConnectorModel;
+import org.freeplane.view.swing.map.link.ILinkView;
+import org.junit.Test;
+
+/** compares the views found by {@link LinkViewIndex} with a linear search. */
+public class LinkViewIndexTest {
+	private static class TestLinkView implements ILinkView {
+		public boolean detectCollision(final Point p, final boolean selectedOnly) {
+			return false;
+		}
+
+		public ConnectorModel getModel() {
+			return null;
+		}
+
+		public void paint(final Graphics graphics) {
+		}
+
+		public void increaseBounds(final Rectangle innerBounds) {
+		}
+	}
+
+	@Test
+	public void testRandomBounds() {
+		final Random random = new Random(42);
+		for (int run = 0; run < 100; run++) {
+			final LinkViewIndex index = new LinkViewIndex();
+			final List<ILinkView> views = new ArrayList<ILinkView>();
+			final List<Rectangle> bounds = new ArrayList<Rectangle>();
+			for (int i = 0; i < 200; i++) {
+				final ILinkView view = new TestLinkView();
+				final Rectangle viewBounds = random.nextInt(20) == 0 ? null : randomRectangle(random, 20000, 3000);
+				views.add(view);
+				bounds.add(viewBounds);
+				index.add(view, viewBounds);
+			}
+			for (int i = 0; i < 20; i++) {
+				final Rectangle area = randomRectangle(random, 20000, 5000);
+				final List<ILinkView> found = index.get(area);
+				int lastPosition = -1;
+				for (final ILinkView view : found) {
+					final int position = views.indexOf(view);
+					Assert.assertTrue("painting order", position > lastPosition);
+					lastPosition = position;
+				}
+				for (int j = 0; j < views.size(); j++) {
+					final Rectangle viewBounds = bounds.get(j);
+					final boolean expected = viewBounds == null || viewBounds.isEmpty() || viewBounds.intersects(area);
+					Assert.assertEquals(viewBounds + " intersects " + area, expected, found.contains(views.get(j)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLargeViewsAreFilteredByTheirBounds() {
+		final LinkViewIndex index = new LinkViewIndex();
+		final ILinkView large = new TestLinkView();
+		final ILinkView unbounded = new TestLinkView();
+		index.add(large, new Rectangle(0, 0, 100000, 10));
+		index.add(unbounded, null);
+		Assert.assertEquals(2, index.get(new Rectangle(50000, 0, 10, 10)).size());
+		Assert.assertEquals(1, index.get(new Rectangle(50000, 100, 10, 10)).size());
+		Assert.assertSame(unbounded, index.get(new Rectangle(50000, 100, 10, 10)).get(0));
+	}
+
+	private Rectangle randomRectangle(final Random random, final int range, final int maxSize) {
+		return new Rectangle(random.nextInt(2 * range) - range, random.nextInt(2 * range) - range,
+		    random.nextInt(maxSize), random.nextInt(maxSize));
+	}
+}
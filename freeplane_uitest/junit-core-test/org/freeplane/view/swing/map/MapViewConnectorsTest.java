@@ -0,0 +1,145 @@
+package org.freeplane.view.swing.map;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.freeplane.core.resources.ResourceController;
+import org.freeplane.features.link.ConnectorModel;
+import org.freeplane.features.link.ConnectorModel.Shape;
+import org.freeplane.features.link.MapLinks;
+import org.freeplane.features.map.MapController;
+import org.freeplane.features.map.MapModel;
+import org.freeplane.features.map.NodeBuilder;
+import org.freeplane.features.map.NodeModel;
+import org.freeplane.features.map.UnloadedChildren;
+import org.freeplane.features.mode.Controller;
+import org.freeplane.features.mode.ModeController;
+import org.junit.Before;
+import org.junit.Test;
+
+/** tests which connectors get a view in {@link MapView}. */
+public class MapViewConnectorsTest {
+	private static final String MAP = "<map version=\"freeplane 1.2.0\">\n"
+	        + "<node TEXT=\"root\" ID=\"ID_root\">\n"
+	        + "<node TEXT=\"first\" ID=\"ID_first\" FOLDED=\"true\">\n"
+	        + "<node TEXT=\"first child\" ID=\"ID_first_child\"/>\n"
+	        + "</node>\n"
+	        + "<node TEXT=\"second\" ID=\"ID_second\" FOLDED=\"true\">\n"
+	        + "<node TEXT=\"second child\" ID=\"ID_second_child\"/>\n"
+	        + "</node>\n"
+	        + "</node>\n"
+	        + "</map>\n";
+
+	private static class TestResourceController extends ResourceController {
+		private final Properties properties = new Properties();
+
+		private TestResourceController() throws IOException {
+			final InputStream defaults = getClass().getResourceAsStream(FREEPLANE_PROPERTIES);
+			try {
+				properties.load(defaults);
+			}
+			finally {
+				defaults.close();
+			}
+			properties.setProperty(NodeBuilder.RESOURCES_LOAD_FOLDING,
+			    NodeBuilder.RESOURCES_LOAD_FOLDING_FROM_MAP_DEFAULT_UNFOLD_ALL);
+		}
+
+		@Override
+		public String getFreeplaneUserDirectory() {
+			return null;
+		}
+
+		@Override
+		public Properties getProperties() {
+			return properties;
+		}
+
+		@Override
+		public String getProperty(final String key) {
+			return properties.getProperty(key);
+		}
+
+		@Override
+		public void saveProperties() {
+		}
+
+		@Override
+		public void setDefaultProperty(final String key, final String value) {
+			properties.setProperty(key, value);
+		}
+
+		@Override
+		public void setProperty(final String property, final String value) {
+			properties.setProperty(property, value);
+		}
+	}
+
+	private MapModel map;
+	private MapLinks links;
+
+	@Before
+	public void readMapLazily() throws Exception {
+		final Controller controller = new Controller(new TestResourceController());
+		Controller.setCurrentController(controller);
+		final ModeController modeController = new ModeController(controller);
+		controller.selectModeForBuild(modeController);
+		final MapController mapController = new MapController(modeController);
+		map = new MapModel();
+		map.setRoot(mapController.getMapReader().createNodeTreeFromXmlLazily(map, new StringReader(MAP)));
+		links = new MapLinks();
+		map.addExtension(links);
+	}
+
+	private ConnectorModel addConnector(final NodeModel source, final String targetID) {
+		final ConnectorModel connector = new ConnectorModel(source, targetID, Color.BLACK, 255, Shape.CUBIC_CURVE, 1,
+		    "SansSerif", 12);
+		links.add(connector);
+		return connector;
+	}
+
+	/** the nodes with a view while the branches are folded */
+	private Set<NodeModel> shownNodes() {
+		return new HashSet<NodeModel>(Arrays.asList(map.getRootNode(), map.getNodeForID("ID_first"),
+		    map.getNodeForID("ID_second")));
+	}
+
+	@Test
+	public void testConnectorsBetweenFoldedNodesAreNotShown() {
+		final NodeModel first = map.getNodeForID("ID_first");
+		final NodeModel second = map.getNodeForID("ID_second");
+		final ConnectorModel shownConnector = addConnector(first, "ID_second");
+		first.getChildren();
+		second.getChildren();
+		addConnector(map.getNodeForID("ID_first_child"), "ID_second_child");
+		Assert.assertEquals(Collections.singletonList(shownConnector), MapView.getShownConnectors(map, shownNodes()));
+	}
+
+	@Test
+	public void testUnloadedTargetsOfHiddenSourcesAreNotRead() {
+		final NodeModel first = map.getNodeForID("ID_first");
+		first.getChildren();
+		addConnector(map.getNodeForID("ID_first_child"), "ID_second_child");
+		Assert.assertTrue(MapView.getShownConnectors(map, shownNodes()).isEmpty());
+		Assert.assertNotNull("the target stays unloaded", UnloadedChildren.getModel(map.getNodeForID("ID_second")));
+	}
+
+	@Test
+	public void testConnectorsToFoldedNodesAreShown() {
+		final ConnectorModel fromRoot = addConnector(map.getRootNode(), "ID_second_child");
+		Assert.assertEquals(Collections.singletonList(fromRoot), MapView.getShownConnectors(map, shownNodes()));
+		map.getNodeForID("ID_first").getChildren();
+		final ConnectorModel toRoot = addConnector(map.getNodeForID("ID_first_child"), "ID_root");
+		Assert.assertEquals(new HashSet<ConnectorModel>(Arrays.asList(fromRoot, toRoot)), new HashSet<ConnectorModel>(
+		    MapView.getShownConnectors(map, shownNodes())));
+	}
+}